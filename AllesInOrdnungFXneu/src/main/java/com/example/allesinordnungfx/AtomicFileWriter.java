@@ -0,0 +1,214 @@
+package com.example.allesinordnungfx;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+Die Klasse AtomicFileWriter schreibt Dateien absturzsicher.
+Der Inhalt wird zuerst in eine temporäre Datei im selben Verzeichnis geschrieben, diese wird mit
+FileChannel.force() auf die Festplatte gebracht und anschließend atomar über die eigentliche Datei
+verschoben. Bei einem Absturz bleibt damit immer entweder der alte oder der neue, vollständige Inhalt
+erhalten - nie eine halb geschriebene Datei.
+
+Mit einem Batch (Group Commit) können mehrere Dateien gemeinsam geschrieben werden:
+Alle temporären Dateien werden zuerst geschrieben, dann nacheinander mit force() auf die Festplatte gebracht
+(je Datei ein force(), Java bietet kein gemeinsames Sync über mehrere Dateien), danach umbenannt.
+Gebündelt wird dabei die Synchronisierung der Verzeichnisse: Jedes betroffene Verzeichnis wird nur einmal
+pro Batch synchronisiert, statt einmal je Datei.
+*/
+public class AtomicFileWriter {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long STALE_TEMP_FILE_AGE_MILLIS = 10 * 60 * 1000; // Übrig gebliebene Temp-Dateien nach 10 Minuten löschen
+
+    // Callback, der den Inhalt der Datei in den übergebenen Writer schreibt (UTF-8)
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    // Callback für Binärdateien, der den Inhalt in den übergebenen OutputStream schreibt
+    @FunctionalInterface
+    public interface BinaryContent {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    // Callback, der nach dem erfolgreichen Umbenennen ausgeführt wird (z. B. Journal kürzen)
+    @FunctionalInterface
+    public interface CommitAction {
+        void run() throws IOException;
+    }
+
+    // Schreibt eine einzelne Datei atomar (entspricht einem Batch mit genau einer Datei)
+    public static void write(File target, Content content) throws IOException {
+        Batch batch = new Batch();
+        batch.stage(target, content, null);
+        batch.commit();
+    }
+
+    // Schreibt eine einzelne Binärdatei atomar
+    public static void writeBinary(File target, BinaryContent content) throws IOException {
+        Batch batch = new Batch();
+        batch.stageBinary(target, content, null);
+        batch.commit();
+    }
+
+    /*
+    Löscht temporäre Dateien, die von einem abgebrochenen Schreibvorgang übrig geblieben sind.
+    Es werden nur ältere Dateien gelöscht, damit ein gleichzeitig laufender Schreibvorgang nicht gestört wird.
+    */
+    public static void deleteStaleTempFiles(File directory) {
+        File[] tempFiles = directory.listFiles((dir, name) -> name.startsWith(".") && name.endsWith(TEMP_SUFFIX));
+        if (tempFiles == null) return;
+        long now = System.currentTimeMillis();
+        for (File tempFile : tempFiles) {
+            if (now - tempFile.lastModified() > STALE_TEMP_FILE_AGE_MILLIS && tempFile.delete()) {
+                System.out.println("Deleted stale temporary file: " + tempFile);
+            }
+        }
+    }
+
+    /*
+    Ein Batch sammelt mehrere Dateien, die gemeinsam festgeschrieben werden.
+    stage() schreibt den Inhalt in eine temporäre Datei, commit() bringt alle temporären Dateien
+    auf die Festplatte, verschiebt sie an ihr Ziel und führt die zugehörigen CommitActions aus.
+    */
+    public static class Batch {
+
+        private final List<Entry> entries = new ArrayList<>();
+
+        private record Entry(Path tempFile, Path target, CommitAction onCommitted) {
+        }
+
+        // Schreibt Text (UTF-8) in eine temporäre Datei; gibt deren Größe in Bytes zurück
+        public long stage(File target, Content content, CommitAction onCommitted) throws IOException {
+            return stageBinary(target, out -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                content.writeTo(writer);
+                writer.flush();
+            }, onCommitted);
+        }
+
+        // Schreibt Binärdaten in eine temporäre Datei; gibt deren Größe in Bytes zurück
+        public long stageBinary(File target, BinaryContent content, CommitAction onCommitted) throws IOException {
+            Path targetPath = target.toPath().toAbsolutePath();
+            Path tempFile = Files.createTempFile(targetPath.getParent(), "." + target.getName() + ".", TEMP_SUFFIX);
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile.toFile()), 64 * 1024)) {
+                content.writeTo(out);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            entries.add(new Entry(tempFile, targetPath, onCommitted));
+            return Files.size(tempFile);
+        }
+
+        public boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        public int size() {
+            return entries.size();
+        }
+
+        /*
+        Schreibt alle gesammelten Dateien fest. Schlägt eine Datei fehl, werden die übrigen trotzdem
+        festgeschrieben; der erste Fehler wird am Ende weitergeworfen.
+        */
+        public void commit() throws IOException {
+            IOException firstError = null;
+            List<Entry> durable = new ArrayList<>();
+
+            // 1. Jede temporäre Datei vor dem Umbenennen auf die Festplatte bringen (ein force() je Datei)
+            for (Entry entry : entries) {
+                try (FileChannel channel = FileChannel.open(entry.tempFile(), StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                    durable.add(entry);
+                } catch (IOException e) {
+                    Files.deleteIfExists(entry.tempFile());
+                    firstError = firstError == null ? e : firstError;
+                }
+            }
+
+            // 2. Atomar umbenennen
+            Set<Path> directories = new LinkedHashSet<>();
+            List<Entry> committed = new ArrayList<>();
+            for (Entry entry : durable) {
+                try {
+                    move(entry.tempFile(), entry.target());
+                    directories.add(entry.target().getParent());
+                    committed.add(entry);
+                } catch (IOException e) {
+                    Files.deleteIfExists(entry.tempFile());
+                    firstError = firstError == null ? e : firstError;
+                }
+            }
+
+            // 3. Jedes Verzeichnis nur einmal synchronisieren, damit die Umbenennungen dauerhaft sind
+            for (Path directory : directories) {
+                syncDirectory(directory);
+            }
+
+            // 4. Nachgelagerte Aktionen erst ausführen, wenn die Dateien sicher geschrieben sind
+            for (Entry entry : committed) {
+                if (entry.onCommitted() == null) continue;
+                try {
+                    entry.onCommitted().run();
+                } catch (IOException e) {
+                    firstError = firstError == null ? e : firstError;
+                }
+            }
+            entries.clear();
+
+            if (firstError != null) {
+                throw firstError;
+            }
+        }
+
+        // Verwirft alle gesammelten temporären Dateien
+        public void abort() {
+            for (Entry entry : entries) {
+                try {
+                    Files.deleteIfExists(entry.tempFile());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            entries.clear();
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING); // Fallback für Dateisysteme ohne atomares Umbenennen
+        }
+    }
+
+    // Unter Windows lassen sich Verzeichnisse nicht öffnen - dort ist die Umbenennung ohnehin bereits dauerhaft
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Wird ignoriert, siehe Kommentar oben
+        }
+    }
+}
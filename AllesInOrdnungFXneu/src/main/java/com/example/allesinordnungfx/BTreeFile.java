@@ -0,0 +1,624 @@
+package com.example.allesinordnungfx;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+Die Klasse BTreeFile ist ein einfacher, seitenbasierter B+-Baum in einer einzelnen Datei.
+Schlüssel und Werte sind Byte-Arrays, die Schlüssel werden vorzeichenlos lexikographisch sortiert.
+
+Aufbau der Datei (Seiten zu je 4 KB):
+- Seite 0: Header (Magic, Version, Seitengröße, Wurzelseite, Anzahl Seiten, erste freie Seite)
+- Blattseiten: Schlüssel mit Werten, verkettet über einen Zeiger auf das nächste Blatt (für Bereichsabfragen)
+- Innere Seiten: Schlüssel mit Zeigern auf die Kindseiten
+- Überlaufseiten: Werte, die größer als MAX_INLINE_VALUE sind, werden in einer Kette eigener Seiten abgelegt
+- Freie Seiten werden in einer Liste verkettet und wiederverwendet
+
+Jede Änderung (put, delete) ist eine eigene Transaktion; mit begin()/commit() lassen sich mehrere Änderungen
+zusammenfassen. Vor dem Schreiben wird der ursprüngliche Inhalt aller geänderten Seiten in ein
+Rollback-Journal ("<Datei>-journal") geschrieben. Bricht die Anwendung während commit() ab, wird beim
+nächsten Öffnen der alte Stand aus dem Journal wiederhergestellt.
+
+Beim Löschen werden Seiten nicht zusammengelegt; leere Blätter bleiben Teil des Baums.
+Die Klasse ist nicht thread-sicher, der Aufrufer (PagedCollectionStore) synchronisiert die Zugriffe.
+*/
+public class BTreeFile implements Closeable {
+
+    public static final int PAGE_SIZE = 4096;
+    public static final int MAX_KEY_LENGTH = 512;
+    private static final int MAX_INLINE_VALUE = 1024;
+
+    private static final int MAGIC = 0x41494F42; // "AIOB"
+    private static final int VERSION = 1;
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final int OVERFLOW_HEADER = 8; // nächste Seite (int), Länge der Daten in dieser Seite (int)
+    private static final int PAGE_CACHE_SIZE = 256; // Anzahl zwischengespeicherter Seiten (1 MB)
+
+    // Callback für Bereichsabfragen; gibt false zurück, um die Abfrage abzubrechen
+    @FunctionalInterface
+    public interface EntryVisitor {
+        boolean visit(byte[] key, byte[] value) throws IOException;
+    }
+
+    // Eine Seite im Speicher: Blatt (Schlüssel + Werte) oder innere Seite (Schlüssel + Kinder)
+    private static final class Node {
+        final boolean leaf;
+        final List<byte[]> keys = new ArrayList<>();
+        final List<byte[]> values = new ArrayList<>(); // Blatt: gespeicherte Form (inline oder Verweis auf Überlaufseiten)
+        final List<Integer> children = new ArrayList<>(); // Innere Seite: keys.size() + 1 Kinder
+        int next; // Blatt: nächstes Blatt (0 = keines)
+
+        Node(boolean leaf) {
+            this.leaf = leaf;
+        }
+    }
+
+    // Ergebnis einer Teilung: Trennschlüssel und neue rechte Seite
+    private record Split(byte[] key, int rightPage) {
+    }
+
+    private final File file;
+    private final File journalFile;
+    private final FileChannel channel;
+
+    private int rootPage;
+    private int pageCount;
+    private int freeListHead;
+
+    private final Map<Integer, byte[]> pageCache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+            return size() > PAGE_CACHE_SIZE;
+        }
+    };
+
+    // Zustand der laufenden Transaktion
+    private int transactionDepth;
+    private final Map<Integer, byte[]> dirtyPages = new HashMap<>();
+    private final Set<Integer> journaledPages = new HashSet<>();
+    private int pageCountAtBegin;
+    private FileChannel journal;
+
+    public BTreeFile(File file) throws IOException {
+        this.file = file;
+        this.journalFile = new File(file.getPath() + "-journal");
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        recoverFromJournal();
+        if (channel.size() == 0) {
+            initialize();
+        } else {
+            readHeader();
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // Legt eine leere Datei mit Header und leerem Wurzelblatt an
+    private void initialize() throws IOException {
+        pageCount = 2;
+        rootPage = 1;
+        freeListHead = 0;
+        ByteBuffer root = ByteBuffer.wrap(serialize(new Node(true)));
+        channel.write(root, PAGE_SIZE);
+        writeHeaderDirect();
+        channel.force(true);
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(24);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != PAGE_SIZE) {
+            throw new IOException("Not a book store file: " + file);
+        }
+        rootPage = header.getInt();
+        pageCount = header.getInt();
+        freeListHead = header.getInt();
+    }
+
+    private byte[] headerPage() {
+        ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(PAGE_SIZE).putInt(rootPage).putInt(pageCount).putInt(freeListHead);
+        return header.array();
+    }
+
+    private void writeHeaderDirect() throws IOException {
+        channel.write(ByteBuffer.wrap(headerPage()), 0);
+    }
+
+    // Stellt nach einem Absturz während commit() den alten Stand der Seiten wieder her
+    private void recoverFromJournal() throws IOException {
+        if (!journalFile.exists()) return;
+        try (FileChannel in = FileChannel.open(journalFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            if (in.read(header) == 4) {
+                header.flip();
+                int originalPageCount = header.getInt();
+                ByteBuffer record = ByteBuffer.allocate(4 + PAGE_SIZE);
+                while (true) {
+                    record.clear();
+                    while (record.hasRemaining() && in.read(record) > 0) {
+                        // Datensatz vollständig einlesen
+                    }
+                    if (record.hasRemaining()) break; // Unvollständiger Datensatz: Datei wurde noch nicht verändert
+                    record.flip();
+                    int pageNo = record.getInt();
+                    channel.write(record, (long) pageNo * PAGE_SIZE);
+                }
+                channel.truncate((long) originalPageCount * PAGE_SIZE);
+                channel.force(true);
+                System.out.println("Restored book store from rollback journal: " + file);
+            }
+        }
+        Files.delete(journalFile.toPath());
+    }
+
+    // Startet eine Transaktion (verschachtelte Aufrufe werden zusammengefasst)
+    public void begin() {
+        if (transactionDepth++ == 0) {
+            pageCountAtBegin = pageCount;
+        }
+    }
+
+    // Schreibt alle geänderten Seiten: erst Journal sichern, dann Seiten schreiben, dann Journal löschen
+    public void commit() throws IOException {
+        if (transactionDepth == 0) throw new IllegalStateException("No transaction");
+        if (transactionDepth > 1) {
+            transactionDepth--;
+            return;
+        }
+        try {
+            if (!dirtyPages.isEmpty()) {
+                writePage(0, headerPage()); // Legt spätestens jetzt das Journal an und sichert den alten Header
+                journal.force(true);
+                for (Map.Entry<Integer, byte[]> page : dirtyPages.entrySet()) {
+                    channel.write(ByteBuffer.wrap(page.getValue()), (long) page.getKey() * PAGE_SIZE);
+                }
+                channel.force(true);
+                closeJournal(true);
+                for (Map.Entry<Integer, byte[]> page : dirtyPages.entrySet()) {
+                    pageCache.put(page.getKey(), page.getValue());
+                }
+                dirtyPages.clear();
+                journaledPages.clear();
+            }
+            transactionDepth = 0;
+        } catch (IOException e) {
+            rollback();
+            throw e;
+        }
+    }
+
+    // Verwirft alle Änderungen der laufenden Transaktion
+    public void rollback() throws IOException {
+        transactionDepth = 0;
+        dirtyPages.clear();
+        journaledPages.clear();
+        pageCache.clear();
+        if (journal != null) {
+            // Falls bereits Seiten geschrieben wurden, stellt das Journal den alten Stand wieder her
+            journal.force(true);
+            journal.close();
+            journal = null;
+            recoverFromJournal();
+        }
+        readHeader();
+    }
+
+    /*
+    Verwirft die zwischengespeicherten Seiten und liest den Header neu, z. B. nachdem ein anderes Programm die Datei
+    geändert hat. Nur außerhalb einer Transaktion erlaubt.
+    */
+    public void discardCache() throws IOException {
+        if (transactionDepth > 0) throw new IllegalStateException("Transaction in progress");
+        pageCache.clear();
+        readHeader();
+    }
+
+    private void closeJournal(boolean delete) throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        if (delete) {
+            Files.deleteIfExists(journalFile.toPath());
+        }
+    }
+
+    // Liefert den Wert zu einem Schlüssel oder null
+    public byte[] get(byte[] key) throws IOException {
+        Node node = readNode(rootPage);
+        while (!node.leaf) {
+            node = readNode(node.children.get(childIndex(node, key)));
+        }
+        int index = search(node.keys, key);
+        return index >= 0 ? loadValue(node.values.get(index)) : null;
+    }
+
+    // Fügt einen Eintrag ein oder ersetzt den Wert eines vorhandenen Schlüssels
+    public void put(byte[] key, byte[] value) throws IOException {
+        if (key.length > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Key too long: " + key.length + " bytes");
+        }
+        begin();
+        try {
+            Split split = insert(rootPage, key, storeValue(value));
+            if (split != null) {
+                Node newRoot = new Node(false);
+                newRoot.keys.add(split.key());
+                newRoot.children.add(rootPage);
+                newRoot.children.add(split.rightPage());
+                int newRootPage = allocatePage();
+                writeNode(newRootPage, newRoot);
+                rootPage = newRootPage;
+            }
+            commit();
+        } catch (IOException | RuntimeException e) {
+            rollback();
+            throw e;
+        }
+    }
+
+    // Entfernt einen Eintrag; gibt false zurück, wenn der Schlüssel nicht vorhanden war
+    public boolean delete(byte[] key) throws IOException {
+        begin();
+        try {
+            int page = rootPage;
+            Node node = readNode(page);
+            while (!node.leaf) {
+                page = node.children.get(childIndex(node, key));
+                node = readNode(page);
+            }
+            int index = search(node.keys, key);
+            if (index >= 0) {
+                freeValue(node.values.get(index));
+                node.keys.remove(index);
+                node.values.remove(index);
+                writeNode(page, node);
+            }
+            commit();
+            return index >= 0;
+        } catch (IOException | RuntimeException e) {
+            rollback();
+            throw e;
+        }
+    }
+
+    // Besucht alle Einträge, deren Schlüssel mit dem Präfix beginnen, in aufsteigender Reihenfolge
+    public void scan(byte[] prefix, EntryVisitor visitor) throws IOException {
+        Node node = readNode(rootPage);
+        while (!node.leaf) {
+            node = readNode(node.children.get(childIndex(node, prefix)));
+        }
+        int index = lowerBound(node.keys, prefix);
+        while (true) {
+            for (; index < node.keys.size(); index++) {
+                byte[] key = node.keys.get(index);
+                if (!startsWith(key, prefix)) return;
+                if (!visitor.visit(key, loadValue(node.values.get(index)))) return;
+            }
+            if (node.next == 0) return;
+            node = readNode(node.next);
+            index = 0;
+        }
+    }
+
+    // Entfernt alle Einträge mit dem Präfix in einer Transaktion; gibt die Anzahl zurück
+    public int deletePrefix(byte[] prefix) throws IOException {
+        List<byte[]> keys = new ArrayList<>();
+        scan(prefix, (key, value) -> keys.add(key));
+        begin();
+        try {
+            for (byte[] key : keys) {
+                delete(key);
+            }
+            commit();
+        } catch (IOException | RuntimeException e) {
+            rollback();
+            throw e;
+        }
+        return keys.size();
+    }
+
+    // Rekursives Einfügen; liefert eine Teilung zurück, wenn die Seite zu groß geworden ist
+    private Split insert(int page, byte[] key, byte[] storedValue) throws IOException {
+        Node node = readNode(page);
+        if (node.leaf) {
+            int index = search(node.keys, key);
+            if (index >= 0) {
+                freeValue(node.values.get(index));
+                node.values.set(index, storedValue);
+            } else {
+                index = -index - 1;
+                node.keys.add(index, key);
+                node.values.add(index, storedValue);
+            }
+        } else {
+            int childIndex = childIndex(node, key);
+            Split split = insert(node.children.get(childIndex), key, storedValue);
+            if (split == null) {
+                return null; // Die Kindseite wurde bereits geschrieben
+            }
+            node.keys.add(childIndex, split.key());
+            node.children.add(childIndex + 1, split.rightPage());
+        }
+        if (serializedSize(node) <= PAGE_SIZE) {
+            writeNode(page, node);
+            return null;
+        }
+        return split(page, node);
+    }
+
+    // Teilt eine übervolle Seite etwa in der Mitte (nach Bytes) in zwei Seiten
+    private Split split(int page, Node node) throws IOException {
+        Node right = new Node(node.leaf);
+        int half = serializedSize(node) / 2;
+        int size = 7;
+        int middle = 0;
+        while (middle < node.keys.size() - 1 && size < half) {
+            size += entrySize(node, middle);
+            middle++;
+        }
+        middle = Math.max(1, middle);
+        int rightPage = allocatePage();
+        byte[] separator;
+        if (node.leaf) {
+            right.keys.addAll(node.keys.subList(middle, node.keys.size()));
+            right.values.addAll(node.values.subList(middle, node.values.size()));
+            node.keys.subList(middle, node.keys.size()).clear();
+            node.values.subList(middle, node.values.size()).clear();
+            right.next = node.next;
+            node.next = rightPage;
+            separator = right.keys.getFirst();
+        } else {
+            // Der mittlere Schlüssel wandert in die Elternseite
+            separator = node.keys.get(middle);
+            right.keys.addAll(node.keys.subList(middle + 1, node.keys.size()));
+            right.children.addAll(node.children.subList(middle + 1, node.children.size()));
+            node.keys.subList(middle, node.keys.size()).clear();
+            node.children.subList(middle + 1, node.children.size()).clear();
+        }
+        writeNode(page, node);
+        writeNode(rightPage, right);
+        return new Split(separator, rightPage);
+    }
+
+    // Werte bis MAX_INLINE_VALUE werden direkt gespeichert, größere in Überlaufseiten (Marker 1 + Seite + Länge)
+    private byte[] storeValue(byte[] value) throws IOException {
+        if (value.length <= MAX_INLINE_VALUE) {
+            byte[] stored = new byte[value.length + 1];
+            stored[0] = 0;
+            System.arraycopy(value, 0, stored, 1, value.length);
+            return stored;
+        }
+        int capacity = PAGE_SIZE - OVERFLOW_HEADER;
+        int pages = (value.length + capacity - 1) / capacity;
+        int[] pageNumbers = new int[pages];
+        for (int i = 0; i < pages; i++) {
+            pageNumbers[i] = allocatePage();
+        }
+        for (int i = 0; i < pages; i++) {
+            int offset = i * capacity;
+            int length = Math.min(capacity, value.length - offset);
+            ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+            buffer.putInt(i + 1 < pages ? pageNumbers[i + 1] : 0).putInt(length).put(value, offset, length);
+            writePage(pageNumbers[i], buffer.array());
+        }
+        return ByteBuffer.allocate(9).put((byte) 1).putInt(pageNumbers[0]).putInt(value.length).array();
+    }
+
+    private byte[] loadValue(byte[] stored) throws IOException {
+        if (stored[0] == 0) {
+            return Arrays.copyOfRange(stored, 1, stored.length);
+        }
+        ByteBuffer reference = ByteBuffer.wrap(stored, 1, 8);
+        int page = reference.getInt();
+        byte[] value = new byte[reference.getInt()];
+        int offset = 0;
+        while (page != 0 && offset < value.length) {
+            ByteBuffer buffer = ByteBuffer.wrap(readPage(page));
+            page = buffer.getInt();
+            int length = buffer.getInt();
+            buffer.get(value, offset, length);
+            offset += length;
+        }
+        return value;
+    }
+
+    private void freeValue(byte[] stored) throws IOException {
+        if (stored[0] == 0) return;
+        int page = ByteBuffer.wrap(stored, 1, 4).getInt();
+        while (page != 0) {
+            int next = ByteBuffer.wrap(readPage(page)).getInt();
+            freePage(page);
+            page = next;
+        }
+    }
+
+    // Nimmt eine Seite aus der Freiliste oder hängt eine neue Seite an
+    private int allocatePage() throws IOException {
+        if (freeListHead != 0) {
+            int page = freeListHead;
+            freeListHead = ByteBuffer.wrap(readPage(page)).getInt(1);
+            return page;
+        }
+        return pageCount++;
+    }
+
+    private void freePage(int page) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        buffer.put((byte) 0).putInt(freeListHead);
+        writePage(page, buffer.array());
+        freeListHead = page;
+    }
+
+    private Node readNode(int page) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(readPage(page));
+        byte type = buffer.get();
+        if (type != LEAF && type != INTERNAL) {
+            throw new IOException("Corrupt page " + page + " in " + file);
+        }
+        Node node = new Node(type == LEAF);
+        int count = buffer.getShort() & 0xFFFF;
+        int link = buffer.getInt();
+        if (node.leaf) {
+            node.next = link;
+        } else {
+            node.children.add(link);
+        }
+        for (int i = 0; i < count; i++) {
+            byte[] key = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(key);
+            node.keys.add(key);
+            if (node.leaf) {
+                byte[] stored = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(stored);
+                node.values.add(stored);
+            } else {
+                node.children.add(buffer.getInt());
+            }
+        }
+        return node;
+    }
+
+    private void writeNode(int page, Node node) throws IOException {
+        writePage(page, serialize(node));
+    }
+
+    private static byte[] serialize(Node node) {
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        buffer.put(node.leaf ? LEAF : INTERNAL);
+        buffer.putShort((short) node.keys.size());
+        buffer.putInt(node.leaf ? node.next : node.children.getFirst());
+        for (int i = 0; i < node.keys.size(); i++) {
+            byte[] key = node.keys.get(i);
+            buffer.putShort((short) key.length).put(key);
+            if (node.leaf) {
+                byte[] stored = node.values.get(i);
+                buffer.putShort((short) stored.length).put(stored);
+            } else {
+                buffer.putInt(node.children.get(i + 1));
+            }
+        }
+        return buffer.array();
+    }
+
+    private static int serializedSize(Node node) {
+        int size = 7; // Typ, Anzahl, Verweis
+        for (int i = 0; i < node.keys.size(); i++) {
+            size += entrySize(node, i);
+        }
+        return size;
+    }
+
+    private static int entrySize(Node node, int index) {
+        int size = 2 + node.keys.get(index).length;
+        return size + (node.leaf ? 2 + node.values.get(index).length : 4);
+    }
+
+    // Liest eine Seite: zuerst aus der laufenden Transaktion, dann aus dem Cache, sonst von der Festplatte
+    private byte[] readPage(int page) throws IOException {
+        byte[] data = dirtyPages.get(page);
+        if (data == null) {
+            data = pageCache.get(page);
+        }
+        if (data == null) {
+            ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+            while (buffer.hasRemaining() && channel.read(buffer, (long) page * PAGE_SIZE + buffer.position()) > 0) {
+                // Seite vollständig einlesen
+            }
+            data = buffer.array();
+            pageCache.put(page, data);
+        }
+        return data;
+    }
+
+    // Merkt eine geänderte Seite vor; der ursprüngliche Inhalt wird vorher im Rollback-Journal gesichert
+    private void writePage(int page, byte[] data) throws IOException {
+        if (transactionDepth == 0) throw new IllegalStateException("Write outside of transaction");
+        if (page < pageCountAtBegin && journaledPages.add(page)) {
+            if (journal == null) {
+                journal = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                journal.write(ByteBuffer.allocate(4).putInt(0, pageCountAtBegin));
+                // Header immer mitsichern, da er bei jedem Commit geschrieben wird
+                journaledPages.add(0);
+                journal.write(ByteBuffer.allocate(4).putInt(0, 0));
+                journal.write(ByteBuffer.wrap(readPage(0)));
+            }
+            if (page != 0) {
+                journal.write(ByteBuffer.allocate(4).putInt(0, page));
+                journal.write(ByteBuffer.wrap(readPage(page)));
+            }
+        }
+        dirtyPages.put(page, data);
+    }
+
+    // Index des Kindes, in dem der Schlüssel liegen muss (Anzahl der Trennschlüssel <= key)
+    private static int childIndex(Node node, byte[] key) {
+        int low = 0;
+        int high = node.keys.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Arrays.compareUnsigned(node.keys.get(mid), key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Binäre Suche; liefert den Index oder -(Einfügeposition) - 1
+    private static int search(List<byte[]> keys, byte[] key) {
+        int low = 0;
+        int high = keys.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int compare = Arrays.compareUnsigned(keys.get(mid), key);
+            if (compare < 0) {
+                low = mid + 1;
+            } else if (compare > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int lowerBound(List<byte[]> keys, byte[] key) {
+        int index = search(keys, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        return key.length >= prefix.length && Arrays.equals(key, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (transactionDepth > 0) {
+            rollback();
+        }
+        closeJournal(false);
+        channel.close();
+    }
+}
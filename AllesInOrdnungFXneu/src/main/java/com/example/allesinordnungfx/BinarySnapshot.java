@@ -0,0 +1,180 @@
+package com.example.allesinordnungfx;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+Die Klasse BinarySnapshot speichert die Bücher einer Sammlung zusätzlich in einem kompakten Binärformat
+("<Sammlung>.snapshot"). YAML bleibt das maßgebliche Austauschformat, der Snapshot dient nur dazu,
+Sammlungen schneller zu laden: Die Datei wird über einen Memory-Mapped FileChannel gelesen und die Bücher
+werden ohne YAML-Parser direkt aus den Bytes erzeugt.
+
+Aufbau der Datei (alle Zahlen im Big-Endian-Format):
+  Header:   Magic "AIOS" (4 Bytes), Version (int), Länge der zugehörigen YAML-Datei (long), Anzahl Bücher (int)
+  Je Buch:  Länge des Datensatzes (int), danach die Felder
+            title, firstName, lastName, genre (Text), publicationYear (int), isbn (long),
+            read (byte), rating, comment (Text)
+  Text:     Länge in Bytes (int, -1 für null), danach die UTF-8-Bytes
+
+Über das Längenpräfix kann jeder Datensatz übersprungen werden, ohne ihn zu dekodieren.
+Ein Snapshot gilt nur dann als aktuell, wenn er nicht älter als die YAML-Datei ist und die darin
+vermerkte Länge der YAML-Datei mit der tatsächlichen übereinstimmt.
+*/
+public class BinarySnapshot {
+
+    private static final int MAGIC = 0x41494F53; // "AIOS"
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+    private BinarySnapshot() {
+    }
+
+    // Schreibt die Bücher im Snapshot-Format in den Ausgabestream
+    public static void write(OutputStream out, List<Book> books, long yamlLength) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(yamlLength);
+        data.writeInt(books.size());
+
+        for (Book book : books) {
+            byte[] record = encodeBook(book);
+            data.writeInt(record.length);
+            data.write(record);
+        }
+        data.flush();
+    }
+
+    // Kodiert ein einzelnes Buch (ohne Längenpräfix); wird auch vom PagedCollectionStore verwendet
+    static byte[] encodeBook(Book book) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream data = new DataOutputStream(bytes);
+        writeText(data, encode(book.getTitle()));
+        writeText(data, encode(book.getFirstName()));
+        writeText(data, encode(book.getLastName()));
+        writeText(data, encode(book.getGenre()));
+        data.writeInt(book.getPublicationYear());
+        data.writeLong(book.getIsbn());
+        data.writeByte(book.isRead() ? 1 : 0);
+        writeText(data, encode(book.getRating()));
+        writeText(data, encode(book.getComment()));
+        return bytes.toByteArray();
+    }
+
+    /*
+    Prüft, ob der Snapshot zur aktuellen YAML-Datei passt.
+    Wird die YAML-Datei außerhalb der Anwendung geändert, ist sie neuer oder hat eine andere Länge
+    und der Snapshot wird ignoriert.
+    */
+    public static boolean isUpToDate(File snapshotFile, File yamlFile) {
+        if (!snapshotFile.exists() || !yamlFile.exists()) return false;
+        if (snapshotFile.lastModified() < yamlFile.lastModified()) return false;
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Header vollständig einlesen
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return false;
+            }
+            return header.getLong() == yamlFile.length();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /*
+    Liest alle Bücher aus dem Snapshot über einen Memory-Mapped FileChannel und übergibt sie einzeln an den Consumer.
+    Gibt die Anzahl der gelesenen Bücher zurück.
+    */
+    public static int read(File snapshotFile, Consumer<Book> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to be mapped: " + snapshotFile);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int count = readHeader(buffer, snapshotFile);
+            byte[] scratch = new byte[256]; // Wiederverwendeter Puffer für Textfelder
+            try {
+                for (int i = 0; i < count; i++) {
+                    buffer.getInt(); // Länge des Datensatzes, beim sequentiellen Lesen nicht benötigt
+                    consumer.accept(readBook(buffer, scratch));
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Truncated or corrupted snapshot file: " + snapshotFile, e);
+            }
+            return count;
+        }
+    }
+
+    // Prüft den Header ab der aktuellen Position des Puffers und liefert die Anzahl der Bücher
+    static int readHeader(ByteBuffer buffer, File snapshotFile) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Invalid snapshot file: " + snapshotFile);
+        }
+        buffer.getLong(); // Länge der YAML-Datei, wird nur in isUpToDate() benötigt
+        return buffer.getInt();
+    }
+
+    // Liest ein einzelnes Buch ab der aktuellen Position des Puffers
+    static Book readBook(ByteBuffer buffer, byte[] scratch) {
+        Book book = new Book();
+        book.setTitle(readText(buffer, scratch));
+        book.setFirstName(readText(buffer, scratch));
+        book.setLastName(readText(buffer, scratch));
+        book.setGenre(readText(buffer, scratch));
+        book.setPublicationYear(buffer.getInt());
+        book.setIsbn(buffer.getLong());
+        book.setRead(buffer.get() != 0);
+        book.setRating(readText(buffer, scratch));
+        book.setComment(readText(buffer, scratch));
+        return book;
+    }
+
+    /*
+    Liest ein Textfeld; längere Texte als der Puffer erhalten ein eigenes Array.
+    Eine Länge über das Ende des Puffers hinaus (beschädigte Datei) wird wie ein abgeschnittener Snapshot
+    behandelt, bevor ein Array dieser Größe angelegt wird.
+    */
+    private static String readText(ByteBuffer buffer, byte[] scratch) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        if (length == 0) return "";
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (length > scratch.length) {
+            byte[] large = new byte[length];
+            buffer.get(large);
+            return new String(large, StandardCharsets.UTF_8);
+        }
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String text) {
+        return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeText(DataOutputStream data, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            data.writeInt(-1);
+            return;
+        }
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.allesinordnungfx;
 
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Objects;
+
 // Die Klasse Book repräsentiert ein einzelnes Buch mit verschiedenen Attributen
 // Sie stellt Methoden zum Zugriff auf und zur Bearbeitung dieser Informationen bereit.
 
@@ -14,6 +18,14 @@ public class Book {
     private String rating;
     private String comment;
 
+    // Felder, für die ein normalisierter Suchschlüssel vorgehalten wird (siehe searchKey())
+    enum SearchField {
+        TITLE, FIRST_NAME, LAST_NAME, GENRE, YEAR, ISBN, COMMENT
+    }
+
+    // Suchschlüssel je SearchField; wird beim ersten Zugriff berechnet und von jedem Setter verworfen
+    private transient volatile String[] searchKeys;
+
     // Standardkonstruktor (no-arg), erforderlich z. B. für die Verwendung von SnakeYAML
     public Book() {
     }
@@ -38,6 +50,7 @@ public class Book {
     }
     public void setTitle(String title) {
         this.title = title;
+        searchKeys = null;
     }
 
     public String getFirstName() {
@@ -45,6 +58,7 @@ public class Book {
     }
     public void setFirstName(String firstName) {
         this.firstName = firstName;
+        searchKeys = null;
     }
 
     public String getLastName() {
@@ -52,16 +66,18 @@ public class Book {
     }
     public void setLastName(String lastName) {
         this.lastName = lastName;
+        searchKeys = null;
     }
 
     public String getGenre() {return genre; }
-    public void setGenre(String genre) {this.genre = genre; }
+    public void setGenre(String genre) {this.genre = genre; searchKeys = null; }
 
     public int getPublicationYear() {
         return publicationYear;
     }
     public void setPublicationYear(int publicationYear) {
         this.publicationYear = publicationYear;
+        searchKeys = null;
     }
 
     public long getIsbn() {
@@ -69,6 +85,7 @@ public class Book {
     }
     public void setIsbn(long isbn) {
         this.isbn = isbn;
+        searchKeys = null;
     }
 
     public boolean isRead() {
@@ -90,6 +107,80 @@ public class Book {
     }
     public void setComment(String comment) {
         this.comment = comment;
+        searchKeys = null;
+    }
+
+    /*
+    Liefert den normalisierten Inhalt eines Feldes (siehe normalize()), wie ihn die Suche vergleicht.
+    Die Schlüssel werden einmal je Buch berechnet und zwischengespeichert, sodass eine Suche über viele
+    Bücher keine neuen Strings erzeugt; die Setter verwerfen sie, wenn sich ein Feld ändert.
+    Bewusst kein Getter (getX), damit die Schlüssel nicht in YAML- oder JSON-Dateien landen.
+    */
+    String searchKey(SearchField field) {
+        String[] keys = searchKeys;
+        if (keys == null) {
+            keys = new String[]{
+                    normalize(title),
+                    normalize(firstName),
+                    normalize(lastName),
+                    normalize(genre),
+                    String.valueOf(publicationYear),
+                    String.valueOf(isbn),
+                    normalize(comment)
+            };
+            searchKeys = keys; // Das Array wird danach nicht mehr verändert
+        }
+        return keys[field.ordinal()];
+    }
+
+    /*
+    Normalisiert einen Text für die Suche: Groß-/Kleinschreibung wird nach Unicode angeglichen (auch "ẞ"),
+    "ß" wird zu "ss", die deutschen Umlaute werden ausgeschrieben ("ä" -> "ae") und übrige Akzente entfernt
+    ("é" -> "e"). So findet "strasse" auch "Straße" und "mueller" auch "Müller".
+    Kleingeschriebener ASCII-Text (der Normalfall) wird unverändert zurückgegeben.
+    */
+    static String normalize(String text) {
+        if (text == null) return "";
+        boolean ascii = true;
+        boolean lower = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            char c = text.charAt(i);
+            ascii = c < 0x80;
+            lower &= c < 'A' || c > 'Z';
+        }
+        if (ascii) {
+            return lower ? text : text.toLowerCase(Locale.ROOT);
+        }
+        // Großschreiben und wieder klein gleicht die Schreibweise an und macht aus "ß" "ss"; das große "ẞ" wird
+        // dabei aber nur zu "ß" (toUpperCase() lässt es unverändert) und muss deshalb noch ersetzt werden
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFC)
+                .toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT)
+                .replace("ß", "ss").replace("ä", "ae").replace("ö", "oe").replace("ü", "ue");
+        return Normalizer.normalize(folded, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+    }
+
+    // Unabhängige Kopie mit allen Eigenschaften, z. B. für einen Speicherauftrag auf einem anderen Thread
+    public Book copy() {
+        Book copy = new Book(title, firstName, lastName, genre, publicationYear, isbn);
+        copy.read = read;
+        copy.rating = rating;
+        copy.comment = comment;
+        return copy;
+    }
+
+    // Vergleicht alle Eigenschaften mit einem anderen Buch (z. B. beim Abgleich nach einem Neuladen).
+    // equals() wird bewusst nicht überschrieben, da Bücher in den Listen über ihre Identität gefunden werden.
+    public boolean hasSameContent(Book other) {
+        return other != null
+                && publicationYear == other.publicationYear
+                && isbn == other.isbn
+                && read == other.read
+                && Objects.equals(title, other.title)
+                && Objects.equals(firstName, other.firstName)
+                && Objects.equals(lastName, other.lastName)
+                && Objects.equals(genre, other.genre)
+                && Objects.equals(rating, other.rating)
+                && Objects.equals(comment, other.comment);
     }
 
     // Überschreibt die toString-Methode zur benutzerfreundlichen Ausgabe des Buchobjekts.
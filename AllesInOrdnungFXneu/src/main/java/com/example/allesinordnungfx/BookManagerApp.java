@@ -1,12 +1,19 @@
 package com.example.allesinordnungfx;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -16,9 +23,11 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.Region;
+import javafx.scene.layout.Priority;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import javafx.util.converter.IntegerStringConverter;
 import javafx.util.converter.LongStringConverter;
 import javafx.geometry.Insets;
@@ -27,8 +36,26 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import java.time.Year;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 public class BookManagerApp extends Application {
 
@@ -47,13 +74,66 @@ public class BookManagerApp extends Application {
 
     // Liste für die Anzeige der Bücher in einer Tabelle
     private final ObservableList<Book> bookListData = FXCollections.observableArrayList();
+    // Angezeigt wird bookListData gefiltert (Suche) und sortiert (Klick auf eine Spaltenüberschrift)
+    private final FilteredList<Book> filteredBooks = new FilteredList<>(bookListData);
+    private final SortedList<Book> sortedBooks = new SortedList<>(filteredBooks);
+
+    // Suche während der Eingabe: erst nach einer Tipp-Pause, auf einem eigenen Thread
+    private static final Duration SEARCH_DELAY = Duration.millis(250);
+    private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY);
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> runningSearch; // Zuletzt gestartete Suche, wird von einer neueren abgebrochen
+    private long searchGeneration; // Erhöht sich mit jeder Suche, Ergebnisse älterer Suchen werden verworfen
+    private String searchKeyword = ""; // Aktueller Inhalt des Suchfelds
+    // Dauer und Ausführungsplan jeder Suche protokollieren (Diagnose); sonst würde bei jeder Tipp-Pause geloggt
+    public static final String SEARCH_LOG_PROPERTY = "allesinordnung.logSearches";
+    private static final boolean LOG_SEARCHES = Boolean.getBoolean(SEARCH_LOG_PROPERTY);
+
+    // Fehlertolerante Suche (FuzzyIndex): die besten Treffer, ohne Spaltensortierung nach Ähnlichkeit geordnet
+    private static final int FUZZY_SEARCH_LIMIT = 200;
+    private final CheckBox fuzzyCheckBox = new CheckBox("Fuzzy");
+    // Abfragesprache (BookQuery): Der Tooltip des Suchfelds zeigt den Plan der letzten Abfrage
+    private static final String QUERY_HELP = "Free text, or field queries such as\n"
+            + "author:king year:1980..1990 read:false rating:>=2 genre:horror isbn:9783608939811";
+    private final Tooltip searchTooltip = new Tooltip(QUERY_HELP);
+    private final ObjectProperty<Comparator<Book>> rankComparator = new SimpleObjectProperty<>(); // null = Reihenfolge der Collection
+
+    // Suche über alle Collections (GlobalSearchIndex), Treffer erscheinen in einem eigenen Fenster
+    private static final int GLOBAL_SEARCH_LIMIT = 1000;
+    private final CheckBox allCollectionsCheckBox = new CheckBox("All collections");
+    private final ObservableList<GlobalSearchIndex.SearchHit> globalSearchHits = FXCollections.observableArrayList();
+    private final Label globalSearchStatus = new Label();
+    private Stage globalSearchStage;
+
+    // Facetten-Seitenleiste (FacetIndex): Zähler der aktuellen Collection, die Auswahl filtert die Tabelle
+    // zusätzlich zur Suche
+    private final Map<FacetIndex.Facet, VBox> facetBoxes = new EnumMap<>(FacetIndex.Facet.class);
+    private final Map<FacetIndex.Facet, Set<String>> selectedFacets = new EnumMap<>(FacetIndex.Facet.class);
+    private final AtomicBoolean facetUpdatePending = new AtomicBoolean(); // Aktualisierung bereits eingeplant
+    private Map<Book, Integer> searchMatches; // Treffer der Suche mit Rang (null = keine Suche)
+    private Set<Book> facetMatches; // Bücher passend zur Facettenauswahl (null = keine Auswahl)
 
-    private String collectionsFilePath = "collections.yaml"; // Pfad für Datei zur Speicherung von Sammlungen
     private final TableView<Book> bookTableView = new TableView<>(); // Tabelle zur Anzeige der Bücher
     private Collection currentCollection; // Aktuell ausgewählte Sammlung
     private ComboBox<String> collectionComboBox; // Klassenvariable für die ComboBox
     private ObservableList<String> collectionsObservableList; // ObservableList für Collections
 
+    // Anzahl der Bücher, die beim Laden einer Sammlung jeweils gemeinsam in die Tabelle übernommen werden
+    private static final int LOAD_CHUNK_SIZE = 500;
+    private volatile long loadGeneration; // Erhöht sich bei jedem Ladevorgang, ältere Ladevorgänge brechen dann ab
+    private boolean collectionLoading; // true, solange die aktuelle Sammlung noch im Hintergrund geladen wird
+
+    // Sehr große Sammlungen werden nur seitenweise gelesen (siehe CollectionManager.openPagedCollection())
+    private static final int PAGED_PAGE_SIZE = 200; // Bücher je nachgeladener Seite
+    private static final int PAGED_PREFETCH_PAGES = 2; // Vorgeladene Seiten vor und nach der sichtbaren Seite
+    private static final int PAGED_CACHED_PAGES = 64; // Höchstens so viele Seiten bleiben im Speicher
+    private PagedBookList pagedBooks; // Nur gesetzt, solange die aktuelle Sammlung seitenweise angezeigt wird
+    private final Label pagedModeLabel = new Label(); // Hinweis, dass die seitenweise Anzeige nur lesbar ist
+
     // Startet die JavaFX-Anwendung
     public static void main(String[] args) {
         launch(args);
@@ -63,9 +143,7 @@ public class BookManagerApp extends Application {
     // BookManagerApp ist auch als Stand-Alone konzipiert und kann ohne LoginScreen gestartet werden.
     public void startWithUser(Stage primaryStage, String userDirectoryPath, String username) {
         this.collectionManager = new CollectionManager(userDirectoryPath);
-        this.collectionsFilePath = userDirectoryPath + "/collections.yaml"; // Angepasst für Benutzer
-
-        collectionManager.loadCollectionNames("collections.yaml"); // Collection-Namen aus der Datei laden
+        collectionManager.loadCollectionNames(); // Collection-Namen aus dem Benutzerverzeichnis laden
 
         start(primaryStage, username); // Hauptfenster starten
     }
@@ -76,7 +154,7 @@ public class BookManagerApp extends Application {
         ensureCollectionsDirectoryExists(); // Überprüfung - Erstelt bei Bedarf ein neues Verzeichnis
 
         // Vorhandene Collection-Namen laden
-        collectionManager.loadCollectionNames(collectionsFilePath);
+        collectionManager.loadCollectionNames();
 
         // Initialisiere das ObservableList mit den Collection-Namen
         collectionsObservableList = FXCollections.observableArrayList(collectionManager.getCollectionNames());
@@ -114,15 +192,13 @@ public class BookManagerApp extends Application {
         if (!collectionsObservableList.isEmpty()) {
             String firstCollection = collectionsObservableList.getFirst(); // Nimm die erste Collection
             collectionComboBox.getSelectionModel().select(firstCollection); // Setze die Auswahl in der ComboBox
-            currentCollection = collectionManager.loadBooksForCollection(firstCollection); // Lade Bücher der ersten Collection
-            bookListData.setAll(currentCollection.getBooks()); // Aktualisiere die Buch-Liste (Tabelle)
+            showCollection(firstCollection); // Lade Bücher der ersten Collection im Hintergrund in die Tabelle
         }
 
         // Listener: Reagiert auf Änderungen in der Auswahlliste (ComboBox)
         collectionComboBox.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
-                currentCollection = collectionManager.loadBooksForCollection(newVal); // Lade Bücher der neuen Collection
-                bookListData.setAll(currentCollection.getBooks()); // Zeige die Bücher der neuen Collection in der Tabelle
+                showCollection(newVal); // Lade Bücher der neuen Collection und zeige sie in der Tabelle
                 System.out.println("Collection gewechselt zu: " + newVal);
             }
         });
@@ -142,6 +218,8 @@ public class BookManagerApp extends Application {
         // Logout-Button
         Button logoutButton = new Button("Logout");
         logoutButton.setOnAction(e -> {
+            collectionManager.shutdown(); // Ausstehende Speicherungen schreiben, bevor der Benutzer wechselt
+            if (globalSearchStage != null) globalSearchStage.close(); // Treffer gehören zum abgemeldeten Benutzer
             LoginScreen loginScreen = new LoginScreen(); // Erstellt eine neue LoginScreen-Instanz
             try {
                 loginScreen.start(primaryStage); // Wechsel zum Login-Screen
@@ -153,6 +231,7 @@ public class BookManagerApp extends Application {
         // Suchfeld für die Bücher-Ansicht
         TextField searchField = new TextField();
         searchField.setPromptText("Search...");
+        searchField.setTooltip(searchTooltip);
 
         // Such-Button
         Button searchButton = new Button("🔍");
@@ -170,9 +249,19 @@ public class BookManagerApp extends Application {
             resetButton.setText("Reset");
         }
 
+        // Suche während der Eingabe: Jede Änderung startet die Wartezeit neu, gesucht wird erst danach
+        searchField.textProperty().addListener((obs, oldText, newText) -> {
+            searchKeyword = newText == null ? "" : newText;
+            searchDelay.playFromStart();
+        });
+        searchDelay.setOnFinished(e -> startSearch(false));
+        allCollectionsCheckBox.setOnAction(e -> startSearch(false)); // Suchmodus gewechselt -> erneut suchen
+        fuzzyCheckBox.setOnAction(e -> startSearch(false));
+
         // Aktion: Suchfeld leeren + wieder alle Bücher anzeigen
         resetButton.setOnAction(e -> {
             searchField.clear(); // Suchfeld löschen
+            searchBooks(); // Filter sofort aufheben
             loadBooksForCurrentCollection(); // Bücherliste der aktuellen Sammlung laden
         });
 
@@ -185,10 +274,9 @@ public class BookManagerApp extends Application {
 
         // Refresh Button
         Button refreshButton = new Button("Refresh");
-        refreshButton.setDisable(true); // deaktiviert
         refreshButton.setOnAction(e -> {
-            loadBooksForCurrentCollection(); // Bücherliste der aktuellen Sammlung laden
-            bookTableView.refresh(); // Optional, falls die Tabelle nicht automatisch aktualisiert wird
+            searchField.clear(); // Nach dem Neuladen wird wieder die ganze Sammlung angezeigt
+            refreshCurrentCollection(true); // Sammlung von der Festplatte neu laden und Unterschiede übernehmen
         });
 
         // Export-Button mit FileChooser
@@ -199,10 +287,12 @@ public class BookManagerApp extends Application {
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle("Import Books");
 
-            // Filter für erlaubte Dateitypen (z.B. YAML oder Excel)
+            // Filter für erlaubte Dateitypen (z.B. YAML, Excel oder CSV)
             fileChooser.getExtensionFilters().addAll(
                     new FileChooser.ExtensionFilter("YAML Files (*.yaml, *.yml)", "*.yaml", "*.yml"),
-                    new FileChooser.ExtensionFilter("Excel Files (*.xlsx)", "*.xlsx")
+                    new FileChooser.ExtensionFilter("Excel Files (*.xlsx)", "*.xlsx"),
+                    new FileChooser.ExtensionFilter("CSV Files (*.csv)", "*.csv"),
+                    new FileChooser.ExtensionFilter("TSV Files (*.tsv)", "*.tsv")
             );
 
             // Datei auswählen
@@ -211,22 +301,35 @@ public class BookManagerApp extends Application {
                 String filePath = file.getAbsolutePath();
                 String fileName = file.getName().toLowerCase();
 
-                // Verarbeitet den Dateipfad basierend auf seiner Dateiendung
-                boolean success = false;
+                // Verarbeitet den Dateipfad basierend auf seiner Dateiendung (im Hintergrund, mit Fortschrittsanzeige)
+                String collectionName = currentCollection.getName();
+                Function<TransferProgress, CollectionManager.ImportResult> importer;
                 if (fileName.endsWith(".yaml") || fileName.endsWith(".yml")) {
                     // Import von YAML
-                    success = collectionManager.importFromYaml(filePath, currentCollection.getName());
+                    importer = progress -> collectionManager.importFromYaml(filePath, collectionName, progress);
                 } else if (fileName.endsWith(".xlsx")) {
                     // Import von XLSX
-                    success = collectionManager.importFromXlsx(filePath, currentCollection.getName());
-                }
-
-                if (success) {
-                    loadBooksForCurrentCollection(); // GUI aktualisieren
-                    showInfo("Import Erfolgreich", "Die Bücher wurden erfolgreich importiert!");
+                    importer = progress -> collectionManager.importFromXlsx(filePath, collectionName, progress);
+                } else if (fileName.endsWith(".csv") || fileName.endsWith(".tsv")) {
+                    // Import von CSV bzw. TSV
+                    importer = progress -> collectionManager.importFromCsv(filePath, collectionName, progress);
                 } else {
-                    showAlert("Import Fehler", "Der Import ist fehlgeschlagen.");
+                    importer = progress -> null;
                 }
+
+                runTransfer(primaryStage, "Import " + file.getName(), importer, (result, progress) -> {
+                    refreshCurrentCollection(false); // GUI aktualisieren (übernimmt nur die neuen Bücher)
+                    if (result != null) {
+                        showInfo("Import Erfolgreich", "Die Bücher wurden erfolgreich importiert!\n"
+                                + result.imported() + " importiert, " + result.skipped() + " Duplikate übersprungen.\n"
+                                + formatTransferSummary(progress));
+                    } else if (progress.isCancelled()) {
+                        showInfo("Import abgebrochen", "Der Import wurde abgebrochen; "
+                                + "die bereits übernommenen Bücher wurden wieder entfernt.");
+                    } else {
+                        showAlert("Import Fehler", "Der Import ist fehlgeschlagen.");
+                    }
+                });
             }
         });
 
@@ -238,10 +341,15 @@ public class BookManagerApp extends Application {
             // Standardname für Exportdatei (basierend auf dem aktuellen Sammlungstitel)
             fileChooser.setInitialFileName(currentCollection.getName() + ".xlsx");
 
-            // Filter: Export als XLSX oder YAML wählen
+            // Filter: Export als XLSX (ein Blatt oder ein Blatt je Sammlung), YAML, CSV oder TSV wählen
+            FileChooser.ExtensionFilter sheetPerCollectionFilter =
+                    new FileChooser.ExtensionFilter("Excel Files, one sheet per collection (*.xlsx)", "*.xlsx");
             fileChooser.getExtensionFilters().addAll(
                     new FileChooser.ExtensionFilter("Excel Files (*.xlsx)", "*.xlsx"),
-                    new FileChooser.ExtensionFilter("YAML Files (*.yaml)", "*.yaml")
+                    sheetPerCollectionFilter,
+                    new FileChooser.ExtensionFilter("YAML Files (*.yaml)", "*.yaml"),
+                    new FileChooser.ExtensionFilter("CSV Files (*.csv)", "*.csv"),
+                    new FileChooser.ExtensionFilter("TSV Files (*.tsv)", "*.tsv")
             );
 
             // Speicher-Pfad vom Nutzer wählen lassen
@@ -249,29 +357,43 @@ public class BookManagerApp extends Application {
             if (file != null) {
                 String filePath = file.getAbsolutePath();
 
-                // Unterscheidet basierend auf Dateiendung zwischen XLSX und YAML
-                boolean success = false;
-                if (filePath.endsWith(".xlsx")) {
+                // Unterscheidet basierend auf Dateiendung zwischen XLSX, YAML und CSV/TSV
+                Function<TransferProgress, Boolean> exporter;
+                if (filePath.endsWith(".xlsx") && fileChooser.getSelectedExtensionFilter() == sheetPerCollectionFilter) {
+                    // Export nach XLSX mit einem Tabellenblatt je Sammlung
+                    exporter = progress -> collectionManager.exportToXlsxPerCollection(filePath, progress);
+                } else if (filePath.endsWith(".xlsx")) {
                     // Export nach XLSX
-                    success = collectionManager.exportToXlsx(filePath);
+                    exporter = progress -> collectionManager.exportToXlsx(filePath, progress);
                 } else if (filePath.endsWith(".yaml")) {
                     // Export nach YAML
-                    success = collectionManager.exportToYaml(filePath);
-                }
-
-                if (success) {
-                    showInfo("Export Erfolgreich", "Die Sammlung wurde erfolgreich exportiert.");
+                    exporter = progress -> collectionManager.exportToYaml(filePath, progress);
+                } else if (filePath.endsWith(".csv") || filePath.endsWith(".tsv")) {
+                    // Export nach CSV bzw. TSV
+                    exporter = progress -> collectionManager.exportToCsv(filePath, progress);
                 } else {
-                    showAlert("Export Fehler", "Der Export ist fehlgeschlagen.");
+                    exporter = progress -> false;
                 }
+
+                runTransfer(primaryStage, "Export " + file.getName(), exporter, (success, progress) -> {
+                    if (success) {
+                        showInfo("Export Erfolgreich", "Die Sammlung wurde erfolgreich exportiert.\n"
+                                + formatTransferSummary(progress));
+                    } else if (progress.isCancelled()) {
+                        showInfo("Export abgebrochen", "Der Export wurde abgebrochen; "
+                                + "die unvollständige Datei wurde gelöscht.");
+                    } else {
+                        showAlert("Export Fehler", "Der Export ist fehlgeschlagen.");
+                    }
+                });
             }
         });
 
         // Suchfunktion - Sucht in der Buchliste basierend auf dem Text im Suchfeld
-        searchButton.setOnAction(ev -> searchBooks(searchField));
+        searchButton.setOnAction(ev -> searchBooks());
         searchField.setOnKeyPressed(ev -> { // ENTER-Taste im Suchfeld: Startet die Suche
             if (ev.getCode() == KeyCode.ENTER) {
-                searchBooks(searchField); // Ruft die Methode `searchBooks` auf
+                searchBooks(); // Ruft die Methode `searchBooks` auf
             }
         });
 
@@ -291,16 +413,21 @@ public class BookManagerApp extends Application {
         HBox.setHgrow(spacer2, javafx.scene.layout.Priority.ALWAYS);
 
         // HBox: Layout für die zweite Zeile (Suchfeld, Buttons, Exportfunktion)
-        HBox actionBox = new HBox(10, searchField, searchButton, resetButton, addButton, refreshButton, spacer2, exportButton);
+        HBox actionBox = new HBox(10, searchField, searchButton, fuzzyCheckBox, allCollectionsCheckBox, resetButton, addButton, refreshButton, spacer2, exportButton);
+        actionBox.setAlignment(Pos.CENTER_LEFT);
         actionBox.setPadding(new Insets(5)); // Innenabstände setzen
 
         // VBox: Enthält Benutzerinfo, CollectionBox und ActionBox (vertikale Anordnung)
-        VBox topContainer = new VBox(10, userDisplayBox, collectionBox, actionBox);
+        pagedModeLabel.setVisible(false);
+        pagedModeLabel.setManaged(false); // Nimmt nur während der seitenweisen Anzeige Platz ein
+        VBox topContainer = new VBox(10, userDisplayBox, collectionBox, actionBox, pagedModeLabel);
         topContainer.setPadding(new Insets(10)); // Padding für die gesamte VBox setzen
 
         // TableView: Tabelle zur Anzeige und Bearbeitung der Bücher
-        TableView<Book> bookTableView = new TableView<>();
-        bookTableView.setEditable(true); // Tabelle als bearbeitbar setzen
+        bookTableView.setEditable(!collectionLoading); // Tabelle als bearbeitbar setzen
+        // Eine seitenweise angezeigte Sammlung ist nur lesbar und kann daher nicht sortiert werden
+        bookTableView.setSortPolicy(table -> !(table.getItems() instanceof PagedBookList)
+                && TableView.DEFAULT_SORT_POLICY.call(table));
         Label placeholderLabel = new Label("No content in table");
         bookTableView.setPlaceholder(placeholderLabel); // Platzhaltertext, wenn keine Inhalte vorhanden sind
 
@@ -331,11 +458,10 @@ public class BookManagerApp extends Application {
             MenuItem deleteItem = new MenuItem("Delete");
             deleteItem.setOnAction(e -> {
                 Book rowData = row.getItem(); // Holt das Buch aus der Zeile
-                if (rowData != null) {
-                    currentCollection.removeBook(rowData.getTitle()); // Entfernt Buch aus der Sammlung
+                if (rowData != null && isCollectionReady()) {
+                    // Entfernt Buch aus der Sammlung und hält die Löschung sofort im Journal der Sammlung fest
+                    collectionManager.removeBook(currentCollection, rowData.getTitle());
                     bookListData.remove(rowData); // Entfernt Buch aus der Tabellenansicht
-                    // Sofort in YAML speichern
-                    collectionManager.saveBooksForCollection(currentCollection);
                 }
             });
 
@@ -362,7 +488,7 @@ public class BookManagerApp extends Application {
         titleColumn.setOnEditCommit(event -> { // Listener für Änderungen am Titel
             Book book = event.getRowValue();
             book.setTitle(event.getNewValue()); // Aktualisiert den Titel
-            collectionManager.saveBooksForCollection(currentCollection); // Speichert Änderungen
+            collectionManager.recordBookUpdated(currentCollection, book); // Speichert Änderungen im Journal
         });
         titleColumn.setEditable(true); // Spalte editierbar setzen
         titleColumn.setPrefWidth(190); // Breite der Spalte
@@ -387,7 +513,7 @@ public class BookManagerApp extends Application {
                 book.setFirstName(parts[0]);
                 book.setLastName("");
             }
-            collectionManager.saveBooksForCollection(currentCollection); // Speichert Änderungen
+            collectionManager.recordBookUpdated(currentCollection, book); // Speichert Änderungen im Journal
         });
         authorColumn.setEditable(true);
         authorColumn.setPrefWidth(190);
@@ -400,7 +526,7 @@ public class BookManagerApp extends Application {
         genreColumn.setOnEditCommit(event -> {
             Book book = event.getRowValue();
             book.setGenre(event.getNewValue());
-            collectionManager.saveBooksForCollection(currentCollection);
+            collectionManager.recordBookUpdated(currentCollection, book);
         });
         genreColumn.setEditable(true);
         genreColumn.setPrefWidth(70);
@@ -420,7 +546,7 @@ public class BookManagerApp extends Application {
             // Validierung der Jahreszahl (falls Tabelle direkt bearbeitet wird)
             if (isValidYear(String.valueOf(newYear))) {
                 book.setPublicationYear(newYear);
-                collectionManager.saveBooksForCollection(currentCollection); // Speichern
+                collectionManager.recordBookUpdated(currentCollection, book); // Speichern
             } else {
                 showAlert("Invalid Year", "Please fill in a valid year!");
                 loadBooksForCurrentCollection(); // Zurücksetzen, wenn ungültig
@@ -435,7 +561,7 @@ public class BookManagerApp extends Application {
         isbnColumn.setOnEditCommit(event -> {
             Book book = event.getRowValue();
             book.setIsbn(event.getNewValue());
-            collectionManager.saveBooksForCollection(currentCollection);
+            collectionManager.recordBookUpdated(currentCollection, book);
         });
         isbnColumn.setEditable(true);
         isbnColumn.setPrefWidth(70);
@@ -452,7 +578,7 @@ public class BookManagerApp extends Application {
         readColumn.setOnEditCommit(event -> {
             Book book = event.getRowValue();
             book.setRead(event.getNewValue());
-            collectionManager.saveBooksForCollection(currentCollection);
+            collectionManager.recordBookUpdated(currentCollection, book);
         });
 
         // Spalte für Bewertungen
@@ -498,7 +624,7 @@ public class BookManagerApp extends Application {
                 comboBox.setOnAction(event -> {
                     String newValue = comboBox.getValue();
                     book.setRating(newValue); // Neues Rating speichern
-                    collectionManager.saveBooksForCollection(currentCollection); // Sammlung speichern
+                    collectionManager.recordBookUpdated(currentCollection, book); // Änderung im Journal speichern
                 });
 
                 setGraphic(comboBox);
@@ -513,7 +639,7 @@ public class BookManagerApp extends Application {
         commentColumn.setOnEditCommit(event -> {
             Book book = event.getRowValue();
             book.setComment(event.getNewValue());
-            collectionManager.saveBooksForCollection(currentCollection);
+            collectionManager.recordBookUpdated(currentCollection, book);
         });
         commentColumn.setEditable(true);
         commentColumn.setMaxWidth(180);
@@ -569,9 +695,9 @@ public class BookManagerApp extends Application {
                 // Aktion für Klick auf den Button
                 deleteButton.setOnAction(evt -> {
                     Book book = getTableView().getItems().get(getIndex()); // Holt das Buch aus der aktuellen Zeile
-                    currentCollection.removeBook(book.getTitle()); // Entfernt das Buch aus der aktuellen Collection
+                    if (!isCollectionReady()) return;
+                    collectionManager.removeBook(currentCollection, book.getTitle()); // Entfernt das Buch aus der Collection und hält die Löschung im Journal fest
                     bookListData.remove(book); // Entfernt das Buch aus der Ansicht (Daten der TableView)
-                    collectionManager.saveBooksForCollection(currentCollection); // Speichert die aktualisierte Collection
                 });
             }
             // Aktualisiert die Darstellung der Zelle
@@ -593,48 +719,70 @@ public class BookManagerApp extends Application {
         editColumn.setSortable(false);
         deleteColumn.setSortable(false);
 
-        // Listener für die Auswahl der aktuellen Collection
-        collectionComboBox.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal != null) { // Überprüft, ob eine neue Collection ausgewählt wurde
-                currentCollection = collectionManager.loadBooksForCollection(newVal); // Lädt die Bücher der neuen Collection
-                bookListData.setAll(currentCollection.getBooks()); // Aktualisiert die Buchliste in der Tabelle
-                System.out.println("Current Collection set to: " + currentCollection.getName()); // Gibt die neue Collection im Log aus
-            }
-        });
+        // Der Listener für die Auswahl der aktuellen Collection wird bereits beim Aufbau der ComboBox registriert
 
         // Initialisierung der aktuellen Collection durch Auswahl der ersten Collection
         collectionComboBox.getSelectionModel().selectFirst();
 
         // Daten an die Tabelle binden
-        bookTableView.setItems(bookListData); // Verknüpft die ObservableList mit der Tabelle
-        bookListData.setAll(currentCollection.getBooks()); // Lädt die Bücher der aktuellen Collection in die Anzeige
+        // Sortierung der Tabelle übernehmen; ohne sortierte Spalte die Rangfolge der unscharfen Suche
+        sortedBooks.comparatorProperty().bind(Bindings.createObjectBinding(
+                () -> bookTableView.getComparator() != null ? bookTableView.getComparator() : rankComparator.get(),
+                bookTableView.comparatorProperty(), rankComparator));
+        bookTableView.setItems(sortedBooks); // Verknüpft die ObservableList mit der Tabelle
+
+        // Seitenleiste mit den Facetten (Genre, Jahr, Lesestatus, Bewertung) links neben der Tabelle
+        VBox facetSidebar = new VBox(5);
+        for (FacetIndex.Facet facet : FacetIndex.Facet.values()) {
+            VBox valueBox = new VBox(3);
+            facetBoxes.put(facet, valueBox);
+            TitledPane facetPane = new TitledPane(facet.getLabel(), valueBox);
+            facetPane.setExpanded(facet != FacetIndex.Facet.YEAR); // Die Jahresliste ist meist lang
+            facetSidebar.getChildren().add(facetPane);
+        }
+        ScrollPane facetScrollPane = new ScrollPane(facetSidebar);
+        facetScrollPane.setFitToWidth(true);
+        facetScrollPane.setPrefWidth(200);
+        facetScrollPane.setMinWidth(150);
+        HBox contentBox = new HBox(10, facetScrollPane, bookTableView);
+        contentBox.setPadding(new Insets(0, 10, 10, 10));
+        HBox.setHgrow(bookTableView, Priority.ALWAYS);
+        VBox.setVgrow(contentBox, Priority.ALWAYS);
 
         // Initialisiert die Hauptszene
-        Scene scene = new Scene(new VBox(20, topContainer, bookTableView), WINDOW_WIDTH, WINDOW_HEIGHT);
+        Scene scene = new Scene(new VBox(20, topContainer, contentBox), WINDOW_WIDTH, WINDOW_HEIGHT);
         primaryStage.setScene(scene); // Setzt die Szene des Fensters
         primaryStage.setTitle("Book Collection Manager - Alles in Ordnung"); // Setzt den Titel des Fensters
         LoginScreen.setBookIcon(primaryStage);
 
         primaryStage.show(); // Zeigt das Fenster an
 
+        // Änderungen anderer Programme im Benutzerverzeichnis übernehmen (Meldungen kommen vom Watcher-Thread)
+        collectionManager.startWatching((changedCollections, collectionNamesChanged) ->
+                Platform.runLater(() -> {
+                    if (collectionNamesChanged) {
+                        reloadCollectionNames();
+                    }
+                    if (currentCollection != null && changedCollections.contains(currentCollection.getName())) {
+                        refreshCurrentCollection(false);
+                    }
+                }));
+
         // Beim Schließen -> Speichern aller Collections
-        primaryStage.setOnCloseRequest(ev -> {
-            // Speichern der Collection-Namen
-            collectionManager.saveCollectionNames(collectionsFilePath);
-            // Speichern aller Collections
-            for (String name : collectionManager.getCollectionNames()) {
-                Collection collection = collectionManager.loadBooksForCollection(name);
-                collectionManager.saveBooksForCollection(collection);
-            }
-        });
         primaryStage.setOnCloseRequest(event -> {
-            // Speichere die aktuelle Collection, wenn sie existiert
-            if (currentCollection != null) {
+            // Speichere die aktuelle Collection, wenn sie existiert (nicht den Platzhalter während des Ladens
+            // oder einer seitenweisen Anzeige, sonst würde die Sammlung überschrieben)
+            if (currentCollection != null && !collectionLoading && pagedBooks == null) {
                 collectionManager.saveBooksForCollection(currentCollection); // Speichert die Bücher in der aktuellen Collection
             }
 
             // Speichere auch die Liste aller Collection-Namen
-            collectionManager.saveCollectionNames(collectionsFilePath); // Speichert die Collection-Namen in der YAML-Datei
+            collectionManager.saveCollectionNames(); // Speichert die Collection-Namen im Benutzerverzeichnis
+
+            // Alle ausstehenden Speicheraufträge sofort schreiben und auf den Abschluss warten
+            collectionManager.shutdown();
+            searchExecutor.shutdownNow();
+            if (globalSearchStage != null) globalSearchStage.close();
             System.out.println("Collection were saved while shutting down.");
         });
     }
@@ -797,6 +945,93 @@ public class BookManagerApp extends Application {
         alert.showAndWait();
     }
 
+    /**
+     * Führt einen Import oder Export auf einem eigenen Thread aus und zeigt währenddessen ein Fortschrittsfenster
+     * (Zeilen, Zeilen pro Sekunde, Restzeit) mit einem Abbrechen-Button. Das Hauptfenster bleibt gesperrt, bis
+     * der Vorgang beendet ist; danach wird onDone mit dem Ergebnis auf dem JavaFX-Thread aufgerufen.
+     */
+    private <T> void runTransfer(Stage owner, String title, Function<TransferProgress, T> operation,
+                                 BiConsumer<T, TransferProgress> onDone) {
+        TransferProgress progress = new TransferProgress();
+        Stage stage = new Stage();
+        stage.initOwner(owner);
+        stage.initModality(Modality.WINDOW_MODAL); // Blockiert nur das Hauptfenster
+        stage.setTitle(title);
+        stage.setResizable(false);
+        LoginScreen.setBookIcon(stage);
+
+        ProgressBar progressBar = new ProgressBar(ProgressBar.INDETERMINATE_PROGRESS);
+        progressBar.setPrefWidth(380);
+        Label progressLabel = new Label("Starting...");
+        Button cancelButton = new Button("Cancel");
+        Runnable cancel = () -> {
+            progress.cancel();
+            cancelButton.setDisable(true);
+            progressLabel.setText("Cancelling...");
+        };
+        cancelButton.setOnAction(e -> cancel.run());
+        stage.setOnCloseRequest(e -> {
+            e.consume(); // Fenster bleibt offen, bis der Vorgang aufgeräumt hat
+            cancel.run();
+        });
+
+        // Der Listener läuft auf dem arbeitenden Thread; höchstens eine Aktualisierung der Anzeige steht aus
+        AtomicBoolean updatePending = new AtomicBoolean();
+        progress.setListener(() -> {
+            if (updatePending.compareAndSet(false, true)) {
+                Platform.runLater(() -> {
+                    updatePending.set(false);
+                    if (progress.isCancelled()) return;
+                    long total = progress.getTotal();
+                    progressBar.setProgress(total > 0
+                            ? Math.min(1.0, (double) progress.getRows() / total)
+                            : ProgressBar.INDETERMINATE_PROGRESS);
+                    progressLabel.setText(formatTransferProgress(progress));
+                });
+            }
+        });
+
+        VBox layout = new VBox(10, progressBar, progressLabel, cancelButton);
+        layout.setAlignment(Pos.CENTER);
+        layout.setPadding(new Insets(15));
+        stage.setScene(new Scene(layout));
+        stage.show();
+
+        Thread worker = new Thread(() -> {
+            T result = operation.apply(progress);
+            Platform.runLater(() -> {
+                stage.close();
+                onDone.accept(result, progress);
+            });
+        }, "transfer-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Anzeige während der Übertragung, z. B. "12,345 of 300,000 rows · 25,000 rows/s · 11 s left"
+    private static String formatTransferProgress(TransferProgress progress) {
+        StringBuilder text = new StringBuilder();
+        if (!progress.getStatus().isEmpty()) {
+            text.append(progress.getStatus()).append('\n');
+        }
+        text.append(String.format(Locale.US, "%,d", progress.getRows()));
+        if (progress.getTotal() >= 0) {
+            text.append(String.format(Locale.US, " of %,d", progress.getTotal()));
+        }
+        text.append(String.format(Locale.US, " rows · %,.0f rows/s", progress.getRowsPerSecond()));
+        long eta = progress.getEtaSeconds();
+        if (eta >= 0) {
+            text.append(" · ").append(eta).append(" s left");
+        }
+        return text.toString();
+    }
+
+    // Zusammenfassung für die Meldung am Ende, z. B. "300.000 Zeilen in 12,3 s (24.390 Zeilen/s)"
+    private static String formatTransferSummary(TransferProgress progress) {
+        return String.format(Locale.GERMANY, "%,d Zeilen in %.1f s (%,.0f Zeilen/s)",
+                progress.getRows(), progress.getElapsedMillis() / 1000.0, progress.getRowsPerSecond());
+    }
+
     /**
      * Stellt sicher, dass das Verzeichnis "collections" existiert.
      */
@@ -806,6 +1041,233 @@ public class BookManagerApp extends Application {
         collectionManager.ensureCollectionsDirectoryExists();
     }
 
+    /**
+     * Lädt eine Collection im Hintergrund und füllt die Tabelle schrittweise, während die Datei noch gelesen wird.
+     * Bis der Ladevorgang abgeschlossen ist, kann die Tabelle nicht bearbeitet werden.
+     */
+    private void showCollection(String collectionName) {
+        long generation = ++loadGeneration; // Laufende ältere Ladevorgänge werden dadurch verworfen
+        currentCollection = new Collection(collectionName); // Platzhalter, bis die Bücher geladen sind
+        collectionLoading = true;
+        bookTableView.setEditable(false);
+        closePagedBooks();
+        clearSearchFilter(); // Treffer der bisherigen Collection gelten nicht mehr
+        clearFacets();
+        bookListData.clear();
+
+        Thread loader = new Thread(() -> {
+            List<Book> chunk = new ArrayList<>();
+            Collection loaded;
+            try {
+                // Sehr große Sammlungen nicht vollständig laden, sondern nur die sichtbaren Seiten lesen
+                PagedBookSource pagedSource = collectionManager.openPagedCollection(collectionName);
+                if (pagedSource != null) {
+                    Platform.runLater(() -> showPagedCollection(generation, pagedSource));
+                    return;
+                }
+                loaded = collectionManager.loadBooksForCollection(collectionName, book -> {
+                    if (generation != loadGeneration) {
+                        throw new CancellationException("Superseded load of collection " + collectionName);
+                    }
+                    chunk.add(book);
+                    if (chunk.size() >= LOAD_CHUNK_SIZE) { // Teilstück an die Tabelle übergeben
+                        List<Book> part = new ArrayList<>(chunk);
+                        chunk.clear();
+                        Platform.runLater(() -> {
+                            if (generation == loadGeneration) bookListData.addAll(part);
+                        });
+                    }
+                });
+            } catch (CancellationException e) {
+                return; // Es wurde inzwischen eine andere Collection ausgewählt
+            } catch (RuntimeException e) {
+                // Der Platzhalter bleibt gesperrt (collectionLoading), damit er nicht über die Datei gespeichert wird
+                e.printStackTrace();
+                Platform.runLater(() -> {
+                    if (generation == loadGeneration) {
+                        showAlert("Ladefehler", "Die Sammlung '" + collectionName + "' konnte nicht geladen werden.");
+                    }
+                });
+                return;
+            }
+            Collection result = loaded;
+            Platform.runLater(() -> {
+                if (generation != loadGeneration) return;
+                bookListData.addAll(chunk);
+                currentCollection = result;
+                // Änderungen aus dem Journal sind nur im Ergebnis enthalten -> Anzeige bei Abweichung ersetzen
+                if (!isSameBookSequence(bookListData, result.getBooks())) {
+                    bookListData.setAll(result.getBooks());
+                }
+                collectionLoading = false;
+                bookTableView.setEditable(true);
+                attachFacets();
+                startSearch(false); // Einen bereits eingegebenen Suchbegriff auf die neue Collection anwenden
+            });
+        }, "collection-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Zeigt eine sehr große Collection seitenweise an: Die Tabelle liest nur den sichtbaren Ausschnitt
+     * (plus einige Seiten davor und danach). In diesem Modus kann die Collection nicht bearbeitet,
+     * durchsucht oder sortiert werden.
+     */
+    private void showPagedCollection(long generation, PagedBookSource source) {
+        if (generation != loadGeneration) { // Es wurde inzwischen eine andere Collection ausgewählt
+            try {
+                source.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+        pagedBooks = new PagedBookList(source, PAGED_PAGE_SIZE, PAGED_PREFETCH_PAGES, PAGED_CACHED_PAGES);
+        bookTableView.setItems(pagedBooks);
+        collectionLoading = false; // Bleibt trotzdem nur lesbar, siehe isCollectionReady()
+        pagedModeLabel.setText("Read-only: this collection has " + source.size() + " books and is shown page by page. "
+                + "Collections with " + collectionManager.getPagedCollectionThreshold()
+                + " or more books cannot be edited, searched or sorted.");
+        pagedModeLabel.setVisible(true);
+        pagedModeLabel.setManaged(true);
+    }
+
+    // Beendet die seitenweise Anzeige und verbindet die Tabelle wieder mit der (gefilterten) bookListData
+    private void closePagedBooks() {
+        if (pagedBooks != null) {
+            pagedBooks.close();
+            pagedBooks = null;
+            bookTableView.setItems(sortedBooks);
+            pagedModeLabel.setVisible(false);
+            pagedModeLabel.setManaged(false);
+        }
+    }
+
+    /**
+     * Lädt die aktuelle Collection im Hintergrund neu (force = Cache umgehen) und übernimmt nur die Unterschiede
+     * in die Tabelle, damit Auswahl und Scrollposition erhalten bleiben.
+     * Während des Neuladens kann die Tabelle nicht bearbeitet werden.
+     */
+    private void refreshCurrentCollection(boolean force) {
+        if (currentCollection == null || collectionLoading) return;
+        String collectionName = currentCollection.getName();
+        if (pagedBooks != null) {
+            showCollection(collectionName); // Seitenweise Anzeige mit dem neuen Stand der Dateien öffnen
+            return;
+        }
+        long generation = loadGeneration; // Wird eine andere Collection gewählt, wird das Ergebnis verworfen
+        collectionLoading = true;
+        bookTableView.setEditable(false);
+
+        Thread loader = new Thread(() -> {
+            Collection reloaded;
+            try {
+                reloaded = force
+                        ? collectionManager.reloadCollection(collectionName)
+                        : collectionManager.loadBooksForCollection(collectionName);
+            } catch (RuntimeException e) {
+                // Wie in showCollection(): gesperrt lassen, damit der alte Stand nicht über die Datei gespeichert wird
+                e.printStackTrace();
+                Platform.runLater(() -> {
+                    if (generation == loadGeneration) {
+                        showAlert("Ladefehler", "Die Sammlung '" + collectionName + "' konnte nicht geladen werden.");
+                    }
+                });
+                return;
+            }
+            Platform.runLater(() -> {
+                if (generation != loadGeneration) return; // showCollection() hat inzwischen übernommen
+                applyMinimalDiff(reloaded);
+                currentCollection = reloaded;
+                collectionLoading = false;
+                bookTableView.setEditable(true);
+                attachFacets();
+                startSearch(false); // Filter auf den neu geladenen Stand anwenden
+                System.out.println("Reloaded collection '" + collectionName + "' from disk");
+            });
+        }, "collection-reloader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /*
+    Überträgt eine neu geladene Bücherliste mit möglichst wenigen Änderungen in die Tabelle:
+    Gleiche Bücher am Anfang und am Ende bleiben unangetastet, nur der Bereich dazwischen wird ersetzt.
+    Unveränderte Bücher werden dabei auch in der neu geladenen Liste durch die bereits angezeigten Objekte
+    ersetzt, damit Tabelle und Collection weiterhin dieselben Objekte enthalten.
+    */
+    private void applyMinimalDiff(Collection reloadedCollection) {
+        List<Book> reloaded = reloadedCollection.getBooks();
+        int oldSize = bookListData.size();
+        int newSize = reloaded.size();
+
+        int prefix = 0; // Anzahl gleicher Bücher am Anfang
+        while (prefix < oldSize && prefix < newSize && bookListData.get(prefix).hasSameContent(reloaded.get(prefix))) {
+            reloadedCollection.setBook(prefix, bookListData.get(prefix));
+            prefix++;
+        }
+        int suffix = 0; // Anzahl gleicher Bücher am Ende
+        while (suffix < oldSize - prefix && suffix < newSize - prefix
+                && bookListData.get(oldSize - 1 - suffix).hasSameContent(reloaded.get(newSize - 1 - suffix))) {
+            reloadedCollection.setBook(newSize - 1 - suffix, bookListData.get(oldSize - 1 - suffix));
+            suffix++;
+        }
+
+        int oldEnd = oldSize - suffix;
+        int newEnd = newSize - suffix;
+        if (oldEnd - prefix == newEnd - prefix) {
+            // Gleich viele Bücher: Nur die tatsächlich geänderten Zeilen ersetzen
+            for (int i = prefix; i < oldEnd; i++) {
+                if (bookListData.get(i).hasSameContent(reloaded.get(i))) {
+                    reloadedCollection.setBook(i, bookListData.get(i));
+                } else {
+                    bookListData.set(i, reloaded.get(i));
+                }
+            }
+        } else {
+            bookListData.remove(prefix, oldEnd);
+            bookListData.addAll(prefix, reloaded.subList(prefix, newEnd));
+        }
+    }
+
+    // Übernimmt von außen geänderte Collection-Namen in die ComboBox (die ausgewählte Collection bleibt erhalten)
+    private void reloadCollectionNames() {
+        collectionManager.loadCollectionNames();
+        List<String> names = collectionManager.getCollectionNames();
+        String selected = collectionComboBox.getValue();
+        collectionsObservableList.removeIf(name -> !names.contains(name) && !name.equals(selected));
+        for (String name : names) {
+            if (!collectionsObservableList.contains(name)) {
+                collectionsObservableList.add(name);
+            }
+        }
+    }
+
+    // Prüft, ob beide Listen dieselben Buch-Objekte in derselben Reihenfolge enthalten
+    private boolean isSameBookSequence(List<Book> shown, List<Book> loaded) {
+        if (shown.size() != loaded.size()) return false;
+        for (int i = 0; i < shown.size(); i++) {
+            if (shown.get(i) != loaded.get(i)) return false;
+        }
+        return true;
+    }
+
+    // Verhindert Änderungen, solange die aktuelle Collection noch geladen wird
+    private boolean isCollectionReady() {
+        if (collectionLoading) {
+            showInfo("Please wait", "The collection is still loading.");
+            return false;
+        }
+        if (pagedBooks != null) {
+            showInfo("Read-only collection", "This collection has " + pagedBooks.size() + " books and is shown page by page. "
+                    + "Collections with " + collectionManager.getPagedCollectionThreshold()
+                    + " or more books cannot be edited or searched.");
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Lädt die Bücher für die aktuell ausgewählte Collection.
      */
@@ -818,22 +1280,283 @@ public class BookManagerApp extends Application {
         // Bücher aus der aktuellen Sammlung laden
         List<Book> books = currentCollection.getBooks();
 
-        // Tabellenansicht in der GUI löschen und aktualisieren
-        bookTableView.getItems().clear();
-        bookTableView.getItems().addAll(books);
+        // Tabellenansicht in der GUI löschen und aktualisieren (eine seitenweise Anzeige zeigt ohnehin alle Bücher)
+        if (pagedBooks != null) return;
+        bookListData.setAll(books);
     }
 
     /**
-     * Sucht nach Büchern, die das Keyword enthalten (Titel, Autor, Jahr, ISBN).
+     * Sucht sofort nach Büchern, die das Keyword enthalten (Enter oder Such-Button).
      */
-    private void searchBooks(TextField searchField) {
-        // Holt das eingegebene Keyword aus dem Textfeld und wandelt es in Kleinbuchstaben um
-        String keyword = searchField.getText().toLowerCase();
-        bookListData.clear(); // Löscht die aktuelle Anzeige der Buchliste
-        if (currentCollection != null) { // Überprüft, ob eine aktuelle Sammlung existiert
-            // Führt die Suche in der Sammlung durch und fügt die Ergebnisse der Buchliste hinzu
-            currentCollection.search(keyword).forEach(bookListData::add);
+    private void searchBooks() {
+        searchDelay.stop();
+        startSearch(true);
+    }
+
+    /*
+    Startet die Suche nach dem aktuellen Suchbegriff auf dem Such-Thread. Eine noch laufende oder wartende
+    Suche wird abgebrochen; kommt ihr Ergebnis trotzdem noch an, wird es anhand der Generation verworfen.
+    Das Ergebnis wird in einem Schritt als Filter (Predicate) der FilteredList gesetzt, sodass die Tabelle
+    nur ein einziges Änderungsereignis erhält. Ein leerer Suchbegriff zeigt wieder alle Bücher an.
+    Während eine Collection geladen wird, wird nicht gesucht; nach dem Laden wird die Suche erneut gestartet.
+    */
+    private void startSearch(boolean explicit) {
+        long generation = ++searchGeneration;
+        if (runningSearch != null) {
+            runningSearch.cancel(true);
+            runningSearch = null;
+        }
+        String keyword = searchKeyword.trim().toLowerCase(Locale.ROOT);
+        if (allCollectionsCheckBox.isSelected()) {
+            rankComparator.set(null);
+            searchMatches = null; // Die Tabelle zeigt weiterhin die ganze aktuelle Collection
+            applyFilter();
+            if (!keyword.isEmpty()) {
+                startGlobalSearch(generation, keyword);
+            }
+            return;
+        }
+        if (keyword.isEmpty()) {
+            rankComparator.set(null);
+            searchMatches = null;
+            applyFilter();
+            return;
+        }
+        if (pagedBooks != null) {
+            if (explicit) isCollectionReady(); // Zeigt den Hinweis zur seitenweisen Anzeige
+            return;
+        }
+        if (collectionLoading || currentCollection == null) {
+            return;
         }
+        Collection collection = currentCollection;
+        if (BookQuery.isStructured(keyword)) {
+            startQuery(generation, collection, keyword);
+            return;
+        }
+        searchTooltip.setText(QUERY_HELP);
+        boolean fuzzy = fuzzyCheckBox.isSelected();
+        long start = System.nanoTime();
+        runningSearch = searchExecutor.submit(() -> {
+            List<Book> results = fuzzy ? collection.searchFuzzy(keyword, FUZZY_SEARCH_LIMIT) : collection.search(keyword);
+            Map<Book, Integer> ranks = new IdentityHashMap<>(); // Treffer -> Rang
+            for (int i = 0; i < results.size(); i++) {
+                ranks.put(results.get(i), i);
+            }
+            Platform.runLater(() -> {
+                if (generation != searchGeneration || collection != currentCollection) return; // Veraltet
+                rankComparator.set(fuzzy ? Comparator.comparingInt(book -> ranks.getOrDefault(book, Integer.MAX_VALUE)) : null);
+                searchMatches = ranks;
+                applyFilter();
+                if (LOG_SEARCHES) {
+                    System.out.println((fuzzy ? "Fuzzy search '" : "Search '") + keyword + "': " + ranks.size() + " hits in "
+                            + (System.nanoTime() - start) / 1_000_000 + " ms");
+                }
+            });
+        });
+    }
+
+    /*
+    Führt eine Abfrage mit Feldbedingungen (z. B. "author:king year:1980..1990") auf dem Such-Thread aus.
+    Der Ausführungsplan samt Dauer wird im Tooltip des Suchfelds angezeigt (und mit SEARCH_LOG_PROPERTY protokolliert);
+    bei einer ungültigen Abfrage steht dort der Fehler und die Tabelle bleibt leer.
+    */
+    private void startQuery(long generation, Collection collection, String keyword) {
+        rankComparator.set(null);
+        runningSearch = searchExecutor.submit(() -> {
+            Map<Book, Integer> matches = new IdentityHashMap<>();
+            String planText;
+            try {
+                BookQuery.Result result = collection.query(keyword);
+                for (Book book : result.books()) {
+                    matches.put(book, matches.size());
+                }
+                planText = result.plan();
+                if (LOG_SEARCHES) System.out.println(planText);
+            } catch (IllegalArgumentException e) {
+                planText = "Invalid query: " + e.getMessage() + "\n\n" + QUERY_HELP;
+                System.err.println("Invalid query '" + keyword + "': " + e.getMessage());
+            }
+            String plan = planText;
+            Platform.runLater(() -> {
+                if (generation != searchGeneration || collection != currentCollection) return; // Veraltet
+                searchTooltip.setText(plan);
+                searchMatches = matches;
+                applyFilter();
+            });
+        });
+    }
+
+    // Sucht auf dem Such-Thread in allen Collections und zeigt die Treffer im Ergebnisfenster an
+    private void startGlobalSearch(long generation, String keyword) {
+        long start = System.nanoTime();
+        runningSearch = searchExecutor.submit(() -> {
+            List<GlobalSearchIndex.SearchHit> hits = collectionManager.searchAllCollections(keyword, GLOBAL_SEARCH_LIMIT);
+            Platform.runLater(() -> {
+                if (generation != searchGeneration) return; // Veraltet
+                globalSearchHits.setAll(hits);
+                globalSearchStatus.setText(hits.size() + (hits.size() >= GLOBAL_SEARCH_LIMIT ? "+" : "")
+                        + " hits for '" + keyword + "' in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                showGlobalSearchWindow();
+            });
+        });
+    }
+
+    /*
+    Zeigt das (nicht modale) Fenster mit den Treffern der Suche über alle Collections an. Ein Doppelklick auf
+    einen Treffer wählt dessen Collection in der ComboBox aus.
+    */
+    private void showGlobalSearchWindow() {
+        if (globalSearchStage != null) {
+            globalSearchStage.show();
+            return;
+        }
+        TableView<GlobalSearchIndex.SearchHit> hitTable = new TableView<>(globalSearchHits);
+        hitTable.setPlaceholder(new Label("No matching books"));
+
+        TableColumn<GlobalSearchIndex.SearchHit, String> collectionColumn = new TableColumn<>("Collection");
+        collectionColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().collectionName()));
+        TableColumn<GlobalSearchIndex.SearchHit, String> titleColumn = new TableColumn<>("Title");
+        titleColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().book().getTitle()));
+        titleColumn.setPrefWidth(250);
+        TableColumn<GlobalSearchIndex.SearchHit, String> authorColumn = new TableColumn<>("Author");
+        authorColumn.setCellValueFactory(data -> new SimpleStringProperty(
+                data.getValue().book().getFirstName() + " " + data.getValue().book().getLastName()));
+        authorColumn.setPrefWidth(180);
+        TableColumn<GlobalSearchIndex.SearchHit, Number> yearColumn = new TableColumn<>("Year");
+        yearColumn.setCellValueFactory(data -> new SimpleIntegerProperty(data.getValue().book().getPublicationYear()));
+        TableColumn<GlobalSearchIndex.SearchHit, Number> isbnColumn = new TableColumn<>("ISBN");
+        isbnColumn.setCellValueFactory(data -> new SimpleLongProperty(data.getValue().book().getIsbn()));
+        isbnColumn.setPrefWidth(130);
+        hitTable.getColumns().addAll(List.of(collectionColumn, titleColumn, authorColumn, yearColumn, isbnColumn));
+
+        // Doppelklick: Collection des Treffers öffnen
+        hitTable.setRowFactory(table -> {
+            TableRow<GlobalSearchIndex.SearchHit> row = new TableRow<>();
+            row.setOnMouseClicked(event -> {
+                if (event.getClickCount() == 2 && !row.isEmpty()) {
+                    collectionComboBox.getSelectionModel().select(row.getItem().collectionName());
+                }
+            });
+            return row;
+        });
+
+        VBox content = new VBox(10, globalSearchStatus, hitTable);
+        content.setPadding(new Insets(10));
+        VBox.setVgrow(hitTable, Priority.ALWAYS);
+        globalSearchStage = new Stage();
+        globalSearchStage.setTitle("Search in all collections");
+        globalSearchStage.setScene(new Scene(content, 750, 450));
+        LoginScreen.setBookIcon(globalSearchStage);
+        globalSearchStage.show();
+    }
+
+    // Hebt den Filter auf und verwirft laufende Suchen
+    private void clearSearchFilter() {
+        if (allCollectionsCheckBox.isSelected()) return; // Die globale Suche hängt nicht von der Collection ab
+        searchGeneration++;
+        if (runningSearch != null) {
+            runningSearch.cancel(true);
+            runningSearch = null;
+        }
+        rankComparator.set(null);
+        searchMatches = null;
+        applyFilter();
+    }
+
+    /*
+    Setzt den Filter der Tabelle in einem Schritt aus den Treffern der Suche und der Facettenauswahl zusammen:
+    Angezeigt werden Bücher, die zu beiden passen.
+    */
+    private void applyFilter() {
+        Map<Book, Integer> search = searchMatches;
+        Set<Book> facets = facetMatches;
+        if (search == null && facets == null) {
+            filteredBooks.setPredicate(null);
+        } else {
+            filteredBooks.setPredicate(book -> (search == null || search.containsKey(book))
+                    && (facets == null || facets.contains(book)));
+        }
+    }
+
+    // Meldet Änderungen der aktuellen Collection an die Seitenleiste und zeigt deren Facetten an
+    private void attachFacets() {
+        currentCollection.setChangeCallback(this::facetsChanged);
+        updateFacets();
+    }
+
+    // Wird bei jeder Änderung einer Collection aufgerufen (auf beliebigen Threads); plant höchstens eine Aktualisierung ein
+    private void facetsChanged() {
+        if (facetUpdatePending.compareAndSet(false, true)) {
+            Platform.runLater(this::updateFacets);
+        }
+    }
+
+    /*
+    Fragt auf dem Such-Thread die Facetten-Zähler und die Bücher zur Facettenauswahl ab und zeigt sie an.
+    Die Zähler führt der FacetIndex der Collection bei jeder Änderung mit; abgefragt werden hier nur die
+    wenigen Werte je Facette, nicht die Bücher selbst.
+    */
+    private void updateFacets() {
+        facetUpdatePending.set(false);
+        Collection collection = currentCollection;
+        if (collection == null || collectionLoading || pagedBooks != null || searchExecutor.isShutdown()) return;
+        Map<FacetIndex.Facet, Set<String>> selection = new EnumMap<>(FacetIndex.Facet.class);
+        selectedFacets.forEach((facet, values) -> selection.put(facet, new HashSet<>(values)));
+        boolean anySelected = selection.values().stream().anyMatch(values -> !values.isEmpty());
+
+        searchExecutor.submit(() -> {
+            Map<FacetIndex.Facet, Map<String, Integer>> counts = new EnumMap<>(FacetIndex.Facet.class);
+            for (FacetIndex.Facet facet : FacetIndex.Facet.values()) {
+                counts.put(facet, collection.facetCounts(facet));
+            }
+            Set<Book> matches = null;
+            if (anySelected) {
+                matches = Collections.newSetFromMap(new IdentityHashMap<>());
+                matches.addAll(collection.filterByFacets(selection));
+            }
+            Set<Book> result = matches;
+            Platform.runLater(() -> {
+                if (collection != currentCollection) return; // Veraltet
+                showFacetCounts(counts);
+                facetMatches = result;
+                applyFilter();
+            });
+        });
+    }
+
+    // Füllt die Seitenleiste mit einer CheckBox je Facettenwert, z. B. "Fantasy (1.203)"
+    private void showFacetCounts(Map<FacetIndex.Facet, Map<String, Integer>> counts) {
+        for (FacetIndex.Facet facet : FacetIndex.Facet.values()) {
+            Set<String> selected = selectedFacets.computeIfAbsent(facet, key -> new HashSet<>());
+            Map<String, Integer> facetCounts = new LinkedHashMap<>(counts.get(facet));
+            for (String value : selected) {
+                facetCounts.putIfAbsent(value, 0); // Ausgewählte Werte bleiben sichtbar, auch ohne Bücher
+            }
+            List<CheckBox> checkBoxes = new ArrayList<>();
+            facetCounts.forEach((value, count) -> {
+                CheckBox checkBox = new CheckBox(value + " (" + String.format(Locale.GERMAN, "%,d", count) + ")");
+                checkBox.setSelected(selected.contains(value));
+                checkBox.setOnAction(e -> {
+                    if (checkBox.isSelected()) {
+                        selected.add(value);
+                    } else {
+                        selected.remove(value);
+                    }
+                    updateFacets();
+                });
+                checkBoxes.add(checkBox);
+            });
+            facetBoxes.get(facet).getChildren().setAll(checkBoxes);
+        }
+    }
+
+    // Leert Seitenleiste und Facettenauswahl (beim Wechsel der Collection)
+    private void clearFacets() {
+        selectedFacets.clear();
+        facetMatches = null;
+        facetBoxes.values().forEach(box -> box.getChildren().clear());
+        applyFilter();
     }
 
     /**
@@ -869,6 +1592,7 @@ public class BookManagerApp extends Application {
      */
     // Ein neues Fenster (Stage) initialisieren
     private void openBookForm(Book book, boolean isNew) {
+        if (!isCollectionReady()) return;
         Stage stage = new Stage();
         stage.initModality(Modality.APPLICATION_MODAL); // Das Fenster ist modal (blockiert andere Fenster)
         stage.setTitle(isNew ? "Add Book" : "Edit Book"); // Setzt den Fenstertitel abhängig davon, ob es "Neu" oder "Bearbeiten" ist
@@ -979,6 +1703,8 @@ public class BookManagerApp extends Application {
                     boolean success = currentCollection.addBook(book);
                     if (success) {
                         bookListData.add(book); // Aktualisieren, wenn erfolgreich
+                        collectionManager.recordBookAdded(currentCollection, book); // Im Journal speichern
+                        startSearch(false); // Neues Buch bei aktiver Suche nur anzeigen, wenn es passt
                         System.out.println("Added new book: " + book);
                     } else {
                         showAlert("Duplicate Book", "A book with the same title or ISBN already exists.");
@@ -986,6 +1712,7 @@ public class BookManagerApp extends Application {
                     }
                 } else { // Prüft auf Duplikate (falls das Buch bearbeitet wird)
                     if (currentCollection.isDuplicateExcept(book)) {
+                        currentCollection.bookEdited(book); // Das Buch wurde oben bereits geändert
                         showAlert("Duplicate Book", "A book with the same title or ISBN already exists.");
                         return;
                     }
@@ -996,11 +1723,11 @@ public class BookManagerApp extends Application {
                         bookListData.set(index, book);
                     }
 
+                    // Änderung im Journal der aktuellen Collection speichern
+                    collectionManager.recordBookUpdated(currentCollection, book);
+                    startSearch(false); // Suchergebnis an die Änderung anpassen
                 }
 
-                // Speichern der aktuellen Collection
-                collectionManager.saveBooksForCollection(currentCollection);
-
                 stage.close(); // Fenster schließen
             } catch (NumberFormatException ex) {
                 showAlert("Invalid Input", "Please enter valid numerical values for Year and ISBN.");
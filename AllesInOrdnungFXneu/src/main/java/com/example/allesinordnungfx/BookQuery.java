@@ -0,0 +1,539 @@
+package com.example.allesinordnungfx;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+Die Klasse BookQuery ist eine kleine Abfragesprache für die Suche in einer Collection, z. B.
+
+    author:king year:1980..1990 read:false rating:>=2 genre:horror "dunkle turm"
+
+Jeder Teil ist eine Bedingung, alle Bedingungen müssen erfüllt sein:
+- title:, author:, genre:   jedes Wort muss als Wortanfang im Feld vorkommen (author:king findet "Stephen King")
+- year:, rating:            Zahl, Bereich (1980..1990, ..1990, 1980..) oder Vergleich (>=2, <1990)
+- isbn:                     exakte ISBN
+- read:                     true/false (auch yes/no, 1/0)
+- comment:                  Teilstring im Kommentar (ohne Index, wird durchsucht)
+- alles andere              Teilstring in einem der Felder wie bei Collection.search()
+Werte mit Leerzeichen stehen in Anführungszeichen (title:"der herr").
+
+Ausgeführt wird die Abfrage über einen Plan: Für jede Bedingung wird aus ihrem Index geschätzt, wie viele
+Bücher sie übrig lässt (ISBN-Hash, Jahres-/Bewertungsbereich und Lesestatus im FieldIndex, Wortanfänge im
+TokenIndex, Teilstrings im TrigramIndex). Die Bedingungen werden nach dieser Schätzung ausgewertet, die
+selektivste zuerst; ihre Treffer werden geschnitten, bis nur noch wenige Kandidaten übrig sind. Die übrigen
+Bedingungen (und die, deren Index nur eine Obermenge liefert) werden danach direkt an den Kandidaten geprüft.
+Gibt es für keine Bedingung einen Index, werden alle Bücher durchsucht. Große Kandidatenmengen werden dabei
+über ParallelScan auf alle Kerne verteilt. Der Plan wird als Text mit der Ausführungszeit zurückgegeben, um langsame Abfragen untersuchen zu können.
+*/
+public class BookQuery {
+
+    private static final int VERIFY_DIRECTLY = 64; // Ab so wenigen Kandidaten wird direkt geprüft statt geschnitten
+    private static final Pattern FIELD_PATTERN = Pattern.compile("(?i)(title|author|genre|year|isbn|read|rating|comment):(.+)");
+    private static final Pattern RANGE_PATTERN = Pattern.compile("(-?\\d+)?\\.\\.(-?\\d+)?");
+    private static final Pattern COMPARISON_PATTERN = Pattern.compile("(>=|<=|>|<|=)?(-?\\d+)");
+
+    // Ergebnis einer Abfrage: Treffer in der Reihenfolge der Sammlung, Ausführungsplan und Dauer
+    public record Result(List<Book> books, String plan, long nanos) {
+    }
+
+    // Zugriff auf die Indizes und Bücher der Collection während der Ausführung
+    interface IndexSource {
+        FieldIndex fields();
+
+        TokenIndex tokens();
+
+        TrigramIndex trigrams();
+
+        int ordinalCount(); // Größte Ordnungsnummer + 1
+
+        Book bookAt(int ordinal); // null für entfernte Bücher
+    }
+
+    // Von den Bedingungen benötigte Indizes (damit die Collection sie vor der Ausführung aufbauen kann)
+    enum IndexKind {
+        FIELDS, TOKENS, TRIGRAMS
+    }
+
+    // Eine Bedingung der Abfrage; ohne Index wird sie immer direkt an den Kandidaten geprüft
+    private abstract static class Condition {
+        final String text; // Wie in der Abfrage geschrieben, für den Plan
+
+        Condition(String text) {
+            this.text = text;
+        }
+
+        abstract boolean matches(Book book);
+    }
+
+    // Eine Bedingung, deren Treffer aus einem Index geschätzt und gelesen werden können
+    private abstract static class IndexedCondition extends Condition {
+
+        IndexedCondition(String text) {
+            super(text);
+        }
+
+        abstract IndexKind index();
+
+        abstract String access(); // Name des Zugriffswegs im Plan
+
+        abstract int estimate(IndexSource source);
+
+        abstract BitSet lookup(IndexSource source);
+
+        // true, wenn lookup() genau die passenden Bücher liefert (sonst wird zusätzlich matches() geprüft)
+        abstract boolean exact();
+    }
+
+    private final String text;
+    private final List<Condition> conditions;
+
+    private BookQuery(String text, List<Condition> conditions) {
+        this.text = text;
+        this.conditions = conditions;
+    }
+
+    // Prüft, ob ein Suchbegriff Feldbedingungen (z. B. "year:1980") enthält und als Abfrage gelesen werden soll
+    public static boolean isStructured(String text) {
+        for (String part : split(text)) {
+            if (FIELD_PATTERN.matcher(part).matches()) return true;
+        }
+        return false;
+    }
+
+    /*
+    Zerlegt den Text in Bedingungen. Ungültige Werte (z. B. year:abc) führen zu einer
+    IllegalArgumentException mit einer Beschreibung des Fehlers.
+    */
+    public static BookQuery parse(String text) {
+        List<Condition> conditions = new ArrayList<>();
+        for (String part : split(text)) {
+            Matcher field = FIELD_PATTERN.matcher(part);
+            if (!field.matches()) {
+                conditions.add(new TextCondition(part));
+                continue;
+            }
+            String name = field.group(1).toLowerCase(Locale.ROOT);
+            String value = field.group(2);
+            switch (name) {
+                case "title", "author", "genre" -> conditions.add(new WordCondition(part, name, value));
+                case "comment" -> conditions.add(new CommentCondition(part, value));
+                case "year" -> {
+                    int[] range = parseRange(value, part);
+                    conditions.add(new RangeCondition(part, false, range[0], range[1]));
+                }
+                case "rating" -> {
+                    int[] range = parseRange(value, part);
+                    conditions.add(new RangeCondition(part, true, range[0], range[1]));
+                }
+                case "isbn" -> {
+                    try {
+                        conditions.add(new IsbnCondition(part, Long.parseLong(value.replace("-", ""))));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid ISBN in '" + part + "'");
+                    }
+                }
+                default -> conditions.add(new ReadCondition(part, parseBoolean(value, part)));
+            }
+        }
+        return new BookQuery(text, conditions);
+    }
+
+    // Indizes, die die Bedingungen dieser Abfrage benötigen
+    Set<IndexKind> requiredIndexes() {
+        Set<IndexKind> kinds = EnumSet.noneOf(IndexKind.class);
+        for (Condition condition : conditions) {
+            if (condition instanceof IndexedCondition indexed) kinds.add(indexed.index());
+        }
+        return kinds;
+    }
+
+    // Führt die Abfrage nach dem oben beschriebenen Plan aus
+    Result execute(IndexSource source) {
+        long start = System.nanoTime();
+        StringBuilder plan = new StringBuilder("Query: ").append(text.trim()).append('\n');
+
+        // Schätzung je Bedingung mit Index, die selektivste zuerst; Bedingungen ohne Index werden geprüft
+        List<IndexedCondition> ordered = new ArrayList<>();
+        List<Condition> toVerify = new ArrayList<>();
+        for (Condition condition : conditions) {
+            if (condition instanceof IndexedCondition indexed) {
+                ordered.add(indexed);
+            } else {
+                toVerify.add(condition);
+            }
+        }
+        int[] estimates = new int[ordered.size()];
+        for (int i = 0; i < ordered.size(); i++) {
+            estimates[i] = ordered.get(i).estimate(source);
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); i++) order.add(i);
+        order.sort(Comparator.comparingInt(i -> estimates[i]));
+
+        BitSet candidates = null;
+        int step = 1;
+        for (int i : order) {
+            IndexedCondition condition = ordered.get(i);
+            if (candidates != null && candidates.cardinality() <= VERIFY_DIRECTLY) {
+                toVerify.add(condition);
+                continue;
+            }
+            BitSet hits = condition.lookup(source);
+            if (candidates == null) {
+                candidates = hits;
+            } else {
+                candidates.and(hits);
+            }
+            if (!condition.exact()) {
+                toVerify.add(condition);
+            }
+            plan.append(step++).append(". ").append(condition.text).append(" via ").append(condition.access())
+                    .append(" (estimate ").append(estimates[i]).append(") -> ")
+                    .append(candidates.cardinality()).append(" candidates\n");
+        }
+        if (candidates == null) { // Keine Bedingung mit Index: alle Bücher
+            candidates = new BitSet();
+            candidates.set(0, source.ordinalCount());
+            plan.append(step++).append(". no usable index -> full scan\n");
+        }
+
+        // Übrige Bedingungen direkt an den Kandidaten prüfen (bei vielen Kandidaten parallel)
+        List<Book> candidateBooks = new ArrayList<>(candidates.cardinality());
+        for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+            Book book = source.bookAt(ordinal);
+            if (book != null) candidateBooks.add(book);
+        }
+        List<Book> books = candidateBooks;
+        if (!toVerify.isEmpty()) {
+            books = ParallelScan.filter(candidateBooks, book -> matchesAll(book, toVerify));
+            plan.append(step).append(". verify");
+            toVerify.forEach(condition -> plan.append(' ').append(condition.text));
+            plan.append(" on ").append(candidateBooks.size()).append(" candidates")
+                    .append(ParallelScan.isParallel(candidateBooks.size()) ? " (parallel scan)\n" : "\n");
+        }
+        long nanos = System.nanoTime() - start;
+        plan.append("Result: ").append(books.size()).append(" books in ")
+                .append(String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0)).append(" ms");
+        return new Result(books, plan.toString(), nanos);
+    }
+
+    private static boolean matchesAll(Book book, List<Condition> conditions) {
+        for (Condition condition : conditions) {
+            if (!condition.matches(book)) return false;
+        }
+        return true;
+    }
+
+    // Zerlegt den Text an Leerzeichen; Teile in Anführungszeichen bleiben zusammen
+    private static List<String> split(String text) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (current.length() > 0) parts.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0) parts.add(current.toString());
+        return parts;
+    }
+
+    // Liest "1980", "1980..1990", "..1990", "1980..", ">=2", "<1990" als Bereich [von, bis]
+    private static int[] parseRange(String value, String part) {
+        Matcher range = RANGE_PATTERN.matcher(value);
+        if (range.matches() && (range.group(1) != null || range.group(2) != null)) {
+            return new int[]{
+                    range.group(1) != null ? Integer.parseInt(range.group(1)) : Integer.MIN_VALUE,
+                    range.group(2) != null ? Integer.parseInt(range.group(2)) : Integer.MAX_VALUE
+            };
+        }
+        Matcher comparison = COMPARISON_PATTERN.matcher(value);
+        if (comparison.matches()) {
+            int number = Integer.parseInt(comparison.group(2));
+            String operator = comparison.group(1) == null ? "=" : comparison.group(1);
+            return switch (operator) {
+                case ">=" -> new int[]{number, Integer.MAX_VALUE};
+                case ">" -> new int[]{number + 1, Integer.MAX_VALUE};
+                case "<=" -> new int[]{Integer.MIN_VALUE, number};
+                case "<" -> new int[]{Integer.MIN_VALUE, number - 1};
+                default -> new int[]{number, number};
+            };
+        }
+        throw new IllegalArgumentException("Invalid number or range in '" + part + "'");
+    }
+
+    private static boolean parseBoolean(String value, String part) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "1":
+                return true;
+            case "false", "no", "0":
+                return false;
+            default:
+                throw new IllegalArgumentException("Expected true or false in '" + part + "'");
+        }
+    }
+
+    // title:/author:/genre: jedes Wort muss als Wortanfang im Feld vorkommen
+    private static final class WordCondition extends IndexedCondition {
+        final String field;
+        final String value;
+        final List<String> words;
+
+        WordCondition(String text, String field, String value) {
+            super(text);
+            this.field = field;
+            this.value = value;
+            this.words = TokenIndex.tokenize(value);
+        }
+
+        @Override
+        IndexKind index() {
+            return IndexKind.TOKENS;
+        }
+
+        @Override
+        String access() {
+            return "token index";
+        }
+
+        @Override
+        int estimate(IndexSource source) {
+            return words.isEmpty() ? source.ordinalCount() : source.tokens().estimate(value);
+        }
+
+        @Override
+        BitSet lookup(IndexSource source) {
+            BitSet matches = words.isEmpty() ? null : source.tokens().find(value); // Wortanfang in irgendeinem Feld
+            if (matches == null) {
+                matches = new BitSet();
+                matches.set(0, source.ordinalCount());
+            }
+            return matches;
+        }
+
+        @Override
+        boolean exact() {
+            return false; // Der TokenIndex unterscheidet nicht nach Feldern
+        }
+
+        @Override
+        boolean matches(Book book) {
+            for (String word : words) {
+                boolean found = switch (field) {
+                    case "title" -> startsWord(book.searchKey(Book.SearchField.TITLE), word);
+                    case "author" -> startsWord(book.searchKey(Book.SearchField.FIRST_NAME), word)
+                            || startsWord(book.searchKey(Book.SearchField.LAST_NAME), word);
+                    default -> startsWord(book.searchKey(Book.SearchField.GENRE), word);
+                };
+                if (!found) return false;
+            }
+            return true;
+        }
+
+        // Prüft ohne Zerlegen in Wörter, ob ein Wort des normalisierten Feldes mit word beginnt
+        private static boolean startsWord(String key, String word) {
+            for (int i = key.indexOf(word); i >= 0; i = key.indexOf(word, i + 1)) {
+                if (i == 0 || !Character.isLetterOrDigit(key.charAt(i - 1))) return true;
+            }
+            return false;
+        }
+    }
+
+    // year:/rating: Zahlenbereich
+    private static final class RangeCondition extends IndexedCondition {
+        final boolean rating;
+        final int from;
+        final int to;
+
+        RangeCondition(String text, boolean rating, int from, int to) {
+            super(text);
+            this.rating = rating;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        IndexKind index() {
+            return IndexKind.FIELDS;
+        }
+
+        @Override
+        String access() {
+            return rating ? "rating range" : "year range";
+        }
+
+        @Override
+        int estimate(IndexSource source) {
+            return rating ? source.fields().countRatings(from, to) : source.fields().countYears(from, to);
+        }
+
+        @Override
+        BitSet lookup(IndexSource source) {
+            return rating ? source.fields().findRatings(from, to) : source.fields().findYears(from, to);
+        }
+
+        @Override
+        boolean exact() {
+            return true;
+        }
+
+        @Override
+        boolean matches(Book book) {
+            Integer value = rating ? FieldIndex.parseRating(book.getRating()) : Integer.valueOf(book.getPublicationYear());
+            return value != null && value >= from && value <= to;
+        }
+    }
+
+    // isbn: exakter Wert
+    private static final class IsbnCondition extends IndexedCondition {
+        final long isbn;
+
+        IsbnCondition(String text, long isbn) {
+            super(text);
+            this.isbn = isbn;
+        }
+
+        @Override
+        IndexKind index() {
+            return IndexKind.FIELDS;
+        }
+
+        @Override
+        String access() {
+            return "isbn hash";
+        }
+
+        @Override
+        int estimate(IndexSource source) {
+            return source.fields().countIsbn(isbn);
+        }
+
+        @Override
+        BitSet lookup(IndexSource source) {
+            return source.fields().findIsbn(isbn);
+        }
+
+        @Override
+        boolean exact() {
+            return true;
+        }
+
+        @Override
+        boolean matches(Book book) {
+            return book.getIsbn() == isbn;
+        }
+    }
+
+    // read: Lesestatus
+    private static final class ReadCondition extends IndexedCondition {
+        final boolean read;
+
+        ReadCondition(String text, boolean read) {
+            super(text);
+            this.read = read;
+        }
+
+        @Override
+        IndexKind index() {
+            return IndexKind.FIELDS;
+        }
+
+        @Override
+        String access() {
+            return "read status";
+        }
+
+        @Override
+        int estimate(IndexSource source) {
+            return source.fields().countRead(read);
+        }
+
+        @Override
+        BitSet lookup(IndexSource source) {
+            return source.fields().findRead(read);
+        }
+
+        @Override
+        boolean exact() {
+            return true;
+        }
+
+        @Override
+        boolean matches(Book book) {
+            return book.isRead() == read;
+        }
+    }
+
+    // comment: Teilstring im Kommentar; dafür gibt es keinen Index
+    private static final class CommentCondition extends Condition {
+        final String lowerValue;
+
+        CommentCondition(String text, String value) {
+            super(text);
+            this.lowerValue = Book.normalize(value);
+        }
+
+        @Override
+        boolean matches(Book book) {
+            return book.searchKey(Book.SearchField.COMMENT).contains(lowerValue);
+        }
+    }
+
+    // Freier Text: Teilstring in einem der Felder (wie Collection.search())
+    private static final class TextCondition extends IndexedCondition {
+        final String lowerText;
+
+        TextCondition(String text) {
+            super(text);
+            this.lowerText = Book.normalize(text);
+        }
+
+        @Override
+        IndexKind index() {
+            return IndexKind.TRIGRAMS;
+        }
+
+        @Override
+        String access() {
+            return "trigram index";
+        }
+
+        @Override
+        int estimate(IndexSource source) {
+            return source.trigrams().estimate(lowerText);
+        }
+
+        @Override
+        BitSet lookup(IndexSource source) {
+            return source.trigrams().find(lowerText);
+        }
+
+        @Override
+        boolean exact() {
+            return true;
+        }
+
+        @Override
+        boolean matches(Book book) {
+            return book.searchKey(Book.SearchField.TITLE).contains(lowerText)
+                    || book.searchKey(Book.SearchField.FIRST_NAME).contains(lowerText)
+                    || book.searchKey(Book.SearchField.LAST_NAME).contains(lowerText)
+                    || book.searchKey(Book.SearchField.GENRE).contains(lowerText)
+                    || book.searchKey(Book.SearchField.YEAR).contains(lowerText)
+                    || book.searchKey(Book.SearchField.ISBN).contains(lowerText);
+        }
+    }
+}
@@ -1,33 +1,67 @@
 package com.example.allesinordnungfx;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 // Diese Klasse repräsentiert eine Sammlung von Büchern.
 // Sie enthält Funktionen zum Verwalten der Bücher, wie das Hinzufügen, Entfernen und Suchen von Büchern,
 // sowie eine Callback-Option zur Benachrichtigung der Benutzeroberfläche.
+//
+// Die Bücherliste wird nur über die Methoden dieser Klasse geändert (getBooks() ist nur lesbar), damit die
+// registrierten Indizes (CollectionIndex, z. B. der TrigramIndex für search()) aktuell bleiben. Jeder Index wird
+// erst beim ersten Zugriff aufgebaut (eine Duplikatsprüfung baut also nicht die Suchindizes auf) und danach bei
+// jeder Änderung mitgeführt.
 public class Collection {
     private String name; // welchen Namen soll die Sammlung haben?
     private List<Book> books;
+    private List<Book> booksView; // Nur lesbare Sicht auf books
+
+    private final TokenIndex tokenIndex = new TokenIndex(); // Wortindex für searchWords()
+    private final TrigramIndex trigramIndex = new TrigramIndex(); // Teilstring-Index für search()
+    private final FuzzyIndex fuzzyIndex = new FuzzyIndex(); // Fehlertolerante Suche für searchFuzzy()
+    private final FacetIndex facetIndex = new FacetIndex(); // Zähler je Genre, Jahr, Lesestatus und Bewertung
+    private final FieldIndex fieldIndex = new FieldIndex(); // ISBN, Jahr, Bewertung, Lesestatus für query()
+    private final DuplicateIndex duplicateIndex = new DuplicateIndex(); // (Titel, ISBN) für isDuplicate()
+    private final List<CollectionIndex> indexes = new ArrayList<>(); // Aufgebaute Indizes, die mitgeführt werden
+    private final Map<Book, Integer> ordinals = new IdentityHashMap<>(); // Ordnungsnummer je Buch (steigt mit der Position)
+    private final List<Book> booksByOrdinal = new ArrayList<>(); // Ordnungsnummer -> Buch (null nach dem Entfernen)
+    private boolean indexed; // true, sobald die Ordnungsnummern vergeben sind
+    private volatile int indexCount; // indexes.size(), ohne Sperre lesbar (siehe getIndexCount())
 
     // Callback-Schnittstelle zur UI-Benachrichtigung
     private java.util.function.Consumer<String> notificationCallback;
 
+    // Callback, der nach jeder Änderung der Bücher aufgerufen wird (z. B. um die Facetten-Zähler anzuzeigen)
+    // Achtung: Der Aufruf erfolgt auf dem Thread, der die Änderung vornimmt, und innerhalb der Sperre der Collection.
+    private Runnable changeCallback;
+
     // Setter für die Callback-Methode
     // Ermöglicht die Zuweisung einer Funktion, die zur Benachrichtigung der UI aufgerufen wird
     public void setNotificationCallback(java.util.function.Consumer<String> notificationCallback) {
         this.notificationCallback = notificationCallback;
     }
 
+    public synchronized void setChangeCallback(Runnable changeCallback) {
+        this.changeCallback = changeCallback;
+    }
+
     // Standardkonstruktor (ohne Argumente), notwendig z. B. bei der Verwendung von SnakeYAMLL
+    // Die Liste wird direkt angelegt statt über setBooks(), das in Unterklassen überschrieben sein könnte.
     public Collection() {
         this.books = new ArrayList<>();
+        this.booksView = Collections.unmodifiableList(this.books);
     }
 
     // Konstruktor, um eine Sammlung mit einem spezifischen Namen zu erstellen
     public Collection(String name) {
+        this();
         this.name = name;
-        this.books = new ArrayList<>();
     }
 
     // Getter und Setter für den Namen einer Sammlung
@@ -39,24 +73,191 @@ public class Collection {
     }
 
     // Getter und Setter um die Bücher einer Sammlung zu erhalten bzw. zu setzen
+    // Die zurückgegebene Liste ist nur lesbar; Änderungen erfolgen über addBook(), setBook(), removeBookAt() usw.
     public List<Book> getBooks() {
-        return books;
+        return booksView;
     }
-    public void setBooks(List<Book> books) {
-        this.books = books;
+
+    // Anzahl der aufgebauten Indizes; ohne Sperre lesbar, da der CollectionCache damit seine Größe schätzt
+    public int getIndexCount() {
+        return indexCount;
+    }
+
+    // Übernimmt eine Kopie der Liste; die Indizes werden beim nächsten Zugriff neu aufgebaut
+    public synchronized void setBooks(List<Book> books) {
+        this.books = new ArrayList<>(books);
+        this.booksView = Collections.unmodifiableList(this.books);
+        this.indexed = false;
+        this.ordinals.clear();
+        this.booksByOrdinal.clear();
+        notifyChange();
     }
 
     // Methode zum Hinzufügen eines Buchs zur Sammlung
     // Prüft auf Duplikate und benachrichtigt die Benutzeroberfläche, falls eines gefunden wird.
-    public boolean addBook(Book book) {
+    public synchronized boolean addBook(Book book) {
         if(isDuplicate(book)) {
             notifyUI("Duplicate found " + book.getTitle());
             return false; // Das Buch wird nicht hinzugefügt, wenn es ein Duplikat ist
         }
-        books.add(book);
+        appendBook(book);
         return true; // Das Buch wird der Liste hinzugefügt
     }
 
+    /*
+    Fügt mehrere Bücher hinzu und überspringt dabei Duplikate, auch innerhalb der neuen Bücher selbst
+    (z. B. beim Importieren). Jede Prüfung läuft über den DuplicateIndex, der Aufwand wächst daher linear.
+    Gibt die Anzahl der tatsächlich hinzugefügten Bücher zurück.
+    */
+    public synchronized int addBooks(List<Book> newBooks) {
+        int added = 0;
+        for (Book book : newBooks) {
+            if (addBookIfAbsent(book)) added++;
+        }
+        return added;
+    }
+
+    // Fügt ein Buch hinzu, sofern es noch kein Duplikat in der Sammlung hat (ohne Hinweis an die Oberfläche).
+    // Damit können Bücher beim Importieren einzeln aus einer Datei übernommen werden.
+    public synchronized boolean addBookIfAbsent(Book book) {
+        ensureIndexed(duplicateIndex);
+        if (duplicateIndex.contains(book)) {
+            return false;
+        }
+        appendBook(book); // Trägt das Buch auch in den DuplicateIndex ein
+        return true;
+    }
+
+    // Hängt ein Buch ohne Duplikatsprüfung an (z. B. beim Laden oder Importieren)
+    public synchronized void appendBook(Book book) {
+        books.add(book);
+        if (indexed) {
+            int ordinal = booksByOrdinal.size();
+            booksByOrdinal.add(book);
+            ordinals.put(book, ordinal);
+            indexes.forEach(index -> index.bookAdded(book, ordinal));
+        }
+        notifyChange();
+    }
+
+    // Hängt mehrere Bücher ohne Duplikatsprüfung an
+    public synchronized void appendBooks(List<Book> newBooks) {
+        for (Book book : newBooks) {
+            appendBook(book);
+        }
+    }
+
+    // Ersetzt das Buch an der Position; gibt das bisherige Buch zurück
+    public synchronized Book setBook(int index, Book book) {
+        Book previous = books.set(index, book);
+        if (indexed && previous != book) {
+            int ordinal = ordinals.remove(previous); // Neues Buch übernimmt die Ordnungsnummer des alten
+            indexes.forEach(i -> i.bookRemoved(previous, ordinal));
+            ordinals.put(book, ordinal);
+            booksByOrdinal.set(ordinal, book);
+            indexes.forEach(i -> i.bookAdded(book, ordinal));
+        }
+        if (previous != book) notifyChange();
+        return previous;
+    }
+
+    // Entfernt das Buch an der Position und gibt es zurück
+    public synchronized Book removeBookAt(int index) {
+        Book removed = books.remove(index);
+        if (indexed) {
+            int ordinal = ordinals.remove(removed);
+            booksByOrdinal.set(ordinal, null);
+            indexes.forEach(i -> i.bookRemoved(removed, ordinal));
+            if (booksByOrdinal.size() > 2 * books.size() + 1024) {
+                indexed = false; // Zu viele Lücken: Ordnungsnummern beim nächsten Zugriff neu vergeben
+            }
+        }
+        notifyChange();
+        return removed;
+    }
+
+    // Entfernt genau diese Buch-Objekte (Vergleich über die Identität, z. B. nach einem abgebrochenen Import);
+    // die Indizes werden beim nächsten Zugriff neu aufgebaut. Gibt die Anzahl der entfernten Bücher zurück.
+    public synchronized int removeBooks(List<Book> toRemove) {
+        if (toRemove.isEmpty()) return 0;
+        Set<Book> identities = Collections.newSetFromMap(new IdentityHashMap<>());
+        identities.addAll(toRemove);
+        int before = books.size();
+        books.removeIf(identities::contains);
+        int removed = before - books.size();
+        if (removed > 0) {
+            indexed = false;
+            ordinals.clear();
+            booksByOrdinal.clear();
+            notifyChange();
+        }
+        return removed;
+    }
+
+    // Muss aufgerufen werden, nachdem ein Buch der Sammlung über seine Setter geändert wurde
+    public synchronized void bookEdited(Book book) {
+        Integer ordinal = indexed ? ordinals.get(book) : null;
+        if (ordinal != null) {
+            indexes.forEach(index -> index.bookChanged(book, ordinal));
+        }
+        notifyChange();
+    }
+
+    // Registriert einen weiteren Index, der sofort aufgebaut und ab jetzt bei jeder Änderung aktualisiert wird
+    public synchronized void addIndex(CollectionIndex index) {
+        ensureIndexed(index);
+    }
+
+    /*
+    Baut einen Index beim ersten Zugriff auf. Ein Neuaufbau setzt Ordnungsnummer = Position voraus; sind durch
+    Entfernen Lücken entstanden, werden die Ordnungsnummern daher neu vergeben und alle anderen Indizes
+    verworfen (sie werden bei ihrem nächsten Zugriff neu aufgebaut).
+    */
+    private void ensureIndexed(CollectionIndex index) {
+        ensureOrdinals(List.of(index));
+        if (!indexes.contains(index)) {
+            index.rebuild(books);
+            indexes.add(index);
+            indexCount = indexes.size();
+        }
+    }
+
+    /*
+    Vergibt die Ordnungsnummern, falls noch keine vergeben sind oder einer der benötigten Indizes neu aufgebaut
+    werden muss, während Lücken bestehen. Werden mehrere Indizes zusammen benötigt (query()), muss das vor dem
+    Aufbau des ersten geschehen, sonst würde ein späteres Neuvergeben die gerade aufgebauten Indizes verwerfen.
+    */
+    private void ensureOrdinals(List<CollectionIndex> needed) {
+        if (indexed && (booksByOrdinal.size() == books.size() || indexes.containsAll(needed))) {
+            return;
+        }
+        ordinals.clear();
+        booksByOrdinal.clear();
+        for (Book book : books) {
+            ordinals.put(book, booksByOrdinal.size());
+            booksByOrdinal.add(book);
+        }
+        indexes.clear();
+        indexCount = 0;
+        indexed = true;
+    }
+
+    // Wandelt die Ordnungsnummern aus einem Index in Bücher um (in der Reihenfolge der Sammlung)
+    private List<Book> booksOf(BitSet matches) {
+        List<Book> results = new ArrayList<>(matches.cardinality());
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            Book book = booksByOrdinal.get(ordinal);
+            if (book != null) results.add(book);
+        }
+        return results;
+    }
+
+    private void notifyChange() {
+        if (changeCallback != null) {
+            changeCallback.run();
+        }
+    }
+
     // Hilfsmethode zur Benachrichtigung der UI oder des Logs
     // Zeigt eine Nachricht in der Benutzeroberfläche an, falls ein Callback (wie zum Beispiel in der Duplikatsprüfung) definiert ist,
     // oder alternativ in der Konsole.
@@ -70,41 +271,128 @@ public class Collection {
 
     // Methode zum Entfernen eines Buchs aus der Sammlung anhand des Titels
     // Entfernt alle Bücher, die den angegebenen Titel (ignoring case) haben.
-    public void removeBook(String title) {
-        books.removeIf(book -> book.getTitle().equalsIgnoreCase(title));
+    public synchronized void removeBook(String title) {
+        for (int i = books.size() - 1; i >= 0; i--) {
+            if (books.get(i).getTitle().equalsIgnoreCase(title)) {
+                removeBookAt(i);
+            }
+        }
     }
 
     // Methode zum Suchen nach Büchern in der Sammlung basierend auf einem Suchbegriff
-    // Die Suche erfolgt in verschiedenen Feldern der Bücher
-    public List<Book> search(String keyword) {
+    // Die Suche erfolgt in verschiedenen Feldern der Bücher (Titel, Vorname, Nachname, Genre, Jahr, ISBN):
+    // Ein Buch wird gefunden, wenn eines der Felder den Suchbegriff enthält (Groß-/Kleinschreibung egal).
+    // Der TrigramIndex grenzt die Kandidaten ein, sodass nicht jedes Buch geprüft werden muss.
+    // Die Treffer werden in der Reihenfolge der Sammlung zurückgegeben.
+    public synchronized List<Book> search(String keyword) {
+        ensureIndexed(trigramIndex);
+        return booksOf(trigramIndex.find(keyword)); // Gibt eine Liste der passenden Bücher zurück
+    }
+
+    // Wortsuche über den TokenIndex: Jedes Wort des Suchbegriffs muss als Wortanfang in einem der Felder
+    // vorkommen ("harry pot" findet "Harry Potter" ebenso wie "Potter, Harry").
+    // Ein Suchbegriff ohne Wörter liefert alle Bücher.
+    public synchronized List<Book> searchWords(String keyword) {
+        ensureIndexed(tokenIndex);
+        BitSet matches = tokenIndex.find(keyword);
+        if (matches == null) {
+            return new ArrayList<>(books); // Kein Wort im Suchbegriff
+        }
+        return booksOf(matches); // Gibt eine Liste der passenden Bücher zurück
+    }
+
+    // Fehlertolerante Suche über Titel und Autoren ("Tolkein" findet "Tolkien", "Göthe" findet "Goethe")
+    // Liefert höchstens limit Bücher, das ähnlichste zuerst (siehe FuzzyIndex).
+    public synchronized List<Book> searchFuzzy(String keyword, int limit) {
+        ensureIndexed(fuzzyIndex);
         List<Book> results = new ArrayList<>();
-        String lowerKeyword = keyword.toLowerCase(); // Suchbegriff wird in Kleinbuchstaben umgewandelt
-        for (Book book : books) {
-            if (book.getTitle().toLowerCase().contains(lowerKeyword)
-                    || book.getFirstName().toLowerCase().contains(lowerKeyword)
-                    || book.getLastName().toLowerCase().contains(lowerKeyword)
-                    || String.valueOf(book.getPublicationYear()).contains(lowerKeyword)
-                    || String.valueOf(book.getIsbn()).contains(lowerKeyword)
-                    || book.getGenre().toLowerCase().contains(lowerKeyword)) {
-                results.add(book); // Buch, das das Kriterium erfüllt, wird zur Ergebnisliste hinzugefügt
-            }
+        for (int ordinal : fuzzyIndex.find(keyword, limit)) {
+            Book book = booksByOrdinal.get(ordinal);
+            if (book != null) results.add(book);
         }
-        return results; // Gibt eine Liste der passenden Bücher zurück
+        return results;
+    }
+
+    /*
+    Sucht mit der Abfragesprache von BookQuery (z. B. "author:king year:1980..1990 read:false").
+    Das Ergebnis enthält neben den Treffern den Ausführungsplan und die Dauer.
+    Ungültige Abfragen führen zu einer IllegalArgumentException.
+    */
+    public synchronized BookQuery.Result query(String text) {
+        BookQuery query = BookQuery.parse(text);
+        List<CollectionIndex> needed = new ArrayList<>();
+        for (BookQuery.IndexKind kind : query.requiredIndexes()) {
+            needed.add(switch (kind) {
+                case FIELDS -> fieldIndex;
+                case TOKENS -> tokenIndex;
+                case TRIGRAMS -> trigramIndex;
+            });
+        }
+        ensureOrdinals(needed); // Auch für eine Abfrage ohne Bedingungen
+        needed.forEach(this::ensureIndexed);
+        return query.execute(new BookQuery.IndexSource() {
+            @Override
+            public FieldIndex fields() {
+                return fieldIndex;
+            }
+
+            @Override
+            public TokenIndex tokens() {
+                return tokenIndex;
+            }
+
+            @Override
+            public TrigramIndex trigrams() {
+                return trigramIndex;
+            }
+
+            @Override
+            public int ordinalCount() {
+                return booksByOrdinal.size();
+            }
+
+            @Override
+            public Book bookAt(int ordinal) {
+                return booksByOrdinal.get(ordinal);
+            }
+        });
+    }
+
+    /*
+    Liefert alle Bücher, die eine beliebige Bedingung erfüllen (in der Reihenfolge der Sammlung), für Suchen,
+    die keinen Index nutzen können. Große Sammlungen werden dabei parallel durchsucht (siehe ParallelScan).
+    */
+    public synchronized List<Book> filter(Predicate<Book> predicate) {
+        return ParallelScan.filter(books, predicate);
+    }
+
+    // Anzahl der Bücher je Wert einer Facette (z. B. je Genre), siehe FacetIndex
+    public synchronized Map<String, Integer> facetCounts(FacetIndex.Facet facet) {
+        ensureIndexed(facetIndex);
+        return facetIndex.getCounts(facet);
+    }
+
+    // Bücher, die zur Auswahl von Facettenwerten passen (in der Reihenfolge der Sammlung)
+    // Ohne Auswahl werden alle Bücher geliefert.
+    public synchronized List<Book> filterByFacets(Map<FacetIndex.Facet, Set<String>> selection) {
+        ensureIndexed(facetIndex);
+        BitSet matches = facetIndex.filter(selection);
+        return matches == null ? new ArrayList<>(books) : booksOf(matches);
     }
 
     // Methode zum Prüfen, ob ein Buch bereits in der Sammlung vorhanden ist, basierend auf Titel und ISBN (add Book)
-    public boolean isDuplicate(Book newBook) {
-        return books.stream()
-                .anyMatch(book -> book.getTitle().equalsIgnoreCase(newBook.getTitle()) &&
-                        book.getIsbn() == (newBook.getIsbn()));
+    // Die Prüfung läuft über den DuplicateIndex statt über alle Bücher.
+    public synchronized boolean isDuplicate(Book newBook) {
+        ensureIndexed(duplicateIndex);
+        return duplicateIndex.contains(newBook);
     }
 
     // Methode zum Prüfen auf Duplikate, wenn ein bestehender Datensatz editiert wird
-    public boolean isDuplicateExcept(Book updateBook) {
-        return books.stream()
-                .anyMatch(book -> !book.equals(updateBook) && // überprüft alle anderen in der ausgewählten Methode vorhandenen Bücher als das aktuelle Buch
-                        book.getTitle().equalsIgnoreCase(updateBook.getTitle()) &&
-                        book.getIsbn() == updateBook.getIsbn());
+    // Das Buch selbst (über seine Ordnungsnummer erkannt) zählt nicht, auch wenn es bereits geändert wurde.
+    public synchronized boolean isDuplicateExcept(Book updateBook) {
+        ensureIndexed(duplicateIndex);
+        Integer ordinal = ordinals.get(updateBook);
+        return duplicateIndex.containsOther(updateBook, ordinal != null ? ordinal : -1);
     }
 
     // Überschriebene Methode aus Object, um den Namen der Sammlung zurückzugeben
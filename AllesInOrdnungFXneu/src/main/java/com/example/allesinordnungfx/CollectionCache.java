@@ -0,0 +1,240 @@
+package com.example.allesinordnungfx;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+Die Klasse CollectionCache hält bereits geladene Sammlungen im Speicher, damit sie beim erneuten Auswählen,
+beim Import und beim Export nicht jedes Mal neu von der Festplatte gelesen werden müssen.
+
+- Jeder Eintrag merkt sich den "Stempel" des gespeicherten Stands (CollectionStore.getStamp(), z. B. Änderungszeit
+  und Größe von YAML-Datei und Journal oder die Version der Sammlung in books.db). Stimmt der Stempel beim Zugriff
+  nicht mehr überein, wurde die Sammlung außerhalb der Anwendung geändert und der Eintrag wird verworfen.
+- Nach eigenen Schreibvorgängen (Journal, Speichern) wird der Stempel über restamp() aktualisiert.
+  Die geschätzte Größe der Bücher wird beim Ablegen vollständig berechnet und danach nur noch fortgeschrieben.
+- Dazu kommen die Indizes der Sammlung (Wort-, Teilstring-, Fehlertoleranz-, Facetten-, Feld- und Duplikatindex).
+  Sie werden erst bei der ersten Suche aufgebaut und oft größer als die Texte selbst; ihr Anteil wird deshalb bei
+  jedem Zugriff und nach jedem eigenen Schreibvorgang grob aus der Anzahl der aufgebauten Indizes geschätzt.
+- Ist die geschätzte Speichergröße aller Einträge größer als maxBytes, werden die am längsten nicht
+  verwendeten Einträge entfernt (LRU). Die zuletzt verwendete Sammlung bleibt immer im Cache.
+- Treffer, Fehlzugriffe und Verdrängungen werden gezählt.
+*/
+public class CollectionCache {
+
+    // Grobe Schätzwerte für den Speicherbedarf (Objekt-Header, Felder, Referenzen)
+    private static final long BOOK_OVERHEAD_BYTES = 64;
+    private static final long STRING_OVERHEAD_BYTES = 40;
+    private static final long COLLECTION_OVERHEAD_BYTES = 128;
+    // Je Buch und aufgebautem Index: Einträge in Postings-Listen und Maps sowie die gemerkten Schlüssel des Buchs
+    private static final long INDEX_BYTES_PER_BOOK = 160;
+
+    private record Stamp(long value) {
+    }
+
+    private static final class Entry {
+        private final Collection collection;
+        private Stamp stamp;
+        private long estimatedBytes; // Bücher
+        private long indexBytes; // Indizes, bei jedem Zugriff neu geschätzt
+
+        private Entry(Collection collection, Stamp stamp, long estimatedBytes) {
+            this.collection = collection;
+            this.stamp = stamp;
+            this.estimatedBytes = estimatedBytes;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // Zugriffsreihenfolge für LRU
+    private CollectionStore store; // Liefert die Dateien einer Sammlung
+    private long maxBytes;
+    private long currentBytes;
+
+    // Statistiken
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CollectionCache(CollectionStore store, long maxBytes) {
+        this.store = store;
+        this.maxBytes = maxBytes;
+    }
+
+    /*
+    Liefert die zwischengespeicherte Sammlung, wenn ihre Dateien seit dem Laden nicht verändert wurden.
+    Andernfalls wird null zurückgegeben (und ein veralteter Eintrag entfernt).
+    */
+    public synchronized Collection get(String collectionName) {
+        Entry entry = entries.get(collectionName);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (!entry.stamp.equals(readStamp(collectionName))) {
+            System.out.println("Collection '" + collectionName + "' changed on disk, dropping cached copy");
+            remove(collectionName);
+            misses++;
+            return null;
+        }
+        hits++;
+        updateIndexBytes(entry);
+        evictIfNeeded();
+        return entry.collection;
+    }
+
+    // Legt eine gerade geladene Sammlung mit dem aktuellen Stempel ihrer Dateien ab
+    public synchronized void put(Collection collection) {
+        String collectionName = collection.getName();
+        remove(collectionName);
+        Entry entry = new Entry(collection, readStamp(collectionName), estimateSize(collection));
+        entries.put(collectionName, entry);
+        currentBytes += entry.estimatedBytes;
+        updateIndexBytes(entry);
+        evictIfNeeded();
+    }
+
+    /*
+    Aktualisiert den Stempel nach einem eigenen Schreibvorgang, damit dieser nicht als externe Änderung gilt.
+    Geschieht nur, wenn der Cache noch genau dieses Collection-Objekt enthält. bytesDelta passt die geschätzte
+    Größe an (z. B. für ein neu hinzugefügtes Buch), ohne die ganze Sammlung neu zu vermessen.
+    */
+    public synchronized void restamp(Collection collection, long bytesDelta) {
+        Entry entry = entries.get(collection.getName());
+        if (entry == null || entry.collection != collection) {
+            return;
+        }
+        entry.stamp = readStamp(collection.getName());
+        entry.estimatedBytes += bytesDelta;
+        currentBytes += bytesDelta;
+        updateIndexBytes(entry);
+        evictIfNeeded();
+    }
+
+    // Prüft, ob eine Sammlung im Cache liegt, deren Dateien inzwischen verändert wurden (ohne den Eintrag zu entfernen)
+    public synchronized boolean isStale(String collectionName) {
+        Entry entry = entries.get(collectionName);
+        return entry != null && !entry.stamp.equals(readStamp(collectionName));
+    }
+
+    public synchronized boolean isCached(String collectionName) {
+        return entries.containsKey(collectionName);
+    }
+
+    // Prüft, ob genau dieses Collection-Objekt im Cache liegt (ohne den Zugriff als Treffer zu zählen)
+    public synchronized boolean contains(Collection collection) {
+        Entry entry = entries.get(collection.getName());
+        return entry != null && entry.collection == collection;
+    }
+
+    // Entfernt den Eintrag einer Sammlung (z. B. nach Umbenennen oder Löschen)
+    public synchronized void invalidate(String collectionName) {
+        remove(collectionName);
+    }
+
+    // Entfernt alle Einträge (z. B. beim Wechsel des Benutzerverzeichnisses)
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    // Neuer Speicher (z. B. beim Wechsel des Benutzerverzeichnisses): Alle Einträge sind ungültig
+    public synchronized void setStore(CollectionStore store) {
+        this.store = store;
+        clear();
+    }
+
+    private void remove(String collectionName) {
+        Entry removed = entries.remove(collectionName);
+        if (removed != null) {
+            currentBytes -= removed.estimatedBytes + removed.indexBytes;
+        }
+    }
+
+    // Entfernt die am längsten nicht verwendeten Einträge, bis die Obergrenze eingehalten wird
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && entries.size() > 1 && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            currentBytes -= eldest.getValue().estimatedBytes + eldest.getValue().indexBytes;
+            evictions++;
+            System.out.println("Evicted collection '" + eldest.getKey() + "' from cache");
+        }
+    }
+
+    // Übernimmt die aktuelle Schätzung für die Indizes (sie können seit dem letzten Zugriff aufgebaut worden sein)
+    private void updateIndexBytes(Entry entry) {
+        long indexBytes = estimateIndexSize(entry.collection);
+        currentBytes += indexBytes - entry.indexBytes;
+        entry.indexBytes = indexBytes;
+    }
+
+    private Stamp readStamp(String collectionName) {
+        return new Stamp(store.getStamp(collectionName));
+    }
+
+    // Schätzt den Speicherbedarf einer Sammlung anhand der Anzahl der Bücher und der Länge der Texte
+    static long estimateSize(Collection collection) {
+        long size = COLLECTION_OVERHEAD_BYTES;
+        for (Book book : collection.getBooks()) {
+            size += estimateSize(book);
+        }
+        return size;
+    }
+
+    // Schätzt den Speicherbedarf der aufgebauten Indizes; ohne Sperre der Collection, da nur zwei Zahlen gelesen werden
+    static long estimateIndexSize(Collection collection) {
+        return (long) collection.getIndexCount() * collection.getBooks().size() * INDEX_BYTES_PER_BOOK;
+    }
+
+    static long estimateSize(Book book) {
+        return BOOK_OVERHEAD_BYTES
+                + estimateSize(book.getTitle())
+                + estimateSize(book.getFirstName())
+                + estimateSize(book.getLastName())
+                + estimateSize(book.getGenre())
+                + estimateSize(book.getRating())
+                + estimateSize(book.getComment());
+    }
+
+    private static long estimateSize(String text) {
+        return text == null ? 0 : STRING_OVERHEAD_BYTES + text.length(); // Kompakte Strings: ein Byte je Latin-1-Zeichen
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        evictIfNeeded();
+    }
+
+    // Getter für die Statistiken
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getEstimatedBytes() {
+        return currentBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Zusammenfassung der Statistiken für das Log
+    @Override
+    public synchronized String toString() {
+        return String.format("CollectionCache[entries=%d, estimated=%d KB of %d KB, hits=%d, misses=%d, evictions=%d]",
+                entries.size(), currentBytes / 1024, maxBytes / 1024, hits, misses, evictions);
+    }
+}
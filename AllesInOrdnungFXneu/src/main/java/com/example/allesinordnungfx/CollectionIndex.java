@@ -0,0 +1,30 @@
+package com.example.allesinordnungfx;
+
+import java.util.List;
+
+/*
+Das Interface CollectionIndex beschreibt einen Index über die Bücher einer Collection, den die Collection
+bei jeder Änderung ihrer Bücherliste aktuell hält (siehe Collection.addIndex()).
+
+Jedes Buch erhält von der Collection eine Ordnungsnummer. Die Ordnungsnummern steigen in der Reihenfolge der
+Bücher in der Sammlung, sodass ein Index Treffer als BitSet liefern kann, dessen gesetzte Bits bereits in der
+richtigen Reihenfolge stehen (Collection.booksOf()). Beim Neuaufbau entspricht die Ordnungsnummer der Position.
+
+Da Bücher direkt über ihre Setter bearbeitet werden, muss sich ein Index selbst merken, unter welchen Schlüsseln
+er ein Buch eingetragen hat, um es bei bookRemoved() bzw. bookChanged() wieder austragen zu können.
+*/
+public interface CollectionIndex {
+
+    // Baut den Index für die komplette Bücherliste neu auf (Ordnungsnummer = Position)
+    void rebuild(List<Book> books);
+
+    void bookAdded(Book book, int ordinal);
+
+    void bookRemoved(Book book, int ordinal);
+
+    // Ein Buch der Collection wurde über seine Setter geändert
+    default void bookChanged(Book book, int ordinal) {
+        bookRemoved(book, ordinal);
+        bookAdded(book, ordinal);
+    }
+}
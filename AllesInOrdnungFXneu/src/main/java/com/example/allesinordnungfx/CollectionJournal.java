@@ -0,0 +1,242 @@
+package com.example.allesinordnungfx;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Die Klasse CollectionJournal führt ein Änderungsprotokoll (Journal) für eine einzelne Sammlung.
+Statt bei jeder Bearbeitung die komplette YAML-Datei neu zu schreiben, wird jede Änderung
+(Hinzufügen, Bearbeiten, Löschen) als eine Zeile an die Datei "<Sammlung>.journal" angehängt.
+Das Anhängen kostet unabhängig von der Größe der Sammlung nur einen kleinen Schreibvorgang.
+Alle Methoden sind synchronisiert, da die Kompaktierung auf dem Hintergrund-Thread des SaveSchedulers läuft.
+
+Jede Zeile ist ein JSON-Objekt, z. B.:
+  {"op":"add","book":{...}}
+  {"op":"update","index":3,"book":{...}}
+  {"op":"delete","index":3}
+
+Beim Laden einer Sammlung werden die Einträge in derselben Reihenfolge auf die Basisdatei
+angewendet (Replay). Der CollectionManager schreibt die Basisdatei regelmäßig neu (Kompaktierung)
+und entfernt danach die bereits enthaltenen Einträge aus dem Journal.
+*/
+public class CollectionJournal {
+
+    private static final String OP_ADD = "add";
+    private static final String OP_UPDATE = "update";
+    private static final String OP_DELETE = "delete";
+
+    private final File file; // Journal-Datei neben der YAML-Datei der Sammlung
+    private int recordCount = -1; // Anzahl der Einträge, wird beim ersten Zugriff ermittelt
+    private boolean terminated; // true, sobald geprüft ist, dass die Datei mit einem Zeilenumbruch endet
+
+    public CollectionJournal(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // Protokolliert ein neu hinzugefügtes Buch (wird beim Replay ans Ende der Liste angehängt)
+    public void appendAdd(Book book) throws IOException {
+        JSONObject record = new JSONObject();
+        record.put("op", OP_ADD);
+        record.put("book", toJson(book));
+        append(record);
+    }
+
+    // Protokolliert die Bearbeitung des Buchs an Position "index" der Sammlung
+    public void appendUpdate(int index, Book book) throws IOException {
+        JSONObject record = new JSONObject();
+        record.put("op", OP_UPDATE);
+        record.put("index", index);
+        record.put("book", toJson(book));
+        append(record);
+    }
+
+    /*
+    Protokolliert das Löschen des Buchs an Position "index".
+    Gelöscht wird über die Position und nicht über den Titel, damit das Replay auch dann stimmt, wenn die
+    Basisdatei bereits spätere Bearbeitungen derselben Buch-Objekte enthält (siehe CollectionManager).
+    */
+    public void appendDelete(int index) throws IOException {
+        JSONObject record = new JSONObject();
+        record.put("op", OP_DELETE);
+        record.put("index", index);
+        append(record);
+    }
+
+    // Hängt einen Eintrag als eigene Zeile an die Journal-Datei an
+    private synchronized void append(JSONObject record) throws IOException {
+        int count = getRecordCount();
+        try (Writer writer = new FileWriter(file, true)) { // true = Anhängen statt Überschreiben
+            if (!terminated && !endsWithNewline()) {
+                writer.write('\n'); // Unvollständige letzte Zeile abschließen, sonst würde der Eintrag an sie angehängt
+            }
+            terminated = true;
+            writer.write(record.toString());
+            writer.write('\n');
+        }
+        recordCount = count + 1;
+    }
+
+    /*
+    Wendet alle Einträge des Journals auf die übergebene Sammlung an.
+    Eine unvollständige letzte Zeile (z. B. nach einem Absturz während des Schreibens) wird ignoriert.
+    Gibt die Anzahl der angewendeten Einträge zurück.
+    */
+    public synchronized int replay(Collection collection) {
+        if (!file.exists()) {
+            recordCount = 0;
+            return 0;
+        }
+        int applied = 0;
+        int records = 0; // Auch ungültige Zeilen zählen, damit discardFirst() dieselben Zeilen überspringt
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                records++;
+                try {
+                    apply(new JSONObject(line), collection);
+                    applied++;
+                } catch (JSONException | IndexOutOfBoundsException e) {
+                    System.err.println("Skipping invalid journal record in " + file + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        recordCount = records;
+        return applied;
+    }
+
+    // Wendet einen einzelnen Journal-Eintrag auf die Sammlung an
+    private void apply(JSONObject record, Collection collection) {
+        switch (record.getString("op")) {
+            case OP_ADD -> collection.appendBook(fromJson(record.getJSONObject("book")));
+            case OP_UPDATE -> collection.setBook(record.getInt("index"), fromJson(record.getJSONObject("book")));
+            case OP_DELETE -> collection.removeBookAt(record.getInt("index"));
+            default -> throw new JSONException("Unknown journal operation: " + record.getString("op"));
+        }
+    }
+
+    /*
+    Entfernt die ersten "count" Einträge, nachdem ein Stand mit genau diesen Änderungen als Basisdatei
+    geschrieben wurde. Einträge, die seitdem hinzugekommen sind, bleiben erhalten und werden beim
+    nächsten Laden auf die neue Basisdatei angewendet.
+    */
+    public synchronized void discardFirst(int count) throws IOException {
+        if (count <= 0) return;
+        if (count >= getRecordCount()) {
+            clear();
+            return;
+        }
+        List<String> remaining = new ArrayList<>();
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                if (skipped < count) {
+                    skipped++;
+                } else {
+                    remaining.add(line);
+                }
+            }
+        }
+        // Rest atomar zurückschreiben, damit bei einem Absturz keine Einträge verloren gehen
+        AtomicFileWriter.write(file, writer -> {
+            for (String line : remaining) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        });
+        recordCount = remaining.size();
+    }
+
+    // Leert das Journal, nachdem die Basisdatei vollständig neu geschrieben wurde
+    public synchronized void clear() {
+        if (file.exists() && !file.delete()) {
+            System.err.println("Error while deleting journal: " + file);
+            return;
+        }
+        recordCount = 0;
+    }
+
+    // Prüft, ob die Datei leer ist oder mit einem Zeilenumbruch endet (nach einem Absturz evtl. nicht)
+    private boolean endsWithNewline() throws IOException {
+        if (!file.exists() || file.length() == 0) return true;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() == '\n';
+        }
+    }
+
+    // Anzahl der Einträge seit der letzten Kompaktierung
+    public synchronized int getRecordCount() {
+        if (recordCount < 0) {
+            recordCount = countLines();
+        }
+        return recordCount;
+    }
+
+    private int countLines() {
+        if (!file.exists()) return 0;
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) count++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return count;
+    }
+
+    // Umwandlung eines Buchs in ein JSON-Objekt (alle neun Felder)
+    private static JSONObject toJson(Book book) {
+        JSONObject json = new JSONObject();
+        json.put("title", JSONObject.wrap(book.getTitle()));
+        json.put("firstName", JSONObject.wrap(book.getFirstName()));
+        json.put("lastName", JSONObject.wrap(book.getLastName()));
+        json.put("genre", JSONObject.wrap(book.getGenre()));
+        json.put("publicationYear", book.getPublicationYear());
+        json.put("isbn", book.getIsbn());
+        json.put("read", book.isRead());
+        json.put("rating", JSONObject.wrap(book.getRating()));
+        json.put("comment", JSONObject.wrap(book.getComment()));
+        return json;
+    }
+
+    // Umwandlung eines JSON-Objekts zurück in ein Buch
+    private static Book fromJson(JSONObject json) {
+        Book book = new Book();
+        book.setTitle(optString(json, "title"));
+        book.setFirstName(optString(json, "firstName"));
+        book.setLastName(optString(json, "lastName"));
+        book.setGenre(optString(json, "genre"));
+        book.setPublicationYear(json.optInt("publicationYear"));
+        book.setIsbn(json.optLong("isbn"));
+        book.setRead(json.optBoolean("read"));
+        book.setRating(optString(json, "rating"));
+        book.setComment(optString(json, "comment"));
+        return book;
+    }
+
+    // Liefert null für fehlende oder explizit leere (JSON null) Werte, wie SnakeYAML beim Laden
+    private static String optString(JSONObject json, String key) {
+        return json.isNull(key) ? null : json.getString(key);
+    }
+}
@@ -1,31 +1,56 @@
 package com.example.allesinordnungfx;
 
-import org.yaml.snakeyaml.Yaml;
-import org.yaml.snakeyaml.constructor.Constructor;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 
 /*
 Der CollectionManager übernimmt die Verwaltung von Buchsammlungen
 und ist verantwortlich für das Erstellen, Laden, Speichern, Umbenennen und Löschen von Buchsammlungen
 sowie deren Import/Export (Yaml/Xlsx)
+
+Die Dateizugriffe selbst erledigt ein CollectionStore. Standard ist der YamlCollectionStore (eine YAML-Datei
+je Sammlung). Liegt im Benutzerverzeichnis eine "books.db" oder ist die System-Property
+"allesinordnung.store=paged" gesetzt, wird der PagedCollectionStore verwendet (alle Sammlungen in einer Datei).
 */
 public class CollectionManager {
 
+    public static final String STORE_PROPERTY = "allesinordnung.store"; // "paged" für den PagedCollectionStore
+
     private List<String> collectionNames; // Liste der verwalteten Collection-Namen
     private String userDirectoryPath; // Pfad des Benutzerverzeichnisses, in dem die Sammlungen gespeichert werden
     private FileHandler fileHandler = new FileHandler(); //Hilfsklasse für Dateioperationen
+    private CollectionStore store; // Dateizugriffe (YAML-Dateien oder seitenbasierte Datei)
+    private GlobalSearchIndex globalSearchIndex; // Suche über alle Sammlungen, ohne sie zu laden
+    private int journalCompactionThreshold = 200; // Ab so vielen Journal-Einträgen wird die YAML-Datei neu geschrieben
+    private final SaveScheduler saveScheduler = new SaveScheduler(500); // Bündelt Speicheraufträge im Hintergrund
+    private final CollectionCache collectionCache; // Bereits geladene Sammlungen (LRU, max. 64 MB geschätzt)
+    private UserDirectoryWatcher directoryWatcher; // Beobachtet das Benutzerverzeichnis auf Änderungen von außen
+    private UserDirectoryWatcher.Listener watchListener; // Empfänger der Änderungen, bleibt beim Verzeichniswechsel erhalten
+    private volatile long collectionNamesStamp; // Stand der Sammlungsnamen (CollectionStore.getCollectionNamesStamp()) beim letzten eigenen Lesen/Schreiben
+    private volatile int loadParallelism = Math.min(4, Runtime.getRuntime().availableProcessors()); // Gleichzeitig geladene Sammlungen
+    private volatile int pagedCollectionThreshold = 100_000; // Ab so vielen Büchern wird eine Sammlung seitenweise angezeigt
 
     // Konstruktor mit einem benutzerdefinierten Verzeichnispfad
     public CollectionManager(String userDirectoryPath) {
         this.collectionNames = new ArrayList<>();
         this.userDirectoryPath = userDirectoryPath;
         ensureUserDirectoryExists(); // Sicherstellen, dass das Benutzerverzeichnis existiert
+        AtomicFileWriter.deleteStaleTempFiles(new File(userDirectoryPath)); // Reste abgebrochener Schreibvorgänge entfernen
+        this.store = createStore(userDirectoryPath);
+        this.collectionCache = new CollectionCache(store, 64L * 1024 * 1024);
+        this.globalSearchIndex = new GlobalSearchIndex(new File(userDirectoryPath), store);
     }
 
     // Standard-Konstruktor mit einem voreingestellten Verzeichnis "collections"
@@ -46,41 +71,76 @@ public class CollectionManager {
         }
     }
 
+    /*
+    Wählt den CollectionStore für das Verzeichnis aus. Wird der PagedCollectionStore zum ersten Mal verwendet,
+    während bereits YAML-Dateien existieren, werden die Sammlungen einmalig übernommen. Die YAML-Dateien
+    bleiben dabei unverändert liegen.
+    */
+    private CollectionStore createStore(String directoryPath) {
+        YamlCollectionStore yamlStore = new YamlCollectionStore(directoryPath, saveScheduler);
+        boolean pagedRequested = "paged".equalsIgnoreCase(System.getProperty(STORE_PROPERTY));
+        if (!pagedRequested && !PagedCollectionStore.isPresent(directoryPath)) {
+            return yamlStore;
+        }
+        try {
+            boolean migrate = !PagedCollectionStore.isPresent(directoryPath) && yamlStore.getCollectionNamesFile().exists();
+            PagedCollectionStore pagedStore = new PagedCollectionStore(directoryPath);
+            if (migrate) {
+                migrate(yamlStore, pagedStore);
+            }
+            return pagedStore;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Falling back to YAML files in " + directoryPath);
+            return yamlStore;
+        }
+    }
+
+    // Übernimmt alle Sammlungen aus einem anderen Speicher
+    private static void migrate(CollectionStore source, CollectionStore target) throws IOException {
+        List<String> names = source.loadCollectionNames();
+        if (names == null) return;
+        for (String name : names) {
+            target.saveBooks(name, source.loadCollection(name, null).getBooks(), () -> { });
+        }
+        target.saveCollectionNames(names);
+        System.out.println("Migrated " + names.size() + " collections to " + target.getCollectionNamesFile());
+    }
+
+    // Zugriff auf den aktuellen Speicher, z. B. für Punktabfragen über findBooksByIsbn()
+    public CollectionStore getStore() {
+        return store;
+    }
+
+    // Sucht Bücher einer Sammlung über die ISBN (beim PagedCollectionStore über den Index, ohne die Sammlung zu laden)
+    public List<Book> findBooksByIsbn(String collectionName, long isbn) {
+        try {
+            return store.findBooksByIsbn(collectionName, isbn);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
     // Getter für collectionNames
     public List<String> getCollectionNames() {
         return collectionNames;
     }
 
     /*
-    Methode zum Laden der Sammlungsnamen aus einer YAML-Datei.
-    Zunächst wird der Pfad der Datei im Benutzerverzeichnis generiert. Falls die Datei nicht vorhanden ist,
-    wird die Methode abgebrochen, da es nichts zu laden gibt.
-
-    Ein Yaml-Objekt aus der SnakeYAML-Bibliothek wird erstellt, mit einem Konstruktor für die Klasse
-    CollectionsWrapper, die die Struktur der YAML-Datei beschreibt. Der FileReader liest die YAML-Datei.
-    Mittels eines try-with-resources-Blocks wird sichergestellt, dass der FileReader nach Abschluss der
-    Lade-Operation automatisch geschlossen wird.
-
-    Nach dem Laden wird geprüft, ob die YAML-Datei erfolgreich gelesen wurde und eine valide Liste von
-    Sammlungsnamen enthält. Die Liste der Sammlungsnamen wird vor der Aktualisierung geleert, und die neuen
-    Daten aus der Datei werden eingefügt.
+    Methode zum Laden der Sammlungsnamen über den CollectionStore (beim YamlCollectionStore aus "collections.yaml").
+    Nach dem Laden wird geprüft, ob eine valide Liste von Sammlungsnamen gelesen wurde. Die Liste der
+    Sammlungsnamen wird vor der Aktualisierung geleert, und die neuen Daten werden eingefügt.
 
     Bei einem Fehler beim Lesen der Datei wird eine IOException abgefangen.
     */
-    public void loadCollectionNames(String fileName) {
-        String filePath = userDirectoryPath + "/" + fileName; // Benutzerverzeichnis verwenden
-        File file = new File(filePath);
-        if (!file.exists()) {
-            return; // Wenn die Datei fehlt, gibt es nichts zu laden
-        }
-
-        Yaml yaml = new Yaml(new Constructor(CollectionsWrapper.class));
-        try (FileReader reader = new FileReader(filePath)) {
-            CollectionsWrapper wrapper = yaml.load(reader);
-            if (wrapper != null && wrapper.getCollections() != null) {
+    public void loadCollectionNames() {
+        try {
+            List<String> names = store.loadCollectionNames();
+            if (names != null) {
                 collectionNames.clear(); //Liste wird vor dem Laden der neuen Einträge geleert.
-                collectionNames.addAll(wrapper.getCollections()); // Laden der Collection-Namen
-                System.out.println("Loaded collection names from YAML in " + filePath);
+                collectionNames.addAll(names); // Laden der Collection-Namen
+                collectionNamesStamp = store.getCollectionNamesStamp();
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -88,99 +148,388 @@ public class CollectionManager {
     }
 
     /*
-    Methode zum Speichern der Sammlungsnamen in einer YAML-Datei.
-    Es wird ein Dateipfad im Benutzerverzeichnis generiert, abhängig vom übergebenen Dateinamen.
-    Ein Yaml-Objekt aus der SnakeYAML-Bibliothek wird initialisiert,
-    das später für das Schreiben der Daten verwendet wird.
-
-    Die Liste der Sammlungsnamen (collectionNames) wird in einer CollectionsWrapper-Instanz verpackt.
-    Ein FileWriter wird erstellt, der in den angegebene Dateipfad schreibt.
-    Mittels des try-with-resources-Blocks wird sichergestellt, dass der FileWriter nach Abschluss
-    der Operation automatisch geschlossen wird.
-
-    Die Methode yaml.dump() speichert die Daten aus der Wrapper-Instanz in die Datei im YAML-Format.
-    Im Falle eines Fehlers beim Schreiben der Datei wird die IOException abgefangen.
+    Methode zum Speichern der Sammlungsnamen über den CollectionStore.
+    Es wird eine Kopie der Liste übergeben, damit spätere Änderungen den Speichervorgang nicht beeinflussen.
+    Im Falle eines Fehlers beim Schreiben wird die IOException abgefangen.
     */
-    public void saveCollectionNames(String fileName) {
-        String filePath = userDirectoryPath + "/" + fileName; // Benutzerverzeichnis verwenden
-        Yaml yaml = new Yaml();
-        CollectionsWrapper wrapper = new CollectionsWrapper();
-        wrapper.setCollections(collectionNames);
-
-        try (FileWriter writer = new FileWriter(filePath)) {
-            yaml.dump(wrapper, writer); //YAML-Datei schreiben
-            System.out.println("Saved collection names to YAML: " + filePath);
+    public void saveCollectionNames() {
+        try {
+            store.saveCollectionNames(new ArrayList<>(collectionNames));
+            collectionNamesStamp = store.getCollectionNamesStamp();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /*
-    Methode zum Laden der Bücher aus einer spezifischen Sammlung aus einer YAML-Datei.
-    Es wird ein Dateipfad im Benutzerverzeichnis generiert, abhängig vom Namen der Sammlung.
-    Falls die Datei nicht existiert, wird eine neue (leere) Sammlung zurückgegeben.
+    Methode zum Laden der Bücher aus einer spezifischen Sammlung über den CollectionStore.
+    Falls noch keine Daten existieren, wird eine neue (leere) Sammlung zurückgegeben.
 
-    Ein Yaml-Objekt aus der SnakeYAML-Bibliothek wird initialisiert, mit einem Konstruktor für die Klasse
-    CollectionWrapper, die die Struktur der YAML-Datei beschreibt. Der FileReader liest die Datei am angegebenen
-    Pfad. Mittels des try-with-resources-Blocks wird sichergestellt, dass der FileReader automatisch geschlossen
-    wird.
+    Der YamlCollectionStore liest die Datei mit dem YamlBookStreamReader ereignisbasiert (oder aus dem
+    Binär-Snapshot) und wendet anschließend die Einträge des Änderungsjournals an.
 
-    Nach dem Laden wird geprüft, ob der Ladevorgang erfolgreich war und ob die YAML-Datei eine valide Liste
-    von Büchern enthält. Die Bücher werden dann in einer Collection gespeichert, die zurückgegeben wird.
+    Geladene Sammlungen werden im CollectionCache abgelegt. Solange sich die Dateien der Sammlung nicht
+    verändert haben, wird beim nächsten Aufruf dasselbe Collection-Objekt ohne Dateizugriff zurückgegeben.
 
-    Bei einem eventuellen Fehler beim Lesen der Datei wird eine IOException abgefangen.
+    Kann die Sammlung nicht gelesen werden, gibt der CollectionStore den Fehler als RuntimeException weiter
+    (z. B. UncheckedIOException). Dann wird nichts im Cache abgelegt, damit keine unvollständige Sammlung
+    bearbeitet und gespeichert werden kann.
     */
     public Collection loadBooksForCollection(String collectionName) {
-        String filePath = userDirectoryPath + "/" + collectionName + ".yaml"; // Benutzerverzeichnis verwenden
-        File file = new File(filePath);
+        return loadBooksForCollection(collectionName, null);
+    }
 
-        if (!file.exists()) {
-            return new Collection(collectionName); // Leere Collection zurückgeben
+    /*
+    Variante mit Consumer: Jedes Buch der Basisdatei wird direkt nach dem Lesen an den Consumer übergeben
+    (z. B. um die Tabelle schon während des Ladens zu füllen). Änderungen aus dem Journal werden erst
+    nach dem Lesen der Basisdatei angewendet und sind nur in der zurückgegebenen Collection enthalten.
+    */
+    public Collection loadBooksForCollection(String collectionName, Consumer<Book> onBookLoaded) {
+        Collection cached = collectionCache.get(collectionName);
+        if (cached != null) {
+            if (onBookLoaded != null) {
+                cached.getBooks().forEach(onBookLoaded);
+            }
+            return cached;
         }
 
-        Yaml yaml = new Yaml(new Constructor(CollectionWrapper.class));
-        try (FileReader reader = new FileReader(filePath)) {
-            CollectionWrapper wrapper = yaml.load(reader);
-            if (wrapper != null && wrapper.getBooks() != null) {
-                Collection collection = new Collection(collectionName);
-                collection.setBooks(wrapper.getBooks());
-                System.out.println("Loaded books for collection '" + collectionName + "' from YAML in " + filePath);
-                return collection;
+        saveScheduler.flush(collectionName); // Noch ausstehende Speicherung zuerst schreiben, damit die Datei aktuell ist
+        Collection collection = store.loadCollection(collectionName, onBookLoaded);
+        collectionCache.put(collection);
+        return collection;
+    }
+
+    /*
+    Methode zum Speichern der Bücher einer spezifischen Buchsammlung.
+    Das Speichern erfolgt in der Regel nicht sofort: Der CollectionStore liefert einen Auftrag, der beim
+    SaveScheduler eingeplant wird und dabei eine Kopie der aktuellen Bücherliste festhält. Mehrere Aufrufe
+    innerhalb des Zeitfensters werden zu einem Schreibvorgang zusammengefasst, der auf einem Hintergrund-Thread läuft.
+    Der YamlCollectionStore schreibt dabei die YAML-Datei samt Binär-Snapshot und kürzt danach das Journal.
+
+    Die Kopie enthält eigene Buch-Objekte mit den Werten zum Zeitpunkt des Auftrags. Der Hintergrund-Thread
+    liest beim Schreiben also keine Bücher, die gleichzeitig über die Oberfläche bearbeitet werden; spätere
+    Bearbeitungen stehen im Journal und bleiben dort, bis der nächste Auftrag sie übernimmt.
+    */
+    public void saveBooksForCollection(Collection collection) {
+        String collectionName = collection.getName();
+        if (!collectionCache.contains(collection)) {
+            collectionCache.invalidate(collectionName); // Die Datei erhält gleich einen anderen Inhalt als der Cache
+        }
+        List<Book> snapshot = copyBooks(collection); // Stand zum Zeitpunkt des Auftrags
+        try {
+            // Nach dem Schreiben ist der neue Dateistand ein eigener Schreibvorgang, keine externe Änderung
+            // Danach den globalen Suchindex mit dem geschriebenen Stand aktualisieren
+            GlobalSearchIndex searchIndex = globalSearchIndex;
+            SaveScheduler.SaveTask task = store.saveBooks(collectionName, snapshot, () -> {
+                collectionCache.restamp(collection, 0);
+                searchIndex.update(collectionName, snapshot);
+                scheduleSearchIndexSave(searchIndex);
+            });
+            if (task != null) {
+                saveScheduler.schedule(collectionName, task);
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return new Collection(collectionName);
     }
 
     /*
-    Methode zum Speichern der Bücher einer spezifischen Buchsammlung in einer YAML-Datei.
-    Zunächst wird ein Dateipfad im Benutzerverzeichnis generiert, basierend auf dem Namen der Sammlung.
-    Ein Yaml-Objekt aus der SnakeYAML-Bibliothek wird erstellt, das die Daten aus der Sammlung speichert.
+    Sucht in allen Sammlungen über den GlobalSearchIndex (Teilstring-Suche wie Collection.search()), höchstens
+    limit Treffer in der Reihenfolge der Sammlungsnamen. Sammlungen, die noch nicht im Index stehen oder seitdem
+    geändert wurden, werden dazu einmalig gelesen (siehe booksForSearchIndex()); alle anderen werden nicht geladen.
+    Läuft auf dem Such-Thread der Oberfläche.
+    */
+    public List<GlobalSearchIndex.SearchHit> searchAllCollections(String keyword, int limit) {
+        List<String> names = new ArrayList<>(collectionNames);
+        GlobalSearchIndex searchIndex = globalSearchIndex;
+        long start = System.nanoTime();
+        if (searchIndex.refresh(names, this::booksForSearchIndex) > 0) {
+            scheduleSearchIndexSave(searchIndex);
+        }
+        List<GlobalSearchIndex.SearchHit> hits = searchIndex.search(keyword, names, limit);
+        System.out.println("Global search '" + keyword + "': " + hits.size() + " hits in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return hits;
+    }
+
+    /*
+    Liefert die Bücher einer Sammlung für den GlobalSearchIndex, ohne den CollectionCache zu füllen: Der Aufruf
+    kommt vom Such-Thread, und ein Durchlauf über alle Sammlungen würde sonst die Sammlungen verdrängen, mit denen
+    auf dem JavaFX-Thread gearbeitet wird. Liegt die Sammlung im Cache (mit Änderungen, die evtl. erst im Journal
+    stehen), wird sie unter ihrer Sperre kopiert, da sie gleichzeitig über die Oberfläche bearbeitet werden kann.
+    */
+    private List<Book> booksForSearchIndex(String collectionName) {
+        Collection cached = collectionCache.get(collectionName);
+        if (cached != null) {
+            return copyBooks(cached);
+        }
+        saveScheduler.flush(collectionName); // Wie beim Laden: ausstehende Speicherung zuerst schreiben
+        return store.loadCollection(collectionName, null).getBooks();
+    }
 
-    Die Liste der Bücher der Sammlung wird in ein Wrapper-Objekt (CollectionWrapper) übertragen,
-    das als Container für die YAML-Struktur fungiert. Ein FileWriter wird erstellt, der die Daten in die
-    angegebene Datei speichert.
+    /*
+    Kopiert die Bücher einer Sammlung unter ihrer Sperre. Eine geladene Sammlung kann gleichzeitig über die
+    Oberfläche bearbeitet werden; Hintergrund-Threads (Speichern, Suchindex, Export) lesen deshalb nur Kopien,
+    damit sie keine halb bearbeiteten Bücher sehen.
+    */
+    private static List<Book> copyBooks(Collection collection) {
+        synchronized (collection) {
+            List<Book> books = new ArrayList<>(collection.getBooks().size());
+            for (Book book : collection.getBooks()) {
+                books.add(book.copy());
+            }
+            return books;
+        }
+    }
 
-    Mittels des try-with-resources-Blocks wird sichergestellt, dass der FileWriter nach Abschluss der Operation
-    automatisch geschlossen wird. Die Methode yaml.dump() speichert die Bücher im YAML-Format in der Datei.
+    // Speichert den globalen Suchindex im Hintergrund (mehrere Änderungen werden zusammengefasst)
+    private void scheduleSearchIndexSave(GlobalSearchIndex searchIndex) {
+        saveScheduler.schedule(GlobalSearchIndex.FILE_NAME,
+                batch -> batch.stageBinary(searchIndex.getFile(), searchIndex::writeTo, null));
+    }
 
-    Tritt während des Schreibens ein Fehler auf, wird eine IOException abgefangen.
+    public GlobalSearchIndex getGlobalSearchIndex() {
+        return globalSearchIndex;
+    }
+
+    // Schreibt alle ausstehenden Speicheraufträge sofort und wartet auf deren Abschluss
+    public void flushPendingSaves() {
+        saveScheduler.flush();
+    }
+
+    // Schreibt alle ausstehenden Speicheraufträge und beendet den Hintergrund-Thread (beim Schließen der Anwendung)
+    public void shutdown() {
+        stopWatching();
+        saveScheduler.shutdown();
+        try {
+            store.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        System.out.println(saveScheduler);
+        System.out.println(collectionCache);
+    }
+
+    // Zugriff auf den SaveScheduler, z. B. für Statistiken (zusammengefasste Schreibvorgänge, Flush-Dauer)
+    public SaveScheduler getSaveScheduler() {
+        return saveScheduler;
+    }
+
+    /*
+    Startet die Beobachtung des Benutzerverzeichnisses. Der Listener wird auf dem Thread des Watchers
+    aufgerufen und nur für Änderungen, die nicht von dieser Anwendung stammen:
+    - Sammlungen, deren Dateien nicht mehr zum Stempel im CollectionCache passen (oder die nicht im Cache liegen)
+    - collections.yaml, wenn die Datei nicht mehr dem zuletzt gelesenen bzw. geschriebenen Stand entspricht
+    Bei books.db meldet der Watcher nur die Datei; die geänderten Sammlungen liefert store.reloadExternalChanges().
+    Veraltete Sammlungen werden aus dem Cache entfernt, sodass das nächste Laden die Dateien neu liest.
     */
-    public void saveBooksForCollection(Collection collection) {
-        String filePath = userDirectoryPath + "/" + collection.getName() + ".yaml"; // Benutzerverzeichnis verwenden
-        Yaml yaml = new Yaml();
-        CollectionWrapper wrapper = new CollectionWrapper();
-        wrapper.setBooks(collection.getBooks());
-
-        try (FileWriter writer = new FileWriter(filePath)) {
-            yaml.dump(wrapper, writer);
-            System.out.println("Saved books for collection '" + collection.getName() + "' in YAML: " + filePath);
+    public synchronized void startWatching(UserDirectoryWatcher.Listener listener) {
+        stopWatching();
+        watchListener = listener;
+        String watchedDirectory = userDirectoryPath;
+        directoryWatcher = new UserDirectoryWatcher(watchedDirectory, 300, (changedCollections, namesChanged) -> {
+            Set<String> candidates = new LinkedHashSet<>(changedCollections);
+            if (namesChanged) {
+                try {
+                    candidates.addAll(store.reloadExternalChanges());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            Set<String> external = new LinkedHashSet<>();
+            for (String collectionName : candidates) {
+                if (saveScheduler.isPending(collectionName)) {
+                    continue; // Eigene Speicherung läuft noch, der Cache wird danach neu gestempelt
+                }
+                if (collectionCache.isStale(collectionName) || !collectionCache.isCached(collectionName)) {
+                    collectionCache.invalidate(collectionName);
+                    globalSearchIndex.markOutdated(collectionName);
+                    external.add(collectionName);
+                }
+            }
+            boolean externalNames = namesChanged
+                    && store.getCollectionNamesStamp() != collectionNamesStamp;
+            if (!external.isEmpty() || externalNames) {
+                System.out.println("External changes detected: " + external + (externalNames ? " (collection names)" : ""));
+                listener.filesChanged(external, externalNames);
+            }
+        });
+        try {
+            directoryWatcher.start();
+        } catch (IOException e) {
+            e.printStackTrace();
+            directoryWatcher = null;
+        }
+    }
+
+    public synchronized void stopWatching() {
+        if (directoryWatcher != null) {
+            directoryWatcher.stop();
+            directoryWatcher = null;
+        }
+    }
+
+    /*
+    Öffnet eine große Sammlung zum seitenweisen Lesen (Offset/Limit über PagedBookSource.read()), statt sie
+    vollständig zu laden. Ob eine Sammlung seitenweise angezeigt wird, hängt nur von ihrer Größe ab: Ab
+    pagedCollectionThreshold Büchern liefert die Methode immer eine Quelle, darunter immer null (dann wird die
+    Sammlung wie gewohnt mit loadBooksForCollection() geladen und kann bearbeitet werden).
+
+    Die seitenweise Anzeige ist nur lesbar, da die Quelle den gespeicherten Stand beschreibt. Fehlt dafür ein
+    aktueller Stand (YAML-Datei mit veraltetem Snapshot oder Einträgen im Journal, z. B. nach einem Import),
+    wird die Sammlung einmal vollständig gelesen und gespeichert; danach ist der Snapshot aktuell. Eine bereits
+    im Cache liegende große Sammlung wird dabei ebenfalls zuerst gespeichert und dann aus dem Cache entfernt.
+    Liefert null, wenn der Speicher kein seitenweises Lesen unterstützt oder die Quelle nicht geöffnet werden kann.
+    Ist die Sammlung nicht lesbar, wird wie bei loadBooksForCollection() eine RuntimeException weitergegeben.
+    */
+    public PagedBookSource openPagedCollection(String collectionName) {
+        Collection cached = collectionCache.get(collectionName);
+        if (cached != null && cached.getBooks().size() < pagedCollectionThreshold) {
+            return null; // Kleine Sammlung, die Größe steht ohne Dateizugriff fest
+        }
+        saveScheduler.flush(collectionName); // Ausstehende Speicherung zuerst schreiben, damit die Daten aktuell sind
+        try {
+            PagedBookSource source = store.openPagedSource(collectionName);
+            if (source == null) {
+                // Kein aktueller Stand zum seitenweisen Lesen: Die Größe ergibt sich erst beim vollständigen Laden
+                Collection loaded = loadBooksForCollection(collectionName);
+                if (loaded.getBooks().size() < pagedCollectionThreshold) {
+                    return null; // Bleibt im Cache und wird von dort angezeigt
+                }
+                source = store.openPagedSource(collectionName); // Snapshot, der beim Lesen der YAML-Datei entstanden ist
+                if (source == null) { // Einträge im Journal: Sammlung mit ihnen speichern
+                    saveBooksForCollection(loaded);
+                    saveScheduler.flush(collectionName);
+                    source = store.openPagedSource(collectionName);
+                }
+                if (source == null) {
+                    System.err.println("Collection '" + collectionName + "' cannot be read page by page");
+                    return null;
+                }
+            }
+            if (source.size() < pagedCollectionThreshold) {
+                source.close();
+                return null;
+            }
+            collectionCache.invalidate(collectionName); // Die seitenweise Anzeige braucht die geladenen Bücher nicht
+            System.out.println("Opened collection '" + collectionName + "' in paged mode (" + source.size() + " books)");
+            return source;
         } catch (IOException e) {
             e.printStackTrace();
+            return null;
         }
     }
 
+    public int getPagedCollectionThreshold() {
+        return pagedCollectionThreshold;
+    }
+
+    public void setPagedCollectionThreshold(int pagedCollectionThreshold) {
+        this.pagedCollectionThreshold = pagedCollectionThreshold;
+    }
+
+    // Lädt eine Sammlung unabhängig vom Cache neu von der Festplatte (z. B. über den Refresh-Button)
+    public Collection reloadCollection(String collectionName) {
+        collectionCache.invalidate(collectionName);
+        return loadBooksForCollection(collectionName);
+    }
+
+    // Zugriff auf den Cache der geladenen Sammlungen, z. B. für Statistiken (Treffer, Fehlzugriffe, Verdrängungen)
+    public CollectionCache getCollectionCache() {
+        return collectionCache;
+    }
+
+    // Obergrenze für den geschätzten Speicherbedarf aller zwischengespeicherten Sammlungen
+    public void setCacheMaxBytes(long maxBytes) {
+        collectionCache.setMaxBytes(maxBytes);
+    }
+
+    // Zeitfenster, in dem wiederholte Speicheraufträge zusammengefasst werden
+    public void setSaveCoalesceWindowMillis(long millis) {
+        saveScheduler.setCoalesceWindowMillis(millis);
+    }
+
+    // Group Commit: Alle in einem Flush gespeicherten Sammlungen gemeinsam umbenennen, Verzeichnisse nur einmal synchronisieren
+    public void setGroupCommit(boolean groupCommit) {
+        saveScheduler.setGroupCommit(groupCommit);
+    }
+
+    /*
+    Methoden zum Speichern einzelner Änderungen über den CollectionStore.
+    Statt die ganze Sammlung neu zu schreiben, hängt der YamlCollectionStore nur einen Eintrag an das Journal an,
+    der PagedCollectionStore ändert nur die betroffene Zeile. Sobald das Journal die Schwelle
+    journalCompactionThreshold erreicht, wird die Sammlung vollständig gespeichert und das Journal geleert.
+    Schlägt das Speichern der Änderung fehl, wird ebenfalls direkt vollständig gespeichert.
+    Bei recordBookAdded/recordBookUpdated muss die Änderung vor dem Aufruf bereits an der Collection
+    vorgenommen worden sein; removeBook entfernt die Bücher selbst, da dafür ihre Positionen benötigt werden.
+    */
+    public void recordBookAdded(Collection collection, Book book) {
+        try {
+            store.bookAdded(collection.getName(), book);
+            globalSearchIndex.markOutdated(collection.getName());
+            collectionCache.restamp(collection, CollectionCache.estimateSize(book));
+            compactIfNeeded(collection);
+        } catch (IOException e) {
+            e.printStackTrace();
+            saveBooksForCollection(collection);
+        }
+    }
+
+    public void recordBookUpdated(Collection collection, Book book) {
+        collection.bookEdited(book); // Suchindizes der Sammlung nachziehen
+        int index = collection.getBooks().indexOf(book);
+        if (index < 0) {
+            System.err.println("Book not found in collection '" + collection.getName() + "': " + book);
+            return;
+        }
+        try {
+            store.bookUpdated(collection.getName(), index, book);
+            globalSearchIndex.markOutdated(collection.getName());
+            collectionCache.restamp(collection, 0);
+            compactIfNeeded(collection);
+        } catch (IOException e) {
+            e.printStackTrace();
+            saveBooksForCollection(collection);
+        }
+    }
+
+    // Entfernt alle Bücher mit dem Titel (wie Collection.removeBook) und protokolliert jede Position einzeln
+    public void removeBook(Collection collection, String title) {
+        List<Book> books = collection.getBooks();
+        try {
+            // Von hinten nach vorne, damit die protokollierten Positionen beim Replay in derselben Reihenfolge gültig sind
+            for (int i = books.size() - 1; i >= 0; i--) {
+                if (books.get(i).getTitle().equalsIgnoreCase(title)) {
+                    collection.removeBookAt(i);
+                    store.bookRemoved(collection.getName(), i);
+                }
+            }
+            globalSearchIndex.markOutdated(collection.getName());
+            collectionCache.restamp(collection, 0);
+            compactIfNeeded(collection);
+        } catch (IOException e) {
+            e.printStackTrace();
+            collection.removeBook(title); // Restliche Bücher entfernen und vollständig speichern
+            saveBooksForCollection(collection);
+        }
+    }
+
+    // Schreibt die Sammlung vollständig neu, wenn das Journal zu groß geworden ist
+    private void compactIfNeeded(Collection collection) {
+        if (store.getPendingChangeCount(collection.getName()) >= journalCompactionThreshold) {
+            System.out.println("Compacting journal of collection '" + collection.getName() + "'");
+            saveBooksForCollection(collection);
+        }
+    }
+
+    public int getJournalCompactionThreshold() {
+        return journalCompactionThreshold;
+    }
+
+    public void setJournalCompactionThreshold(int journalCompactionThreshold) {
+        this.journalCompactionThreshold = Math.max(1, journalCompactionThreshold);
+    }
+
     /*
     Methode zum Hinzufügen einer neuen Sammlung (Überladung der zweiten Methode)
     Wird verwendet, um schnell und ohne Verwendung weiterer Parameter eine Sammlung zu erstellen
@@ -198,7 +547,7 @@ public class CollectionManager {
         ensureUserDirectoryExists();
 
         // Synchronisieren der Sammlungsliste mit der gespeicherten Datei
-        loadCollectionNames("collections.yaml"); // Neu laden, um sicherzustellen, dass die Liste aktuell ist
+        loadCollectionNames(); // Neu laden, um sicherzustellen, dass die Liste aktuell ist
 
         // Prüfen, ob der Collection-Name bereits existiert
         if (collectionNames.contains(collectionName)) {
@@ -206,17 +555,15 @@ public class CollectionManager {
             return false;
         }
 
-        // Datei-Existenzprüfung für zusätzliche Sicherheit
-        String filePath = userDirectoryPath + "/" + collectionName + ".yaml";
-        File file = new File(filePath);
-        if (file.exists()) {
+        // Existenzprüfung im Speicher für zusätzliche Sicherheit
+        if (store.exists(collectionName)) {
             System.out.println("A file for collection '" + collectionName + "' already exists.");
             return false;
         }
 
         // Sammlung zur Liste hinzufügen und Namen speichern
         collectionNames.add(collectionName);
-        saveCollectionNames("collections.yaml");
+        saveCollectionNames();
 
         // Leere Collection im Benutzerverzeichnis anlegen
         Collection newCollection = new Collection(collectionName);
@@ -252,24 +599,22 @@ public class CollectionManager {
             return false;
         }
 
-        // Datei umbenennen
-        String oldFilePath = userDirectoryPath + "/" + oldName + ".yaml";
-        String newFilePath = userDirectoryPath + "/" + newName + ".yaml";
-
-        File oldFile = new File(oldFilePath);
-        File newFile = new File(newFilePath);
+        // Ausstehende Speicherung zuerst schreiben, damit die umbenannte Datei aktuell ist
+        saveScheduler.flush(oldName);
 
-        if (oldFile.exists()) {
-            boolean renamed = oldFile.renameTo(newFile);
-            if (!renamed) {
-                return false;
-            }
+        // Dateien bzw. Einträge im Speicher umbenennen
+        if (!store.rename(oldName, newName)) {
+            return false;
         }
+        collectionCache.invalidate(oldName);
+        collectionCache.invalidate(newName);
+        globalSearchIndex.rename(oldName, newName);
+        scheduleSearchIndexSave(globalSearchIndex);
 
         // Namen in der Liste aktualisieren
         collectionNames.remove(oldName);
         collectionNames.add(newName);
-        saveCollectionNames("collections.yaml");
+        saveCollectionNames();
 
         System.out.println("Collection renamed successfully: " + oldName + " zu " + newName);
         return true;
@@ -282,17 +627,21 @@ public class CollectionManager {
             return false;
         }
 
-        //Datei aus dem Verzeichnis löschen
-        String filePath = userDirectoryPath + "/" + collectionName + ".yaml"; // Benutzerverzeichnis verwenden
-        File file = new File(filePath);
-        if (file.exists() && !file.delete()) {
+        // Ausstehende Speicherung verwerfen, damit die Datei nicht nachträglich wieder angelegt wird
+        saveScheduler.discard(collectionName);
+
+        //Daten der Sammlung im Speicher löschen
+        if (!store.delete(collectionName)) {
             System.out.println("Error while deleting file '" + collectionName + "'.");
             return false;
         }
+        collectionCache.invalidate(collectionName);
+        globalSearchIndex.remove(collectionName);
+        scheduleSearchIndexSave(globalSearchIndex);
 
         // Namen aus der Liste entfernen und speichern
         collectionNames.remove(collectionName);
-        saveCollectionNames("collections.yaml");
+        saveCollectionNames();
 
         System.out.println("Collection deleted successfully: " + collectionName);
         return true;
@@ -301,6 +650,20 @@ public class CollectionManager {
     public void setUserDirectoryPath(String userDirectoryPath) {
         this.userDirectoryPath = userDirectoryPath;
         ensureUserDirectoryExists(); // Sicherstellen, dass das Verzeichnis existiert
+        saveScheduler.flush(); // Ausstehende Speicherungen gehören noch zum bisherigen Speicher
+        try {
+            store.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        store = createStore(userDirectoryPath);
+        collectionCache.setStore(store);
+        globalSearchIndex = new GlobalSearchIndex(new File(userDirectoryPath), store);
+        synchronized (this) {
+            if (directoryWatcher != null) {
+                startWatching(watchListener); // Ab jetzt das neue Verzeichnis beobachten
+            }
+        }
     }
 
     /**
@@ -333,34 +696,137 @@ public class CollectionManager {
         }
     }
 
-    // Methode um eine bestehende Liste aus einem Yaml-File zu importieren - aktuell ohne Funktion
-    public boolean importFromYaml(String filePath, String collectionName) {
+    // Ergebnis eines Imports: Anzahl übernommener und als Duplikat übersprungener Bücher
+    public record ImportResult(int imported, int skipped) {
+    }
+
+    // Methode um eine bestehende Liste aus einem Yaml-File zu importieren (null, wenn der Import fehlschlägt)
+    public ImportResult importFromYaml(String filePath, String collectionName) {
+        return importFromYaml(filePath, collectionName, new TransferProgress());
+    }
+
+    public ImportResult importFromYaml(String filePath, String collectionName, TransferProgress progress) {
         try {
+            progress.setStatus("Reading file");
             List<Book> books = fileHandler.loadBooksFromYaml(filePath);
-            Collection collection = getCollectionByName(collectionName);
-            if (collection != null) {
-                collection.getBooks().addAll(books);
-            } else {
-                System.out.println("Collection not found: " + collectionName);
-            }
-            return true;
+            progress.setTotal(books.size());
+            return importBooks(collectionName, progress, consumer -> books.forEach(book -> {
+                progress.rowDone();
+                consumer.accept(book);
+            }));
         } catch (Exception e) {
             e.printStackTrace();
-            return false;
+            return null;
         }
     }
 
-    // Methode um eine bestehende Liste aus einem Xlsx-File zu importieren - aktuell ohne Funktion
-    public boolean importFromXlsx(String filePath, String collectionName) {
+    // Methode um eine bestehende Liste aus einem Xlsx-File zu importieren (null, wenn der Import fehlschlägt)
+    // Die Zeilen werden gestreamt und einzeln übernommen, die Datei liegt nie vollständig im Speicher.
+    public ImportResult importFromXlsx(String filePath, String collectionName) {
+        return importFromXlsx(filePath, collectionName, new TransferProgress());
+    }
+
+    public ImportResult importFromXlsx(String filePath, String collectionName, TransferProgress progress) {
         try {
-            List<Book> books = fileHandler.loadBooksFromXlsx(filePath);
-            Collection collection = getCollectionByName(collectionName);
-            if (collection != null) {
-                collection.getBooks().addAll(books);
-            } else {
-                System.out.println("Collection not found: " + collectionName);
-            }
+            return importBooks(collectionName, progress,
+                    consumer -> fileHandler.readBooksFromXlsx(filePath, consumer, progress));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Methode um Bücher aus einem CSV- oder TSV-File zu importieren (null, wenn der Import fehlschlägt)
+    public ImportResult importFromCsv(String filePath, String collectionName) {
+        return importFromCsv(filePath, collectionName, new TransferProgress());
+    }
+
+    public ImportResult importFromCsv(String filePath, String collectionName, TransferProgress progress) {
+        try {
+            return importBooks(collectionName, progress,
+                    consumer -> fileHandler.readBooksFromCsv(filePath, consumer, progress));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Quelle eines Imports: übergibt die gelesenen Bücher nacheinander an den Consumer
+    @FunctionalInterface
+    private interface BookReader {
+        void read(Consumer<Book> consumer) throws IOException;
+    }
+
+    /*
+    Fügt die importierten Bücher der Sammlung hinzu, sobald sie gelesen werden, und speichert sie. Bücher, die
+    bereits in der Sammlung stehen oder in der Datei mehrfach vorkommen (gleicher Titel und ISBN), werden
+    übersprungen; die Prüfung läuft über den DuplicateIndex der Collection und braucht daher linear viel Zeit.
+    Bricht das Lesen mit einem Fehler ab, werden die bis dahin übernommenen Bücher trotzdem gespeichert.
+    Wird der Import über progress abgebrochen (der Reader meldet jede Zeile an progress), werden sie wieder
+    entfernt und das Ergebnis ist null.
+    */
+    private ImportResult importBooks(String collectionName, TransferProgress progress, BookReader reader)
+            throws IOException {
+        if (!collectionNames.contains(collectionName)) {
+            System.out.println("Collection not found: " + collectionName);
+            return new ImportResult(0, 0);
+        }
+        long start = System.nanoTime();
+        Collection collection = getCollectionByName(collectionName);
+        List<Book> added = new ArrayList<>();
+        int[] counts = new int[2]; // Übernommen, übersprungen
+        progress.setStatus("Importing");
+        try {
+            reader.read(book -> {
+                if (collection.addBookIfAbsent(book)) {
+                    added.add(book);
+                    counts[0]++;
+                } else {
+                    counts[1]++;
+                }
+            });
+        } catch (CancellationException e) {
+            collection.removeBooks(added); // Stand vor dem Import wiederherstellen
+            System.out.println("Import into '" + collectionName + "' cancelled after " + progress.getRows()
+                    + " rows, " + added.size() + " books rolled back");
+            return null;
+        } finally {
+            saveBooksForCollection(collection); // Aktualisiert auch den globalen Suchindex
+        }
+        System.out.println("Imported " + counts[0] + " books into '" + collectionName + "', skipped "
+                + counts[1] + " duplicates in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return new ImportResult(counts[0], counts[1]);
+    }
+
+    // Schreibt eine Liste von Büchern in eine Datei und meldet den Fortschritt
+    @FunctionalInterface
+    private interface BookWriter {
+        void write(List<Book> books) throws IOException;
+    }
+
+    /*
+    Gemeinsamer Ablauf der Exporte in eine Datei: alle Sammlungen laden, Gesamtzahl melden, schreiben.
+    Bei einem Abbruch über progress löscht der jeweilige Writer die unvollständige Datei; das Ergebnis ist false.
+    */
+    private boolean exportBooks(String filePath, TransferProgress progress, BookWriter writer) {
+        try {
+            progress.setStatus("Loading collections");
+            List<Book> allBooks = getAllBooks();
+            progress.checkCancelled();
+            progress.setTotal(allBooks.size());
+            progress.setStatus("Exporting");
+            long start = System.nanoTime();
+            writer.write(allBooks);
+            System.out.println("Exported " + allBooks.size() + " books to " + filePath + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
             return true;
+        } catch (CancellationException e) {
+            System.out.println("Export to " + filePath + " cancelled after " + progress.getRows() + " books");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Export to " + filePath + " interrupted while loading the collections");
+            return false;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -368,42 +834,146 @@ public class CollectionManager {
     }
 
     //Methode zum Export einer Liste in ein xlsx-File
-        public boolean exportToXlsx(String filePath) {
-            try {
-                List<Book> allBooks = getAllBooks();
-                fileHandler.saveBooksToXlsx(filePath, allBooks);
-                return true;
-            } catch (Exception e) {
-                e.printStackTrace();
-                return false;
+    public boolean exportToXlsx(String filePath) {
+        return exportToXlsx(filePath, new TransferProgress());
+    }
+
+    public boolean exportToXlsx(String filePath, TransferProgress progress) {
+        return exportBooks(filePath, progress, books -> fileHandler.saveBooksToXlsx(filePath, books, progress));
+    }
+
+    /*
+    Exportiert alle Sammlungen in eine Xlsx-Datei mit einem Tabellenblatt je Sammlung (in der Reihenfolge von
+    collectionNames), statt alle Bücher in eine Liste zusammenzufassen. Je Sammlung lädt ein virtueller Thread
+    die Bücher und wandelt sie in Zeilenwerte um (höchstens loadParallelism Sammlungen gleichzeitig). POI ist nicht
+    thread-sicher, deshalb schreibt nur der aufrufende Thread in die Arbeitsmappe: Er übernimmt die Sammlungen in
+    ihrer Reihenfolge und startet erst danach das Laden der nächsten, sodass nie mehr als loadParallelism
+    Sammlungen als Zeilen im Speicher liegen.
+    Die Gesamtzahl in progress wächst mit jeder geladenen Sammlung.
+    */
+    public boolean exportToXlsxPerCollection(String filePath) {
+        return exportToXlsxPerCollection(filePath, new TransferProgress());
+    }
+
+    public boolean exportToXlsxPerCollection(String filePath, TransferProgress progress) {
+        List<String> safeCollectionNames = new ArrayList<>(collectionNames); // Kopie für thread-sicheren Zugriff
+        long start = System.nanoTime();
+        try (XlsxBookWriter writer = new XlsxBookWriter()) {
+            List<XlsxBookWriter.SheetWriter> sheets = new ArrayList<>();
+            for (String collection : safeCollectionNames) {
+                sheets.add(writer.createSheet(collection));
             }
-        }
-    //Methode zum Export einer Liste in ein yaml-File
-        public boolean exportToYaml(String filePath) {
-            try {
-                List<Book> allBooks = getAllBooks();
-                fileHandler.saveBooksToYaml(filePath, allBooks);
-                return true;
-            } catch (Exception e) {
-                e.printStackTrace();
-                return false;
+            int exported = 0;
+            int parallelism = getLoadParallelism();
+            List<Future<List<Object[]>>> futures = new ArrayList<>();
+            long loadWait = 0; // Zeit, in der der schreibende Thread auf geladene Sammlungen gewartet hat
+            progress.setStatus("Exporting");
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < safeCollectionNames.size(); i++) {
+                    // Nachschieben bis zu parallelism Sammlungen vor der gerade geschriebenen
+                    while (futures.size() < Math.min(safeCollectionNames.size(), i + parallelism)) {
+                        String collection = safeCollectionNames.get(futures.size());
+                        futures.add(executor.submit(() -> loadRowsForExport(collection, progress)));
+                    }
+                    List<Object[]> rows;
+                    long waitStart = System.nanoTime();
+                    try {
+                        rows = futures.get(i).get();
+                    } catch (ExecutionException e) {
+                        futures.subList(i, futures.size()).forEach(future -> future.cancel(true)); // Davor schon geschrieben
+                        if (e.getCause() instanceof CancellationException cancelled) throw cancelled;
+                        throw new IOException("Could not export collection " + safeCollectionNames.get(i), e.getCause());
+                    }
+                    loadWait += System.nanoTime() - waitStart;
+                    futures.set(i, null); // Die Liste soll die Zeilen nach dem Schreiben nicht festhalten
+                    XlsxBookWriter.SheetWriter sheet = sheets.get(i);
+                    for (Object[] row : rows) {
+                        progress.rowDone();
+                        sheet.writeRow(row);
+                    }
+                    exported += rows.size();
+                }
             }
+            long prepared = System.nanoTime();
+            progress.setStatus("Writing workbook");
+            writer.save(Path.of(filePath)); // Zusammensetzen der Arbeitsmappe
+            System.out.printf("Exported %d books in %d sheets to %s (sheets %.1f ms, of which waiting for loads %.1f ms,"
+                            + " workbook %.1f ms)%n",
+                    exported, sheets.size(), filePath, (prepared - start) / 1_000_000.0, loadWait / 1_000_000.0,
+                    (System.nanoTime() - prepared) / 1_000_000.0);
+            return true;
+        } catch (CancellationException e) {
+            System.out.println("Export to " + filePath + " cancelled after " + progress.getRows() + " books");
+            return false; // Die Datei wurde noch nicht geschrieben
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
         }
+    }
 
-        private Collection getCollectionByName(String collectionName) {
-            // Überprüfen, ob der Name in der Liste der Collection-Namen existiert
-            if (collectionNames.contains(collectionName)) {
-                // Sammlung mit vorhandener Methode laden
-                return loadBooksForCollection(collectionName);
-            } else {
-                // Sammlung nicht gefunden
-                System.out.println("Collection not found: " + collectionName);
-                return new Collection(collectionName);
+    /*
+    Lädt eine Sammlung für exportToXlsxPerCollection() und wandelt ihre Bücher in Zeilenwerte um. Läuft auf einem
+    virtuellen Thread; eine geladene Sammlung kann gleichzeitig über die Oberfläche bearbeitet werden und wird
+    deshalb unter ihrer Sperre gelesen.
+    */
+    private List<Object[]> loadRowsForExport(String collectionName, TransferProgress progress) {
+        progress.checkCancelled();
+        Collection loaded = loadBooksForCollection(collectionName);
+        List<Object[]> rows;
+        synchronized (loaded) {
+            rows = new ArrayList<>(loaded.getBooks().size());
+            for (Book book : loaded.getBooks()) {
+                rows.add(XlsxBookWriter.toRow(book));
             }
         }
+        progress.addToTotal(rows.size());
+        return rows;
+    }
+
+    //Methode zum Export einer Liste in ein csv- oder tsv-File
+    public boolean exportToCsv(String filePath) {
+        return exportToCsv(filePath, new TransferProgress());
+    }
+
+    public boolean exportToCsv(String filePath, TransferProgress progress) {
+        return exportBooks(filePath, progress, books -> fileHandler.saveBooksToCsv(filePath, books, progress));
+    }
+
+    //Methode zum Export einer Liste in ein yaml-File
+    public boolean exportToYaml(String filePath) {
+        return exportToYaml(filePath, new TransferProgress());
+    }
+
+    public boolean exportToYaml(String filePath, TransferProgress progress) {
+        return exportBooks(filePath, progress, books -> fileHandler.saveBooksToYaml(filePath, books, progress));
+    }
+
+    private Collection getCollectionByName(String collectionName) {
+        // Überprüfen, ob der Name in der Liste der Collection-Namen existiert
+        if (collectionNames.contains(collectionName)) {
+            // Sammlung mit vorhandener Methode laden
+            return loadBooksForCollection(collectionName);
+        } else {
+            // Sammlung nicht gefunden
+            System.out.println("Collection not found: " + collectionName);
+            return new Collection(collectionName);
+        }
+    }
 
-    // Methode zum Abrufen aller Bücher aus allen Sammlungen
-    private List<Book> getAllBooks() {
+    /*
+    Methode zum Abrufen aller Bücher aus allen Sammlungen.
+    Die Sammlungen werden parallel auf virtuellen Threads geladen; höchstens loadParallelism Sammlungen
+    gleichzeitig, damit langsame Festplatten nicht durch zu viele gleichzeitige Zugriffe ausgebremst werden.
+    Die Ergebnisse werden anschließend in der Reihenfolge von collectionNames zusammengeführt, sodass
+    der Export unabhängig von der Ladereihenfolge immer gleich aussieht. Die Bücher werden unter der Sperre
+    ihrer Sammlung kopiert, da der Export auf einem Hintergrund-Thread läuft (siehe copyBooks()).
+    Es gibt nur vollständige Ergebnisse: Kann eine Sammlung nicht geladen werden, wird eine IOException geworfen,
+    bei einer Unterbrechung eine InterruptedException. In beiden Fällen werden die übrigen Ladevorgänge abgebrochen.
+    */
+    private List<Book> getAllBooks() throws IOException, InterruptedException {
         List<Book> allBooks = new ArrayList<>(); // Liste für alle Bücher
 
         if (collectionNames == null || collectionNames.isEmpty()) {
@@ -414,22 +984,55 @@ public class CollectionManager {
         // Kopie der collectionNames für thread-sicheren Zugriff
         List<String> safeCollectionNames = new ArrayList<>(collectionNames);
 
-        for (String collection : safeCollectionNames) {
-            Collection currentCollection = loadBooksForCollection(collection);
-            if (currentCollection == null) {
-                System.err.println("Collection could not be loaded: " + collection);
-                continue;
+        long start = System.nanoTime();
+        List<Future<List<Book>>> futures = new ArrayList<>();
+        Semaphore permits = new Semaphore(getLoadParallelism());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String collection : safeCollectionNames) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return copyBooks(loadBooksForCollection(collection)); // Wie beim Speichern: Stand beim Laden
+                    } finally {
+                        permits.release();
+                    }
+                }));
             }
 
-            List<Book> books = currentCollection.getBooks();
-            if (books != null && !books.isEmpty()) {
-                allBooks.addAll(books); // Bücher hinzufügen
-            } else {
-                System.out.println("No books in the collection: " + collection);
+            for (int i = 0; i < safeCollectionNames.size(); i++) {
+                String collection = safeCollectionNames.get(i);
+                List<Book> books;
+                try {
+                    books = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    futures.forEach(future -> future.cancel(true));
+                    if (e.getCause() instanceof CancellationException cancelled) {
+                        throw cancelled;
+                    }
+                    throw new IOException("Collection could not be loaded: " + collection, e.getCause());
+                } catch (InterruptedException e) {
+                    futures.forEach(future -> future.cancel(true));
+                    throw e; // Kein Teilergebnis zurückgeben, das wie ein vollständiger Export aussähe
+                }
+
+                if (!books.isEmpty()) {
+                    allBooks.addAll(books); // Bücher hinzufügen
+                } else {
+                    System.out.println("No books in the collection: " + collection);
+                }
             }
         }
-        // Optional: Entfernen von Duplikaten
-        return new ArrayList<>(new HashSet<>(allBooks));
-        // Wenn Duplikate erlaubt sind, einfach: return allBooks;
+        System.out.printf("Loaded %d collections in %.1f ms (parallelism %d)%n",
+                safeCollectionNames.size(), (System.nanoTime() - start) / 1_000_000.0, getLoadParallelism());
+        return allBooks; // Jedes Buch ist eine eigene Kopie, dasselbe Objekt kann also nicht doppelt vorkommen
+    }
+
+    // Maximale Anzahl gleichzeitig geladener Sammlungen (z. B. 1 für langsame Netzlaufwerke)
+    public int getLoadParallelism() {
+        return loadParallelism;
+    }
+
+    public void setLoadParallelism(int loadParallelism) {
+        this.loadParallelism = Math.max(1, loadParallelism);
     }
 }
@@ -0,0 +1,105 @@
+package com.example.allesinordnungfx;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/*
+Das Interface CollectionStore beschreibt, wie die Sammlungen eines Benutzers dauerhaft gespeichert werden.
+Der CollectionManager kümmert sich um Cache, Hintergrund-Speicherung und Import/Export und greift nur über
+dieses Interface auf die Dateien zu.
+
+Implementierungen:
+- YamlCollectionStore: Eine YAML-Datei je Sammlung plus "collections.yaml" (Standard, Austauschformat)
+- PagedCollectionStore: Alle Sammlungen eines Benutzers in einer seitenbasierten Datei mit B-Baum-Index
+
+Einzeländerungen (bookAdded, bookUpdated, bookRemoved) werden über die Position in der Sammlung beschrieben
+und müssen bereits an der Collection vorgenommen worden sein.
+*/
+public interface CollectionStore extends Closeable {
+
+    // Liefert die gespeicherten Sammlungsnamen oder null, wenn noch keine gespeichert wurden
+    List<String> loadCollectionNames() throws IOException;
+
+    void saveCollectionNames(List<String> collectionNames) throws IOException;
+
+    // Datei, in der die Sammlungsnamen liegen (zum Erkennen von Änderungen anderer Programme)
+    File getCollectionNamesFile();
+
+    // Stempel des gespeicherten Stands der Sammlungsnamen; standardmäßig Änderungszeit und Größe der Datei
+    default long getCollectionNamesStamp() {
+        File file = getCollectionNamesFile();
+        return file.lastModified() * 31 + file.length();
+    }
+
+    // Prüft, ob für die Sammlung bereits Daten gespeichert sind
+    boolean exists(String collectionName);
+
+    /*
+    Lädt eine Sammlung. Der Consumer erhält die Bücher bereits während des Ladens (kann null sein).
+    Fehler beim Lesen werden als RuntimeException (z. B. UncheckedIOException) weitergegeben, nie als leere
+    oder unvollständige Sammlung.
+    */
+    Collection loadCollection(String collectionName, Consumer<Book> onBookLoaded);
+
+    /*
+    Speichert den kompletten Stand einer Sammlung. Liefert einen Auftrag für den SaveScheduler zurück,
+    oder null, wenn die Daten bereits synchron geschrieben wurden. afterSave wird nach dem dauerhaften
+    Schreiben ausgeführt.
+    */
+    SaveScheduler.SaveTask saveBooks(String collectionName, List<Book> books, Runnable afterSave) throws IOException;
+
+    void bookAdded(String collectionName, Book book) throws IOException;
+
+    void bookUpdated(String collectionName, int index, Book book) throws IOException;
+
+    void bookRemoved(String collectionName, int index) throws IOException;
+
+    // Anzahl der Einzeländerungen, die noch nicht in einem vollständigen Stand enthalten sind
+    int getPendingChangeCount(String collectionName);
+
+    boolean rename(String oldName, String newName);
+
+    boolean delete(String collectionName);
+
+    /*
+    Stempel des gespeicherten Stands einer Sammlung (für CollectionCache und GlobalSearchIndex).
+    Ändert sich bei jedem Schreibvorgang, der die Sammlung betrifft, aber nicht bei Änderungen an anderen Sammlungen.
+    */
+    long getStamp(String collectionName);
+
+    /*
+    Wird aufgerufen, wenn der Watcher Änderungen an den Dateien des Speichers meldet. Speicher, die Daten im
+    Speicher zwischenhalten, lesen sie neu ein und liefern die Sammlungen, deren Stand sich dadurch geändert hat.
+    */
+    default Set<String> reloadExternalChanges() throws IOException {
+        return Set.of();
+    }
+
+    /*
+    Öffnet die Sammlung zum seitenweisen Lesen, ohne sie vollständig zu laden.
+    Liefert null, wenn der Speicher das (im aktuellen Zustand) nicht unterstützt.
+    */
+    default PagedBookSource openPagedSource(String collectionName) throws IOException {
+        return null;
+    }
+
+    // Sucht Bücher mit der ISBN; die Standardimplementierung lädt dazu die ganze Sammlung
+    default List<Book> findBooksByIsbn(String collectionName, long isbn) throws IOException {
+        List<Book> result = new ArrayList<>();
+        for (Book book : loadCollection(collectionName, null).getBooks()) {
+            if (book.getIsbn() == isbn) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,403 @@
+package com.example.allesinordnungfx;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+Die Klasse CsvBookFile liest und schreibt Bücher als CSV bzw. TSV (RFC 4180, UTF-8) für große Listen von
+Partnern, bei denen YAML und Xlsx zu schwerfällig sind.
+
+Beim Lesen wird die Datei über einen Memory-Mapped FileChannel direkt als Bytes durchlaufen. Die Felder
+eines Datensatzes werden (ohne Anführungszeichen) in einen wiederverwendeten Puffer kopiert; Jahr, ISBN und
+Lesestatus werden direkt aus den Bytes gelesen, nur Textfelder werden zu Strings. Felder in Anführungszeichen
+dürfen Trennzeichen, Zeilenumbrüche und verdoppelte Anführungszeichen ("") enthalten.
+Die Spalten werden wie beim Xlsx-Import über die Kopfzeile zugeordnet (Überschriften wie beim Export).
+
+Beim Schreiben werden die Bücher ohne Zwischen-Strings als UTF-8 in einen großen Puffer (1 MB) kodiert,
+der jeweils am Stück in den FileChannel geschrieben wird.
+*/
+public final class CsvBookFile {
+
+    private static final int TITLE = 0, FIRST_NAME = 1, LAST_NAME = 2, GENRE = 3, YEAR = 4, ISBN = 5,
+            READ = 6, RATING = 7, COMMENT = 8;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20; // 1 MB je Schreibvorgang
+
+    private CsvBookFile() {
+    }
+
+    /*
+    Liest alle Bücher der Datei und übergibt sie einzeln an den Consumer; gibt deren Anzahl zurück.
+    Leere Zeilen werden übersprungen.
+    */
+    public static int read(Path file, char separator, Consumer<Book> consumer) throws IOException {
+        return read(file, separator, consumer, new TransferProgress());
+    }
+
+    // Wie oben; die Gesamtzahl der Zeilen wird laufend aus dem bisher gelesenen Anteil der Datei geschätzt
+    public static int read(Path file, char separator, Consumer<Book> consumer, TransferProgress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("CSV file too large to be mapped: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new Parser(buffer, (byte) separator, file).readBooks(consumer, progress);
+        }
+    }
+
+    public static void write(Path file, char separator, List<Book> books) throws IOException {
+        write(file, separator, books, new TransferProgress());
+    }
+
+    // Schreibt die Bücher mit Kopfzeile in die Datei (eine vorhandene Datei wird überschrieben).
+    // Bei einem Fehler oder Abbruch wird die unvollständige Datei gelöscht.
+    public static void write(Path file, char separator, List<Book> books, TransferProgress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel, (byte) separator);
+            for (int i = 0; i < FileHandler.COLUMN_HEADERS.length; i++) {
+                if (i > 0) out.separator();
+                out.text(FileHandler.COLUMN_HEADERS[i]);
+            }
+            out.endLine();
+            for (Book book : books) {
+                progress.rowDone();
+                out.text(book.getTitle());
+                out.separator();
+                out.text(book.getFirstName());
+                out.separator();
+                out.text(book.getLastName());
+                out.separator();
+                out.text(book.getGenre());
+                out.separator();
+                out.number(book.getPublicationYear());
+                out.separator();
+                out.number(book.getIsbn());
+                out.separator();
+                out.text(book.isRead() ? "true" : "false");
+                out.separator();
+                out.text(book.getRating());
+                out.separator();
+                out.text(book.getComment());
+                out.endLine();
+            }
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    // Zerlegt den Dateiinhalt in Datensätze; die Felder eines Datensatzes liegen hintereinander in record
+    private static final class Parser {
+        private final ByteBuffer buffer;
+        private final byte separator;
+        private final Path file;
+        private final int limit;
+        private int position;
+        private int line = 1;
+
+        private byte[] record = new byte[1024];
+        private int recordLength;
+        private int[] fieldStarts = new int[16];
+        private int[] fieldEnds = new int[16];
+        private int fieldCount;
+        private int[] columnOfField = {TITLE, FIRST_NAME, LAST_NAME, GENRE, YEAR, ISBN, READ, RATING, COMMENT};
+
+        Parser(ByteBuffer buffer, byte separator, Path file) {
+            this.buffer = buffer;
+            this.separator = separator;
+            this.file = file;
+            this.limit = buffer.limit();
+            if (limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+                position = 3; // UTF-8-BOM (z. B. von Excel) überspringen
+            }
+        }
+
+        int readBooks(Consumer<Book> consumer, TransferProgress progress) throws IOException {
+            int count = 0;
+            boolean first = true;
+            while (readRecord()) {
+                if (fieldCount == 1 && fieldEnds[0] == fieldStarts[0]) continue; // Leere Zeile
+                if (first) {
+                    first = false;
+                    if (readHeader()) continue; // Kopfzeile überspringen
+                }
+                progress.rowDone();
+                Book book = new Book(text(TITLE), text(FIRST_NAME), text(LAST_NAME), text(GENRE),
+                        (int) number(YEAR), number(ISBN));
+                book.setRead(bool(READ));
+                book.setRating(text(RATING));
+                book.setComment(text(COMMENT));
+                consumer.accept(book);
+                if ((++count & 4095) == 0) {
+                    progress.setTotal((long) count * limit / position); // Hochrechnung aus dem gelesenen Anteil
+                }
+            }
+            progress.setTotal(count);
+            return count;
+        }
+
+        // Liest den nächsten Datensatz; false am Dateiende
+        private boolean readRecord() throws IOException {
+            if (position >= limit) return false;
+            recordLength = 0;
+            fieldCount = 0;
+            int recordLine = line;
+            while (true) {
+                int start = recordLength;
+                if (position < limit && buffer.get(position) == '"') {
+                    position++;
+                    while (true) {
+                        if (position >= limit) {
+                            throw new IOException("Unterminated quoted field starting in line " + recordLine + " of " + file);
+                        }
+                        byte b = buffer.get(position++);
+                        if (b == '"') {
+                            if (position < limit && buffer.get(position) == '"') {
+                                position++; // "" steht für ein Anführungszeichen
+                            } else {
+                                break;
+                            }
+                        } else if (b == '\n') {
+                            line++;
+                        }
+                        append(b);
+                    }
+                    while (position < limit && !isFieldEnd(buffer.get(position))) {
+                        position++; // Zeichen nach dem schließenden Anführungszeichen werden ignoriert
+                    }
+                } else {
+                    int from = position;
+                    while (position < limit && !isFieldEnd(buffer.get(position))) {
+                        position++;
+                    }
+                    appendRange(from, position);
+                }
+                addField(start, recordLength);
+                if (position >= limit) return true;
+                byte b = buffer.get(position++);
+                if (b == separator) continue;
+                if (b == '\r' && position < limit && buffer.get(position) == '\n') position++;
+                line++;
+                return true;
+            }
+        }
+
+        private boolean isFieldEnd(byte b) {
+            return b == separator || b == '\n' || b == '\r';
+        }
+
+        private void append(byte b) {
+            if (recordLength == record.length) record = Arrays.copyOf(record, record.length * 2);
+            record[recordLength++] = b;
+        }
+
+        private void appendRange(int from, int to) {
+            int length = to - from;
+            if (recordLength + length > record.length) {
+                record = Arrays.copyOf(record, Math.max(record.length * 2, recordLength + length));
+            }
+            buffer.get(from, record, recordLength, length);
+            recordLength += length;
+        }
+
+        private void addField(int start, int end) {
+            if (fieldCount == fieldStarts.length) {
+                fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+                fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+            }
+            fieldStarts[fieldCount] = start;
+            fieldEnds[fieldCount] = end;
+            fieldCount++;
+        }
+
+        // Ordnet die Spalten anhand der Überschriften zu; false, wenn der erste Datensatz keine Kopfzeile ist
+        private boolean readHeader() {
+            int[] mapping = new int[FileHandler.COLUMN_HEADERS.length];
+            Arrays.fill(mapping, -1);
+            boolean found = false;
+            for (int column = 0; column < fieldCount; column++) {
+                String header = new String(record, fieldStarts[column], fieldEnds[column] - fieldStarts[column],
+                        StandardCharsets.UTF_8).trim();
+                for (int field = 0; field < mapping.length; field++) {
+                    if (mapping[field] < 0 && FileHandler.COLUMN_HEADERS[field].equalsIgnoreCase(header)) {
+                        mapping[field] = column;
+                        found = true;
+                    }
+                }
+            }
+            if (found) columnOfField = mapping;
+            return found;
+        }
+
+        // Spalte des Feldes im aktuellen Datensatz (-1, wenn es fehlt)
+        private int column(int field) {
+            int column = columnOfField[field];
+            return column < fieldCount ? column : -1;
+        }
+
+        private String text(int field) {
+            int column = column(field);
+            if (column < 0 || fieldEnds[column] == fieldStarts[column]) return "";
+            return new String(record, fieldStarts[column], fieldEnds[column] - fieldStarts[column], StandardCharsets.UTF_8);
+        }
+
+        // Ganze Zahl aus den Ziffern des Feldes; "978-3-16-148410-0" ergibt 9783161484100, "1990.0" ergibt 1990
+        private long number(int field) {
+            int column = column(field);
+            if (column < 0) return 0;
+            long value = 0;
+            int digits = 0;
+            boolean negative = false;
+            for (int i = fieldStarts[column]; i < fieldEnds[column]; i++) {
+                byte b = record[i];
+                if (b >= '0' && b <= '9') {
+                    if (++digits > 18) return 0; // Kein sinnvoller Wert
+                    value = value * 10 + (b - '0');
+                } else if (b == '.') {
+                    break; // Nachkommastellen werden ignoriert
+                } else if (b == '-' && digits == 0) {
+                    negative = true;
+                }
+            }
+            return negative ? -value : value;
+        }
+
+        private boolean bool(int field) {
+            int column = column(field);
+            if (column < 0) return false;
+            int start = fieldStarts[column];
+            int end = fieldEnds[column];
+            while (start < end && record[start] == ' ') start++;
+            while (end > start && record[end - 1] == ' ') end--;
+            return matches(start, end, "true") || matches(start, end, "1") || matches(start, end, "yes")
+                    || matches(start, end, "ja") || matches(start, end, "x");
+        }
+
+        // Vergleicht einen Bereich des Datensatzes ohne Beachtung der Groß-/Kleinschreibung mit einem ASCII-Wort
+        private boolean matches(int start, int end, String word) {
+            if (end - start != word.length()) return false;
+            for (int i = 0; i < word.length(); i++) {
+                int b = record[start + i];
+                if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+                if (b != word.charAt(i)) return false;
+            }
+            return true;
+        }
+    }
+
+    // Kodiert Felder als UTF-8 in einen großen Puffer und schreibt ihn blockweise in den Channel
+    private static final class Output {
+        private final FileChannel channel;
+        private final byte separator;
+        private final byte[] bytes = new byte[WRITE_BUFFER_SIZE];
+        private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        private int length;
+
+        Output(FileChannel channel, byte separator) {
+            this.channel = channel;
+            this.separator = separator;
+        }
+
+        void separator() throws IOException {
+            ensure(1);
+            bytes[length++] = separator;
+        }
+
+        void endLine() throws IOException {
+            ensure(2);
+            bytes[length++] = '\r';
+            bytes[length++] = '\n';
+        }
+
+        // Text in Anführungszeichen, falls er Trennzeichen, Anführungszeichen oder Zeilenumbrüche enthält
+        void text(String text) throws IOException {
+            if (text == null || text.isEmpty()) return;
+            boolean quoted = needsQuotes(text);
+            if (quoted) {
+                ensure(1);
+                bytes[length++] = '"';
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                ensure(4);
+                if (c < 0x80) {
+                    if (c == '"') bytes[length++] = '"'; // Verdoppeln
+                    bytes[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[length++] = (byte) (0xC0 | (c >> 6));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    bytes[length++] = '?'; // Einzelnes Surrogat lässt sich nicht kodieren
+                } else {
+                    bytes[length++] = (byte) (0xE0 | (c >> 12));
+                    bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            if (quoted) {
+                ensure(1);
+                bytes[length++] = '"';
+            }
+        }
+
+        void number(long value) throws IOException {
+            ensure(20);
+            if (value < 0) {
+                bytes[length++] = '-';
+                value = -value;
+            }
+            int end = length + digitCount(value);
+            for (int i = end - 1; i >= length; i--) {
+                bytes[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length = end;
+        }
+
+        void flush() throws IOException {
+            buffer.clear().limit(length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            length = 0;
+        }
+
+        private void ensure(int count) throws IOException {
+            if (bytes.length - length < count) flush();
+        }
+
+        private boolean needsQuotes(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == separator || c == '"' || c == '\n' || c == '\r') return true;
+            }
+            return false;
+        }
+
+        private static int digitCount(long value) {
+            int digits = 1;
+            while (value >= 10) {
+                value /= 10;
+                digits++;
+            }
+            return digits;
+        }
+    }
+}
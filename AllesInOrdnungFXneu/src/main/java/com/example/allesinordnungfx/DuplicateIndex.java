@@ -0,0 +1,83 @@
+package com.example.allesinordnungfx;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+Die Klasse DuplicateIndex beantwortet die Duplikatsprüfung der Collection (gleicher Titel ohne Beachtung der
+Groß-/Kleinschreibung und gleiche ISBN) über eine HashMap, statt jedes Mal alle Bücher zu vergleichen.
+Damit kostet eine Prüfung beim Hinzufügen oder Bearbeiten konstante Zeit und ein Import von N Büchern
+linear viel statt quadratisch.
+
+Der Titel wird zeichenweise so umgewandelt, wie String.equalsIgnoreCase() Zeichen vergleicht, damit die
+Prüfung dieselben Bücher als Duplikat erkennt wie der bisherige Vergleich.
+*/
+public class DuplicateIndex implements CollectionIndex {
+
+    // Schlüssel eines Buchs für die Duplikatsprüfung
+    private record Key(String foldedTitle, long isbn) {
+    }
+
+    private final Map<Key, IntPostings> postings = new HashMap<>(); // Schlüssel -> Ordnungsnummern
+    private final List<Key> keysByOrdinal = new ArrayList<>(); // Eingetragener Schlüssel je Ordnungsnummer
+
+    @Override
+    public void rebuild(List<Book> books) {
+        postings.clear();
+        keysByOrdinal.clear();
+        for (int i = 0; i < books.size(); i++) {
+            bookAdded(books.get(i), i);
+        }
+    }
+
+    @Override
+    public void bookAdded(Book book, int ordinal) {
+        Key key = keyOf(book);
+        while (keysByOrdinal.size() <= ordinal) {
+            keysByOrdinal.add(null);
+        }
+        keysByOrdinal.set(ordinal, key);
+        postings.computeIfAbsent(key, k -> new IntPostings()).add(ordinal);
+    }
+
+    @Override
+    public void bookRemoved(Book book, int ordinal) {
+        if (ordinal >= keysByOrdinal.size()) return;
+        Key key = keysByOrdinal.set(ordinal, null); // Eingetragener Stand, nicht der aktuelle des Buchs
+        if (key == null) return;
+        IntPostings ordinals = postings.get(key);
+        if (ordinals != null && ordinals.remove(ordinal) && ordinals.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    // Prüft, ob ein Buch mit demselben Titel und derselben ISBN eingetragen ist
+    public boolean contains(Book book) {
+        return postings.containsKey(keyOf(book));
+    }
+
+    /*
+    Prüft, ob ein anderes Buch als das mit der angegebenen Ordnungsnummer denselben Titel und dieselbe ISBN hat
+    (ordinal = -1, wenn das Buch nicht zur Sammlung gehört). Das Buch selbst darf dabei bereits geändert sein.
+    */
+    public boolean containsOther(Book book, int ordinal) {
+        IntPostings ordinals = postings.get(keyOf(book));
+        return ordinals != null && ordinals.containsOtherThan(ordinal);
+    }
+
+    private static Key keyOf(Book book) {
+        return new Key(fold(book.getTitle()), book.getIsbn());
+    }
+
+    // Zeichenweise Umwandlung wie in String.equalsIgnoreCase()
+    private static String fold(String title) {
+        if (title == null) return "";
+        char[] chars = title.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+}
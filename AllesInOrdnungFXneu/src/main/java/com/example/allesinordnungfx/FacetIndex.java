@@ -0,0 +1,144 @@
+package com.example.allesinordnungfx;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/*
+Die Klasse FacetIndex zählt die Bücher einer Collection je Genre, Erscheinungsjahr, Lesestatus und Bewertung
+("Fantasy (1.203)") und liefert die Bücher zu einer Auswahl von Facettenwerten.
+
+Für jeden Wert einer Facette gibt es einen Zähler und ein BitSet der Ordnungsnummern. Hinzufügen, Entfernen
+und Bearbeiten eines Buchs ändern daher nur wenige Zähler und Bits (konstanter Aufwand), statt die Sammlung
+neu zu durchlaufen. Bei einer Auswahl werden die Werte einer Facette mit ODER, verschiedene Facetten mit UND
+verknüpft (z. B. Genre Fantasy oder Krimi, und gelesen).
+*/
+public class FacetIndex implements CollectionIndex {
+
+    // Die Facetten mit ihrem Wert für ein Buch
+    public enum Facet {
+        GENRE("Genre"),
+        YEAR("Year"),
+        READ("Read status"),
+        RATING("Rating");
+
+        private final String label;
+
+        Facet(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        String valueOf(Book book) {
+            switch (this) {
+                case GENRE:
+                    return book.getGenre() == null || book.getGenre().isBlank() ? "(none)" : book.getGenre().trim();
+                case YEAR:
+                    return String.valueOf(book.getPublicationYear());
+                case READ:
+                    return book.isRead() ? "Read" : "Unread";
+                default:
+                    return book.getRating() == null || book.getRating().isBlank() ? "No rating" : "Rating " + book.getRating();
+            }
+        }
+    }
+
+    // Bücher mit einem bestimmten Facettenwert
+    private static final class ValueEntry {
+        final BitSet ordinals = new BitSet();
+        int count;
+    }
+
+    private final Map<Facet, Map<String, ValueEntry>> values = new EnumMap<>(Facet.class);
+    private final List<String[]> valuesByOrdinal = new ArrayList<>(); // Eingetragene Werte je Ordnungsnummer
+
+    public FacetIndex() {
+        for (Facet facet : Facet.values()) {
+            values.put(facet, new HashMap<>());
+        }
+    }
+
+    @Override
+    public void rebuild(List<Book> books) {
+        values.values().forEach(Map::clear);
+        valuesByOrdinal.clear();
+        for (int i = 0; i < books.size(); i++) {
+            bookAdded(books.get(i), i);
+        }
+    }
+
+    @Override
+    public void bookAdded(Book book, int ordinal) {
+        String[] bookValues = new String[Facet.values().length];
+        for (Facet facet : Facet.values()) {
+            String value = facet.valueOf(book);
+            bookValues[facet.ordinal()] = value;
+            ValueEntry entry = values.get(facet).computeIfAbsent(value, key -> new ValueEntry());
+            entry.ordinals.set(ordinal);
+            entry.count++;
+        }
+        while (valuesByOrdinal.size() <= ordinal) {
+            valuesByOrdinal.add(null);
+        }
+        valuesByOrdinal.set(ordinal, bookValues);
+    }
+
+    @Override
+    public void bookRemoved(Book book, int ordinal) {
+        if (ordinal >= valuesByOrdinal.size()) return;
+        String[] bookValues = valuesByOrdinal.set(ordinal, null); // Eingetragener Stand, nicht der aktuelle des Buchs
+        if (bookValues == null) return;
+        for (Facet facet : Facet.values()) {
+            Map<String, ValueEntry> facetValues = values.get(facet);
+            ValueEntry entry = facetValues.get(bookValues[facet.ordinal()]);
+            if (entry == null) continue;
+            entry.ordinals.clear(ordinal);
+            if (--entry.count == 0) {
+                facetValues.remove(bookValues[facet.ordinal()]);
+            }
+        }
+    }
+
+    // Anzahl der Bücher je Wert einer Facette (nach Wert sortiert, Jahre absteigend)
+    public Map<String, Integer> getCounts(Facet facet) {
+        Map<String, Integer> counts = new TreeMap<>(facet == Facet.YEAR
+                ? (a, b) -> Integer.compare(Integer.parseInt(b), Integer.parseInt(a))
+                : String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder()));
+        for (Map.Entry<String, ValueEntry> entry : values.get(facet).entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().count);
+        }
+        return counts;
+    }
+
+    /*
+    Liefert die Ordnungsnummern der Bücher, die zur Auswahl passen: je Facette einer der ausgewählten Werte,
+    über alle Facetten mit Auswahl zugleich. Facetten ohne ausgewählten Wert schränken nicht ein;
+    ist gar nichts ausgewählt, wird null zurückgegeben.
+    */
+    public BitSet filter(Map<Facet, Set<String>> selection) {
+        BitSet result = null;
+        for (Map.Entry<Facet, Set<String>> selected : selection.entrySet()) {
+            if (selected.getValue().isEmpty()) continue;
+            BitSet facetMatches = new BitSet();
+            for (String value : selected.getValue()) {
+                ValueEntry entry = values.get(selected.getKey()).get(value);
+                if (entry != null) facetMatches.or(entry.ordinals);
+            }
+            if (result == null) {
+                result = facetMatches;
+            } else {
+                result.and(facetMatches);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.allesinordnungfx;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+Die Klasse FieldIndex indiziert die einzelnen Felder eines Buchs, nach denen die Abfragesprache (BookQuery)
+gezielt sucht: ISBN (HashMap, exakter Wert), Erscheinungsjahr und Bewertung (sortierte TreeMap für Bereiche
+wie 1980..1990 oder >=2) sowie den Lesestatus. Zu jedem Wert wird die Anzahl der Bücher mitgeführt, damit
+der Abfrageplan abschätzen kann, welche Bedingung am wenigsten Bücher übrig lässt, ohne sie auszuwerten.
+*/
+public class FieldIndex implements CollectionIndex {
+
+    // Bücher mit einem bestimmten Jahr, einer Bewertung bzw. einem Lesestatus
+    private static final class Entry {
+        final BitSet ordinals = new BitSet();
+        int count;
+    }
+
+    // Eingetragene Werte eines Buchs (zum Austragen, auch wenn das Buch inzwischen geändert wurde)
+    private record Values(long isbn, int year, Integer rating, boolean read) {
+    }
+
+    private final Map<Long, IntPostings> isbns = new HashMap<>();
+    private final TreeMap<Integer, Entry> years = new TreeMap<>();
+    private final TreeMap<Integer, Entry> ratings = new TreeMap<>(); // Bücher ohne (numerische) Bewertung fehlen hier
+    private final Entry read = new Entry();
+    private final Entry unread = new Entry();
+    private final List<Values> valuesByOrdinal = new ArrayList<>();
+
+    @Override
+    public void rebuild(List<Book> books) {
+        isbns.clear();
+        years.clear();
+        ratings.clear();
+        read.ordinals.clear();
+        read.count = 0;
+        unread.ordinals.clear();
+        unread.count = 0;
+        valuesByOrdinal.clear();
+        for (int i = 0; i < books.size(); i++) {
+            bookAdded(books.get(i), i);
+        }
+    }
+
+    @Override
+    public void bookAdded(Book book, int ordinal) {
+        Values values = new Values(book.getIsbn(), book.getPublicationYear(), parseRating(book.getRating()), book.isRead());
+        while (valuesByOrdinal.size() <= ordinal) {
+            valuesByOrdinal.add(null);
+        }
+        valuesByOrdinal.set(ordinal, values);
+        isbns.computeIfAbsent(values.isbn(), key -> new IntPostings()).add(ordinal);
+        add(years.computeIfAbsent(values.year(), key -> new Entry()), ordinal);
+        if (values.rating() != null) {
+            add(ratings.computeIfAbsent(values.rating(), key -> new Entry()), ordinal);
+        }
+        add(values.read() ? read : unread, ordinal);
+    }
+
+    @Override
+    public void bookRemoved(Book book, int ordinal) {
+        if (ordinal >= valuesByOrdinal.size()) return;
+        Values values = valuesByOrdinal.set(ordinal, null);
+        if (values == null) return;
+        IntPostings ordinals = isbns.get(values.isbn());
+        if (ordinals != null && ordinals.remove(ordinal) && ordinals.isEmpty()) {
+            isbns.remove(values.isbn());
+        }
+        remove(years, values.year(), ordinal);
+        if (values.rating() != null) {
+            remove(ratings, values.rating(), ordinal);
+        }
+        Entry status = values.read() ? read : unread;
+        status.ordinals.clear(ordinal);
+        status.count--;
+    }
+
+    public int countIsbn(long isbn) {
+        IntPostings ordinals = isbns.get(isbn);
+        return ordinals == null ? 0 : ordinals.size();
+    }
+
+    public BitSet findIsbn(long isbn) {
+        BitSet result = new BitSet();
+        IntPostings ordinals = isbns.get(isbn);
+        if (ordinals != null) ordinals.addTo(result);
+        return result;
+    }
+
+    // Bücher mit einem Erscheinungsjahr von from bis to (jeweils einschließlich)
+    public int countYears(int from, int to) {
+        return count(years, from, to);
+    }
+
+    public BitSet findYears(int from, int to) {
+        return find(years, from, to);
+    }
+
+    // Bücher mit einer Bewertung von from bis to (jeweils einschließlich)
+    public int countRatings(int from, int to) {
+        return count(ratings, from, to);
+    }
+
+    public BitSet findRatings(int from, int to) {
+        return find(ratings, from, to);
+    }
+
+    public int countRead(boolean isRead) {
+        return (isRead ? read : unread).count;
+    }
+
+    public BitSet findRead(boolean isRead) {
+        return (BitSet) (isRead ? read : unread).ordinals.clone();
+    }
+
+    // Bewertung als Zahl; leere oder nicht numerische Bewertungen ergeben null
+    static Integer parseRating(String rating) {
+        if (rating == null || rating.isBlank()) return null;
+        try {
+            return Integer.parseInt(rating.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void add(Entry entry, int ordinal) {
+        entry.ordinals.set(ordinal);
+        entry.count++;
+    }
+
+    private static void remove(TreeMap<Integer, Entry> entries, int key, int ordinal) {
+        Entry entry = entries.get(key);
+        if (entry == null) return;
+        entry.ordinals.clear(ordinal);
+        if (--entry.count == 0) {
+            entries.remove(key);
+        }
+    }
+
+    private static int count(TreeMap<Integer, Entry> entries, int from, int to) {
+        if (from > to) return 0;
+        int count = 0;
+        for (Entry entry : entries.subMap(from, true, to, true).values()) {
+            count += entry.count;
+        }
+        return count;
+    }
+
+    private static BitSet find(TreeMap<Integer, Entry> entries, int from, int to) {
+        BitSet result = new BitSet();
+        if (from > to) return result;
+        for (Entry entry : entries.subMap(from, true, to, true).values()) {
+            result.or(entry.ordinals);
+        }
+        return result;
+    }
+}
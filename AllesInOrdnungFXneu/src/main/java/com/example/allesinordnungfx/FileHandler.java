@@ -1,23 +1,34 @@
 package com.example.allesinordnungfx;
 
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
- // Die Klasse FileHandler bietet Funktionen zum Lesen und Schreiben von Büchern in zwei
- // unterschiedlichen Formaten: Yaml und Xlsx.
+ // Die Klasse FileHandler bietet Funktionen zum Lesen und Schreiben von Büchern in verschiedenen
+ // Formaten: Yaml, Xlsx sowie CSV/TSV.
 
 public class FileHandler {
 
+    // Spaltenüberschriften beim Export nach Xlsx und CSV; beim Import werden die Spalten darüber zugeordnet
+    static final String[] COLUMN_HEADERS = {"Title", "First Name", "Last Name", "Genre", "Year", "ISBN", "Read", "Rating", "Comment"};
+    private static final int YAML_CHUNK_SIZE = 1000; // Bücher je dump() beim Yaml-Export
+    // Höchstzahl der Zeichen beim Yaml-Import (etwa 350.000 Bücher). Anders als beim YamlBookStreamReader wird hier
+    // der ganze Objektgraph aufgebaut, die Grenze schützt daher vor Dateien, die den Speicher sprengen würden.
+    private static final int YAML_IMPORT_CODE_POINTS = 64 * 1024 * 1024;
+
     //Laden von Büchern aus einer Yaml-Datei
    public List<Book> loadBooksFromYaml(String filePath) {
        List<Book> books = new ArrayList<>();
        try (InputStream input = new FileInputStream(filePath)) { // Datei im Lese-Modus öffnen
-           Yaml yaml = new Yaml(); // Ein YAML-Objekt erstellen
+           LoaderOptions options = new LoaderOptions();
+           options.setCodePointLimit(YAML_IMPORT_CODE_POINTS); // Standard sind 3 MB, größere Exporte wären nicht lesbar
+           Yaml yaml = new Yaml(options); // Ein YAML-Objekt erstellen
            books = yaml.load(input); // Die Datei wird geladen und in eine Liste von Büchern umgewandelt
        } catch (IOException e) {
            e.printStackTrace();
@@ -27,73 +38,105 @@ public class FileHandler {
 
    //Methode zum Speichern von Büchern in einer Yaml-Datei
     public void saveBooksToYaml(String filePath, List<Book> books) {
-       try (Writer writer = new FileWriter(filePath)) { // Datei im Schreib-Modus öffnen
-           Yaml yaml = new Yaml(); // YAML-Objekt erstellen
-           yaml.dump(books, writer); // Die Liste der Bücher in Yaml-Format schreiben
+       try {
+           saveBooksToYaml(filePath, books, new TransferProgress());
        } catch (IOException e) {
            e.printStackTrace();
        }
     }
 
+    // Speichert die Bücher in Teilstücken, damit der Fortschritt gemeldet und der Export abgebrochen werden kann.
+    // Die Teilstücke ergeben zusammen dieselbe Liste wie ein einzelnes dump(). Eine unvollständige Datei wird gelöscht.
+    public void saveBooksToYaml(String filePath, List<Book> books, TransferProgress progress) throws IOException {
+       try (Writer writer = new BufferedWriter(new FileWriter(filePath), 64 * 1024)) { // Datei im Schreib-Modus öffnen
+           Yaml yaml = new Yaml(); // YAML-Objekt erstellen
+           if (books.isEmpty()) {
+               yaml.dump(books, writer); // Leere Liste ("[]")
+           }
+           for (int from = 0; from < books.size(); from += YAML_CHUNK_SIZE) {
+               List<Book> chunk = books.subList(from, Math.min(books.size(), from + YAML_CHUNK_SIZE));
+               for (int i = 0; i < chunk.size(); i++) {
+                   progress.rowDone();
+               }
+               yaml.dump(chunk, writer); // Teilstück der Bücher in Yaml-Format schreiben
+           }
+       } catch (IOException | RuntimeException e) {
+           Files.deleteIfExists(Path.of(filePath));
+           throw e;
+       }
+    }
+
     //Methode zum Laden von Büchern aus einer Xlsx-Datei
     public List<Book> loadBooksFromXlsx(String filePath) {
        List<Book> books = new ArrayList<>();
-       try (FileInputStream fis = new FileInputStream(filePath); // Datei im Lese-Modus öffnen (Inputstream)
-       Workbook workbook = new XSSFWorkbook(fis)) { // Excel-Arbeitsmappe erstellen
-           Sheet sheet = workbook.getSheetAt(0); // Das erste Tabellenblatt wählen
-           for (Row row : sheet) { // Jede Zeile im Tabellenblatt durchlaufen
-               if (row.getRowNum() == 0) continue; //Überspringt Kopzeile
-               String title = row.getCell(0).getStringCellValue();
-               String firstName = row.getCell(1).getStringCellValue();
-               String lastName = row.getCell(2).getStringCellValue();
-               String genre = row.getCell(3).getStringCellValue();
-               int year = (int) row.getCell(4).getNumericCellValue();
-               long isbn = (long) row.getCell(5).getNumericCellValue();
-               boolean read = row.getCell(6).getBooleanCellValue();
-               String rating = row.getCell(7).getStringCellValue();
-               String comment = row.getCell(8).getStringCellValue();
-
-               // Erstellt ein neues Buch-Objekt aus den extrahierten Daten
-               Book book = new Book();
-               books.add(book); // Füge das Buch zur Liste hinzu
-           }
+       try {
+           readBooksFromXlsx(filePath, books::add); // Füge jedes Buch zur Liste hinzu
        } catch (IOException e) {
            e.printStackTrace();
        }
        return books;
     }
+
+    // Liest die Bücher einer Xlsx-Datei zeilenweise (SAX) und übergibt jedes sofort an den Consumer.
+    // Die Arbeitsmappe wird dabei nie vollständig in den Speicher geladen; gibt die Anzahl der Bücher zurück.
+    public int readBooksFromXlsx(String filePath, Consumer<Book> consumer) throws IOException {
+       return readBooksFromXlsx(filePath, consumer, new TransferProgress());
+    }
+
+    // Wie oben; die Anzahl der Zeilen laut Tabellenblatt wird als erwartete Gesamtzahl gemeldet
+    public int readBooksFromXlsx(String filePath, Consumer<Book> consumer, TransferProgress progress) throws IOException {
+       return new XlsxBookReader().read(Path.of(filePath), consumer, progress);
+    }
+
     // Methode zum Speichern von Büchern in einer Xlsx Datei
-    public void saveBooksToXlsx(String filePath, List<Book> books) {
-        try (Workbook workbook = new XSSFWorkbook()) { // Eine neue Excel-Arbeitsmappe erstellen
-            Sheet sheet = workbook.createSheet("Books"); // Neues Tabellenblatt anlegen
-            // Kopfzeile erstellen
-            String[] headers = {"Title", "First Name", "Last Name", "Genre", "Year", "ISBN", "Read", "Rating", "Comment"};
-            Row headerRow = sheet.createRow(0); // Erste Zeile für die Überschriften
-            for (int i = 0; i < headers.length; i++) { // Überschriften-Zellen erstellen
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-            }
-            // Daten einfügen
-            int rowNumber = 1; // Start der Buchdaten bei Zeile 1
-            for (Book book : books) {
-                Row row = sheet.createRow(rowNumber++); // Neue Zeile für jedes Buch
-                row.createCell(0).setCellValue(book.getTitle());
-                row.createCell(1).setCellValue(book.getFirstName());
-                row.createCell(2).setCellValue(book.getLastName());
-                row.createCell(3).setCellValue(book.getGenre());
-                row.createCell(4).setCellValue(book.getPublicationYear());
-                row.createCell(5).setCellValue(book.getIsbn());
-                row.createCell(6).setCellValue(book.isRead());
-                row.createCell(7).setCellValue(book.getRating());
-                row.createCell(8).setCellValue(book.getComment());
-            }
+    // Die Zeilen werden über den XlsxBookWriter gestreamt, sodass nur ein kleines Fenster im Speicher liegt.
+    public void saveBooksToXlsx(String filePath, List<Book> books) throws IOException {
+        saveBooksToXlsx(filePath, books, new TransferProgress());
+    }
 
-            // Schreiben der Excel-Daten in die Datei
-            try (FileOutputStream fos = new FileOutputStream(filePath)) {
-                workbook.write(fos); // Arbeitsmappe in den Ausgabestream schreiben
+    public void saveBooksToXlsx(String filePath, List<Book> books, TransferProgress progress) throws IOException {
+        try (XlsxBookWriter writer = new XlsxBookWriter()) {
+            for (Book book : books) {
+                progress.rowDone();
+                writer.writeBook(book);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            progress.setStatus("Writing workbook");
+            writer.save(Path.of(filePath)); // Schreiben der Excel-Daten in die Datei
         }
     }
+
+    // Methode zum Laden von Büchern aus einer CSV- oder TSV-Datei (Trennzeichen nach Dateiendung)
+    public List<Book> loadBooksFromCsv(String filePath) {
+       List<Book> books = new ArrayList<>();
+       try {
+           readBooksFromCsv(filePath, books::add);
+       } catch (IOException e) {
+           e.printStackTrace();
+       }
+       return books;
+    }
+
+    // Liest die Bücher einer CSV- oder TSV-Datei über einen Memory-Mapped FileChannel und übergibt sie einzeln
+    public int readBooksFromCsv(String filePath, Consumer<Book> consumer) throws IOException {
+       return readBooksFromCsv(filePath, consumer, new TransferProgress());
+    }
+
+    // Wie oben; die Gesamtzahl der Zeilen wird während des Lesens anhand der Dateigröße geschätzt
+    public int readBooksFromCsv(String filePath, Consumer<Book> consumer, TransferProgress progress) throws IOException {
+       return CsvBookFile.read(Path.of(filePath), separatorFor(filePath), consumer, progress);
+    }
+
+    // Methode zum Speichern von Büchern in einer CSV- oder TSV-Datei
+    public void saveBooksToCsv(String filePath, List<Book> books) throws IOException {
+        saveBooksToCsv(filePath, books, new TransferProgress());
+    }
+
+    public void saveBooksToCsv(String filePath, List<Book> books, TransferProgress progress) throws IOException {
+        CsvBookFile.write(Path.of(filePath), separatorFor(filePath), books, progress);
+    }
+
+    // Tabulator für .tsv-Dateien, sonst Komma
+    static char separatorFor(String filePath) {
+        return filePath.toLowerCase().endsWith(".tsv") ? '\t' : ',';
+    }
 }
@@ -0,0 +1,304 @@
+package com.example.allesinordnungfx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/*
+Die Klasse FuzzyIndex ermöglicht eine fehlertolerante Suche über Titel und Autoren ("Tolkein" findet
+"Tolkien", "Göthe" findet "Goethe"). Die Treffer werden nach Ähnlichkeit sortiert.
+
+Titel, Vor- und Nachname werden in Wörter zerlegt und normalisiert (Kleinschreibung, ä -> ae, ö -> oe,
+ü -> ue, ß -> ss, übrige Akzente entfernt). Alle unterschiedlichen Wörter liegen in einem BK-Baum, einem
+Suchbaum über den Levenshtein-Abstand: Jedes Kind eines Knotens ist nach seinem Abstand zum Knoten
+einsortiert, sodass bei der Suche nach Wörtern mit höchstens k Fehlern nur Teilbäume mit einem Abstand
+zwischen d - k und d + k betrachtet werden müssen. Vertauschte Buchstaben ("Tolkein") zählen als ein
+Fehler: Der Baum ist nach dem Levenshtein-Abstand aufgebaut, in dem eine Vertauschung zwei Fehler kostet.
+Er wird deshalb mit dem doppelten Radius durchsucht, und jedes gefundene Wort wird mit dem Abstand inklusive
+Vertauschungen bewertet und gefiltert. Das zuletzt eingegebene Wort der Suche darf außerdem
+ein Wortanfang sein (ab zwei Zeichen, "tolk" -> "tolkien"), damit schon während der Eingabe Treffer erscheinen.
+
+Bewertung je Suchwort: Feldgewicht (Titel 1.0, Autor 0.8) / (1 + Abstand), ein Wortanfang zählt wie ein
+halber Fehler. Ein Buch muss jedes Suchwort enthalten; seine Bewertung ist die Summe über die Suchwörter.
+*/
+public class FuzzyIndex implements CollectionIndex {
+
+    private static final double TITLE_WEIGHT = 1.0;
+    private static final double AUTHOR_WEIGHT = 0.8;
+    private static final double PREFIX_COST = 0.5; // Kosten eines Treffers über den Wortanfang
+
+    // Einträge eines Worts: Bücher, in deren Titel bzw. Autor es vorkommt
+    private static final class Postings {
+        final IntPostings title = new IntPostings();
+        final IntPostings author = new IntPostings();
+
+        boolean isEmpty() {
+            return title.isEmpty() && author.isEmpty();
+        }
+    }
+
+    // Knoten des BK-Baums; Kinder nach ihrem Abstand zu diesem Wort
+    private static final class Node {
+        final String word;
+        final Map<Integer, Node> children = new HashMap<>(4);
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+
+    // Bewertung eines Buchs während der Suche
+    private static final class Match {
+        final int ordinal;
+        final double score;
+
+        Match(int ordinal, double score) {
+            this.ordinal = ordinal;
+            this.score = score;
+        }
+    }
+
+    private final TreeMap<String, Postings> words = new TreeMap<>(); // Wort -> Bücher (sortiert für Wortanfänge)
+    private final List<String[][]> wordsByOrdinal = new ArrayList<>(); // Eingetragene Titel- und Autorwörter
+    private Node root;
+    private int emptyWords; // Wörter im Baum ohne Bücher (nach dem Entfernen)
+
+    @Override
+    public void rebuild(List<Book> books) {
+        words.clear();
+        wordsByOrdinal.clear();
+        root = null;
+        emptyWords = 0;
+        for (int i = 0; i < books.size(); i++) {
+            bookAdded(books.get(i), i);
+        }
+    }
+
+    @Override
+    public void bookAdded(Book book, int ordinal) {
+        String[][] bookWords = {
+                normalizedWords(book.searchKey(Book.SearchField.TITLE)),
+                normalizedWords(book.searchKey(Book.SearchField.FIRST_NAME) + " " + book.searchKey(Book.SearchField.LAST_NAME))
+        };
+        while (wordsByOrdinal.size() <= ordinal) {
+            wordsByOrdinal.add(null);
+        }
+        wordsByOrdinal.set(ordinal, bookWords);
+        for (String word : bookWords[0]) {
+            postingsFor(word).title.add(ordinal);
+        }
+        for (String word : bookWords[1]) {
+            postingsFor(word).author.add(ordinal);
+        }
+    }
+
+    @Override
+    public void bookRemoved(Book book, int ordinal) {
+        if (ordinal >= wordsByOrdinal.size()) return;
+        String[][] bookWords = wordsByOrdinal.set(ordinal, null);
+        if (bookWords == null) return;
+        for (int field = 0; field < 2; field++) {
+            for (String word : bookWords[field]) {
+                Postings postings = words.get(word);
+                if (postings == null) continue;
+                boolean removed = (field == 0 ? postings.title : postings.author).remove(ordinal);
+                if (removed && postings.isEmpty()) {
+                    emptyWords++; // Bleibt im Baum, bis sich ein Neuaufbau lohnt
+                }
+            }
+        }
+        if (emptyWords > words.size() / 2 + 1024) {
+            compact();
+        }
+    }
+
+    /*
+    Liefert höchstens limit Ordnungsnummern, absteigend nach Bewertung sortiert (bei gleicher Bewertung in der
+    Reihenfolge der Sammlung). Ein Suchbegriff ohne Wörter liefert eine leere Liste.
+    */
+    public List<Integer> find(String keyword, int limit) {
+        String[] queryWords = normalizedWords(keyword);
+        if (queryWords.length == 0 || root == null) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Double> scores = null;
+        for (int q = 0; q < queryWords.length; q++) {
+            Map<Integer, Double> wordScores = scoreWord(queryWords[q], q == queryWords.length - 1);
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                // Nur Bücher behalten, die auch dieses Suchwort enthalten
+                Map<Integer, Double> combined = new HashMap<>();
+                for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                    Double wordScore = wordScores.get(entry.getKey());
+                    if (wordScore != null) combined.put(entry.getKey(), entry.getValue() + wordScore);
+                }
+                scores = combined;
+            }
+            if (scores.isEmpty()) break;
+        }
+
+        // Die besten limit Treffer über einen Heap auswählen (schlechtester Treffer oben)
+        PriorityQueue<Match> best = new PriorityQueue<>((a, b) -> a.score != b.score
+                ? Double.compare(a.score, b.score) : Integer.compare(b.ordinal, a.ordinal));
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            best.add(new Match(entry.getKey(), entry.getValue()));
+            if (best.size() > limit) best.poll();
+        }
+        List<Integer> ordinals = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ordinals.add(best.poll().ordinal);
+        }
+        Collections.reverse(ordinals);
+        return ordinals;
+    }
+
+    // Bewertet alle Bücher, die ein ähnliches Wort (bzw. beim letzten Suchwort einen passenden Wortanfang) enthalten
+    private Map<Integer, Double> scoreWord(String queryWord, boolean allowPrefix) {
+        Map<Integer, Double> scores = new HashMap<>();
+        int maxDistance = maxDistance(queryWord);
+        // Jede Vertauschung hat den Levenshtein-Abstand 2, der Levenshtein-Abstand ist also höchstens doppelt so groß.
+        // Bei höchstens einem Fehler sind beide Abstände gleich, nur darüber muss neu gerechnet werden.
+        searchTree(root, queryWord, 2 * maxDistance, (word, levenshteinDistance) -> {
+            int distance = levenshteinDistance <= 1 ? levenshteinDistance : transpositionDistance(queryWord, word);
+            if (distance <= maxDistance) addScores(scores, words.get(word), distance);
+        });
+        if (allowPrefix && queryWord.length() >= 2) {
+            String end = queryWord + Character.MAX_VALUE;
+            for (Map.Entry<String, Postings> entry : words.subMap(queryWord, false, end, true).entrySet()) {
+                addScores(scores, entry.getValue(), PREFIX_COST);
+            }
+        }
+        return scores;
+    }
+
+    private interface WordVisitor {
+        void visit(String word, int distance);
+    }
+
+    // Durchsucht den BK-Baum nach Wörtern mit höchstens maxDistance Fehlern
+    private static void searchTree(Node root, String queryWord, int maxDistance, WordVisitor visitor) {
+        List<Node> pending = new ArrayList<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            int distance = levenshtein(queryWord, node.word);
+            if (distance <= maxDistance) {
+                visitor.visit(node.word, distance);
+            }
+            for (int d = Math.max(1, distance - maxDistance); d <= distance + maxDistance; d++) {
+                Node child = node.children.get(d);
+                if (child != null) pending.add(child);
+            }
+        }
+    }
+
+    // Trägt die Bewertung eines Worts bei allen Büchern ein (je Buch zählt das beste Wort)
+    private static void addScores(Map<Integer, Double> scores, Postings postings, double cost) {
+        if (postings == null) return;
+        addScores(scores, postings.title, TITLE_WEIGHT / (1 + cost));
+        addScores(scores, postings.author, AUTHOR_WEIGHT / (1 + cost));
+    }
+
+    private static void addScores(Map<Integer, Double> scores, IntPostings ordinals, double score) {
+        ordinals.forEach(ordinal -> scores.merge(ordinal, score, Math::max));
+    }
+
+    // Erlaubte Fehler je nach Wortlänge: kurze Wörter exakt, ab 4 Zeichen einer, ab 7 Zeichen zwei
+    private static int maxDistance(String word) {
+        return word.length() < 4 ? 0 : word.length() < 7 ? 1 : 2;
+    }
+
+    private Postings postingsFor(String word) {
+        Postings postings = words.get(word);
+        if (postings == null) {
+            postings = new Postings();
+            words.put(word, postings);
+            insertIntoTree(word);
+        } else if (postings.isEmpty()) {
+            emptyWords--; // Wort wird wieder verwendet
+        }
+        return postings;
+    }
+
+    private void insertIntoTree(String word) {
+        if (root == null) {
+            root = new Node(word);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = levenshtein(word, node.word);
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(word));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    // Entfernt Wörter ohne Bücher und baut den Baum aus den übrigen Wörtern neu auf
+    private void compact() {
+        words.values().removeIf(Postings::isEmpty);
+        root = null;
+        emptyWords = 0;
+        for (String word : words.keySet()) {
+            insertIntoTree(word);
+        }
+    }
+
+    // Zerlegt einen Text in normalisierte Wörter (ohne Wiederholungen)
+    static String[] normalizedWords(String text) {
+        List<String> result = new ArrayList<>();
+        for (String word : normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty() && !result.contains(word)) result.add(word);
+        }
+        return result.toArray(new String[0]);
+    }
+
+    // Kleinschreibung, deutsche Umlaute ausschreiben, übrige Akzente entfernen (wie bei den Suchschlüsseln von Book)
+    static String normalize(String text) {
+        return Book.normalize(text);
+    }
+
+    // Abstand wie levenshtein(), zusätzlich zählt das Vertauschen zweier benachbarter Buchstaben als ein Fehler
+    static int transpositionDistance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    // Levenshtein-Abstand (Einfügen, Löschen, Ersetzen) mit zwei Zeilen
+    static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
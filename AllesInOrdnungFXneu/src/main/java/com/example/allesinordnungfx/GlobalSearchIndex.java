@@ -0,0 +1,203 @@
+package com.example.allesinordnungfx;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/*
+Die Klasse GlobalSearchIndex ermöglicht die Suche über alle Sammlungen eines Benutzers, ohne die Sammlungen
+selbst zu laden. Für jede Sammlung wird eine schlanke Kopie der durchsuchbaren Felder (Titel, Autor, Genre,
+Jahr, ISBN) gehalten; gesucht wird darin mit derselben Teilstring-Suche wie in Collection.search().
+
+Der Index liegt dauerhaft in der Datei ".search-index" im Benutzerverzeichnis (Punkt am Anfang, damit der
+UserDirectoryWatcher sie ignoriert). Je Sammlung ist darin der Stempel (Änderungszeit und Größe) ihrer Dateien
+beim Speichern des Index vermerkt. Passt der Stempel beim nächsten Start nicht mehr (z. B. nach einer Änderung
+durch ein anderes Programm), wird der Eintrag als veraltet markiert. Während der Laufzeit meldet der
+CollectionManager Änderungen über markOutdated() (Einzeländerungen, externe Änderungen laut Watcher).
+Veraltete und fehlende Einträge werden vor der nächsten Suche über den übergebenen Loader neu erzeugt.
+
+Aufbau der Datei (Big-Endian): Magic "AIOG", Version, Anzahl Sammlungen,
+je Sammlung: Name (UTF), Stempel (long), Anzahl Bücher, je Buch Länge + Datensatz wie im BinarySnapshot.
+*/
+public class GlobalSearchIndex {
+
+    public static final String FILE_NAME = ".search-index";
+    private static final int MAGIC = 0x41494F47; // "AIOG"
+    private static final int VERSION = 1;
+
+    // Treffer der globalen Suche: das gefundene Buch (schlanke Kopie) und seine Sammlung
+    public record SearchHit(String collectionName, Book book) {
+    }
+
+    private final File file;
+    private final CollectionStore store;
+    private final Map<String, Collection> entries = new LinkedHashMap<>(); // Sammlung -> schlanke Kopie
+    private final Set<String> outdated = new HashSet<>(); // Sammlungen, die seit dem Eintrag geändert wurden
+    private boolean loaded;
+
+    public GlobalSearchIndex(File directory, CollectionStore store) {
+        this.file = new File(directory, FILE_NAME);
+        this.store = store;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // Übernimmt den gespeicherten Stand einer Sammlung (nach dem Speichern oder Laden)
+    public synchronized void update(String collectionName, List<Book> books) {
+        ensureLoaded();
+        List<Book> copies = new ArrayList<>(books.size());
+        for (Book book : books) {
+            copies.add(new Book(book.getTitle(), book.getFirstName(), book.getLastName(), book.getGenre(),
+                    book.getPublicationYear(), book.getIsbn()));
+        }
+        Collection collection = new Collection(collectionName);
+        collection.setBooks(copies);
+        entries.put(collectionName, collection);
+        outdated.remove(collectionName);
+    }
+
+    // Markiert eine Sammlung als geändert; sie wird vor der nächsten Suche neu eingelesen
+    public synchronized void markOutdated(String collectionName) {
+        outdated.add(collectionName);
+    }
+
+    public synchronized void rename(String oldName, String newName) {
+        ensureLoaded();
+        Collection entry = entries.remove(oldName);
+        if (entry != null) {
+            entry.setName(newName);
+            entries.put(newName, entry);
+        }
+        if (outdated.remove(oldName)) outdated.add(newName);
+    }
+
+    public synchronized void remove(String collectionName) {
+        ensureLoaded();
+        entries.remove(collectionName);
+        outdated.remove(collectionName);
+    }
+
+    /*
+    Sucht in allen angegebenen Sammlungen (in dieser Reihenfolge) nach Büchern, deren Felder den Suchbegriff
+    enthalten, höchstens limit Treffer. Fehlende oder veraltete Einträge sollten zuvor mit refresh() erzeugt
+    werden; Sammlungen ohne Eintrag werden übersprungen.
+    */
+    public synchronized List<SearchHit> search(String keyword, List<String> collectionNames, int limit) {
+        ensureLoaded();
+        List<SearchHit> hits = new ArrayList<>();
+        for (String collectionName : collectionNames) {
+            Collection entry = entries.get(collectionName);
+            if (entry == null) continue;
+            for (Book book : entry.search(keyword)) {
+                if (hits.size() >= limit) return hits;
+                hits.add(new SearchHit(collectionName, book));
+            }
+        }
+        return hits;
+    }
+
+    // Erzeugt fehlende und veraltete Einträge neu und entfernt nicht mehr vorhandene Sammlungen
+    public synchronized int refresh(List<String> collectionNames, Function<String, List<Book>> loader) {
+        ensureLoaded();
+        entries.keySet().retainAll(collectionNames);
+        int refreshed = 0;
+        for (String collectionName : collectionNames) {
+            if (!entries.containsKey(collectionName) || outdated.contains(collectionName)) {
+                try {
+                    update(collectionName, loader.apply(collectionName));
+                    refreshed++;
+                } catch (RuntimeException e) {
+                    e.printStackTrace(); // Nicht lesbare Sammlung überspringen, sie bleibt veraltet
+                }
+            }
+        }
+        if (refreshed > 0) {
+            System.out.println("Refreshed " + refreshed + " collections in the global search index");
+        }
+        return refreshed;
+    }
+
+    // Schreibt den Index im Dateiformat in den Ausgabestream (z. B. in eine Datei des AtomicFileWriter-Batches)
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(entries.size());
+        for (Map.Entry<String, Collection> entry : entries.entrySet()) {
+            data.writeUTF(entry.getKey());
+            // Veraltete Sammlungen mit Stempel 0 speichern, damit sie nach einem Neustart neu eingelesen werden
+            data.writeLong(outdated.contains(entry.getKey()) ? 0 : stampOf(entry.getKey()));
+            List<Book> books = entry.getValue().getBooks();
+            data.writeInt(books.size());
+            for (Book book : books) {
+                byte[] record = BinarySnapshot.encodeBook(book);
+                data.writeInt(record.length);
+                data.write(record);
+            }
+        }
+        data.flush();
+    }
+
+    public synchronized int getBookCount() {
+        int count = 0;
+        for (Collection entry : entries.values()) {
+            count += entry.getBooks().size();
+        }
+        return count;
+    }
+
+    // Liest die Indexdatei beim ersten Zugriff; eine fehlende oder beschädigte Datei ergibt einen leeren Index
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        if (!file.exists()) return;
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), 64 * 1024))) {
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                throw new IOException("Invalid search index file: " + file);
+            }
+            int collections = data.readInt();
+            byte[] scratch = new byte[256];
+            for (int c = 0; c < collections; c++) {
+                String collectionName = data.readUTF();
+                long stamp = data.readLong();
+                int count = data.readInt();
+                List<Book> books = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    byte[] record = new byte[data.readInt()];
+                    data.readFully(record);
+                    books.add(BinarySnapshot.readBook(ByteBuffer.wrap(record), scratch));
+                }
+                Collection collection = new Collection(collectionName);
+                collection.setBooks(books);
+                entries.put(collectionName, collection);
+                if (stamp != stampOf(collectionName)) {
+                    outdated.add(collectionName); // Seit dem Speichern des Index geändert
+                }
+            }
+            System.out.println("Loaded global search index with " + entries.size() + " collections from " + file);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace(); // Index wird bei Bedarf aus den Sammlungen neu aufgebaut
+            entries.clear();
+            outdated.clear();
+        }
+    }
+
+    // Stempel des gespeicherten Stands der Sammlung laut CollectionStore
+    private long stampOf(String collectionName) {
+        return store.getStamp(collectionName);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.allesinordnungfx;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/*
+Die Klasse IntPostings ist eine kompakte, wachsende Liste von Ordnungsnummern (Postings-Liste) für die
+Indizes einer Collection. Gegenüber einem Set<Book> entfällt ein Objekt je Eintrag.
+
+Die Einträge sind aufsteigend sortiert, damit remove() den Eintrag per binärer Suche findet statt die ganze
+Liste zu durchlaufen (häufige Wörter und Trigramme haben Postings-Listen mit fast allen Büchern). Da neue Bücher
+die höchste Ordnungsnummer erhalten, wird beim Hinzufügen fast immer nur hinten angehängt; nur nach einer
+Bearbeitung (bookChanged()) wird ein Eintrag mitten in die Liste eingefügt.
+*/
+final class IntPostings {
+
+    private int[] ordinals = new int[2];
+    private int size;
+
+    void add(int ordinal) {
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+        }
+        if (size == 0 || ordinals[size - 1] < ordinal) {
+            ordinals[size++] = ordinal;
+            return;
+        }
+        int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+        if (position < 0) position = -position - 1; // Einfügeposition
+        System.arraycopy(ordinals, position, ordinals, position + 1, size - position);
+        ordinals[position] = ordinal;
+        size++;
+    }
+
+    boolean remove(int ordinal) {
+        int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(ordinals, position + 1, ordinals, position, size - position - 1);
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Prüft, ob die Liste einen anderen Eintrag als den angegebenen enthält
+    boolean containsOtherThan(int ordinal) {
+        for (int i = 0; i < size; i++) {
+            if (ordinals[i] != ordinal) return true;
+        }
+        return false;
+    }
+
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(ordinals[i]);
+        }
+    }
+
+    // Setzt für jeden Eintrag das zugehörige Bit
+    void addTo(BitSet bits) {
+        for (int i = 0; i < size; i++) {
+            bits.set(ordinals[i]);
+        }
+    }
+}
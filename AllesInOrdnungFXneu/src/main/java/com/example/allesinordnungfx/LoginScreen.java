@@ -18,7 +18,6 @@ import javafx.scene.control.Label;
 import javafx.geometry.Insets;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
@@ -208,9 +207,9 @@ public class LoginScreen extends Application {
     Falls der Benutzername vorhanden ist, wird `false` zurückgegeben.
 
     Anschließend wird der neue Benutzername und das Passwort zu der `Map` hinzugefügt
-    und in die Datei zurückgeschrieben. Die Änderung wird mit einem `FileWriter`
-    persistiert, wobei der `try-with-resources`-Block den Writer automatisch
-    schließt.
+    und in die Datei zurückgeschrieben. Die Änderung wird mit dem `AtomicFileWriter`
+    persistiert, der zuerst eine temporäre Datei schreibt und diese dann atomar
+    über "users.yaml" verschiebt, damit ein Absturz keine Benutzerdaten zerstört.
 
     Abschließend wird ein Verzeichnis und eine Standard Buchsammlung für den Benutzer automatisch erstellt.
 
@@ -236,8 +235,9 @@ public class LoginScreen extends Application {
 
         // Hinzufügen neuer Benutzerdaten (Benutzername und Passwort)
         users.put(username, password);
-        try (FileWriter writer = new FileWriter(file)) {
-            yaml.dump(users, writer); // Neue Liste der Benutzerdaten in die YAML-Datei schreiben
+        Map<String, String> updatedUsers = users;
+        try {
+            AtomicFileWriter.write(file, writer -> yaml.dump(updatedUsers, writer)); // Neue Liste der Benutzerdaten in die YAML-Datei schreiben
         } catch (IOException e) {
             e.printStackTrace();
             return false;
@@ -257,6 +257,7 @@ public class LoginScreen extends Application {
         String defaultCollectionPath = userDirectoryPath + "/default.yaml";
         CollectionManager collectionManager = new CollectionManager();
         collectionManager.addNewCollection("default", userDirectoryPath);
+        collectionManager.shutdown(); // Speicherung der Standard-Collection sofort abschließen
 
         System.out.println("User registered successfully with directory: " + userDirectoryPath);
         return true;
@@ -0,0 +1,223 @@
+package com.example.allesinordnungfx;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/*
+Die Klasse PagedBookList stellt eine PagedBookSource als (nur lesbare) ObservableList für die TableView bereit.
+Die TableView fragt über get() nur die Zeilen ab, die gerade sichtbar sind. Geladen wird jeweils die ganze Seite
+(pageSize Bücher), in der die Zeile liegt. Die benachbarten Seiten (prefetchPages in jede Richtung) werden auf
+einem Hintergrund-Thread vorgeladen, damit beim Scrollen möglichst keine Wartezeit entsteht.
+Fehlt die Seite trotzdem, liefert get() leere Platzhalter-Bücher und lädt die Seite auf einem eigenen Thread;
+sobald sie da ist, meldet die Liste für ihre Zeilen eine Aktualisierung (auf dem JavaFX-Thread), und die
+TableView fragt die Zeilen erneut ab. Der JavaFX-Thread wartet so nie auf die Festplatte.
+Es bleiben höchstens maxCachedPages Seiten im Speicher; die am längsten nicht benutzte Seite wird verworfen.
+*/
+public class PagedBookList extends ObservableListBase<Book> {
+
+    private final PagedBookSource source;
+    private final int size;
+    private final int pageSize;
+    private final int prefetchPages;
+    private final Map<Integer, List<Book>> pages; // Seitennummer -> Bücher, in Zugriffsreihenfolge
+    private final Set<Integer> loading = ConcurrentHashMap.newKeySet(); // Seiten, die gerade geladen werden
+    private final Set<Integer> waiting = new HashSet<>(); // Seiten, für die Platzhalter angezeigt wurden (Zugriff unter pages)
+    private final ExecutorService loader; // Lädt Seiten, die gerade angezeigt werden sollen
+    private final ExecutorService prefetcher;
+    private final Executor fxExecutor; // Führt die Änderungsmeldungen auf dem JavaFX-Thread aus
+    private volatile boolean closed;
+
+    // Statistik
+    private long pageMisses; // Seiten, die beim Anzeigen noch fehlten (Platzhalter statt Wartezeit beim Scrollen)
+    private long pagesPrefetched; // Im Hintergrund vorgeladene Seiten
+
+    public PagedBookList(PagedBookSource source, int pageSize, int prefetchPages, int maxCachedPages) {
+        this(source, pageSize, prefetchPages, maxCachedPages, Platform::runLater);
+    }
+
+    // Mit eigenem Executor für die Änderungsmeldungen (z. B. in Tests ohne JavaFX-Toolkit)
+    PagedBookList(PagedBookSource source, int pageSize, int prefetchPages, int maxCachedPages, Executor fxExecutor) {
+        this.source = source;
+        this.fxExecutor = fxExecutor;
+        this.size = source.size();
+        this.pageSize = pageSize;
+        this.prefetchPages = prefetchPages;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Book>> eldest) {
+                return size() > maxCachedPages;
+            }
+        };
+        this.loader = newPageThread("page-loader");
+        this.prefetcher = newPageThread("page-prefetcher");
+    }
+
+    private static ExecutorService newPageThread(String name) {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Book get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int page = index / pageSize;
+        List<Book> books = getPage(page);
+        prefetchAround(page);
+        int offsetInPage = index % pageSize;
+        // Noch nicht geladene, fehlerhafte oder inzwischen gelöschte Datensätze werden als leere Zeile angezeigt
+        return books != null && offsetInPage < books.size() ? books.get(offsetInPage) : new Book();
+    }
+
+    // Liefert eine Seite aus dem Speicher; fehlt sie, wird sie im Hintergrund geladen und null zurückgegeben
+    private List<Book> getPage(int page) {
+        synchronized (pages) {
+            List<Book> books = pages.get(page);
+            if (books != null) {
+                return books;
+            }
+            if (!waiting.add(page)) {
+                return null; // Wird bereits geladen
+            }
+            pageMisses++;
+        }
+        load(loader, page, false);
+        return null;
+    }
+
+    // Plant das Vorladen der benachbarten Seiten ein, sofern sie noch nicht im Speicher liegen
+    private void prefetchAround(int page) {
+        int lastPage = (size - 1) / pageSize;
+        for (int distance = 1; distance <= prefetchPages; distance++) {
+            prefetch(page + distance, lastPage);
+            prefetch(page - distance, lastPage);
+        }
+    }
+
+    private void prefetch(int page, int lastPage) {
+        if (page < 0 || page > lastPage) return;
+        synchronized (pages) {
+            if (pages.containsKey(page)) return;
+        }
+        load(prefetcher, page, true);
+    }
+
+    /*
+    Lädt eine Seite auf dem angegebenen Thread, sofern sie nicht schon geladen wird. Wurden für die Seite
+    inzwischen Platzhalter angezeigt (auch wenn sie gerade vorgeladen wird), werden ihre Zeilen danach aktualisiert.
+    */
+    private void load(ExecutorService executor, int page, boolean prefetch) {
+        if (!loading.add(page)) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    List<Book> books = readPage(page);
+                    boolean shown;
+                    synchronized (pages) {
+                        pages.putIfAbsent(page, books);
+                        if (prefetch) pagesPrefetched++;
+                        shown = waiting.remove(page);
+                    }
+                    if (shown) {
+                        fxExecutor.execute(() -> firePageLoaded(page));
+                    }
+                } finally {
+                    loading.remove(page);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.remove(page); // Liste wurde bereits geschlossen
+        }
+    }
+
+    // Meldet der TableView, dass die Platzhalter der Seite durch die geladenen Bücher ersetzt werden können
+    private void firePageLoaded(int page) {
+        if (closed) return;
+        int from = page * pageSize;
+        int to = Math.min(size, from + pageSize);
+        beginChange();
+        for (int index = from; index < to; index++) {
+            nextUpdate(index);
+        }
+        endChange();
+    }
+
+    private List<Book> readPage(int page) {
+        try {
+            return source.read(page * pageSize, pageSize);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return List.of();
+        }
+    }
+
+    // Ob gerade Seiten geladen werden (die Änderungsmeldung einer geladenen Seite ist dann bereits übergeben)
+    boolean isLoading() {
+        return !loading.isEmpty();
+    }
+
+    boolean isPageCached(int page) {
+        synchronized (pages) {
+            return pages.containsKey(page);
+        }
+    }
+
+    int getCachedPageCount() {
+        synchronized (pages) {
+            return pages.size();
+        }
+    }
+
+    long getPageMisses() {
+        synchronized (pages) {
+            return pageMisses;
+        }
+    }
+
+    long getPagesPrefetched() {
+        synchronized (pages) {
+            return pagesPrefetched;
+        }
+    }
+
+    // Beendet das Vorladen und schließt die Quelle
+    public void close() {
+        closed = true;
+        loader.shutdownNow();
+        prefetcher.shutdownNow();
+        try {
+            source.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (pages) {
+            return "PagedBookList[size=" + size + ", pageSize=" + pageSize + ", cachedPages=" + pages.size()
+                    + ", pageMisses=" + pageMisses + ", prefetched=" + pagesPrefetched + "]";
+        }
+    }
+}
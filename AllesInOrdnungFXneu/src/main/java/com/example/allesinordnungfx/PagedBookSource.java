@@ -0,0 +1,21 @@
+package com.example.allesinordnungfx;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/*
+Das Interface PagedBookSource erlaubt den seitenweisen Lesezugriff auf eine gespeicherte Sammlung,
+ohne sie vollständig in den Speicher zu laden. Es wird für sehr große Sammlungen verwendet, von denen
+die Tabelle nur den sichtbaren Ausschnitt benötigt.
+
+Die Quelle beschreibt den Stand beim Öffnen; spätere Änderungen an der Sammlung sind darin nicht enthalten.
+*/
+public interface PagedBookSource extends Closeable {
+
+    // Anzahl der Bücher in der Sammlung
+    int size();
+
+    // Liest höchstens limit Bücher ab der Position offset (bei offset >= size() eine leere Liste)
+    List<Book> read(int offset, int limit) throws IOException;
+}
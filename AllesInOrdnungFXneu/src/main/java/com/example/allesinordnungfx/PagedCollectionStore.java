@@ -0,0 +1,455 @@
+package com.example.allesinordnungfx;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/*
+Die Klasse PagedCollectionStore speichert alle Sammlungen eines Benutzers in einer einzigen Datei "books.db",
+die als B+-Baum (BTreeFile) mit 4-KB-Seiten aufgebaut ist. Einzelne Bücher können dadurch gezielt gelesen,
+geändert und gelöscht werden, ohne die ganze Sammlung neu zu schreiben.
+
+Schlüssel im Baum (Sammlungsname als UTF-8, abgeschlossen mit einem 0-Byte):
+- 'N'                               -> Liste der Sammlungsnamen
+- 'S' + Sammlung                    -> nächste freie Zeilennummer der Sammlung
+- 'R' + Sammlung + Zeilennummer     -> Buch (Kodierung wie im BinarySnapshot)
+- 'I' + Sammlung + ISBN + Zeilennr. -> leer (Index für die Suche nach ISBN)
+- 'V' + Sammlung                    -> Version der Sammlung (Stempel für Cache und globale Suche)
+- 'C'                               -> zuletzt vergebene Version
+
+Jede Transaktion, die eine Sammlung ändert, vergibt ihr eine neue Version aus dem gemeinsamen Zähler 'C'.
+Versionen werden dadurch nie wiederverwendet, auch nicht nach dem Löschen und erneuten Anlegen einer Sammlung,
+und Schreibvorgänge in einer Sammlung machen die übrigen Sammlungen derselben Datei nicht ungültig.
+
+Zeilennummern werden fortlaufend vergeben, daher entspricht die Reihenfolge der 'R'-Schlüssel der Reihenfolge
+der Bücher in der Sammlung. Für geladene Sammlungen wird die Zuordnung Position -> Zeilennummer im Speicher
+gehalten, damit Änderungen über die Position (wie im Journal) direkt auf die Zeile abgebildet werden können.
+*/
+public class PagedCollectionStore implements CollectionStore {
+
+    public static final String FILE_NAME = "books.db";
+
+    private static final byte NAMES = 'N';
+    private static final byte SEQUENCE = 'S';
+    private static final byte ROW = 'R';
+    private static final byte ISBN = 'I';
+    private static final byte VERSION = 'V';
+    private static final byte VERSION_COUNTER = 'C';
+
+    private final BTreeFile tree;
+    private final Map<String, List<Long>> rowIds = new HashMap<>(); // Position -> Zeilennummer je geladener Sammlung
+
+    public PagedCollectionStore(String userDirectoryPath) throws IOException {
+        this.tree = new BTreeFile(new File(userDirectoryPath, FILE_NAME));
+    }
+
+    // Prüft, ob im Verzeichnis bereits eine Datei dieses Formats liegt
+    public static boolean isPresent(String userDirectoryPath) {
+        return new File(userDirectoryPath, FILE_NAME).exists();
+    }
+
+    @Override
+    public synchronized List<String> loadCollectionNames() throws IOException {
+        byte[] value = tree.get(new byte[]{NAMES});
+        if (value == null) {
+            return null;
+        }
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(value));
+        int count = data.readInt();
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(data.readUTF());
+        }
+        System.out.println("Loaded collection names from " + tree.getFile());
+        return names;
+    }
+
+    @Override
+    public synchronized void saveCollectionNames(List<String> collectionNames) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(collectionNames.size());
+        for (String name : collectionNames) {
+            data.writeUTF(name);
+        }
+        tree.put(new byte[]{NAMES}, bytes.toByteArray());
+        System.out.println("Saved collection names to " + tree.getFile());
+    }
+
+    @Override
+    public File getCollectionNamesFile() {
+        return tree.getFile();
+    }
+
+    // Inhalt der Namensliste statt Änderungszeit der Datei, die sich auch beim Schreiben von Büchern ändert
+    @Override
+    public synchronized long getCollectionNamesStamp() {
+        try {
+            return Arrays.hashCode(tree.get(new byte[]{NAMES}));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    @Override
+    public synchronized boolean exists(String collectionName) {
+        try {
+            return tree.get(prefix(SEQUENCE, collectionName)) != null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Liest alle Zeilen der Sammlung in der Reihenfolge ihrer Zeilennummern
+    @Override
+    public synchronized Collection loadCollection(String collectionName, Consumer<Book> onBookLoaded) {
+        List<Book> books = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        byte[] scratch = new byte[256];
+        try {
+            tree.scan(prefix(ROW, collectionName), (key, value) -> {
+                Book book = BinarySnapshot.readBook(ByteBuffer.wrap(value), scratch);
+                books.add(book);
+                ids.add(ByteBuffer.wrap(key, key.length - 8, 8).getLong());
+                if (onBookLoaded != null) {
+                    onBookLoaded.accept(book);
+                }
+                return true;
+            });
+            rowIds.put(collectionName, ids);
+            System.out.println("Loaded books for collection '" + collectionName + "' from " + tree.getFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read collection '" + collectionName + "' from " + tree.getFile(), e);
+        }
+        Collection collection = new Collection(collectionName);
+        collection.setBooks(books);
+        return collection;
+    }
+
+    // Schreibt die Sammlung in einer Transaktion neu (synchron, da Einzeländerungen ebenfalls sofort geschrieben werden)
+    @Override
+    public synchronized SaveScheduler.SaveTask saveBooks(String collectionName, List<Book> books, Runnable afterSave)
+            throws IOException {
+        List<Long> ids = new ArrayList<>(books.size());
+        tree.begin();
+        try {
+            tree.deletePrefix(prefix(ROW, collectionName));
+            tree.deletePrefix(prefix(ISBN, collectionName));
+            for (int i = 0; i < books.size(); i++) {
+                writeRow(collectionName, i, books.get(i));
+                ids.add((long) i);
+            }
+            tree.put(prefix(SEQUENCE, collectionName), longBytes(books.size()));
+            nextVersion(collectionName);
+            tree.commit();
+        } catch (IOException | RuntimeException e) {
+            tree.rollback();
+            rowIds.remove(collectionName);
+            throw e;
+        }
+        rowIds.put(collectionName, ids);
+        System.out.println("Saved books for collection '" + collectionName + "' in " + tree.getFile());
+        afterSave.run();
+        return null;
+    }
+
+    @Override
+    public synchronized void bookAdded(String collectionName, Book book) throws IOException {
+        List<Long> ids = getRowIds(collectionName);
+        byte[] sequenceKey = prefix(SEQUENCE, collectionName);
+        byte[] sequence = tree.get(sequenceKey);
+        long rowId = sequence == null ? 0 : ByteBuffer.wrap(sequence).getLong();
+        tree.begin();
+        try {
+            writeRow(collectionName, rowId, book);
+            tree.put(sequenceKey, longBytes(rowId + 1));
+            nextVersion(collectionName);
+            tree.commit();
+        } catch (IOException | RuntimeException e) {
+            tree.rollback();
+            throw e;
+        }
+        ids.add(rowId);
+    }
+
+    @Override
+    public synchronized void bookUpdated(String collectionName, int index, Book book) throws IOException {
+        long rowId = getRowIds(collectionName).get(index);
+        tree.begin();
+        try {
+            removeIsbnEntry(collectionName, rowId);
+            writeRow(collectionName, rowId, book);
+            nextVersion(collectionName);
+            tree.commit();
+        } catch (IOException | RuntimeException e) {
+            tree.rollback();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void bookRemoved(String collectionName, int index) throws IOException {
+        List<Long> ids = getRowIds(collectionName);
+        long rowId = ids.get(index);
+        tree.begin();
+        try {
+            removeIsbnEntry(collectionName, rowId);
+            tree.delete(rowKey(collectionName, rowId));
+            nextVersion(collectionName);
+            tree.commit();
+        } catch (IOException | RuntimeException e) {
+            tree.rollback();
+            throw e;
+        }
+        ids.remove(index);
+    }
+
+    // Änderungen werden sofort in die Datei geschrieben, es gibt nichts nachzuholen
+    @Override
+    public int getPendingChangeCount(String collectionName) {
+        return 0;
+    }
+
+    // Kopiert alle Einträge unter den neuen Namen und entfernt die alten (in einer Transaktion)
+    @Override
+    public synchronized boolean rename(String oldName, String newName) {
+        try {
+            tree.begin();
+            try {
+                for (byte type : new byte[]{ROW, ISBN, SEQUENCE, VERSION}) {
+                    byte[] oldPrefix = prefix(type, oldName);
+                    byte[] newPrefix = prefix(type, newName);
+                    List<byte[][]> entries = new ArrayList<>();
+                    tree.scan(oldPrefix, (key, value) -> entries.add(new byte[][]{key, value}));
+                    for (byte[][] entry : entries) {
+                        byte[] newKey = new byte[newPrefix.length + entry[0].length - oldPrefix.length];
+                        System.arraycopy(newPrefix, 0, newKey, 0, newPrefix.length);
+                        System.arraycopy(entry[0], oldPrefix.length, newKey, newPrefix.length, entry[0].length - oldPrefix.length);
+                        tree.put(newKey, entry[1]);
+                        tree.delete(entry[0]);
+                    }
+                }
+                nextVersion(newName);
+                tree.commit();
+            } catch (IOException | RuntimeException e) {
+                tree.rollback();
+                throw e;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        List<Long> ids = rowIds.remove(oldName);
+        if (ids != null) {
+            rowIds.put(newName, ids);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean delete(String collectionName) {
+        try {
+            tree.begin();
+            try {
+                tree.deletePrefix(prefix(ROW, collectionName));
+                tree.deletePrefix(prefix(ISBN, collectionName));
+                tree.delete(prefix(SEQUENCE, collectionName));
+                tree.delete(prefix(VERSION, collectionName));
+                tree.commit();
+            } catch (IOException | RuntimeException e) {
+                tree.rollback();
+                throw e;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        rowIds.remove(collectionName);
+        return true;
+    }
+
+    // Version der Sammlung; 0, solange sie seit dem Anlegen der Versionen nicht geschrieben wurde
+    @Override
+    public synchronized long getStamp(String collectionName) {
+        try {
+            byte[] version = tree.get(prefix(VERSION, collectionName));
+            return version == null ? 0 : ByteBuffer.wrap(version).getLong();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /*
+    Liest die Datei nach einer Meldung des Watchers neu ein. Die Versionen aller Sammlungen werden vor und nach dem
+    Verwerfen der zwischengespeicherten Seiten verglichen; eigene Schreibvorgänge stehen bereits im Cache und
+    ergeben daher keinen Unterschied. Für geänderte Sammlungen wird die Zuordnung Position -> Zeilennummer verworfen.
+    */
+    @Override
+    public synchronized Set<String> reloadExternalChanges() throws IOException {
+        Map<String, Long> before = readVersions();
+        tree.discardCache();
+        Map<String, Long> after = readVersions();
+        Set<String> changed = new LinkedHashSet<>();
+        for (String collectionName : before.keySet()) {
+            if (!before.get(collectionName).equals(after.get(collectionName))) changed.add(collectionName);
+        }
+        for (String collectionName : after.keySet()) {
+            if (!after.get(collectionName).equals(before.get(collectionName))) changed.add(collectionName);
+        }
+        for (String collectionName : changed) {
+            rowIds.remove(collectionName);
+        }
+        return changed;
+    }
+
+    private Map<String, Long> readVersions() throws IOException {
+        Map<String, Long> versions = new HashMap<>();
+        tree.scan(new byte[]{VERSION}, (key, value) -> {
+            versions.put(new String(key, 1, key.length - 2, StandardCharsets.UTF_8), ByteBuffer.wrap(value).getLong());
+            return true;
+        });
+        return versions;
+    }
+
+    // Punktabfrage über den ISBN-Index, ohne die Sammlung zu laden
+    @Override
+    public synchronized List<Book> findBooksByIsbn(String collectionName, long isbn) throws IOException {
+        byte[] collectionPrefix = prefix(ISBN, collectionName);
+        byte[] isbnPrefix = ByteBuffer.allocate(collectionPrefix.length + 8)
+                .put(collectionPrefix).putLong(isbn ^ Long.MIN_VALUE).array();
+        List<Long> matches = new ArrayList<>();
+        tree.scan(isbnPrefix, (key, value) -> matches.add(ByteBuffer.wrap(key, key.length - 8, 8).getLong()));
+        List<Book> books = new ArrayList<>();
+        byte[] scratch = new byte[256];
+        for (long rowId : matches) {
+            byte[] row = tree.get(rowKey(collectionName, rowId));
+            if (row != null) {
+                books.add(BinarySnapshot.readBook(ByteBuffer.wrap(row), scratch));
+            }
+        }
+        return books;
+    }
+
+    // Liest die Zeilen einzeln über ihre Zeilennummer; die Zuordnung Position -> Zeilennummer wird beim Öffnen kopiert
+    @Override
+    public synchronized PagedBookSource openPagedSource(String collectionName) throws IOException {
+        return new RowSource(collectionName, new ArrayList<>(getRowIds(collectionName)));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        tree.close();
+    }
+
+    // Seitenweiser Zugriff auf die Zeilen einer Sammlung
+    private class RowSource implements PagedBookSource {
+
+        private final String collectionName;
+        private final List<Long> ids;
+
+        RowSource(String collectionName, List<Long> ids) {
+            this.collectionName = collectionName;
+            this.ids = ids;
+        }
+
+        @Override
+        public int size() {
+            return ids.size();
+        }
+
+        // Zeilen, die seit dem Öffnen gelöscht wurden, werden übersprungen
+        @Override
+        public List<Book> read(int offset, int limit) throws IOException {
+            int end = (int) Math.min(ids.size(), (long) offset + limit);
+            List<Book> books = new ArrayList<>(Math.max(0, end - offset));
+            byte[] scratch = new byte[256];
+            synchronized (PagedCollectionStore.this) {
+                for (int i = Math.max(0, offset); i < end; i++) {
+                    byte[] row = tree.get(rowKey(collectionName, ids.get(i)));
+                    if (row != null) {
+                        books.add(BinarySnapshot.readBook(ByteBuffer.wrap(row), scratch));
+                    }
+                }
+            }
+            return books;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // Vergibt der Sammlung innerhalb der laufenden Transaktion eine neue Version aus dem gemeinsamen Zähler
+    private void nextVersion(String collectionName) throws IOException {
+        byte[] counter = tree.get(new byte[]{VERSION_COUNTER});
+        long version = (counter == null ? 0 : ByteBuffer.wrap(counter).getLong()) + 1;
+        tree.put(new byte[]{VERSION_COUNTER}, longBytes(version));
+        tree.put(prefix(VERSION, collectionName), longBytes(version));
+    }
+
+    private void writeRow(String collectionName, long rowId, Book book) throws IOException {
+        tree.put(rowKey(collectionName, rowId), BinarySnapshot.encodeBook(book));
+        tree.put(isbnKey(collectionName, book.getIsbn(), rowId), new byte[0]);
+    }
+
+    // Entfernt den Indexeintrag der bisher gespeicherten ISBN einer Zeile
+    private void removeIsbnEntry(String collectionName, long rowId) throws IOException {
+        byte[] row = tree.get(rowKey(collectionName, rowId));
+        if (row != null) {
+            long oldIsbn = BinarySnapshot.readBook(ByteBuffer.wrap(row), new byte[256]).getIsbn();
+            tree.delete(isbnKey(collectionName, oldIsbn, rowId));
+        }
+    }
+
+    // Zuordnung Position -> Zeilennummer; wird bei Bedarf aus den Schlüsseln der Sammlung ermittelt
+    private List<Long> getRowIds(String collectionName) throws IOException {
+        List<Long> ids = rowIds.get(collectionName);
+        if (ids == null) {
+            List<Long> scanned = new ArrayList<>();
+            tree.scan(prefix(ROW, collectionName), (key, value) -> scanned.add(ByteBuffer.wrap(key, key.length - 8, 8).getLong()));
+            rowIds.put(collectionName, scanned);
+            ids = scanned;
+        }
+        return ids;
+    }
+
+    private static byte[] prefix(byte type, String collectionName) {
+        byte[] name = collectionName.getBytes(StandardCharsets.UTF_8);
+        if (name.length + 18 > BTreeFile.MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Collection name too long: " + collectionName);
+        }
+        return ByteBuffer.allocate(name.length + 2).put(type).put(name).put((byte) 0).array();
+    }
+
+    private static byte[] rowKey(String collectionName, long rowId) {
+        byte[] prefix = prefix(ROW, collectionName);
+        return ByteBuffer.allocate(prefix.length + 8).put(prefix).putLong(rowId).array();
+    }
+
+    // ISBN mit gekipptem Vorzeichenbit, damit die vorzeichenlose Byte-Sortierung der numerischen entspricht
+    private static byte[] isbnKey(String collectionName, long isbn, long rowId) {
+        byte[] prefix = prefix(ISBN, collectionName);
+        return ByteBuffer.allocate(prefix.length + 16).put(prefix).putLong(isbn ^ Long.MIN_VALUE).putLong(rowId).array();
+    }
+
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(8).putLong(value).array();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.allesinordnungfx;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/*
+Die Klasse ParallelScan filtert eine Liste mit einer beliebigen Bedingung (z. B. Teilstring im Kommentar),
+für die es keinen Index gibt. Ab einer einstellbaren Größe wird die Liste im ForkJoinPool rekursiv halbiert,
+bis die Teilstücke klein genug sind, und die Teilstücke werden auf allen Kernen gleichzeitig geprüft.
+Die Teilergebnisse werden wieder in der ursprünglichen Reihenfolge zusammengefügt.
+
+Kleinere Listen werden auf dem aufrufenden Thread geprüft, da sich das Aufteilen dort nicht lohnt.
+Die Schwelle kann mit der System-Property "allesinordnung.parallelScanThreshold" vorgegeben werden.
+*/
+public final class ParallelScan {
+
+    public static final String THRESHOLD_PROPERTY = "allesinordnung.parallelScanThreshold";
+    private static final int LEAF_SIZE = 16_384; // Teilstücke dieser Größe prüft ein Thread am Stück
+
+    private static volatile int threshold = Integer.getInteger(THRESHOLD_PROPERTY, 100_000);
+
+    private ParallelScan() {
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    public static void setThreshold(int threshold) {
+        ParallelScan.threshold = threshold;
+    }
+
+    // Prüft, ob eine Liste dieser Größe parallel durchsucht wird
+    public static boolean isParallel(int size) {
+        return size >= threshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    // Liefert alle Einträge, die die Bedingung erfüllen, in der Reihenfolge der Liste
+    public static <T> List<T> filter(List<T> items, Predicate<? super T> predicate) {
+        if (!isParallel(items.size())) {
+            return scan(items, predicate, 0, items.size());
+        }
+        return ForkJoinPool.commonPool().invoke(new FilterTask<>(items, predicate, 0, items.size()));
+    }
+
+    private static <T> List<T> scan(List<T> items, Predicate<? super T> predicate, int from, int to) {
+        List<T> matches = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            T item = items.get(i);
+            if (predicate.test(item)) matches.add(item);
+        }
+        return matches;
+    }
+
+    // Teilaufgabe für den Bereich [from, to): teilt sich auf oder prüft den Bereich selbst
+    // ForkJoinTask ist Serializable; die Teilaufgaben werden aber nie serialisiert, Liste und Bedingung sind daher transient
+    private static final class FilterTask<T> extends RecursiveTask<List<T>> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<T> items;
+        private final transient Predicate<? super T> predicate;
+        private final int from;
+        private final int to;
+
+        FilterTask(List<T> items, Predicate<? super T> predicate, int from, int to) {
+            this.items = items;
+            this.predicate = predicate;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (to - from <= LEAF_SIZE) {
+                return scan(items, predicate, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            FilterTask<T> right = new FilterTask<>(items, predicate, middle, to);
+            right.fork(); // Rechte Hälfte kann von einem anderen Thread übernommen werden
+            List<T> matches = new FilterTask<>(items, predicate, from, middle).compute();
+            matches.addAll(right.join()); // Reihenfolge bleibt erhalten: links vor rechts
+            return matches;
+        }
+    }
+}
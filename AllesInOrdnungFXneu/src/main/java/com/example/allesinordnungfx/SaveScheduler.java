@@ -0,0 +1,261 @@
+package com.example.allesinordnungfx;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+Die Klasse SaveScheduler sammelt Speicheraufträge für Sammlungen und führt sie gebündelt
+auf einem eigenen Hintergrund-Thread aus, damit der JavaFX-Thread nicht durch Dateizugriffe blockiert wird.
+
+Ablauf:
+- schedule() markiert eine Sammlung als "dirty". Der erste Auftrag startet ein Zeitfenster
+  (coalesceWindowMillis). Weitere Aufträge für dieselbe Sammlung innerhalb des Fensters ersetzen
+  den vorherigen Auftrag (coalescing), es wird also nur der letzte Stand geschrieben.
+- Nach Ablauf des Fensters werden alle offenen Aufträge nacheinander auf dem Hintergrund-Thread ausgeführt.
+- flush() schreibt alle offenen Aufträge sofort und wartet, bis sie abgeschlossen sind
+  (z. B. beim Schließen des Fensters).
+- Jeder Auftrag legt seine Dateien in einem AtomicFileWriter.Batch ab. Im Group-Commit-Modus teilen sich
+  alle Aufträge eines Flushes einen Batch, sodass erst alle Dateien geschrieben und danach gemeinsam umbenannt
+  werden und jedes Verzeichnis nur einmal synchronisiert wird (jede Datei selbst erhält weiterhin ein eigenes
+  force()). Ohne Group Commit wird jeder Auftrag einzeln festgeschrieben.
+
+Zum Feinjustieren werden Zähler (angefragte, zusammengefasste und ausgeführte Schreibvorgänge)
+sowie die Dauer der Flush-Vorgänge erfasst.
+*/
+public class SaveScheduler {
+
+    // Ein Speicherauftrag legt die zu schreibenden Dateien im übergebenen Batch ab
+    @FunctionalInterface
+    public interface SaveTask {
+        void stage(AtomicFileWriter.Batch batch) throws IOException;
+    }
+
+    private final Map<String, SaveTask> pending = new LinkedHashMap<>(); // offene Aufträge je Sammlung
+    private ScheduledExecutorService executor; // wird erst beim ersten Auftrag erzeugt
+    private ScheduledFuture<?> scheduledFlush; // geplanter Flush am Ende des Zeitfensters
+    private long coalesceWindowMillis;
+    private boolean groupCommit = true; // Alle Aufträge eines Flushes gemeinsam festschreiben
+    private boolean shutDown;
+
+    // Statistiken
+    private long requestedSaves;
+    private long coalescedWrites;
+    private long completedWrites;
+    private long flushCount;
+    private long lastFlushNanos;
+    private long maxFlushNanos;
+    private long totalFlushNanos;
+
+    public SaveScheduler(long coalesceWindowMillis) {
+        this.coalesceWindowMillis = coalesceWindowMillis;
+    }
+
+    /*
+    Plant einen Speicherauftrag für den angegebenen Schlüssel (Name der Sammlung).
+    Ein noch nicht ausgeführter Auftrag für denselben Schlüssel wird ersetzt.
+    */
+    public synchronized void schedule(String key, SaveTask writeTask) {
+        if (shutDown) {
+            runTimed(List.of(writeTask)); // Nach dem Herunterfahren direkt schreiben, damit nichts verloren geht
+            return;
+        }
+        requestedSaves++;
+        if (pending.put(key, writeTask) != null) {
+            coalescedWrites++; // Vorheriger Auftrag wurde zusammengefasst
+        }
+        if (scheduledFlush == null) {
+            scheduledFlush = getExecutor().schedule(this::flushPending, coalesceWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Prüft, ob für den Schlüssel noch ein Auftrag aussteht
+    public synchronized boolean isPending(String key) {
+        return pending.containsKey(key);
+    }
+
+    /*
+    Schreibt alle offenen Aufträge sofort und wartet auf deren Abschluss.
+    Die Ausführung erfolgt ebenfalls auf dem Hintergrund-Thread, damit die Reihenfolge der Schreibvorgänge erhalten bleibt.
+    */
+    public void flush() {
+        runOnExecutorAndWait(this::flushPending);
+    }
+
+    // Schreibt den offenen Auftrag für einen einzelnen Schlüssel sofort (z. B. bevor die Datei gelesen wird)
+    public void flush(String key) {
+        if (!isPending(key)) {
+            return;
+        }
+        runOnExecutorAndWait(() -> {
+            SaveTask task;
+            synchronized (this) {
+                task = pending.remove(key);
+            }
+            if (task != null) {
+                runTimed(List.of(task));
+            }
+        });
+    }
+
+    // Verwirft einen offenen Auftrag (z. B. wenn die Sammlung gelöscht wird) und wartet auf laufende Schreibvorgänge
+    public void discard(String key) {
+        synchronized (this) {
+            pending.remove(key);
+        }
+        runOnExecutorAndWait(() -> { });
+    }
+
+    // Schreibt alle offenen Aufträge und beendet den Hintergrund-Thread
+    public void shutdown() {
+        flush();
+        synchronized (this) {
+            shutDown = true;
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    // Wird auf dem Hintergrund-Thread ausgeführt: Nimmt alle offenen Aufträge und führt sie aus
+    private void flushPending() {
+        List<SaveTask> tasks;
+        synchronized (this) {
+            scheduledFlush = null;
+            tasks = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        if (!tasks.isEmpty()) {
+            runTimed(tasks);
+        }
+    }
+
+    // Führt die Aufträge aus und erfasst die Dauer des Flush-Vorgangs
+    private void runTimed(List<SaveTask> tasks) {
+        long start = System.nanoTime();
+        boolean shared = isGroupCommit();
+        AtomicFileWriter.Batch batch = new AtomicFileWriter.Batch();
+        for (SaveTask task : tasks) {
+            try {
+                task.stage(batch);
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace(); // Ein fehlerhafter Auftrag soll die übrigen nicht verhindern
+            }
+            if (!shared) {
+                commit(batch); // Ohne Group Commit wird jeder Auftrag einzeln festgeschrieben
+            }
+        }
+        commit(batch);
+        long duration = System.nanoTime() - start;
+        synchronized (this) {
+            completedWrites += tasks.size();
+            flushCount++;
+            lastFlushNanos = duration;
+            maxFlushNanos = Math.max(maxFlushNanos, duration);
+            totalFlushNanos += duration;
+        }
+    }
+
+    private void commit(AtomicFileWriter.Batch batch) {
+        if (batch.isEmpty()) return;
+        try {
+            batch.commit();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void runOnExecutorAndWait(Runnable action) {
+        ScheduledExecutorService service;
+        synchronized (this) {
+            if (executor == null || shutDown) {
+                service = null;
+            } else {
+                service = executor;
+            }
+        }
+        if (service == null) {
+            action.run(); // Kein Hintergrund-Thread aktiv: Direkt im aufrufenden Thread ausführen
+            return;
+        }
+        try {
+            service.submit(action).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+        }
+    }
+
+    private ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "collection-save-scheduler");
+                thread.setDaemon(true); // Verhindert nicht das Beenden der Anwendung
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    public synchronized long getCoalesceWindowMillis() {
+        return coalesceWindowMillis;
+    }
+
+    public synchronized void setCoalesceWindowMillis(long coalesceWindowMillis) {
+        this.coalesceWindowMillis = Math.max(0, coalesceWindowMillis);
+    }
+
+    public synchronized boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    public synchronized void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    // Getter für die Statistiken
+    public synchronized long getRequestedSaves() {
+        return requestedSaves;
+    }
+
+    public synchronized long getCoalescedWrites() {
+        return coalescedWrites;
+    }
+
+    public synchronized long getCompletedWrites() {
+        return completedWrites;
+    }
+
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    public synchronized double getLastFlushLatencyMillis() {
+        return lastFlushNanos / 1_000_000.0;
+    }
+
+    public synchronized double getMaxFlushLatencyMillis() {
+        return maxFlushNanos / 1_000_000.0;
+    }
+
+    public synchronized double getAverageFlushLatencyMillis() {
+        return flushCount == 0 ? 0 : totalFlushNanos / 1_000_000.0 / flushCount;
+    }
+
+    // Zusammenfassung der Statistiken für das Log
+    @Override
+    public synchronized String toString() {
+        return String.format("SaveScheduler[requested=%d, coalesced=%d, written=%d, flushes=%d, "
+                        + "lastFlush=%.1f ms, maxFlush=%.1f ms, avgFlush=%.1f ms]",
+                requestedSaves, coalescedWrites, completedWrites, flushCount,
+                getLastFlushLatencyMillis(), getMaxFlushLatencyMillis(), getAverageFlushLatencyMillis());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.allesinordnungfx;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Die Klasse SnapshotBookSource liest Bücher seitenweise aus einem Binär-Snapshot (BinarySnapshot).
+Der Snapshot wird über einen Memory-Mapped FileChannel eingeblendet; dekodiert werden nur die angefragten
+Datensätze. Damit ein beliebiger Ausschnitt ohne Durchlaufen der vorherigen Datensätze gelesen werden kann,
+liegt neben dem Snapshot ein Datensatzindex ("<Sammlung>.index") mit der Startposition jedes Datensatzes.
+
+Aufbau des Index (Big-Endian):
+  Header:   Magic "AIOI" (4 Bytes), Länge des Snapshots (long), Änderungszeit des Snapshots (long), Anzahl (int)
+  Je Buch:  Position des Datensatzes im Snapshot (int)
+
+Passt der Index nicht mehr zum Snapshot, wird er beim Öffnen anhand der Längenpräfixe neu aufgebaut.
+*/
+public class SnapshotBookSource implements PagedBookSource {
+
+    private static final int INDEX_MAGIC = 0x41494F49; // "AIOI"
+    private static final int INDEX_HEADER_SIZE = 4 + 8 + 8 + 4;
+
+    private final File snapshotFile;
+    private final MappedByteBuffer snapshot;
+    private final File indexFile;
+    private IntBuffer offsets; // Position je Datensatz (aus der Indexdatei oder notfalls im Speicher)
+    private final int count;
+
+    public SnapshotBookSource(File snapshotFile, File indexFile) throws IOException {
+        this.snapshotFile = snapshotFile;
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to be mapped: " + snapshotFile);
+            }
+            this.snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.count = BinarySnapshot.readHeader(snapshot.duplicate(), snapshotFile);
+        this.indexFile = indexFile;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    // Dekodiert nur die Datensätze im angefragten Bereich; jeder Aufruf arbeitet auf einer eigenen Pufferansicht
+    @Override
+    public List<Book> read(int offset, int limit) throws IOException {
+        int end = (int) Math.min(count, (long) offset + limit);
+        List<Book> books = new ArrayList<>(Math.max(0, end - offset));
+        if (offset < 0 || offset >= end) {
+            return books;
+        }
+        ByteBuffer buffer = snapshot.duplicate();
+        byte[] scratch = new byte[256];
+        try {
+            buffer.position(getOffsets().get(offset));
+            for (int i = offset; i < end; i++) {
+                buffer.getInt(); // Länge des Datensatzes, beim sequentiellen Lesen nicht benötigt
+                books.add(BinarySnapshot.readBook(buffer, scratch));
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated snapshot file: " + snapshotFile, e);
+        }
+        return books;
+    }
+
+    // Der Index wird erst beim ersten Lesen geöffnet, size() ist daher ohne Indexdatei möglich
+    private synchronized IntBuffer getOffsets() throws IOException {
+        if (offsets == null) {
+            offsets = openIndex();
+        }
+        return offsets;
+    }
+
+    // Der eingeblendete Speicher wird vom Garbage Collector freigegeben, es gibt keine offenen Dateien
+    @Override
+    public void close() {
+    }
+
+    /*
+    Blendet den Datensatzindex ein. Fehlt er oder gehört er zu einem anderen Stand des Snapshots, wird er neu
+    aufgebaut. Kann die Indexdatei nicht geschrieben werden, bleibt der Index nur im Speicher.
+    */
+    private IntBuffer openIndex() throws IOException {
+        if (indexFile.exists()) {
+            try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+                if (channel.size() == INDEX_HEADER_SIZE + 4L * count) {
+                    MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    if (index.getInt() == INDEX_MAGIC && index.getLong() == snapshotFile.length()
+                            && index.getLong() == snapshotFile.lastModified() && index.getInt() == count) {
+                        return index.slice().asIntBuffer();
+                    }
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        IntBuffer built = buildIndex();
+        try {
+            AtomicFileWriter.writeBinary(indexFile, out -> {
+                DataOutputStream data = new DataOutputStream(out);
+                data.writeInt(INDEX_MAGIC);
+                data.writeLong(snapshotFile.length());
+                data.writeLong(snapshotFile.lastModified());
+                data.writeInt(count);
+                for (int i = 0; i < count; i++) {
+                    data.writeInt(built.get(i));
+                }
+                data.flush();
+            });
+        } catch (IOException e) {
+            e.printStackTrace(); // Ohne Indexdatei weiterarbeiten, beim nächsten Öffnen wird er erneut aufgebaut
+        }
+        System.out.println("Built record index for " + snapshotFile + " (" + count + " records) in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return built;
+    }
+
+    // Ermittelt die Positionen aller Datensätze über deren Längenpräfix, ohne sie zu dekodieren
+    private IntBuffer buildIndex() throws IOException {
+        IntBuffer index = IntBuffer.allocate(count);
+        int position = BinarySnapshot.HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            if (position + 4 > snapshot.limit()) {
+                throw new IOException("Truncated snapshot file: " + snapshotFile);
+            }
+            index.put(i, position);
+            position += 4 + snapshot.getInt(position);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.allesinordnungfx;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/*
+Die Klasse TokenIndex ist ein invertierter Index über die durchsuchbaren Felder eines Buchs
+(Titel, Vorname, Nachname, Genre, Erscheinungsjahr, ISBN).
+
+Jedes Feld wird in Wörter (Folgen aus Buchstaben und Ziffern, in Kleinbuchstaben) zerlegt. Für jedes Wort
+hält der Index die Ordnungsnummern der Bücher, in denen es vorkommt. Die Wörter liegen sortiert in einer
+TreeMap, sodass alle Wörter mit einem bestimmten Anfang ("tolk" -> "tolkien") über einen Teilbereich der Map
+gefunden werden, ohne die Bücher selbst anzusehen.
+*/
+public class TokenIndex implements CollectionIndex {
+
+    private final TreeMap<String, IntPostings> postings = new TreeMap<>(); // Wort -> Ordnungsnummern
+    private final List<String[]> tokensByOrdinal = new ArrayList<>(); // Eingetragene Wörter je Ordnungsnummer
+
+    @Override
+    public void rebuild(List<Book> books) {
+        postings.clear();
+        tokensByOrdinal.clear();
+        for (int i = 0; i < books.size(); i++) {
+            bookAdded(books.get(i), i);
+        }
+    }
+
+    @Override
+    public void bookAdded(Book book, int ordinal) {
+        String[] tokens = tokenize(book);
+        while (tokensByOrdinal.size() <= ordinal) {
+            tokensByOrdinal.add(null);
+        }
+        tokensByOrdinal.set(ordinal, tokens);
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, key -> new IntPostings()).add(ordinal);
+        }
+    }
+
+    @Override
+    public void bookRemoved(Book book, int ordinal) {
+        if (ordinal >= tokensByOrdinal.size()) return;
+        String[] tokens = tokensByOrdinal.set(ordinal, null);
+        if (tokens == null) return;
+        for (String token : tokens) {
+            IntPostings ordinals = postings.get(token);
+            if (ordinals != null && ordinals.remove(ordinal) && ordinals.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    /*
+    Liefert die Ordnungsnummern der Bücher, die für jedes Wort des Suchbegriffs ein Wort mit diesem Anfang
+    enthalten. Enthält der Suchbegriff keine Wörter, wird null zurückgegeben.
+    */
+    public BitSet find(String keyword) {
+        List<String> queryTokens = tokenize(keyword);
+        if (queryTokens.isEmpty()) {
+            return null;
+        }
+        BitSet result = null;
+        for (String queryToken : queryTokens) {
+            BitSet matches = new BitSet();
+            for (IntPostings ordinals : prefixRange(queryToken).values()) {
+                ordinals.addTo(matches);
+            }
+            if (result == null) {
+                result = matches;
+            } else {
+                result.and(matches); // Nur Bücher, die alle bisherigen Wörter enthalten
+            }
+            if (result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    /*
+    Schätzt ohne Schnittmengen, wie viele Bücher find() höchstens liefert: die kleinste Summe der
+    Postings-Listen über die Wörter des Suchbegriffs (-1, wenn der Suchbegriff keine Wörter enthält).
+    */
+    public int estimate(String keyword) {
+        int estimate = -1;
+        for (String queryToken : tokenize(keyword)) {
+            int count = 0;
+            for (IntPostings ordinals : prefixRange(queryToken).values()) {
+                count += ordinals.size();
+            }
+            estimate = estimate < 0 ? count : Math.min(estimate, count);
+        }
+        return estimate;
+    }
+
+    // Anzahl unterschiedlicher Wörter im Index
+    public int getTokenCount() {
+        return postings.size();
+    }
+
+    // Alle Wörter, die mit dem Präfix beginnen
+    private NavigableMap<String, IntPostings> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    // Zerlegt alle durchsuchbaren Felder eines Buchs in (unterschiedliche) Wörter
+    private static String[] tokenize(Book book) {
+        List<String> tokens = new ArrayList<>(8);
+        addDistinct(tokens, tokenize(book.searchKey(Book.SearchField.TITLE)));
+        addDistinct(tokens, tokenize(book.searchKey(Book.SearchField.FIRST_NAME)));
+        addDistinct(tokens, tokenize(book.searchKey(Book.SearchField.LAST_NAME)));
+        addDistinct(tokens, tokenize(book.searchKey(Book.SearchField.GENRE)));
+        addDistinct(tokens, List.of(book.searchKey(Book.SearchField.YEAR), book.searchKey(Book.SearchField.ISBN)));
+        return tokens.toArray(new String[0]);
+    }
+
+    private static void addDistinct(List<String> tokens, List<String> newTokens) {
+        for (String token : newTokens) {
+            if (!tokens.contains(token)) tokens.add(token);
+        }
+    }
+
+    // Zerlegt einen Text in Wörter aus Buchstaben und Ziffern (normalisiert wie die Suchschlüssel von Book)
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        String lower = Book.normalize(text);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.allesinordnungfx;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Die Klasse TransferProgress verfolgt den Fortschritt eines Imports oder Exports: Anzahl der verarbeiteten
+Zeilen (Bücher), die erwartete Gesamtzahl (falls bekannt oder geschätzt) und die Dauer, daraus Zeilen pro
+Sekunde und Restzeit. Sie wird von mehreren Threads gleichzeitig fortgeschrieben (z. B. beim Export mit
+einem Tabellenblatt je Sammlung) und von der Oberfläche gelesen.
+
+Über cancel() kann der Vorgang abgebrochen werden: Der nächste Aufruf von rowDone() wirft dann eine
+CancellationException, die der Import bzw. Export zum Aufräumen nutzt (übernommene Bücher entfernen,
+unvollständige Datei löschen).
+*/
+public class TransferProgress {
+
+    private static final long REPORT_INTERVAL_NANOS = 100_000_000L; // Listener höchstens alle 100 ms
+
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong total = new AtomicLong(-1); // -1: unbekannt
+    private final AtomicLong lastReport = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private volatile boolean cancelled;
+    private volatile String status = "";
+    private volatile Runnable listener;
+
+    // Zählt eine verarbeitete Zeile; wirft eine CancellationException, wenn abgebrochen wurde
+    public void rowDone() {
+        checkCancelled();
+        long done = rows.incrementAndGet();
+        if ((done & 1023) == 0) report(false);
+    }
+
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Transfer cancelled");
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    // Erwartete Anzahl der Zeilen (-1, wenn unbekannt)
+    public long getTotal() {
+        return total.get();
+    }
+
+    public void setTotal(long total) {
+        this.total.set(total);
+        report(false);
+    }
+
+    // Erhöht die erwartete Anzahl, z. B. sobald eine weitere Sammlung geladen ist
+    public void addToTotal(long rows) {
+        total.accumulateAndGet(rows, (current, added) -> Math.max(0, current) + added);
+        report(false);
+    }
+
+    // Aktueller Schritt, z. B. "Writing workbook" nach dem letzten Buch
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+        report(true);
+    }
+
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    public double getRowsPerSecond() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : rows.get() * 1_000_000_000.0 / elapsed;
+    }
+
+    // Geschätzte Restzeit in Sekunden (-1, wenn die Gesamtzahl oder die Geschwindigkeit noch unbekannt ist)
+    public long getEtaSeconds() {
+        long expected = total.get();
+        double rate = getRowsPerSecond();
+        if (expected < 0 || rate <= 0) return -1;
+        return (long) Math.ceil(Math.max(0, expected - rows.get()) / rate);
+    }
+
+    // Wird auf dem arbeitenden Thread aufgerufen, höchstens alle 100 ms
+    public void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    private void report(boolean force) {
+        Runnable current = listener;
+        if (current == null) return;
+        long now = System.nanoTime();
+        long last = lastReport.get();
+        if ((force || now - last >= REPORT_INTERVAL_NANOS) && lastReport.compareAndSet(last, now)) {
+            current.run();
+        }
+    }
+}
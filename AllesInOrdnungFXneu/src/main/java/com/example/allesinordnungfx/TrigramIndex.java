@@ -0,0 +1,157 @@
+package com.example.allesinordnungfx;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+Die Klasse TrigramIndex beantwortet Teilstring-Suchen ("tolk" findet "Tolkien", "978" findet ISBNs, die 978
+enthalten) exakt wie ein contains() über die durchsuchbaren Felder, ohne jedes Buch prüfen zu müssen.
+
+Für jedes Feld (Titel, Vorname, Nachname, Genre, Erscheinungsjahr, ISBN) werden alle Folgen aus drei
+Zeichen (Trigramme) des normalisierten Textes (Book.normalize(), z. B. "Straße" -> "strasse") eingetragen. Ein Buch kann den Suchbegriff nur enthalten,
+wenn es alle Trigramme des Suchbegriffs enthält; die Schnittmenge der Postings-Listen liefert daher die
+Kandidaten. Da die Trigramme aus verschiedenen Feldern stammen oder an anderer Stelle stehen können,
+werden die Kandidaten anschließend mit contains() auf den gespeicherten, normalisierten Feldern geprüft.
+Suchbegriffe mit weniger als drei Zeichen werden direkt über diese Felder geprüft.
+*/
+public class TrigramIndex implements CollectionIndex {
+
+    private static final int VERIFY_DIRECTLY = 64; // Ab so wenigen Kandidaten ist contains() günstiger als weiteres Schneiden
+
+    private final Map<Long, IntPostings> postings = new HashMap<>(); // Trigramm -> Ordnungsnummern
+    private final List<String[]> fieldsByOrdinal = new ArrayList<>(); // Normalisierte Felder je Ordnungsnummer
+
+    @Override
+    public void rebuild(List<Book> books) {
+        postings.clear();
+        fieldsByOrdinal.clear();
+        for (int i = 0; i < books.size(); i++) {
+            bookAdded(books.get(i), i);
+        }
+    }
+
+    @Override
+    public void bookAdded(Book book, int ordinal) {
+        String[] fields = searchableFields(book);
+        while (fieldsByOrdinal.size() <= ordinal) {
+            fieldsByOrdinal.add(null);
+        }
+        fieldsByOrdinal.set(ordinal, fields);
+        for (long trigram : trigramsOf(fields)) {
+            postings.computeIfAbsent(trigram, key -> new IntPostings()).add(ordinal);
+        }
+    }
+
+    @Override
+    public void bookRemoved(Book book, int ordinal) {
+        if (ordinal >= fieldsByOrdinal.size()) return;
+        String[] fields = fieldsByOrdinal.set(ordinal, null); // Eingetragener Stand, nicht der aktuelle des Buchs
+        if (fields == null) return;
+        for (long trigram : trigramsOf(fields)) {
+            IntPostings ordinals = postings.get(trigram);
+            if (ordinals != null && ordinals.remove(ordinal) && ordinals.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    /*
+    Liefert die Ordnungsnummern aller Bücher, bei denen ein Feld den Suchbegriff enthält
+    (ohne Beachtung der Groß-/Kleinschreibung, Umlaute und Akzente).
+    */
+    public BitSet find(String keyword) {
+        String lowerKeyword = Book.normalize(keyword);
+        BitSet candidates;
+        if (lowerKeyword.length() < 3) {
+            candidates = new BitSet(fieldsByOrdinal.size()); // Zu kurz für Trigramme: alle Bücher prüfen
+            candidates.set(0, fieldsByOrdinal.size());
+        } else {
+            // Postings-Listen der Trigramme, kürzeste zuerst
+            List<IntPostings> lists = new ArrayList<>();
+            for (int i = 0; i + 3 <= lowerKeyword.length(); i++) {
+                IntPostings ordinals = postings.get(trigram(lowerKeyword, i));
+                if (ordinals == null) {
+                    return new BitSet(); // Ein Trigramm kommt in keinem Buch vor
+                }
+                lists.add(ordinals);
+            }
+            lists.sort(Comparator.comparingInt(IntPostings::size));
+            candidates = new BitSet();
+            lists.get(0).addTo(candidates);
+            for (int i = 1; i < lists.size() && candidates.cardinality() > VERIFY_DIRECTLY; i++) {
+                BitSet matches = new BitSet();
+                lists.get(i).addTo(matches);
+                candidates.and(matches);
+            }
+        }
+
+        // Prüfschritt: Nur Kandidaten behalten, bei denen ein Feld den Suchbegriff tatsächlich enthält
+        for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+            if (!containsKeyword(fieldsByOrdinal.get(ordinal), lowerKeyword)) {
+                candidates.clear(ordinal);
+            }
+        }
+        return candidates;
+    }
+
+    // Schätzt, wie viele Kandidaten find() prüfen muss (Länge der kürzesten Postings-Liste)
+    public int estimate(String keyword) {
+        String lowerKeyword = Book.normalize(keyword);
+        if (lowerKeyword.length() < 3) {
+            return fieldsByOrdinal.size();
+        }
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i + 3 <= lowerKeyword.length(); i++) {
+            IntPostings ordinals = postings.get(trigram(lowerKeyword, i));
+            estimate = Math.min(estimate, ordinals == null ? 0 : ordinals.size());
+        }
+        return estimate;
+    }
+
+    // Anzahl unterschiedlicher Trigramme im Index
+    public int getTrigramCount() {
+        return postings.size();
+    }
+
+    private static boolean containsKeyword(String[] fields, String lowerKeyword) {
+        if (fields == null) return false; // Entferntes Buch
+        for (String field : fields) {
+            if (field.contains(lowerKeyword)) return true;
+        }
+        return false;
+    }
+
+    // Normalisierte Inhalte der Felder, die auch search() bisher durchsucht hat (die Suchschlüssel des Buchs)
+    private static String[] searchableFields(Book book) {
+        return new String[]{
+                book.searchKey(Book.SearchField.TITLE),
+                book.searchKey(Book.SearchField.FIRST_NAME),
+                book.searchKey(Book.SearchField.LAST_NAME),
+                book.searchKey(Book.SearchField.GENRE),
+                book.searchKey(Book.SearchField.YEAR),
+                book.searchKey(Book.SearchField.ISBN)
+        };
+    }
+
+    // Unterschiedliche Trigramme aller Felder (ein Trigramm überschreitet nie eine Feldgrenze)
+    private static Set<Long> trigramsOf(String[] fields) {
+        Set<Long> trigrams = new HashSet<>();
+        for (String field : fields) {
+            for (int i = 0; i + 3 <= field.length(); i++) {
+                trigrams.add(trigram(field, i));
+            }
+        }
+        return trigrams;
+    }
+
+    // Packt drei Zeichen in einen long-Schlüssel
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
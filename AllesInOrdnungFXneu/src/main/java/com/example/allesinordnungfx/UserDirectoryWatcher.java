@@ -0,0 +1,141 @@
+package com.example.allesinordnungfx;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+Die Klasse UserDirectoryWatcher beobachtet das Benutzerverzeichnis mit einem WatchService und meldet,
+welche Sammlungen von außen verändert wurden (z. B. durch einen Sync-Job oder eine zweite Instanz der Anwendung).
+
+- Ereignisse werden gesammelt, bis debounceMillis lang keine weiteren Ereignisse eintreffen (Debouncing).
+  Ein Schreibvorgang, der mehrere Ereignisse auslöst (Temp-Datei, Umbenennen, Journal), wird so nur einmal gemeldet.
+- Aus "<Sammlung>.yaml" und "<Sammlung>.journal" wird der Name der Sammlung abgeleitet,
+  "collections.yaml" wird gesondert gemeldet. Temporäre Dateien und Snapshots werden ignoriert.
+- "books.db" (PagedCollectionStore) enthält Sammlungsnamen und alle Sammlungen; Änderungen daran werden wie
+  Änderungen an "collections.yaml" gemeldet. Welche Sammlungen betroffen sind, ermittelt der CollectionManager
+  über CollectionStore.reloadExternalChanges().
+- Die Meldungen erfolgen auf dem Thread des Watchers. Ob eine Änderung von der Anwendung selbst stammt,
+  entscheidet der CollectionManager.
+*/
+public class UserDirectoryWatcher {
+
+    // Empfänger der gesammelten Änderungen
+    public interface Listener {
+        void filesChanged(Set<String> changedCollections, boolean collectionNamesChanged);
+    }
+
+    private static final String COLLECTION_NAMES_FILE = "collections.yaml";
+
+    private final Path directory;
+    private final long debounceMillis;
+    private final Listener listener;
+    private WatchService watchService;
+    private Thread thread;
+
+    public UserDirectoryWatcher(String directory, long debounceMillis, Listener listener) {
+        this.directory = new File(directory).toPath().toAbsolutePath();
+        this.debounceMillis = debounceMillis;
+        this.listener = listener;
+    }
+
+    // Startet die Beobachtung auf einem eigenen Hintergrund-Thread
+    public synchronized void start() throws IOException {
+        if (thread != null) return;
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        thread = new Thread(this::watch, "user-directory-watcher");
+        thread.setDaemon(true); // Verhindert nicht das Beenden der Anwendung
+        thread.start();
+        System.out.println("Watching user directory: " + directory);
+    }
+
+    // Beendet die Beobachtung
+    public synchronized void stop() {
+        if (watchService == null) return;
+        try {
+            watchService.close(); // Weckt den wartenden Thread auf (ClosedWatchServiceException)
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        watchService = null;
+        thread = null;
+    }
+
+    private void watch() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        try {
+            while (true) {
+                Set<String> changedCollections = new LinkedHashSet<>();
+                boolean[] namesChanged = {false};
+
+                // Auf das erste Ereignis warten, danach weitere sammeln, bis es ruhig bleibt
+                WatchKey key = service.take();
+                while (key != null) {
+                    collect(key, changedCollections, namesChanged);
+                    if (!key.reset()) {
+                        System.err.println("User directory is no longer accessible: " + directory);
+                        return;
+                    }
+                    key = service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                }
+
+                if (!changedCollections.isEmpty() || namesChanged[0]) {
+                    try {
+                        listener.filesChanged(changedCollections, namesChanged[0]);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace(); // Ein Fehler im Listener soll den Watcher nicht beenden
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // stop() wurde aufgerufen
+        }
+    }
+
+    // Ordnet die Ereignisse eines WatchKeys den betroffenen Sammlungen zu
+    private void collect(WatchKey key, Set<String> changedCollections, boolean[] namesChanged) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Ereignisse gingen verloren: Alle Sammlungen als geändert melden
+                namesChanged[0] = true;
+                File[] yamlFiles = directory.toFile().listFiles((dir, name) -> name.endsWith(".yaml"));
+                if (yamlFiles != null) {
+                    for (File file : yamlFiles) {
+                        addCollection(file.getName(), changedCollections, namesChanged);
+                    }
+                }
+                continue;
+            }
+            addCollection(event.context().toString(), changedCollections, namesChanged);
+        }
+    }
+
+    private void addCollection(String fileName, Set<String> changedCollections, boolean[] namesChanged) {
+        if (fileName.startsWith(".")) {
+            return; // Temporäre Dateien des AtomicFileWriter
+        }
+        if (fileName.equals(COLLECTION_NAMES_FILE) || fileName.equals(PagedCollectionStore.FILE_NAME)) {
+            namesChanged[0] = true;
+        } else if (fileName.endsWith(".yaml")) {
+            changedCollections.add(fileName.substring(0, fileName.length() - ".yaml".length()));
+        } else if (fileName.endsWith(".journal")) {
+            changedCollections.add(fileName.substring(0, fileName.length() - ".journal".length()));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.allesinordnungfx;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JRuntimeException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/*
+Die Klasse XlsxBookReader liest Bücher aus dem ersten Tabellenblatt einer Xlsx-Datei, ohne die Arbeitsmappe
+als Ganzes in den Speicher zu laden. Das Tabellenblatt wird mit einem SAX-Parser Zeile für Zeile gelesen
+(XSSFSheetXMLHandler von POI), die Texte kommen aus der Tabelle der gemeinsamen Strings. Jede Zeile wird sofort
+als vollständiges Book an einen Consumer übergeben, z. B. direkt an die Collection mit ihrem DuplicateIndex.
+
+Die Spalten werden über die Kopfzeile zugeordnet (Überschriften wie beim Export, siehe
+FileHandler.COLUMN_HEADERS), sodass auch umsortierte Spalten gelesen werden; ohne erkennbare Kopfzeile gilt
+die Reihenfolge des Exports.
+Leere Zeilen werden übersprungen.
+*/
+public class XlsxBookReader {
+
+    private static final int TITLE = 0, FIRST_NAME = 1, LAST_NAME = 2, GENRE = 3, YEAR = 4, ISBN = 5,
+            READ = 6, RATING = 7, COMMENT = 8;
+
+    // Liest alle Bücher der Datei und übergibt sie nacheinander an den Consumer; gibt deren Anzahl zurück
+    public int read(Path file, Consumer<Book> consumer) throws IOException {
+        return read(file, consumer, new TransferProgress());
+    }
+
+    // Wie oben; meldet jede Zeile an progress und nimmt die Größe des Blatts (<dimension>) als erwartete Anzahl
+    public int read(Path file, Consumer<Book> consumer, TransferProgress progress) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) return 0;
+            RowHandler rows = new RowHandler(consumer, progress);
+            try (InputStream sheet = sheets.next()) { // Nur das erste Tabellenblatt, wie bisher
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), strings, rows,
+                        new RawNumberFormatter(), false) {
+                    @Override
+                    public void startElement(String uri, String localName, String qName, Attributes attributes)
+                            throws SAXException {
+                        if ("dimension".equals(localName)) {
+                            expectRows(attributes.getValue("ref"), progress);
+                        }
+                        super.startElement(uri, localName, qName, attributes);
+                    }
+                });
+                parser.parse(new InputSource(sheet));
+            }
+            return rows.count;
+        } catch (OpenXML4JException | OpenXML4JRuntimeException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Invalid xlsx file: " + file, e);
+        }
+    }
+
+    // Bereich wie "A1:I300001": alle Zeilen ab der zweiten (Kopfzeile) gelten als erwartete Bücher
+    private static void expectRows(String ref, TransferProgress progress) {
+        if (ref == null || !ref.contains(":")) return; // Fehlt oder nur eine Zelle, z. B. bei leerem Blatt
+        try {
+            int lastRow = CellRangeAddress.valueOf(ref).getLastRow();
+            if (lastRow > 0) progress.setTotal(lastRow);
+        } catch (IllegalArgumentException e) {
+            // Ungültige Angabe: Gesamtzahl bleibt unbekannt
+        }
+    }
+
+    // Sammelt die Zellen einer Zeile und erzeugt daraus am Zeilenende ein Buch
+    private static final class RowHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Consumer<Book> consumer;
+        private final TransferProgress progress;
+        private int[] fieldByColumn = {TITLE, FIRST_NAME, LAST_NAME, GENRE, YEAR, ISBN, READ, RATING, COMMENT};
+        private final String[] values = new String[FileHandler.COLUMN_HEADERS.length];
+        private boolean firstRow = true;
+        private boolean empty;
+        private int nextColumn;
+        int count;
+
+        RowHandler(Consumer<Book> consumer, TransferProgress progress) {
+            this.consumer = consumer;
+            this.progress = progress;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(values, null);
+            empty = true;
+            nextColumn = 0;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference == null ? nextColumn : new CellReference(cellReference).getCol();
+            nextColumn = column + 1;
+            if (column >= fieldByColumn.length || fieldByColumn[column] < 0) return;
+            values[fieldByColumn[column]] = formattedValue;
+            if (formattedValue != null && !formattedValue.isBlank()) empty = false;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (firstRow) {
+                firstRow = false;
+                if (readHeader()) return; // Kopfzeile überspringen
+            }
+            if (empty) return;
+            progress.rowDone();
+            Book book = new Book(text(values[TITLE]), text(values[FIRST_NAME]), text(values[LAST_NAME]),
+                    text(values[GENRE]), (int) number(values[YEAR]), number(values[ISBN]));
+            book.setRead(bool(values[READ]));
+            book.setRating(text(values[RATING]));
+            book.setComment(text(values[COMMENT]));
+            consumer.accept(book);
+            count++;
+        }
+
+        // Ordnet die Spalten anhand der Überschriften zu; false, wenn die erste Zeile keine Kopfzeile ist
+        private boolean readHeader() {
+            int[] mapping = new int[values.length];
+            Arrays.fill(mapping, -1);
+            boolean found = false;
+            for (int column = 0; column < values.length; column++) {
+                String header = values[column]; // Bis hierher gilt die Reihenfolge des Exports
+                for (int field = 0; field < FileHandler.COLUMN_HEADERS.length && header != null; field++) {
+                    if (FileHandler.COLUMN_HEADERS[field].equalsIgnoreCase(header.trim())) {
+                        mapping[column] = field;
+                        found = true;
+                    }
+                }
+            }
+            if (found) fieldByColumn = mapping;
+            return found;
+        }
+    }
+
+    // Liefert Zahlen ungerundet und ohne Exponent (z. B. ISBNs), statt sie wie Excel anzuzeigen
+    private static final class RawNumberFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private static String text(String value) {
+        return value == null ? "" : value;
+    }
+
+    // Ganze Zahl aus einer Zelle; Text wie "978-3-16-148410-0" wird auf seine Ziffern reduziert
+    private static long number(String value) {
+        if (value == null || value.isBlank()) return 0;
+        try {
+            return new BigDecimal(value.trim()).longValue();
+        } catch (NumberFormatException e) {
+            String digits = value.replaceAll("\\D", "");
+            return digits.isEmpty() || digits.length() > 18 ? 0 : Long.parseLong(digits);
+        }
+    }
+
+    private static boolean bool(String value) {
+        if (value == null) return false;
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true", "1", "yes", "ja", "x" -> true;
+            default -> false;
+        };
+    }
+}
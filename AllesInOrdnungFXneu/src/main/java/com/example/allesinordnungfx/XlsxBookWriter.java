@@ -0,0 +1,158 @@
+package com.example.allesinordnungfx;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+Die Klasse XlsxBookWriter schreibt Bücher zeilenweise in eine Xlsx-Datei, ohne die ganze Arbeitsmappe im
+Speicher aufzubauen. Sie verwendet den SXSSFWorkbook von POI: Nur die letzten rowWindow Zeilen bleiben im
+Speicher, ältere Zeilen werden in eine temporäre Datei ausgelagert und beim Speichern in die Xlsx-Datei
+übernommen. Der Speicherbedarf bleibt so unabhängig von der Anzahl der exportierten Bücher.
+
+Die Fenstergröße und die Komprimierung der temporären Dateien (spart Plattenplatz, kostet etwas Zeit)
+können über die System-Properties "allesinordnung.xlsxRowWindow" und "allesinordnung.xlsxCompressTempFiles"
+vorgegeben werden. Nach close() sind die temporären Dateien gelöscht. Eine Arbeitsmappe kann mehrere
+Tabellenblätter enthalten (z. B. eines je Sammlung). POI ist nicht thread-sicher: Alle Blätter einer
+Arbeitsmappe müssen vom selben Thread geschrieben werden. Parallel vorbereiten lassen sich nur die Zeilenwerte
+(siehe toRow()).
+*/
+public class XlsxBookWriter implements Closeable {
+
+    public static final String ROW_WINDOW_PROPERTY = "allesinordnung.xlsxRowWindow";
+    public static final String COMPRESS_PROPERTY = "allesinordnung.xlsxCompressTempFiles";
+    public static final int DEFAULT_ROW_WINDOW = 100;
+    private static final long EXACT_DOUBLE_LIMIT = 1L << 53; // Größte Zahl, bis zu der double jede ganze Zahl darstellt
+
+    private final SXSSFWorkbook workbook;
+    private SheetWriter sheet; // Aktuelles Blatt für writeBook()
+
+    // Schreibt die Zeilen eines Tabellenblatts (nur von dem Thread, der die ganze Arbeitsmappe schreibt)
+    public static final class SheetWriter {
+        private final Sheet sheet;
+        private int rowNumber = 1; // Start der Buchdaten bei Zeile 1
+
+        private SheetWriter(Sheet sheet) {
+            this.sheet = sheet;
+            Row headerRow = sheet.createRow(0); // Erste Zeile für die Überschriften
+            for (int i = 0; i < FileHandler.COLUMN_HEADERS.length; i++) {
+                headerRow.createCell(i).setCellValue(FileHandler.COLUMN_HEADERS[i]);
+            }
+        }
+
+        // Hängt ein Buch als neue Zeile an
+        public void writeBook(Book book) {
+            writeRow(toRow(book));
+        }
+
+        // Hängt mit toRow() vorbereitete Zeilenwerte als neue Zeile an
+        public void writeRow(Object[] values) {
+            Row row = sheet.createRow(rowNumber++);
+            for (int i = 0; i < values.length; i++) {
+                Cell cell = row.createCell(i);
+                switch (values[i]) {
+                    case null -> cell.setBlank();
+                    case String text -> cell.setCellValue(text);
+                    // Größere Werte (z. B. ISBNs) würden als double gerundet und werden daher als Text geschrieben
+                    case Long value when value > EXACT_DOUBLE_LIMIT || value < -EXACT_DOUBLE_LIMIT -> cell.setCellValue(value.toString());
+                    case Number number -> cell.setCellValue(number.doubleValue());
+                    case Boolean value -> cell.setCellValue(value);
+                    default -> cell.setCellValue(String.valueOf(values[i]));
+                }
+            }
+        }
+
+        public void writeBooks(Iterable<Book> books) {
+            for (Book book : books) {
+                writeBook(book);
+            }
+        }
+
+        public String getName() {
+            return sheet.getSheetName();
+        }
+    }
+
+    // Zeilenwerte eines Buchs in der Reihenfolge von FileHandler.COLUMN_HEADERS; braucht keinen Zugriff auf POI
+    // und kann daher auf beliebigen Threads vorbereitet werden
+    public static Object[] toRow(Book book) {
+        return new Object[]{book.getTitle(), book.getFirstName(), book.getLastName(), book.getGenre(),
+                book.getPublicationYear(), book.getIsbn(), book.isRead(), book.getRating(), book.getComment()};
+    }
+
+    // Writer mit den Einstellungen aus den System-Properties
+    public XlsxBookWriter() {
+        this(Integer.getInteger(ROW_WINDOW_PROPERTY, DEFAULT_ROW_WINDOW), Boolean.getBoolean(COMPRESS_PROPERTY));
+    }
+
+    public XlsxBookWriter(int rowWindow, boolean compressTempFiles) {
+        workbook = new SXSSFWorkbook(null, Math.max(1, rowWindow), compressTempFiles);
+    }
+
+    /*
+    Legt ein neues Tabellenblatt mit Kopfzeile an. Der Name wird an die Regeln von Excel angepasst
+    (höchstens 31 Zeichen, keine Zeichen wie / oder :) und bei Bedarf durch " (2)", " (3)", ... eindeutig gemacht.
+    Wie alle Schreibzugriffe auf die Arbeitsmappe nur von einem Thread aus aufrufen.
+    */
+    public SheetWriter createSheet(String name) {
+        String safeName = WorkbookUtil.createSafeSheetName(name);
+        String uniqueName = safeName;
+        for (int i = 2; workbook.getSheet(uniqueName) != null; i++) {
+            String suffix = " (" + i + ")";
+            uniqueName = safeName.substring(0, Math.min(safeName.length(), 31 - suffix.length())) + suffix;
+        }
+        return new SheetWriter(workbook.createSheet(uniqueName));
+    }
+
+    // Beginnt ein neues Tabellenblatt mit Kopfzeile; die folgenden Bücher werden dort eingetragen
+    public void startSheet(String name) {
+        sheet = createSheet(name);
+    }
+
+    // Hängt ein Buch als neue Zeile an (ohne vorheriges startSheet() im Blatt "Books")
+    public void writeBook(Book book) {
+        if (sheet == null) {
+            startSheet("Books");
+        }
+        sheet.writeBook(book);
+    }
+
+    public void writeBooks(Iterable<Book> books) {
+        for (Book book : books) {
+            writeBook(book);
+        }
+    }
+
+    // Schreibt die Arbeitsmappe in die Datei (ein leeres Blatt "Books", wenn kein Buch geschrieben wurde).
+    // Schlägt das Schreiben fehl, wird die unvollständige Datei gelöscht.
+    public void save(Path file) throws IOException {
+        if (workbook.getNumberOfSheets() == 0) {
+            startSheet("Books");
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024)) {
+            workbook.write(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    // Löscht die temporären Dateien und gibt die Arbeitsmappe frei
+    @Override
+    public void close() throws IOException {
+        try {
+            workbook.dispose();
+        } finally {
+            workbook.close();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.allesinordnungfx;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/*
+Die Klasse YamlBookStreamReader liest Bücher aus einer YAML-Datei, ohne vorher den kompletten
+Objektgraphen von SnakeYAML aufzubauen. Stattdessen werden die Parser-Events (Mapping-Start, Scalar, ...)
+einzeln verarbeitet und jedes Buch wird sofort an einen Consumer weitergegeben, sobald sein Mapping
+vollständig gelesen ist. Damit kann die Tabelle bereits die ersten Bücher anzeigen, während der Rest
+der Datei noch gelesen wird, und der Speicherbedarf bleibt beim Laden großer Dateien gering.
+
+Unterstützte Formate:
+- Sammlungsdateien (CollectionWrapper): "books:" gefolgt von einer Liste von Buch-Mappings
+- Exportdateien: eine Liste von Buch-Mappings direkt auf oberster Ebene
+*/
+public class YamlBookStreamReader {
+
+    // Gleiche Schreibweisen für null wie im YAML-Standard (nur für nicht in Anführungszeichen gesetzte Werte)
+    private static final Pattern NULL_VALUE = Pattern.compile("^(?:~|null|Null|NULL)?$");
+
+    /*
+    Höchstzahl der Zeichen (Code Points) einer Datei. SnakeYAML bricht standardmäßig nach 3 MB ab, um beim
+    Aufbau des Objektgraphen vor riesigen oder bösartigen Dateien zu schützen; große Sammlungen würden dabei
+    abgeschnitten. Da hier nie das ganze Dokument im Speicher liegt, darf die Grenze viel höher sein: 512 Mio.
+    Zeichen reichen für mehrere Millionen Bücher, eine endlose oder fehlerhafte Eingabe wird trotzdem abgebrochen.
+    */
+    static final int MAX_CODE_POINTS = 512 * 1024 * 1024;
+
+    private final Iterator<Event> events;
+
+    public YamlBookStreamReader(Reader reader) {
+        LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(MAX_CODE_POINTS);
+        this.events = new Yaml(options).parse(reader).iterator(); // Events werden erst beim Iterieren geparst
+    }
+
+    /*
+    Liest alle Bücher und übergibt sie einzeln an den Consumer.
+    Gibt die Anzahl der gelesenen Bücher zurück. Fehler in der YAML-Syntax werden als
+    org.yaml.snakeyaml.error.YAMLException weitergegeben.
+    */
+    public int readBooks(Consumer<Book> consumer) {
+        int count = 0;
+        int depth = 0; // Verschachtelungstiefe außerhalb von Buchlisten
+        String lastKey = null; // Letzter Schlüssel im Wurzel-Mapping
+        boolean expectKey = false;
+        while (events.hasNext()) {
+            Event event = events.next();
+            if (event.is(Event.ID.SequenceStart)) {
+                // Buchliste: entweder direkt auf oberster Ebene oder als Wert des Schlüssels "books"
+                if (depth == 0 || (depth == 1 && "books".equals(lastKey))) {
+                    count += readBookSequence(consumer);
+                    expectKey = true;
+                } else {
+                    skipNode(); // Andere Listen werden übersprungen
+                    expectKey = depth == 1;
+                }
+            } else if (event.is(Event.ID.MappingStart)) {
+                if (depth == 0) {
+                    depth = 1;
+                    expectKey = true;
+                } else {
+                    skipNode();
+                    expectKey = true;
+                }
+            } else if (event.is(Event.ID.MappingEnd)) {
+                depth = 0;
+            } else if (event.is(Event.ID.Scalar) && depth == 1) {
+                if (expectKey) {
+                    lastKey = ((ScalarEvent) event).getValue();
+                }
+                expectKey = !expectKey;
+            }
+        }
+        return count;
+    }
+
+    // Liest die Elemente einer Buchliste bis zum Ende der Sequenz
+    private int readBookSequence(Consumer<Book> consumer) {
+        int count = 0;
+        while (events.hasNext()) {
+            Event event = events.next();
+            if (event.is(Event.ID.SequenceEnd)) {
+                break;
+            }
+            if (event.is(Event.ID.MappingStart)) {
+                consumer.accept(readBook());
+                count++;
+            } else if (event.is(Event.ID.SequenceStart)) {
+                skipNode(); // Unerwartete verschachtelte Liste überspringen
+            }
+        }
+        return count;
+    }
+
+    // Liest ein Buch-Mapping (Schlüssel/Wert-Paare) bis zum Mapping-Ende
+    private Book readBook() {
+        Book book = new Book();
+        String key = null;
+        while (events.hasNext()) {
+            Event event = events.next();
+            if (event.is(Event.ID.MappingEnd)) {
+                break;
+            }
+            if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+                skipNode(); // Verschachtelte Werte kommen in Büchern nicht vor
+                key = null;
+                continue;
+            }
+            if (!event.is(Event.ID.Scalar)) {
+                continue;
+            }
+            ScalarEvent scalar = (ScalarEvent) event;
+            if (key == null) {
+                key = scalar.getValue();
+            } else {
+                setProperty(book, key, scalar);
+                key = null;
+            }
+        }
+        return book;
+    }
+
+    // Überträgt einen einzelnen Wert in das passende Feld des Buchs
+    private static void setProperty(Book book, String key, ScalarEvent scalar) {
+        String value = scalar.isPlain() && NULL_VALUE.matcher(scalar.getValue()).matches() ? null : scalar.getValue();
+        try {
+            switch (key) {
+                case "title" -> book.setTitle(value);
+                case "firstName" -> book.setFirstName(value);
+                case "lastName" -> book.setLastName(value);
+                case "genre" -> book.setGenre(value);
+                case "publicationYear" -> book.setPublicationYear(value == null ? 0 : Integer.parseInt(value.trim()));
+                case "isbn" -> book.setIsbn(value == null ? 0 : Long.parseLong(value.trim()));
+                case "read" -> book.setRead(Boolean.parseBoolean(value));
+                case "rating" -> book.setRating(value);
+                case "comment" -> book.setComment(value);
+                default -> System.err.println("Ignoring unknown book property: " + key);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for '" + key + "': " + value);
+        }
+    }
+
+    // Überspringt einen kompletten (verschachtelten) Knoten, dessen Start-Event bereits gelesen wurde
+    private void skipNode() {
+        int depth = 1;
+        while (depth > 0 && events.hasNext()) {
+            Event event = events.next();
+            if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+                depth++;
+            } else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+                depth--;
+            }
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.allesinordnungfx;
+
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/*
+Die Klasse YamlCollectionStore speichert jede Sammlung in einer eigenen YAML-Datei "<Sammlung>.yaml"
+im Benutzerverzeichnis, die Namen aller Sammlungen in "collections.yaml".
+
+Neben der YAML-Datei liegen:
+- "<Sammlung>.journal": Einzeländerungen seit dem letzten vollständigen Speichern (CollectionJournal)
+- "<Sammlung>.snapshot": Binärkopie der YAML-Datei zum schnelleren Laden (BinarySnapshot)
+- "<Sammlung>.index": Position jedes Datensatzes im Snapshot für das seitenweise Lesen (SnapshotBookSource)
+*/
+public class YamlCollectionStore implements CollectionStore {
+
+    private static final String COLLECTION_NAMES_FILE = "collections.yaml";
+
+    private final String userDirectoryPath;
+    private final SaveScheduler saveScheduler; // Für das Erzeugen fehlender Snapshots im Hintergrund
+    private final Map<String, CollectionJournal> journals = new ConcurrentHashMap<>(); // Änderungsjournale je Sammlung
+
+    public YamlCollectionStore(String userDirectoryPath, SaveScheduler saveScheduler) {
+        this.userDirectoryPath = userDirectoryPath;
+        this.saveScheduler = saveScheduler;
+    }
+
+    /*
+    Methode zum Laden der Sammlungsnamen aus einer YAML-Datei.
+    Ein Yaml-Objekt aus der SnakeYAML-Bibliothek wird erstellt, mit einem Konstruktor für die Klasse
+    CollectionsWrapper, die die Struktur der YAML-Datei beschreibt. Falls die Datei nicht vorhanden ist
+    oder keine Liste enthält, wird null zurückgegeben.
+    */
+    @Override
+    public List<String> loadCollectionNames() throws IOException {
+        File file = getCollectionNamesFile();
+        if (!file.exists()) {
+            return null; // Wenn die Datei fehlt, gibt es nichts zu laden
+        }
+        Yaml yaml = new Yaml(new Constructor(CollectionManager.CollectionsWrapper.class));
+        try (FileReader reader = new FileReader(file)) {
+            CollectionManager.CollectionsWrapper wrapper = yaml.load(reader);
+            if (wrapper == null || wrapper.getCollections() == null) {
+                return null;
+            }
+            System.out.println("Loaded collection names from YAML in " + file);
+            return wrapper.getCollections();
+        }
+    }
+
+    /*
+    Speichert die Sammlungsnamen in einer CollectionsWrapper-Instanz. Der AtomicFileWriter schreibt die Daten
+    zuerst in eine temporäre Datei und ersetzt die bestehende Datei erst danach atomar.
+    */
+    @Override
+    public void saveCollectionNames(List<String> collectionNames) throws IOException {
+        File file = getCollectionNamesFile();
+        Yaml yaml = new Yaml();
+        CollectionManager.CollectionsWrapper wrapper = new CollectionManager.CollectionsWrapper();
+        wrapper.setCollections(collectionNames);
+        AtomicFileWriter.write(file, writer -> yaml.dump(wrapper, writer)); //YAML-Datei schreiben
+        System.out.println("Saved collection names to YAML: " + file);
+    }
+
+    @Override
+    public File getCollectionNamesFile() {
+        return new File(userDirectoryPath, COLLECTION_NAMES_FILE);
+    }
+
+    @Override
+    public boolean exists(String collectionName) {
+        return getYamlFile(collectionName).exists();
+    }
+
+    /*
+    Lädt die Basisdatei der Sammlung und wendet anschließend die Einträge des Änderungsjournals an.
+    Die Änderungen aus dem Journal sind nur in der zurückgegebenen Collection enthalten, nicht im Consumer.
+    */
+    @Override
+    public Collection loadCollection(String collectionName, Consumer<Book> onBookLoaded) {
+        Collection collection = loadBaseCollection(collectionName, onBookLoaded);
+        int replayed = getJournal(collectionName).replay(collection); // Änderungen seit der letzten Kompaktierung
+        if (replayed > 0) {
+            System.out.println("Replayed " + replayed + " journal records for collection '" + collectionName + "'");
+        }
+        return collection;
+    }
+
+    /*
+    Lädt nur die Basisdatei einer Sammlung, ohne das Journal anzuwenden.
+    Passt der Binär-Snapshot zur YAML-Datei, wird er anstelle der YAML-Datei gelesen. Andernfalls wird die
+    YAML-Datei mit dem YamlBookStreamReader ereignisbasiert gelesen und der Snapshot im Hintergrund neu erzeugt,
+    damit das nächste Laden schneller ist.
+
+    Ist die YAML-Datei nicht lesbar oder fehlerhaft (z. B. abgeschnitten), wird eine UncheckedIOException bzw.
+    YAMLException geworfen statt der bis dahin gelesenen Bücher: Eine unvollständige Sammlung würde sonst bearbeitbar angezeigt
+    und beim nächsten Speichern über die Datei geschrieben. In diesem Fall wird auch kein Snapshot erzeugt.
+    */
+    private Collection loadBaseCollection(String collectionName, Consumer<Book> onBookLoaded) {
+        File file = getYamlFile(collectionName);
+
+        if (!file.exists()) {
+            return new Collection(collectionName); // Leere Collection zurückgeben
+        }
+
+        List<Book> books = new ArrayList<>();
+        File snapshotFile = getSnapshotFile(collectionName);
+        if (BinarySnapshot.isUpToDate(snapshotFile, file)) {
+            try {
+                // Erst vollständig lesen, damit bei einem beschädigten Snapshot noch nichts weitergegeben wurde
+                BinarySnapshot.read(snapshotFile, books::add);
+                if (onBookLoaded != null) {
+                    books.forEach(onBookLoaded);
+                }
+                System.out.println("Loaded books for collection '" + collectionName + "' from snapshot " + snapshotFile);
+                Collection collection = new Collection(collectionName);
+                collection.setBooks(books);
+                return collection;
+            } catch (IOException e) {
+                e.printStackTrace(); // Beschädigter Snapshot: Auf die YAML-Datei zurückfallen
+                books.clear();
+            }
+        }
+
+        long yamlLength = file.length();
+        long yamlModified = file.lastModified();
+        try (FileReader reader = new FileReader(file)) {
+            new YamlBookStreamReader(reader).readBooks(book -> {
+                books.add(book);
+                if (onBookLoaded != null) {
+                    onBookLoaded.accept(book);
+                }
+            });
+            System.out.println("Loaded books for collection '" + collectionName + "' from YAML in " + file);
+            scheduleSnapshot(collectionName, books, yamlLength, yamlModified);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read collection '" + collectionName + "' from " + file, e);
+        } catch (YAMLException e) {
+            throw new YAMLException("Invalid YAML in collection '" + collectionName + "' (" + file + ")", e);
+        }
+        Collection collection = new Collection(collectionName);
+        collection.setBooks(books);
+        return collection;
+    }
+
+    /*
+    Plant den Snapshot für eine gerade aus YAML gelesene Sammlung. Kodiert wird erst auf dem Thread des
+    SaveSchedulers direkt in die temporäre Datei, damit beim Laden keine zweite Kopie der Sammlung im Speicher
+    entsteht. Geschrieben wird nur, wenn die YAML-Datei seitdem nicht neu geschrieben wurde und das Journal
+    keine neuen Einträge hat; andernfalls können die Bücher inzwischen bearbeitet worden sein, und der
+    Snapshot entsteht beim nächsten Speichern.
+    */
+    private void scheduleSnapshot(String collectionName, List<Book> books, long yamlLength, long yamlModified) {
+        int journalMark = getJournal(collectionName).getRecordCount();
+        saveScheduler.schedule(collectionName + ".snapshot", batch -> {
+            File yamlFile = getYamlFile(collectionName);
+            if (yamlFile.length() == yamlLength && yamlFile.lastModified() == yamlModified
+                    && getJournal(collectionName).getRecordCount() == journalMark) {
+                batch.stageBinary(getSnapshotFile(collectionName), out -> BinarySnapshot.write(out, books, yamlLength), null);
+            }
+        });
+    }
+
+    /*
+    Der zurückgegebene Auftrag hält den aktuellen Stand des Journals fest. Beim Ausführen schreibt yaml.dump()
+    die Bücher (verpackt in einem CollectionWrapper) in eine temporäre Datei des AtomicFileWriter-Batches,
+    die erst beim Festschreiben des Batches atomar die eigentliche Datei ersetzt.
+
+    Erst wenn die Datei sicher geschrieben ist, werden die darin enthaltenen Einträge aus dem Änderungsjournal
+    der Sammlung entfernt (Kompaktierung). Zusätzlich wird ein Binär-Snapshot (BinarySnapshot) geschrieben,
+    aus dem die Sammlung beim nächsten Mal ohne YAML-Parser geladen werden kann.
+    */
+    @Override
+    public SaveScheduler.SaveTask saveBooks(String collectionName, List<Book> books, Runnable afterSave) {
+        int journalMark = getJournal(collectionName).getRecordCount(); // Bereits in der Kopie enthaltene Journal-Einträge
+        return batch -> {
+            File file = getYamlFile(collectionName);
+            Yaml yaml = new Yaml();
+            CollectionManager.CollectionWrapper wrapper = new CollectionManager.CollectionWrapper();
+            wrapper.setBooks(books);
+
+            // Das Journal wird erst gekürzt, wenn die neue Basisdatei dauerhaft geschrieben wurde
+            long yamlLength = batch.stage(file, writer -> yaml.dump(wrapper, writer), () -> {
+                System.out.println("Saved books for collection '" + collectionName + "' in YAML: " + file);
+                getJournal(collectionName).discardFirst(journalMark);
+                afterSave.run();
+            });
+            // Binär-Snapshot im selben Batch, er wird nach der YAML-Datei umbenannt und ist damit nicht älter als sie
+            batch.stageBinary(getSnapshotFile(collectionName), out -> BinarySnapshot.write(out, books, yamlLength), null);
+        };
+    }
+
+    /*
+    Seitenweises Lesen ist nur über den Binär-Snapshot möglich. Er muss zur YAML-Datei passen und das Journal
+    darf keine Einzeländerungen enthalten, die im Snapshot fehlen. Andernfalls wird null zurückgegeben; nach
+    dem nächsten vollständigen Laden oder Speichern liegt dann ein passender Snapshot vor.
+    */
+    @Override
+    public PagedBookSource openPagedSource(String collectionName) throws IOException {
+        saveScheduler.flush(collectionName + ".snapshot"); // Einen gerade eingeplanten Snapshot zuerst schreiben
+        File snapshotFile = getSnapshotFile(collectionName);
+        if (getJournal(collectionName).getRecordCount() > 0 || !BinarySnapshot.isUpToDate(snapshotFile, getYamlFile(collectionName))) {
+            return null;
+        }
+        return new SnapshotBookSource(snapshotFile, getIndexFile(collectionName));
+    }
+
+    @Override
+    public void bookAdded(String collectionName, Book book) throws IOException {
+        getJournal(collectionName).appendAdd(book);
+    }
+
+    @Override
+    public void bookUpdated(String collectionName, int index, Book book) throws IOException {
+        getJournal(collectionName).appendUpdate(index, book);
+    }
+
+    @Override
+    public void bookRemoved(String collectionName, int index) throws IOException {
+        getJournal(collectionName).appendDelete(index);
+    }
+
+    @Override
+    public int getPendingChangeCount(String collectionName) {
+        return getJournal(collectionName).getRecordCount();
+    }
+
+    // Benennt YAML-Datei, Snapshot, Datensatzindex und Journal um
+    @Override
+    public boolean rename(String oldName, String newName) {
+        File oldFile = getYamlFile(oldName);
+        if (oldFile.exists() && !oldFile.renameTo(getYamlFile(newName))) {
+            return false;
+        }
+
+        // Snapshot mit umbenennen; schlägt das fehl, wird er beim nächsten Laden aus der YAML-Datei neu erzeugt
+        saveScheduler.flush(oldName + ".snapshot");
+        File oldSnapshot = getSnapshotFile(oldName);
+        if (oldSnapshot.exists() && !oldSnapshot.renameTo(getSnapshotFile(newName))) {
+            oldSnapshot.delete();
+        }
+
+        File oldIndex = getIndexFile(oldName);
+        if (oldIndex.exists() && !oldIndex.renameTo(getIndexFile(newName))) {
+            oldIndex.delete(); // Wird beim nächsten seitenweisen Öffnen neu aufgebaut
+        }
+
+        // Journal mit umbenennen, damit keine Änderungen verloren gehen
+        File oldJournal = getJournal(oldName).getFile();
+        if (oldJournal.exists() && !oldJournal.renameTo(getJournal(newName).getFile())) {
+            System.err.println("Error while renaming journal of collection '" + oldName + "'.");
+        }
+        journals.remove(oldName);
+        journals.remove(newName); // Eintragszähler beim nächsten Zugriff neu ermitteln
+        return true;
+    }
+
+    // Löscht YAML-Datei, Snapshot, Datensatzindex und Journal
+    @Override
+    public boolean delete(String collectionName) {
+        File file = getYamlFile(collectionName);
+        if (file.exists() && !file.delete()) {
+            return false;
+        }
+        saveScheduler.discard(collectionName + ".snapshot");
+        File snapshotFile = getSnapshotFile(collectionName);
+        if (snapshotFile.exists() && !snapshotFile.delete()) {
+            System.err.println("Error while deleting snapshot: " + snapshotFile);
+        }
+        File indexFile = getIndexFile(collectionName);
+        if (indexFile.exists() && !indexFile.delete()) {
+            System.err.println("Error while deleting record index: " + indexFile);
+        }
+        getJournal(collectionName).clear();
+        journals.remove(collectionName);
+        return true;
+    }
+
+    // Änderungszeit und Größe von YAML-Datei und Journal
+    @Override
+    public long getStamp(String collectionName) {
+        long stamp = 17;
+        for (File file : List.of(getYamlFile(collectionName), getJournal(collectionName).getFile())) {
+            stamp = 31 * stamp + file.lastModified();
+            stamp = 31 * stamp + file.length();
+        }
+        return stamp;
+    }
+
+    private File getYamlFile(String collectionName) {
+        return new File(userDirectoryPath, collectionName + ".yaml");
+    }
+
+    private File getSnapshotFile(String collectionName) {
+        return new File(userDirectoryPath, collectionName + ".snapshot");
+    }
+
+    // Datensatzindex des Snapshots für das seitenweise Lesen (SnapshotBookSource)
+    private File getIndexFile(String collectionName) {
+        return new File(userDirectoryPath, collectionName + ".index");
+    }
+
+    // Liefert (und erzeugt bei Bedarf) das Journal einer Sammlung
+    private CollectionJournal getJournal(String collectionName) {
+        return journals.computeIfAbsent(collectionName,
+                name -> new CollectionJournal(new File(userDirectoryPath, name + ".journal")));
+    }
+}
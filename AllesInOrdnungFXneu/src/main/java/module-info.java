@@ -6,6 +6,7 @@ module com.example.allesinordnungfx {
     requires java.net.http;
     requires org.json;
     requires java.desktop;
+    requires java.xml;
 
 
     exports com.example.allesinordnungfx;
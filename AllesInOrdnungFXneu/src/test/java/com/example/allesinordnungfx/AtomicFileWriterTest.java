@@ -0,0 +1,117 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für das absturzsichere Schreiben: Temp-Dateien bis zum Commit, gemeinsames Umbenennen, Fehler und Abbruch
+class AtomicFileWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private List<String> tempFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).filter(name -> name.endsWith(".tmp")).toList();
+        }
+    }
+
+    private String read(String name) throws IOException {
+        return Files.readString(directory.resolve(name), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void batchRenamesAllFilesOnCommit() throws IOException {
+        Files.writeString(directory.resolve("a.yaml"), "alt", StandardCharsets.UTF_8);
+        List<String> actions = new ArrayList<>();
+        AtomicFileWriter.Batch batch = new AtomicFileWriter.Batch();
+        long size = batch.stage(directory.resolve("a.yaml").toFile(), writer -> writer.write("neu ä"),
+                () -> actions.add("a: " + read("a.yaml") + ", " + Files.exists(directory.resolve("b.snapshot"))));
+        batch.stageBinary(directory.resolve("b.snapshot").toFile(), out -> out.write(new byte[]{1, 2, 3}),
+                () -> actions.add("b"));
+        assertEquals(6, size); // UTF-8: ä hat zwei Bytes
+
+        // Bis zum Commit liegt der neue Inhalt nur in versteckten Temp-Dateien
+        assertEquals(2, batch.size());
+        assertEquals(2, tempFiles().size());
+        assertTrue(tempFiles().stream().allMatch(name -> name.startsWith(".")));
+        assertEquals("alt", read("a.yaml"));
+        assertFalse(Files.exists(directory.resolve("b.snapshot")));
+
+        batch.commit();
+        assertEquals("neu ä", read("a.yaml"));
+        assertEquals(3, Files.size(directory.resolve("b.snapshot")));
+        assertTrue(tempFiles().isEmpty());
+        assertTrue(batch.isEmpty());
+        // Die Aktionen laufen erst, wenn alle Dateien des Batches umbenannt sind
+        assertEquals(List.of("a: neu ä, true", "b"), actions);
+    }
+
+    // Schlägt eine Datei fehl, werden die übrigen trotzdem festgeschrieben und der Fehler danach geworfen
+    @Test
+    void failedRenameKeepsOtherFiles() throws IOException {
+        Path blocked = directory.resolve("blocked");
+        Files.createDirectory(blocked);
+        Files.writeString(blocked.resolve("inhalt.txt"), "x", StandardCharsets.UTF_8); // Nicht leeres Verzeichnis als Ziel
+        List<String> actions = new ArrayList<>();
+        AtomicFileWriter.Batch batch = new AtomicFileWriter.Batch();
+        batch.stage(blocked.toFile(), writer -> writer.write("1"), () -> actions.add("blocked"));
+        batch.stage(directory.resolve("ok.txt").toFile(), writer -> writer.write("2"), () -> actions.add("ok"));
+
+        assertThrows(IOException.class, batch::commit);
+        assertEquals("2", read("ok.txt"));
+        assertTrue(Files.isDirectory(blocked));
+        assertEquals(List.of("ok"), actions);
+        assertTrue(tempFiles().isEmpty());
+    }
+
+    @Test
+    void failedStageAndAbortLeaveNoTempFiles() throws IOException {
+        File target = directory.resolve("a.yaml").toFile();
+        AtomicFileWriter.Batch batch = new AtomicFileWriter.Batch();
+        assertThrows(IOException.class, () -> batch.stage(target, writer -> {
+            writer.write("halb");
+            throw new IOException("disk full");
+        }, null));
+        assertTrue(batch.isEmpty());
+        assertTrue(tempFiles().isEmpty());
+
+        batch.stage(target, writer -> writer.write("1"), null);
+        assertEquals(1, tempFiles().size());
+        batch.abort();
+        assertTrue(batch.isEmpty());
+        assertTrue(tempFiles().isEmpty());
+        assertFalse(target.exists());
+
+        AtomicFileWriter.write(target, writer -> writer.write("einzeln"));
+        assertEquals("einzeln", read("a.yaml"));
+        assertTrue(tempFiles().isEmpty());
+    }
+
+    // Nur alte Temp-Dateien werden gelöscht, ein gerade laufender Schreibvorgang bleibt unberührt
+    @Test
+    void deletesOnlyStaleTempFiles() throws IOException {
+        Path stale = Files.writeString(directory.resolve(".a.yaml.1.tmp"), "alt", StandardCharsets.UTF_8);
+        Path fresh = Files.writeString(directory.resolve(".b.yaml.2.tmp"), "neu", StandardCharsets.UTF_8);
+        Path other = Files.writeString(directory.resolve("c.tmp"), "keine Temp-Datei", StandardCharsets.UTF_8);
+        assertTrue(stale.toFile().setLastModified(System.currentTimeMillis() - 60 * 60 * 1000));
+        assertTrue(other.toFile().setLastModified(System.currentTimeMillis() - 60 * 60 * 1000));
+
+        AtomicFileWriter.deleteStaleTempFiles(directory.toFile());
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(fresh));
+        assertTrue(Files.exists(other));
+    }
+}
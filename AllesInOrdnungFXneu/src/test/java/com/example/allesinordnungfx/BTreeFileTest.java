@@ -0,0 +1,286 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für den seitenbasierten B+-Baum: Vergleich mit einer TreeMap, Präfixsuche, Wiederöffnen, Rollback und Journal
+class BTreeFileTest {
+
+    @TempDir
+    Path directory;
+
+    private File storeFile() {
+        return directory.resolve("books.db").toFile();
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Wert mit wechselnder Länge, teilweise größer als eine Seite (Überlaufseiten)
+    private static byte[] value(Random random, int i) {
+        int length = random.nextInt(10) == 0 ? 1000 + random.nextInt(9000) : random.nextInt(200);
+        byte[] value = new byte[length];
+        random.nextBytes(value);
+        if (length >= 4) ByteBuffer.wrap(value).putInt(i);
+        return value;
+    }
+
+    private static Map<String, byte[]> contents(BTreeFile tree, String prefix) throws IOException {
+        Map<String, byte[]> found = new TreeMap<>();
+        tree.scan(bytes(prefix), (key, value) -> {
+            found.put(text(key), value);
+            return true;
+        });
+        return found;
+    }
+
+    private static void assertSameContents(Map<String, byte[]> expected, BTreeFile tree) throws IOException {
+        Map<String, byte[]> actual = contents(tree, "");
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), actual.get(entry.getKey()), entry.getKey());
+            assertArrayEquals(entry.getValue(), tree.get(bytes(entry.getKey())), entry.getKey());
+        }
+    }
+
+    @Test
+    void putGetDeleteMatchTreeMap() throws IOException {
+        Random random = new Random(42);
+        Map<String, byte[]> reference = new TreeMap<>();
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            for (int i = 0; i < 20_000; i++) {
+                String key = "k" + random.nextInt(5_000); // Viele Schlüssel werden ersetzt oder gelöscht
+                if (random.nextInt(4) == 0) {
+                    assertEquals(reference.remove(key) != null, tree.delete(bytes(key)), key);
+                } else {
+                    byte[] value = value(random, i);
+                    reference.put(key, value);
+                    tree.put(bytes(key), value);
+                }
+                if (i % 5_000 == 0) {
+                    assertSameContents(reference, tree);
+                }
+            }
+            assertSameContents(reference, tree);
+            assertNull(tree.get(bytes("missing")));
+            assertFalse(tree.delete(bytes("missing")));
+        }
+    }
+
+    @Test
+    void keysAreOrderedUnsigned() throws IOException {
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            tree.put(new byte[]{(byte) 0xFF}, bytes("high"));
+            tree.put(new byte[]{0x01}, bytes("low"));
+            tree.put(new byte[]{0x7F}, bytes("middle"));
+            List<String> values = new ArrayList<>();
+            tree.scan(new byte[0], (key, value) -> values.add(text(value)));
+            assertEquals(List.of("low", "middle", "high"), values);
+        }
+    }
+
+    @Test
+    void scanVisitsOnlyKeysWithPrefixInOrder() throws IOException {
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            tree.begin();
+            for (int i = 0; i < 3_000; i++) {
+                tree.put(bytes(String.format("a/%05d", i)), bytes("a" + i));
+                tree.put(bytes(String.format("b/%05d", i)), bytes("b" + i));
+            }
+            tree.put(bytes("b"), bytes("exactly b"));
+            tree.commit();
+
+            List<String> keys = new ArrayList<>(contents(tree, "b/").keySet());
+            assertEquals(3_000, keys.size());
+            assertEquals("b/00000", keys.getFirst());
+            assertEquals("b/02999", keys.getLast());
+
+            assertEquals(List.of("b/01000", "b/01001", "b/01002", "b/01003", "b/01004", "b/01005", "b/01006",
+                    "b/01007", "b/01008", "b/01009"), new ArrayList<>(contents(tree, "b/0100").keySet()));
+            assertTrue(contents(tree, "c").isEmpty());
+
+            // Abbruch über den Rückgabewert des Visitors
+            List<String> firstThree = new ArrayList<>();
+            tree.scan(bytes("a/"), (key, value) -> {
+                firstThree.add(text(key));
+                return firstThree.size() < 3;
+            });
+            assertEquals(List.of("a/00000", "a/00001", "a/00002"), firstThree);
+
+            assertEquals(3_000, tree.deletePrefix(bytes("a/")));
+            assertTrue(contents(tree, "a/").isEmpty());
+            assertEquals(3_001, contents(tree, "b").size());
+        }
+    }
+
+    @Test
+    void contentsSurviveReopen() throws IOException {
+        Random random = new Random(7);
+        Map<String, byte[]> reference = new TreeMap<>();
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            for (int i = 0; i < 5_000; i++) {
+                byte[] value = value(random, i);
+                reference.put("key" + i, value);
+                tree.put(bytes("key" + i), value);
+            }
+            for (int i = 0; i < 5_000; i += 3) {
+                reference.remove("key" + i);
+                tree.delete(bytes("key" + i));
+            }
+        }
+        long length = storeFile().length();
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            assertSameContents(reference, tree);
+            // Freigegebene Überlaufseiten werden wiederverwendet, die Datei wächst beim erneuten Einfügen kaum
+            for (int i = 0; i < 5_000; i += 3) {
+                byte[] value = value(random, i);
+                reference.put("key" + i, value);
+                tree.put(bytes("key" + i), value);
+            }
+        }
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            assertSameContents(reference, tree);
+        }
+        assertTrue(storeFile().length() < 2 * length, "file grew from " + length + " to " + storeFile().length());
+        assertFalse(new File(storeFile().getPath() + "-journal").exists());
+    }
+
+    @Test
+    void rejectsForeignFiles() throws IOException {
+        Files.write(storeFile().toPath(), new byte[BTreeFile.PAGE_SIZE]);
+        assertThrows(IOException.class, () -> new BTreeFile(storeFile()));
+    }
+
+    @Test
+    void rollbackDiscardsTransaction() throws IOException {
+        Map<String, byte[]> reference = new TreeMap<>();
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            for (int i = 0; i < 2_000; i++) {
+                reference.put("key" + i, bytes("value" + i));
+                tree.put(bytes("key" + i), bytes("value" + i));
+            }
+            tree.begin();
+            for (int i = 0; i < 2_000; i++) {
+                tree.put(bytes("key" + i), new byte[2_000]); // Ersetzen mit Überlaufseiten
+                tree.put(bytes("new" + i), bytes("new")); // Neue Seiten und Teilungen
+            }
+            tree.delete(bytes("key5"));
+            tree.rollback();
+            assertSameContents(reference, tree);
+
+            // Nach dem Rollback funktionieren weitere Transaktionen normal
+            tree.put(bytes("after"), bytes("rollback"));
+            reference.put("after", bytes("rollback"));
+            assertSameContents(reference, tree);
+        }
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            assertSameContents(reference, tree);
+        }
+    }
+
+    @Test
+    void closeRollsBackOpenTransaction() throws IOException {
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            tree.put(bytes("kept"), bytes("1"));
+            tree.begin();
+            tree.put(bytes("lost"), bytes("2"));
+        }
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            assertArrayEquals(bytes("1"), tree.get(bytes("kept")));
+            assertNull(tree.get(bytes("lost")));
+        }
+    }
+
+    @Test
+    void putRejectsTooLongKeys() throws IOException {
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            assertThrows(IllegalArgumentException.class, () -> tree.put(new byte[BTreeFile.MAX_KEY_LENGTH + 1], bytes("x")));
+            tree.put(bytes("still"), bytes("usable"));
+            assertArrayEquals(bytes("usable"), tree.get(bytes("still")));
+        }
+    }
+
+    /*
+    Simuliert einen Absturz während commit(): Die neuen Seiten stehen bereits in der Datei, das Rollback-Journal
+    mit dem alten Inhalt wurde aber noch nicht gelöscht. Das Journal wird dazu im Format von BTreeFile aus der
+    Datei vor der Transaktion aufgebaut (Anzahl Seiten, dann je Seite Nummer und Inhalt), am Ende steht ein
+    unvollständiger Datensatz wie bei einem Abbruch mitten im Schreiben des Journals.
+    */
+    @Test
+    void recoversFromJournalLeftByCrash() throws IOException {
+        Map<String, byte[]> reference = new TreeMap<>();
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            for (int i = 0; i < 1_000; i++) {
+                reference.put("key" + i, bytes("value" + i));
+                tree.put(bytes("key" + i), bytes("value" + i));
+            }
+        }
+        byte[] before = Files.readAllBytes(storeFile().toPath());
+
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            tree.begin();
+            for (int i = 0; i < 1_000; i++) {
+                tree.put(bytes("key" + i), bytes("changed" + i));
+                tree.put(bytes("extra" + i), new byte[1_500]);
+            }
+            tree.commit();
+        }
+        assertTrue(Files.size(storeFile().toPath()) > before.length);
+
+        int pages = before.length / BTreeFile.PAGE_SIZE;
+        ByteBuffer journal = ByteBuffer.allocate(4 + pages * (4 + BTreeFile.PAGE_SIZE) + 100);
+        journal.putInt(pages);
+        for (int page = 0; page < pages; page++) {
+            journal.putInt(page).put(before, page * BTreeFile.PAGE_SIZE, BTreeFile.PAGE_SIZE);
+        }
+        journal.putInt(1).put(new byte[96]); // Unvollständiger letzter Datensatz
+        Path journalFile = Path.of(storeFile().getPath() + "-journal");
+        Files.write(journalFile, Arrays.copyOf(journal.array(), journal.position()));
+
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            assertFalse(Files.exists(journalFile));
+            assertEquals(before.length, Files.size(storeFile().toPath()));
+            assertSameContents(reference, tree);
+            tree.put(bytes("after"), bytes("recovery"));
+            assertArrayEquals(bytes("recovery"), tree.get(bytes("after")));
+        }
+    }
+
+    @Test
+    void emptyJournalIsIgnored() throws IOException {
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            tree.put(bytes("key"), bytes("value"));
+        }
+        Path journalFile = Path.of(storeFile().getPath() + "-journal");
+        Files.write(journalFile, new byte[0]); // Absturz direkt nach dem Anlegen des Journals
+        try (BTreeFile tree = new BTreeFile(storeFile())) {
+            assertFalse(Files.exists(journalFile));
+            assertArrayEquals(bytes("value"), tree.get(bytes("key")));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für den Binär-Snapshot: Lesen und Schreiben, Erkennen veralteter Snapshots, Rückfall auf YAML bei Beschädigung
+class BinarySnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            books.add(new Book("Titel " + i, "Vorname", "Nachname", "Roman", 2000 + i, 9_783_000_000_000L + i));
+        }
+        return books;
+    }
+
+    private File writeSnapshot(String name, List<Book> books, long yamlLength) throws IOException {
+        File file = directory.resolve(name).toFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            BinarySnapshot.write(out, books, yamlLength);
+        }
+        return file;
+    }
+
+    @Test
+    void roundTripKeepsAllFields() throws IOException {
+        Book book = new Book("Über den Fluss", "Ägidius", null, "", 1999, 9_007_199_254_740_993L); // ISBN über 2^53
+        book.setRead(true);
+        book.setRating("5");
+        book.setComment("x".repeat(1_000)); // Länger als der wiederverwendete Puffer
+        File file = writeSnapshot("a.snapshot", List.of(book, new Book()), 0);
+
+        List<Book> read = new ArrayList<>();
+        assertEquals(2, BinarySnapshot.read(file, read::add));
+        assertTrue(book.hasSameContent(read.getFirst()));
+        assertNull(read.getFirst().getLastName());
+        assertEquals("", read.getFirst().getGenre());
+        assertTrue(new Book().hasSameContent(read.get(1)));
+    }
+
+    // Der Snapshot gilt nur, solange die YAML-Datei nicht neuer ist und ihre Länge zum vermerkten Wert passt
+    @Test
+    void detectsOutdatedSnapshot() throws IOException {
+        Path yaml = Files.writeString(directory.resolve("a.yaml"), "- title: A\n", StandardCharsets.UTF_8);
+        File snapshot = writeSnapshot("a.snapshot", books(1), Files.size(yaml));
+        long now = System.currentTimeMillis();
+        assertTrue(yaml.toFile().setLastModified(now - 10_000));
+        assertTrue(snapshot.setLastModified(now));
+        assertTrue(BinarySnapshot.isUpToDate(snapshot, yaml.toFile()));
+
+        // YAML-Datei neuer als der Snapshot
+        assertTrue(yaml.toFile().setLastModified(now + 10_000));
+        assertFalse(BinarySnapshot.isUpToDate(snapshot, yaml.toFile()));
+
+        // Gleiche Änderungszeit, aber andere Länge (z. B. extern bearbeitet und Zeitstempel zurückgesetzt)
+        Files.writeString(yaml, "- title: AB\n", StandardCharsets.UTF_8);
+        assertTrue(yaml.toFile().setLastModified(now - 10_000));
+        assertFalse(BinarySnapshot.isUpToDate(snapshot, yaml.toFile()));
+
+        // Fehlende Dateien und falsche Kennung
+        assertFalse(BinarySnapshot.isUpToDate(directory.resolve("fehlt.snapshot").toFile(), yaml.toFile()));
+        assertFalse(BinarySnapshot.isUpToDate(snapshot, directory.resolve("fehlt.yaml").toFile()));
+        File invalid = Files.writeString(directory.resolve("b.snapshot"), "kein Snapshot, nur Text", StandardCharsets.UTF_8).toFile();
+        assertFalse(BinarySnapshot.isUpToDate(invalid, yaml.toFile()));
+        assertThrows(IOException.class, () -> BinarySnapshot.read(invalid, book -> { }));
+    }
+
+    @Test
+    void corruptedSnapshotThrowsIOException() throws IOException {
+        File truncated = writeSnapshot("a.snapshot", books(5), 0);
+        try (RandomAccessFile file = new RandomAccessFile(truncated, "rw")) {
+            file.setLength(file.length() - 10);
+        }
+        assertThrows(IOException.class, () -> BinarySnapshot.read(truncated, book -> { }));
+
+        // Beschädigte Textlänge: Fehler statt eines riesigen Arrays
+        File corrupted = writeSnapshot("b.snapshot", books(5), 0);
+        try (RandomAccessFile file = new RandomAccessFile(corrupted, "rw")) {
+            file.seek(BinarySnapshot.HEADER_SIZE + 4); // Länge des Titels im ersten Datensatz
+            file.writeInt(0x7FFF_FFF0);
+        }
+        assertThrows(IOException.class, () -> BinarySnapshot.read(corrupted, book -> { }));
+    }
+
+    // Ein beschädigter, aber scheinbar aktueller Snapshot darf das Laden nicht verhindern: Die YAML-Datei wird gelesen
+    @Test
+    void storeFallsBackToYamlForCorruptedSnapshot() throws IOException {
+        SaveScheduler scheduler = new SaveScheduler(0);
+        YamlCollectionStore store = new YamlCollectionStore(directory.toString(), scheduler);
+        scheduler.schedule("krimi", store.saveBooks("krimi", books(20), () -> { }));
+        scheduler.flush();
+        File snapshot = directory.resolve("krimi.snapshot").toFile();
+        File yaml = directory.resolve("krimi.yaml").toFile();
+        assertTrue(BinarySnapshot.isUpToDate(snapshot, yaml));
+
+        try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+            file.setLength(file.length() / 2);
+        }
+        assertTrue(snapshot.setLastModified(yaml.lastModified() + 1_000));
+        assertTrue(BinarySnapshot.isUpToDate(snapshot, yaml)); // Der Header passt weiterhin
+
+        List<Book> passed = new ArrayList<>();
+        Collection collection = store.loadCollection("krimi", passed::add);
+        assertEquals(20, collection.getBooks().size());
+        assertEquals("Titel 19", collection.getBooks().getLast().getTitle());
+        assertEquals(20, passed.size()); // Aus dem Snapshot wurde noch nichts weitergegeben
+
+        scheduler.flush(); // Der neu geplante Snapshot ersetzt den beschädigten
+        List<Book> read = new ArrayList<>();
+        assertEquals(20, BinarySnapshot.read(snapshot, read::add));
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für die Abfragesprache: Parser (Bereiche, Anführungszeichen, read:-Werte, Fehler) und Plan gegen Durchsuchen aller Bücher
+class BookQueryTest {
+
+    private static final String[] TITLE_WORDS = {"Der", "Herr", "Ringe", "Dunkle", "Turm", "Es", "Shining", "Momo",
+            "Die", "unendliche", "Geschichte", "Hund", "Baskervilles", "Harry", "Potter"};
+    private static final String[] FIRST_NAMES = {"Stephen", "Michael", "Arthur", "Joanne", "Anna"};
+    private static final String[] LAST_NAMES = {"King", "Ende", "Doyle", "Rowling", "Kingsley", "Tolkien"};
+    private static final String[] GENRES = {"Horror", "Fantasy", "Krimi", "Science Fiction", "Roman"};
+    private static final String[] COMMENTS = {"", "geliehen von Anna", "Lieblingsbuch", "signiert", "zweites Exemplar"};
+
+    private static Book book(String title, String lastName, int year, long isbn) {
+        return new Book(title, "Vorname", lastName, "Roman", year, isbn);
+    }
+
+    private static List<Book> query(Collection collection, String text) {
+        return collection.query(text).books();
+    }
+
+    // Bücher mit zufälligen Werten; ISBNs wiederholen sich, damit die ISBN-Bedingung mehrere Treffer haben kann
+    private static Collection randomCollection(Random random, int count) {
+        Collection collection = new Collection("test");
+        for (int i = 0; i < count; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0, words = 1 + random.nextInt(3); w < words; w++) {
+                if (w > 0) title.append(' ');
+                title.append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+            }
+            Book book = new Book(title.toString(), FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)], GENRES[random.nextInt(GENRES.length)],
+                    1900 + random.nextInt(125), 9_783_000_000_000L + random.nextInt(500));
+            book.setRead(random.nextBoolean());
+            book.setRating(random.nextInt(4) == 0 ? "" : String.valueOf(1 + random.nextInt(5)));
+            book.setComment(COMMENTS[random.nextInt(COMMENTS.length)]);
+            collection.appendBook(book);
+        }
+        return collection;
+    }
+
+    // Wortanfang in einem Feld, unabhängig von TokenIndex und BookQuery geprüft
+    private static boolean hasWordStartingWith(String field, String prefix) {
+        for (String word : field.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private static boolean containsText(Book book, String text) {
+        return book.getTitle().toLowerCase(Locale.ROOT).contains(text)
+                || book.getFirstName().toLowerCase(Locale.ROOT).contains(text)
+                || book.getLastName().toLowerCase(Locale.ROOT).contains(text)
+                || book.getGenre().toLowerCase(Locale.ROOT).contains(text)
+                || String.valueOf(book.getPublicationYear()).contains(text)
+                || String.valueOf(book.getIsbn()).contains(text);
+    }
+
+    private static Integer rating(Book book) {
+        return book.getRating().isBlank() ? null : Integer.valueOf(book.getRating());
+    }
+
+    @Test
+    void planMatchesBruteForce() {
+        Random random = new Random(3);
+        Collection collection = randomCollection(random, 5_000);
+        Map<String, Predicate<Book>> queries = new LinkedHashMap<>();
+        queries.put("author:king", book -> hasWordStartingWith(book.getFirstName(), "king")
+                || hasWordStartingWith(book.getLastName(), "king"));
+        queries.put("author:king year:1980..1990 read:false", book -> (hasWordStartingWith(book.getFirstName(), "king")
+                || hasWordStartingWith(book.getLastName(), "king"))
+                && book.getPublicationYear() >= 1980 && book.getPublicationYear() <= 1990 && !book.isRead());
+        queries.put("title:\"der herr\" rating:>=2", book -> hasWordStartingWith(book.getTitle(), "der")
+                && hasWordStartingWith(book.getTitle(), "herr") && rating(book) != null && rating(book) >= 2);
+        queries.put("genre:science year:..1950", book -> hasWordStartingWith(book.getGenre(), "science")
+                && book.getPublicationYear() <= 1950);
+        queries.put("year:2000.. rating:<3", book -> book.getPublicationYear() >= 2000
+                && rating(book) != null && rating(book) < 3);
+        queries.put("isbn:9783000000042", book -> book.getIsbn() == 9_783_000_000_042L);
+        queries.put("isbn:978-3000000042 read:yes", book -> book.getIsbn() == 9_783_000_000_042L && book.isRead());
+        queries.put("comment:anna", book -> book.getComment().toLowerCase(Locale.ROOT).contains("anna"));
+        queries.put("comment:signiert year:>2010", book -> book.getComment().contains("signiert")
+                && book.getPublicationYear() > 2010);
+        queries.put("\"dunkle turm\" read:0", book -> containsText(book, "dunkle turm") && !book.isRead());
+        queries.put("ing rating:5", book -> containsText(book, "ing") && "5".equals(book.getRating()));
+        queries.put("19 author:ende", book -> containsText(book, "19") && (hasWordStartingWith(book.getFirstName(), "ende")
+                || hasWordStartingWith(book.getLastName(), "ende")));
+        queries.put("year:<=1901 rating:=1", book -> book.getPublicationYear() <= 1901 && "1".equals(book.getRating()));
+
+        for (int round = 0; round < 2; round++) {
+            for (Map.Entry<String, Predicate<Book>> entry : queries.entrySet()) {
+                List<Book> expected = collection.getBooks().stream().filter(entry.getValue()).toList();
+                assertEquals(expected, query(collection, entry.getKey()), entry.getKey());
+            }
+            // Zweiter Durchlauf mit Lücken in den Ordnungsnummern und geänderten Büchern
+            for (int i = 0; i < 1_500; i++) {
+                collection.removeBookAt(random.nextInt(collection.getBooks().size()));
+            }
+            for (int i = 0; i < 200; i++) {
+                Book book = collection.getBooks().get(random.nextInt(collection.getBooks().size()));
+                book.setRead(!book.isRead());
+                book.setRating(String.valueOf(1 + random.nextInt(5)));
+                collection.bookEdited(book);
+            }
+        }
+    }
+
+    // Bedingungen ohne Index (comment:) werden nur geprüft; große Kandidatenmengen dabei parallel
+    @Test
+    void unindexedConditionsAreVerifiedInParallel() {
+        Collection collection = randomCollection(new Random(5), 40_000);
+        List<Book> expected = collection.getBooks().stream()
+                .filter(book -> book.getComment().contains("signiert") && book.isRead()).toList();
+        int threshold = ParallelScan.getThreshold();
+        ParallelScan.setThreshold(1_000);
+        try {
+            BookQuery.Result result = collection.query("comment:signiert read:true");
+            assertEquals(expected, result.books());
+            assertTrue(result.plan().contains("verify comment:signiert"), result.plan());
+            assertEquals(collection.getBooks().stream().filter(book -> book.getComment().contains("Anna")).toList(),
+                    query(collection, "comment:ANNA"));
+        } finally {
+            ParallelScan.setThreshold(threshold);
+        }
+    }
+
+    @Test
+    void parsesRanges() {
+        Collection collection = new Collection("test");
+        Book early = book("Früh", "A", 1950, 1L);
+        Book middle = book("Mitte", "B", 1990, 2L);
+        Book late = book("Spät", "C", 2020, 3L);
+        early.setRating("1");
+        middle.setRating("2");
+        late.setRating("4");
+        collection.appendBooks(List.of(early, middle, late));
+
+        assertEquals(List.of(early, middle), query(collection, "year:..1990"));
+        assertEquals(List.of(middle, late), query(collection, "year:1990.."));
+        assertEquals(List.of(middle), query(collection, "year:1951..2019"));
+        assertEquals(List.of(middle), query(collection, "year:1990"));
+        assertEquals(List.of(early), query(collection, "year:<1990"));
+        assertEquals(List.of(early, middle), query(collection, "year:<=1990"));
+        assertEquals(List.of(late), query(collection, "year:>1990"));
+        assertEquals(List.of(middle, late), query(collection, "rating:>=2"));
+        assertEquals(List.of(early), query(collection, "rating:<2"));
+        assertEquals(List.of(), query(collection, "year:2000..1990")); // Leerer Bereich
+    }
+
+    @Test
+    void quotedValuesStayTogether() {
+        Collection collection = new Collection("test");
+        Book lord = book("Der Herr der Ringe", "Tolkien", 1954, 1L);
+        Book dog = book("Der Hund der Baskervilles", "Doyle", 1902, 2L);
+        collection.appendBooks(List.of(lord, dog));
+
+        assertEquals(List.of(lord), query(collection, "title:\"der herr\""));
+        assertEquals(List.of(lord), query(collection, "\"herr der\""));
+        assertEquals(List.of(), query(collection, "\"der ringe herr\""));
+        assertEquals(List.of(lord, dog), query(collection, "title:\"der\" year:>1900"));
+        assertTrue(BookQuery.isStructured("\"herr der\" year:1954"));
+        assertFalse(BookQuery.isStructured("\"herr der\" ringe"));
+    }
+
+    @Test
+    void readAcceptsAliases() {
+        Collection collection = new Collection("test");
+        Book read = book("Gelesen", "A", 2000, 1L);
+        Book unread = book("Ungelesen", "B", 2000, 2L);
+        read.setRead(true);
+        collection.appendBooks(List.of(read, unread));
+
+        for (String value : List.of("true", "yes", "1", "TRUE", "Yes")) {
+            assertEquals(List.of(read), query(collection, "read:" + value), value);
+        }
+        for (String value : List.of("false", "no", "0", "False", "NO")) {
+            assertEquals(List.of(unread), query(collection, "read:" + value), value);
+        }
+        assertEquals(List.of(read), query(collection, "READ:yes")); // Feldname ohne Beachtung der Groß-/Kleinschreibung
+    }
+
+    @Test
+    void invalidQueriesThrowIllegalArgumentException() {
+        for (String text : List.of("year:abc", "year:<x", "year:1990..abc", "year:..", "rating:>=zwei", "rating:>>2",
+                "isbn:12a", "isbn:-", "read:maybe", "year:99999999999")) {
+            assertThrows(IllegalArgumentException.class, () -> BookQuery.parse(text), text);
+        }
+        assertFalse(BookQuery.isStructured("read:")); // Ohne Wert kein Feld, sondern freier Text
+
+        Collection collection = new Collection("test");
+        collection.appendBook(book("Titel", "A", 2000, 1L));
+        assertThrows(IllegalArgumentException.class, () -> collection.query("author:a year:x"));
+        assertEquals(1, query(collection, "author:a").size()); // Die Collection bleibt danach benutzbar
+    }
+
+    @Test
+    void emptyQueryReturnsAllBooks() {
+        Collection collection = new Collection("test");
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            books.add(book("Titel " + i, "Autor", 2000 + i, i));
+        }
+        collection.appendBooks(books);
+        assertEquals(books, query(collection, "   "));
+        assertTrue(collection.query("year:2003").plan().contains("year range"));
+    }
+
+    // Nach dem Entfernen eines Buchs ist nur einer der beiden benötigten Indizes aufgebaut. Das Neuvergeben der
+    // Ordnungsnummern für den anderen darf den bereits aufgebauten nicht verwerfen, ohne ihn neu aufzubauen.
+    @Test
+    void queryRebuildsAllIndexesAfterRenumbering() {
+        for (String first : List.of("author:king", "year:1980..1990")) {
+            Collection collection = new Collection("test");
+            collection.appendBooks(List.of(book("Es", "King", 1986, 1L), book("Momo", "Ende", 1973, 2L),
+                    book("Shining", "King", 1977, 3L), book("Sie", "King", 1987, 4L)));
+            query(collection, first); // Baut nur einen der beiden Indizes auf
+            Book removed = collection.removeBookAt(1);
+            assertEquals("Momo", removed.getTitle());
+
+            List<Book> result = query(collection, "author:king year:1980..1990");
+            assertEquals(List.of("Es", "Sie"), result.stream().map(Book::getTitle).toList(), first);
+            assertEquals(List.of("Es", "Shining", "Sie"),
+                    query(collection, "author:king").stream().map(Book::getTitle).toList(), first);
+        }
+    }
+}
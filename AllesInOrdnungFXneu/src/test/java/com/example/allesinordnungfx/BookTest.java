@@ -0,0 +1,63 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+// Tests für die Suchschlüssel des Buchs: Normalisierung (ß, Umlaute, Akzente) und Verwerfen der Schlüssel in den Settern
+class BookTest {
+
+    @Test
+    void normalizeFoldsGermanAndAccents() {
+        assertEquals("strasse", Book.normalize("Straße"));
+        assertEquals("strasse", Book.normalize("STRAẞE")); // Großes ß
+        assertEquals("mueller", Book.normalize("Müller"));
+        assertEquals("aerger oel uebel", Book.normalize("ÄRGER Öl Übel"));
+        assertEquals("cafe creme", Book.normalize("Café Crème"));
+        assertEquals("cafe", Book.normalize("Cafe\u0301")); // Zerlegter Akzent (e + Kombinationszeichen)
+        assertEquals("mueller", Book.normalize("Mu\u0308ller")); // Zerlegtes ü wird erst zusammengesetzt, dann ausgeschrieben
+        assertEquals("emile zola", Book.normalize("Émile Zola"));
+        assertEquals("", Book.normalize(null));
+
+        // Kleingeschriebener ASCII-Text wird unverändert zurückgegeben, ohne neuen String
+        String lower = "der herr der ringe";
+        assertSame(lower, Book.normalize(lower));
+        assertEquals("harry potter", Book.normalize("Harry Potter"));
+    }
+
+    @Test
+    void settersInvalidateSearchKeys() {
+        Book book = new Book("Straße", "Émile", "Müller", "Krimi", 1990, 9_783_000_000_001L);
+        book.setComment("Geliehen");
+        assertEquals("strasse", book.searchKey(Book.SearchField.TITLE));
+        assertEquals("emile", book.searchKey(Book.SearchField.FIRST_NAME));
+        assertEquals("mueller", book.searchKey(Book.SearchField.LAST_NAME));
+        assertEquals("krimi", book.searchKey(Book.SearchField.GENRE));
+        assertEquals("1990", book.searchKey(Book.SearchField.YEAR));
+        assertEquals("9783000000001", book.searchKey(Book.SearchField.ISBN));
+        assertEquals("geliehen", book.searchKey(Book.SearchField.COMMENT));
+
+        // Jeder Setter eines durchsuchbaren Felds verwirft die zwischengespeicherten Schlüssel
+        book.setTitle("Größe");
+        assertEquals("groesse", book.searchKey(Book.SearchField.TITLE));
+        book.setFirstName("Zoë");
+        assertEquals("zoe", book.searchKey(Book.SearchField.FIRST_NAME));
+        book.setLastName("Öztürk");
+        assertEquals("oeztuerk", book.searchKey(Book.SearchField.LAST_NAME));
+        book.setGenre("Sachbuch");
+        assertEquals("sachbuch", book.searchKey(Book.SearchField.GENRE));
+        book.setPublicationYear(2024);
+        assertEquals("2024", book.searchKey(Book.SearchField.YEAR));
+        book.setIsbn(42L);
+        assertEquals("42", book.searchKey(Book.SearchField.ISBN));
+        book.setComment(null);
+        assertEquals("", book.searchKey(Book.SearchField.COMMENT));
+
+        // Eine Kopie hat eigene Schlüssel; Änderungen am Original wirken sich nicht aus
+        Book copy = book.copy();
+        book.setTitle("Anders");
+        assertEquals("groesse", copy.searchKey(Book.SearchField.TITLE));
+        assertEquals("anders", book.searchKey(Book.SearchField.TITLE));
+    }
+}
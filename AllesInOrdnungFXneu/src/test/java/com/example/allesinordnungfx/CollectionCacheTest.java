@@ -0,0 +1,136 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für den Sammlungs-Cache: Verdrängen (LRU) nach geschätzter Größe samt Indizes, Verwerfen nach externen Änderungen
+class CollectionCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private SaveScheduler scheduler;
+    private YamlCollectionStore store;
+
+    @BeforeEach
+    void createStore() {
+        scheduler = new SaveScheduler(0);
+        store = new YamlCollectionStore(directory.toString(), scheduler);
+    }
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    // Schreibt eine Sammlung mit count Büchern und lädt sie wieder
+    private Collection saved(String collectionName, int count) throws IOException {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            books.add(new Book("Titel " + i, "Vorname", "Nachname", "Roman", 2000, i));
+        }
+        scheduler.schedule(collectionName, store.saveBooks(collectionName, books, () -> { }));
+        scheduler.flush();
+        return store.loadCollection(collectionName, null);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedCollection() throws IOException {
+        Collection a = saved("a", 10);
+        Collection b = saved("b", 10);
+        Collection c = saved("c", 10);
+        long size = CollectionCache.estimateSize(a);
+        CollectionCache cache = new CollectionCache(store, 2 * size + size / 2); // Platz für zwei Sammlungen
+
+        cache.put(a);
+        cache.put(b);
+        assertSame(a, cache.get("a")); // a ist jetzt die zuletzt verwendete, b die älteste
+        cache.put(c);
+        assertEquals(1, cache.getEvictions());
+        assertFalse(cache.isCached("b"));
+        assertTrue(cache.isCached("a"));
+        assertTrue(cache.isCached("c"));
+        assertEquals(2 * size, cache.getEstimatedBytes());
+
+        // Die zuletzt verwendete Sammlung bleibt auch dann im Cache, wenn sie allein zu groß ist
+        cache.setMaxBytes(0);
+        assertEquals(1, cache.size());
+        assertTrue(cache.isCached("c"));
+        assertEquals(size, cache.getEstimatedBytes());
+    }
+
+    // Indizes werden erst bei der ersten Suche aufgebaut und beim nächsten Zugriff mitgezählt
+    @Test
+    void countsIndexesBuiltAfterPut() throws IOException {
+        Collection a = saved("a", 100);
+        Collection b = saved("b", 100);
+        long size = CollectionCache.estimateSize(a);
+        CollectionCache cache = new CollectionCache(store, 3 * size);
+        cache.put(a);
+        cache.put(b);
+        assertEquals(2 * size, cache.getEstimatedBytes());
+        assertEquals(0, CollectionCache.estimateIndexSize(b));
+
+        b.searchWords("titel"); // Baut den Wortindex auf
+        b.search("tel 4"); // den Teilstring-Index
+        b.searchFuzzy("titl", 10); // und den Index der fehlertoleranten Suche
+        assertEquals(3, b.getIndexCount());
+        long indexSize = CollectionCache.estimateIndexSize(b);
+        assertTrue(indexSize > size, "index estimate " + indexSize + " vs. books " + size);
+
+        assertSame(b, cache.get("b"));
+        assertEquals(size + indexSize, cache.getEstimatedBytes()); // a wurde verdrängt, um Platz für die Indizes zu schaffen
+        assertFalse(cache.isCached("a"));
+        assertEquals(1, cache.getEvictions());
+
+        cache.invalidate("b");
+        assertEquals(0, cache.getEstimatedBytes());
+    }
+
+    @Test
+    void changedFilesInvalidateEntry() throws IOException {
+        Collection a = saved("a", 3);
+        CollectionCache cache = new CollectionCache(store, Long.MAX_VALUE);
+        cache.put(a);
+        assertSame(a, cache.get("a"));
+        assertEquals(1, cache.getHits());
+
+        // Eigener Schreibvorgang: Der Stempel ändert sich, restamp() übernimmt ihn
+        Book added = new Book("Titel 3", "Vorname", "Nachname", "Roman", 2000, 3);
+        a.appendBook(added);
+        store.bookAdded("a", added);
+        assertTrue(cache.isStale("a"));
+        cache.restamp(a, CollectionCache.estimateSize(added));
+        assertFalse(cache.isStale("a"));
+        assertSame(a, cache.get("a"));
+        assertEquals(CollectionCache.estimateSize(a), cache.getEstimatedBytes());
+
+        // restamp() mit einem anderen Objekt derselben Sammlung ändert nichts
+        Path yaml = directory.resolve("a.yaml");
+        Files.writeString(yaml, "\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND); // Externe Änderung
+        cache.restamp(new Collection("a"), 0);
+        assertTrue(cache.isStale("a"));
+        assertTrue(cache.isCached("a")); // isStale() entfernt den Eintrag nicht
+
+        assertNull(cache.get("a"));
+        assertFalse(cache.isCached("a"));
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getEstimatedBytes());
+    }
+}
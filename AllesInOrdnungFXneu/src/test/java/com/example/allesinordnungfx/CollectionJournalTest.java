@@ -0,0 +1,103 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Tests für das Änderungsprotokoll: Replay auf die Basisdatei, abgeschnittene letzte Zeile, Kürzen nach der Kompaktierung
+class CollectionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private static Book book(String title) {
+        return new Book(title, "Vorname", "Nachname", "Roman", 2000, 1L);
+    }
+
+    // Sammlung wie aus der Basisdatei geladen
+    private static Collection base() {
+        Collection collection = new Collection("krimi");
+        collection.appendBooks(List.of(book("A"), book("B"), book("C")));
+        return collection;
+    }
+
+    private static List<String> titles(Collection collection) {
+        return collection.getBooks().stream().map(Book::getTitle).toList();
+    }
+
+    private CollectionJournal journal() {
+        return new CollectionJournal(new File(directory.toFile(), "krimi.journal"));
+    }
+
+    @Test
+    void replayAppliesRecordsInOrder() throws IOException {
+        CollectionJournal journal = journal();
+        journal.appendAdd(book("D"));
+        journal.appendUpdate(0, book("A2"));
+        journal.appendDelete(1); // B
+        journal.appendDelete(2); // D, Positionen beziehen sich auf den Stand nach den vorigen Einträgen
+
+        Collection collection = base();
+        assertEquals(4, journal().replay(collection)); // Neues Objekt: liest dieselbe Datei
+        assertEquals(List.of("A2", "C"), titles(collection));
+        assertEquals(4, journal.getRecordCount());
+
+        Collection unchanged = base();
+        new CollectionJournal(new File(directory.toFile(), "fehlt.journal")).replay(unchanged);
+        assertEquals(List.of("A", "B", "C"), titles(unchanged));
+    }
+
+    // Nach einem Absturz beim Schreiben endet die Datei mitten in einem Eintrag
+    @Test
+    void truncatedLastLineIsSkipped() throws IOException {
+        CollectionJournal journal = journal();
+        journal.appendAdd(book("D"));
+        journal.appendUpdate(0, book("A2"));
+        Path file = journal.getFile().toPath();
+        Files.writeString(file, "{\"op\":\"add\",\"book\":{\"title\":\"E", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        CollectionJournal reopened = journal();
+        Collection collection = base();
+        assertEquals(2, reopened.replay(collection));
+        assertEquals(List.of("A2", "B", "C", "D"), titles(collection));
+        assertEquals(3, reopened.getRecordCount()); // Die ungültige Zeile zählt mit, damit discardFirst() sie überspringt
+
+        // Ein neuer Eintrag beginnt in einer eigenen Zeile, statt an den unvollständigen angehängt zu werden
+        reopened.appendDelete(1);
+        collection = base();
+        assertEquals(3, journal().replay(collection));
+        assertEquals(List.of("A2", "C", "D"), titles(collection));
+    }
+
+    // Einträge, die nach dem Beginn der Kompaktierung hinzukommen, müssen nach dem Kürzen erhalten bleiben
+    @Test
+    void discardFirstKeepsRecordsAppendedAfterTheMark() throws IOException {
+        CollectionJournal journal = journal();
+        journal.appendAdd(book("D"));
+        journal.appendDelete(0);
+        int mark = journal.getRecordCount(); // Stand, den die Kompaktierung als Basisdatei schreibt
+        Collection compacted = base();
+        journal.replay(compacted);
+        journal.appendUpdate(0, book("B2"));
+        journal.appendAdd(book("E"));
+
+        journal.discardFirst(mark);
+        assertEquals(2, journal.getRecordCount());
+        assertEquals(2, journal().replay(compacted));
+        assertEquals(List.of("B2", "C", "D", "E"), titles(compacted));
+
+        journal.discardFirst(5); // Mehr als vorhanden: Journal wird gelöscht
+        assertEquals(0, journal.getRecordCount());
+        assertFalse(journal.getFile().exists());
+    }
+}
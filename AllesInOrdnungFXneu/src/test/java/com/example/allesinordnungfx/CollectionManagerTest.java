@@ -0,0 +1,155 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für die Suche über alle Sammlungen (GlobalSearchIndex über den CollectionManager), die seitenweise Anzeige
+// und den Export aller Sammlungen
+class CollectionManagerTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<String> titles(List<GlobalSearchIndex.SearchHit> hits) {
+        return hits.stream().map(hit -> hit.collectionName() + "/" + hit.book().getTitle()).toList();
+    }
+
+    @Test
+    void searchAllCollectionsDoesNotFillTheCache() {
+        CollectionManager manager = new CollectionManager(directory.toString());
+        manager.addNewCollection("fantasy", directory.toString());
+        manager.addNewCollection("krimi", directory.toString());
+        Collection fantasy = manager.loadBooksForCollection("fantasy");
+        fantasy.appendBook(new Book("Der Herr der Ringe", "J. R. R.", "Tolkien", "Fantasy", 1954, 1L));
+        manager.saveBooksForCollection(fantasy);
+        Collection krimi = manager.loadBooksForCollection("krimi");
+        krimi.appendBook(new Book("Der Hund der Baskervilles", "Arthur Conan", "Doyle", "Krimi", 1902, 2L));
+        manager.saveBooksForCollection(krimi);
+        manager.shutdown();
+
+        CollectionManager reopened = new CollectionManager(directory.toString());
+        reopened.loadCollectionNames();
+        assertEquals(List.of("fantasy/Der Herr der Ringe", "krimi/Der Hund der Baskervilles"),
+                titles(reopened.searchAllCollections("der", 10)));
+        assertFalse(reopened.getCollectionCache().isCached("fantasy"));
+        assertFalse(reopened.getCollectionCache().isCached("krimi"));
+        reopened.shutdown();
+    }
+
+    // Eine geladene Sammlung wird mit ihrem aktuellen Stand (auch ungespeicherten Änderungen) übernommen
+    @Test
+    void searchAllCollectionsUsesCachedCollection() {
+        CollectionManager manager = new CollectionManager(directory.toString());
+        manager.addNewCollection("fantasy", directory.toString());
+        Collection fantasy = manager.loadBooksForCollection("fantasy");
+        Book book = new Book("Momo", "Michael", "Ende", "Fantasy", 1973, 3L);
+        fantasy.appendBook(book);
+        manager.recordBookAdded(fantasy, book);
+        manager.getGlobalSearchIndex().markOutdated("fantasy");
+
+        List<GlobalSearchIndex.SearchHit> hits = manager.searchAllCollections("momo", 10);
+        assertEquals(List.of("fantasy/Momo"), titles(hits));
+        assertTrue(hits.getFirst().book() != book); // Kopie im Index, nicht das bearbeitbare Buch
+        assertSame(fantasy, manager.loadBooksForCollection("fantasy"));
+        manager.shutdown();
+    }
+
+    private static void assertPagedSize(CollectionManager manager, String collectionName, int size) throws IOException {
+        try (PagedBookSource source = manager.openPagedCollection(collectionName)) {
+            assertNotNull(source, collectionName);
+            assertEquals(size, source.size());
+            assertEquals("Buch " + (size - 1), source.read(size - 1, 10).getFirst().getTitle());
+        }
+    }
+
+    // Ob eine Sammlung seitenweise (nur lesbar) angezeigt wird, hängt nur von ihrer Größe ab, nicht vom Cache,
+    // vom Journal oder davon, ob der Snapshot gerade aktuell ist
+    @Test
+    void pagedModeDependsOnlyOnCollectionSize() throws IOException {
+        CollectionManager manager = new CollectionManager(directory.toString());
+        manager.setPagedCollectionThreshold(5);
+        manager.addNewCollection("gross", directory.toString());
+        manager.addNewCollection("klein", directory.toString());
+        Collection gross = manager.loadBooksForCollection("gross");
+        for (int i = 0; i < 8; i++) {
+            gross.appendBook(new Book("Buch " + i, "Vorname", "Nachname", "Roman", 2000, i));
+        }
+        manager.saveBooksForCollection(gross);
+        Collection klein = manager.loadBooksForCollection("klein");
+        klein.appendBook(new Book("Buch 0", "Vorname", "Nachname", "Roman", 2000, 0));
+        manager.saveBooksForCollection(klein);
+        manager.flushPendingSaves();
+
+        // Im Cache und mit einer Änderung, die nur im Journal steht
+        Book added = new Book("Buch 8", "Vorname", "Nachname", "Roman", 2000, 8);
+        gross.appendBook(added);
+        manager.recordBookAdded(gross, added);
+        assertPagedSize(manager, "gross", 9);
+        assertFalse(manager.getCollectionCache().isCached("gross"));
+        assertNull(manager.openPagedCollection("klein")); // Im Cache
+        manager.shutdown();
+
+        CollectionManager reopened = new CollectionManager(directory.toString());
+        reopened.setPagedCollectionThreshold(5);
+        reopened.loadCollectionNames();
+        assertNull(reopened.openPagedCollection("klein")); // Nicht im Cache
+        assertPagedSize(reopened, "gross", 9);
+        reopened.loadBooksForCollection("gross"); // Vollständig geladen und im Cache
+        assertPagedSize(reopened, "gross", 9);
+        reopened.shutdown();
+
+        Files.delete(directory.resolve("gross.snapshot")); // Ohne Snapshot
+        CollectionManager withoutSnapshot = new CollectionManager(directory.toString());
+        withoutSnapshot.setPagedCollectionThreshold(5);
+        withoutSnapshot.loadCollectionNames();
+        assertPagedSize(withoutSnapshot, "gross", 9);
+        withoutSnapshot.shutdown();
+    }
+
+    // Kann eine Sammlung nicht gelesen werden, schlägt der Export fehl, statt die übrigen Sammlungen zu exportieren
+    @Test
+    void exportFailsInsteadOfSkippingUnreadableCollection() throws IOException {
+        CollectionManager manager = new CollectionManager(directory.toString());
+        manager.addNewCollection("fantasy", directory.toString());
+        manager.addNewCollection("krimi", directory.toString());
+        Collection fantasy = manager.loadBooksForCollection("fantasy");
+        fantasy.appendBook(new Book("Momo", "Michael", "Ende", "Fantasy", 1973, 3L));
+        manager.saveBooksForCollection(fantasy);
+        manager.shutdown();
+        Files.deleteIfExists(directory.resolve("krimi.snapshot"));
+        Files.writeString(directory.resolve("krimi.yaml"), "- title: 'Der Hund", StandardCharsets.UTF_8);
+
+        CollectionManager reopened = new CollectionManager(directory.toString());
+        reopened.loadCollectionNames();
+        Path csv = directory.resolve("export.csv");
+        assertFalse(reopened.exportToCsv(csv.toString()));
+        assertFalse(Files.exists(csv));
+
+        // Unterbrochener Export: ebenfalls keine Datei, das Unterbrechungs-Flag bleibt gesetzt
+        assertTrue(reopened.deleteSelectedCollection("krimi"));
+        Thread.currentThread().interrupt();
+        try {
+            assertFalse(reopened.exportToCsv(csv.toString()));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertFalse(Files.exists(csv));
+        assertTrue(reopened.exportToCsv(csv.toString()));
+        assertTrue(Files.readString(csv, StandardCharsets.UTF_8).contains("Momo"));
+        reopened.shutdown();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+// Tests für die Suche der Collection: search() findet Teilstrings wie früher contains(), searchWords() nur Wortanfänge
+class CollectionTest {
+
+    private static final String[] WORDS = {"Harry", "Potter", "Herr", "der", "Ringe", "Tolkien", "King", "Stephen",
+            "Fantasy", "Krimi", "Roman", "Die", "unendliche", "Geschichte", "Ende", "Michael"};
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) text.append(' ');
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static Book randomBook(Random random) {
+        return new Book(words(random, 1 + random.nextInt(4)), words(random, 1), words(random, 1), words(random, 1),
+                1900 + random.nextInt(125), 9_780_000_000_000L + random.nextInt(1_000_000));
+    }
+
+    // Die lineare Suche, wie search() sie vor den Indizes ausgeführt hat
+    private static List<Book> bruteForceSearch(List<Book> books, String keyword) {
+        String lowerKeyword = keyword.toLowerCase(Locale.ROOT);
+        List<Book> results = new ArrayList<>();
+        for (Book book : books) {
+            if (book.getTitle().toLowerCase(Locale.ROOT).contains(lowerKeyword)
+                    || book.getFirstName().toLowerCase(Locale.ROOT).contains(lowerKeyword)
+                    || book.getLastName().toLowerCase(Locale.ROOT).contains(lowerKeyword)
+                    || String.valueOf(book.getPublicationYear()).contains(lowerKeyword)
+                    || String.valueOf(book.getIsbn()).contains(lowerKeyword)
+                    || book.getGenre().toLowerCase(Locale.ROOT).contains(lowerKeyword)) {
+                results.add(book);
+            }
+        }
+        return results;
+    }
+
+    @Test
+    void searchMatchesSubstringsLikeContains() {
+        Random random = new Random(11);
+        Collection collection = new Collection("test");
+        for (int i = 0; i < 2_000; i++) {
+            collection.appendBook(randomBook(random));
+        }
+        List<String> keywords = new ArrayList<>(List.of("otte", "ARRY", "r R", "er", "e", "", "19", "978000", "xyz",
+                "ing", "chael"));
+        for (int i = 0; i < 50; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            int start = random.nextInt(word.length());
+            keywords.add(word.substring(start, start + 1 + random.nextInt(word.length() - start)));
+        }
+        for (String keyword : keywords) {
+            assertEquals(bruteForceSearch(collection.getBooks(), keyword), collection.search(keyword), keyword);
+        }
+
+        // Änderungen werden im Index mitgeführt
+        collection.removeBookAt(0);
+        collection.setBook(5, new Book("Momo", "Michael", "Ende", "Roman", 1973, 1L));
+        collection.getBooks().get(10).setTitle("Die Potter-Chroniken");
+        collection.bookEdited(collection.getBooks().get(10));
+        for (String keyword : List.of("otte", "momo", "chron", "er")) {
+            assertEquals(bruteForceSearch(collection.getBooks(), keyword), collection.search(keyword), keyword);
+        }
+    }
+
+    @Test
+    void searchWordsMatchesOnlyWordPrefixes() {
+        Collection collection = new Collection("test");
+        Book potter = new Book("Harry Potter", "Joanne", "Rowling", "Fantasy", 1997, 1L);
+        Book other = new Book("Otter am Fluss", "Anna", "Meier", "Sachbuch", 2001, 2L);
+        collection.appendBook(potter);
+        collection.appendBook(other);
+
+        assertEquals(List.of(potter), collection.searchWords("harry pot"));
+        assertEquals(List.of(potter), collection.searchWords("Potter, Harry"));
+        assertEquals(List.of(other), collection.searchWords("otter"));
+        assertEquals(List.of(potter, other), collection.search("otter")); // Teilstring in "Potter"
+        assertEquals(List.of(potter, other), collection.searchWords(" "));
+    }
+
+    @Test
+    void constructorsStartWithEmptyReadOnlyList() {
+        Collection collection = new Collection("leer");
+        assertEquals("leer", collection.getName());
+        assertEquals(List.of(), collection.getBooks());
+        Book book = new Book("Titel", "Vorname", "Nachname", "Roman", 2000, 1L);
+        collection.appendBook(book);
+        assertSame(book, collection.getBooks().get(0));
+        assertEquals(List.of(), new Collection().getBooks());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für CSV/TSV: Schreiben und wieder Einlesen, Sonderzeichen, Kopfzeilen und fehlerhafte Dateien
+class CsvBookFileTest {
+
+    @TempDir
+    Path directory;
+
+    private static Book book(String title, String firstName, String lastName, String genre, int year, long isbn,
+                             boolean read, String rating, String comment) {
+        Book book = new Book(title, firstName, lastName, genre, year, isbn);
+        book.setRead(read);
+        book.setRating(rating);
+        book.setComment(comment);
+        return book;
+    }
+
+    private static List<Book> read(Path file, char separator) throws IOException {
+        List<Book> books = new ArrayList<>();
+        CsvBookFile.read(file, separator, books::add);
+        return books;
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static void assertSameBooks(List<Book> expected, List<Book> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString(), "book " + i);
+        }
+    }
+
+    @Test
+    void roundTripKeepsSpecialCharacters() throws IOException {
+        List<Book> books = List.of(
+                book("Plain", "Anna", "Meier", "Roman", 1999, 9783161484100L, true, "4", "kein Kommentar"),
+                book("Komma, Semikolon; Tab\tEnde", "\"Zitat\"", "O\"Brien", "Sci-Fi", 2001, 1L, false, "", ""),
+                book("Zeile 1\nZeile 2", "CR\rallein", "CRLF\r\nim Feld", "Lyrik", -500, 0L, true, "5", "\"\"\""),
+                book("Straße, Ökonomie, Ærø, 東京", "Zoë", "Núñez", "Übersetzung", 2024, 42L, false, "1", "ä"),
+                book("Emoji 📚 und 𝄞", "😀", "Surrogat 𐐷", "Musik", 1, 2L, true, "", "🎉🎉"),
+                book("", "", "", "", 0, 0L, false, "", "nur Kommentar"));
+        for (char separator : new char[]{',', ';', '\t'}) {
+            Path file = directory.resolve("books-" + (int) separator + ".csv");
+            CsvBookFile.write(file, separator, books);
+            assertSameBooks(books, read(file, separator));
+        }
+    }
+
+    @Test
+    void loneSurrogateIsWrittenAsQuestionMark() throws IOException {
+        Path file = directory.resolve("surrogate.csv");
+        CsvBookFile.write(file, ',', List.of(
+                book("hoch \uD83D allein", "tief \uDC00 allein", "Ende\uD83D", "\uDC00Anfang", 2000, 1L, false, "", "")));
+        Book book = read(file, ',').getFirst();
+        assertEquals("hoch ? allein", book.getTitle());
+        assertEquals("tief ? allein", book.getFirstName());
+        assertEquals("Ende?", book.getLastName());
+        assertEquals("?Anfang", book.getGenre());
+        // Die Datei bleibt gültiges UTF-8
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        assertTrue(content.contains("hoch ? allein"));
+    }
+
+    @Test
+    void skipsByteOrderMark() throws IOException {
+        Path file = write("bom.csv", "\uFEFFTitle,Year\r\nMit BOM,1999\r\n");
+        assertEquals((byte) 0xEF, Files.readAllBytes(file)[0]);
+        Book book = read(file, ',').getFirst();
+        assertEquals("Mit BOM", book.getTitle());
+        assertEquals(1999, book.getPublicationYear());
+    }
+
+    @Test
+    void mapsColumnsByHeader() throws IOException {
+        Path file = write("columns.csv", String.join("\n",
+                "comment;Unbekannt;ISBN;  Title ;read;YEAR;Last Name",
+                "gut;x;978-3-16-148410-0;Umsortiert;ja;1990.0;Müller",
+                "",
+                ";;;Kurze Zeile",
+                ""));
+        List<Book> books = read(file, ';');
+        assertEquals(2, books.size());
+        Book first = books.get(0);
+        assertEquals("Umsortiert", first.getTitle());
+        assertEquals("Müller", first.getLastName());
+        assertEquals("", first.getFirstName()); // Spalte fehlt
+        assertEquals("gut", first.getComment());
+        assertEquals(9783161484100L, first.getIsbn());
+        assertEquals(1990, first.getPublicationYear());
+        assertTrue(first.isRead());
+        Book second = books.get(1);
+        assertEquals("Kurze Zeile", second.getTitle());
+        assertEquals(0, second.getPublicationYear()); // Spalte fehlt in dieser Zeile
+        assertEquals("", second.getLastName());
+    }
+
+    // Ohne erkennbare Kopfzeile gilt die Reihenfolge des Exports, und die erste Zeile ist bereits ein Buch
+    @Test
+    void withoutHeaderUsesExportOrder() throws IOException {
+        Path file = write("noheader.tsv", "Titel\tVorname\tNachname\tKrimi\t2000\t123\tx\t3\tKommentar\n");
+        Book book = read(file, '\t').getFirst();
+        assertEquals("Titel", book.getTitle());
+        assertEquals("Nachname", book.getLastName());
+        assertEquals(2000, book.getPublicationYear());
+        assertEquals(123, book.getIsbn());
+        assertTrue(book.isRead());
+        assertEquals("3", book.getRating());
+        assertEquals("Kommentar", book.getComment());
+    }
+
+    @Test
+    void unterminatedQuoteFailsWithLineNumber() throws IOException {
+        Path file = write("broken.csv", "Title,Comment\nok,fine\n\"offen,\nweiter\nnoch weiter\n");
+        IOException e = assertThrows(IOException.class, () -> read(file, ','));
+        assertTrue(e.getMessage().contains("line 3"), e.getMessage());
+    }
+
+    @Test
+    void quotedFieldMayContainLineBreaks() throws IOException {
+        Path file = write("multiline.csv", "Title,Comment\r\n\"a\r\nb\",\"x\"\"y\"\r\n\"c\nd\",z\r\n");
+        List<Book> books = read(file, ',');
+        assertEquals(2, books.size());
+        assertEquals("a\r\nb", books.get(0).getTitle());
+        assertEquals("x\"y", books.get(0).getComment());
+        assertEquals("c\nd", books.get(1).getTitle());
+        assertEquals("z", books.get(1).getComment());
+    }
+}
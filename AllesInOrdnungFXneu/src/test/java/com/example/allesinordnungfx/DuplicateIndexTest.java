@@ -0,0 +1,109 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für die Duplikatsprüfung (gleicher Titel ohne Groß-/Kleinschreibung und gleiche ISBN) nach Hinzufügen, Bearbeiten und Entfernen
+class DuplicateIndexTest {
+
+    private static final String[] TITLES = {"Momo", "MOMO", "Straße", "STRAßE", "Es", "es", "Der Turm"};
+
+    private static Book book(String title, long isbn) {
+        return new Book(title, "Vorname", "Nachname", "Roman", 2000, isbn);
+    }
+
+    // Der Vergleich, den die Duplikatsprüfung vor dem Index über alle Bücher ausgeführt hat
+    private static boolean bruteForceDuplicate(List<Book> books, Book book) {
+        for (Book other : books) {
+            if (other != book && other.getTitle().equalsIgnoreCase(book.getTitle()) && other.getIsbn() == book.getIsbn()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void detectsTitleAndIsbnIgnoringCase() {
+        Collection collection = new Collection("test");
+        assertTrue(collection.addBook(book("Momo", 1L)));
+        assertTrue(collection.addBook(book("Straße", 2L)));
+        assertFalse(collection.addBook(book("MOMO", 1L)));
+        assertFalse(collection.addBook(book("STRAßE", 2L)));
+        assertTrue(collection.addBook(book("STRASSE", 2L))); // Wie equalsIgnoreCase(): "ß" ist nicht "SS"
+        assertTrue(collection.addBook(book("Momo", 3L))); // Andere ISBN
+        assertEquals(4, collection.getBooks().size());
+
+        // Import: Duplikate zur Sammlung und innerhalb der neuen Bücher werden übersprungen
+        assertEquals(2, collection.addBooks(List.of(book("momo", 1L), book("Es", 4L), book("ES", 4L), book("Es", 5L))));
+        assertEquals(6, collection.getBooks().size());
+    }
+
+    @Test
+    void followsEditsAndRemovals() {
+        Collection collection = new Collection("test");
+        Book momo = book("Momo", 1L);
+        Book turm = book("Der Turm", 2L);
+        collection.appendBooks(List.of(momo, turm));
+        assertFalse(collection.isDuplicateExcept(momo)); // Das Buch selbst zählt nicht
+
+        // Bearbeitet, aber noch nicht gespeichert: Prüfung mit dem neuen Stand gegen die anderen Bücher
+        momo.setTitle("der turm");
+        momo.setIsbn(2L);
+        assertTrue(collection.isDuplicateExcept(momo));
+        momo.setIsbn(3L);
+        assertFalse(collection.isDuplicateExcept(momo));
+        collection.bookEdited(momo);
+
+        // Der alte Schlüssel ist frei, der neue belegt
+        assertFalse(collection.isDuplicate(book("Momo", 1L)));
+        assertTrue(collection.isDuplicate(book("DER TURM", 3L)));
+        assertFalse(collection.isDuplicateExcept(momo));
+
+        // Ersetzen und Entfernen geben den Schlüssel ebenfalls frei
+        collection.setBook(1, book("Es", 4L));
+        assertFalse(collection.isDuplicate(book("Der Turm", 2L)));
+        assertTrue(collection.isDuplicate(book("es", 4L)));
+        collection.removeBookAt(0);
+        assertFalse(collection.isDuplicate(book("der turm", 3L)));
+        assertTrue(collection.addBook(book("Der Turm", 3L)));
+    }
+
+    // Zufällige Bearbeitungen: Ergebnis wie der Vergleich über alle Bücher
+    @Test
+    void matchesBruteForceAfterRandomEdits() {
+        Random random = new Random(5);
+        Collection collection = new Collection("test");
+        for (int i = 0; i < 300; i++) {
+            collection.appendBook(book(TITLES[random.nextInt(TITLES.length)], random.nextInt(20)));
+        }
+        for (int step = 0; step < 2_000; step++) {
+            List<Book> books = collection.getBooks();
+            Book book = books.get(random.nextInt(books.size()));
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    book.setTitle(TITLES[random.nextInt(TITLES.length)]);
+                    book.setIsbn(random.nextInt(20));
+                    assertEquals(bruteForceDuplicate(books, book), collection.isDuplicateExcept(book));
+                    collection.bookEdited(book);
+                }
+                case 1 -> collection.removeBookAt(random.nextInt(books.size()));
+                case 2 -> collection.addBook(book(TITLES[random.nextInt(TITLES.length)], random.nextInt(20)));
+                default -> {
+                    Book candidate = book(TITLES[random.nextInt(TITLES.length)], random.nextInt(20));
+                    assertEquals(bruteForceDuplicate(books, candidate), collection.isDuplicate(candidate));
+                }
+            }
+        }
+        List<Book> books = new ArrayList<>(collection.getBooks());
+        for (Book book : books) {
+            assertEquals(bruteForceDuplicate(books, book), collection.isDuplicateExcept(book), book.getTitle());
+        }
+    }
+}
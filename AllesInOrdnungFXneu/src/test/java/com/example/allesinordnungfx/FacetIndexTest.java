@@ -0,0 +1,123 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Tests für die Facetten: Zähler nach Hinzufügen, Bearbeiten und Entfernen sowie die Auswahl (ODER je Facette, UND zwischen Facetten)
+class FacetIndexTest {
+
+    private static final String[] GENRES = {"Fantasy", "Krimi", " Krimi ", "", "Roman"};
+    private static final String[] RATINGS = {"", "1", "3", "5"};
+
+    private static Book book(String title, String genre, int year, boolean read, String rating) {
+        Book book = new Book(title, "Vorname", "Nachname", genre, year, 1L);
+        book.setRead(read);
+        book.setRating(rating);
+        return book;
+    }
+
+    // Zählt die Werte einer Facette über alle Bücher, wie es die Seitenleiste ohne Index tun müsste
+    private static Map<String, Integer> bruteForceCounts(List<Book> books, FacetIndex.Facet facet) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Book book : books) {
+            counts.merge(facet.valueOf(book), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static void assertCounts(Collection collection) {
+        for (FacetIndex.Facet facet : FacetIndex.Facet.values()) {
+            assertEquals(bruteForceCounts(collection.getBooks(), facet), new TreeMap<>(collection.facetCounts(facet)),
+                    facet.getLabel());
+        }
+    }
+
+    @Test
+    void countsFollowAddUpdateAndDelete() {
+        Collection collection = new Collection("test");
+        Book momo = book("Momo", "Fantasy", 1973, false, "");
+        Book turm = book("Der Turm", "Krimi", 1990, true, "5");
+        collection.appendBooks(List.of(momo, turm));
+        assertEquals(Map.of("Fantasy", 1, "Krimi", 1), collection.facetCounts(FacetIndex.Facet.GENRE));
+        assertEquals(Map.of("Read", 1, "Unread", 1), collection.facetCounts(FacetIndex.Facet.READ));
+        assertEquals(Map.of("No rating", 1, "Rating 5", 1), collection.facetCounts(FacetIndex.Facet.RATING));
+
+        collection.addBook(book("Es", " Krimi ", 1986, true, "3")); // Leerzeichen werden entfernt
+        assertEquals(Map.of("Fantasy", 1, "Krimi", 2), collection.facetCounts(FacetIndex.Facet.GENRE));
+        assertEquals(List.of("1990", "1986", "1973"), List.copyOf(collection.facetCounts(FacetIndex.Facet.YEAR).keySet()));
+
+        // Bearbeiten: alter Wert verliert, neuer gewinnt; ein leerer Wert verschwindet aus der Liste
+        momo.setGenre("Krimi");
+        momo.setRead(true);
+        collection.bookEdited(momo);
+        assertEquals(Map.of("Krimi", 3), collection.facetCounts(FacetIndex.Facet.GENRE));
+        assertEquals(Map.of("Read", 3), collection.facetCounts(FacetIndex.Facet.READ));
+
+        collection.removeBookAt(1); // Der Turm
+        assertEquals(Map.of("Krimi", 2), collection.facetCounts(FacetIndex.Facet.GENRE));
+        assertEquals(Map.of("No rating", 1, "Rating 3", 1), collection.facetCounts(FacetIndex.Facet.RATING));
+        assertCounts(collection);
+    }
+
+    @Test
+    void selectionCombinesValuesWithOrAndFacetsWithAnd() {
+        Collection collection = new Collection("test");
+        Book fantasyRead = book("A", "Fantasy", 2000, true, "");
+        Book krimiRead = book("B", "Krimi", 2000, true, "");
+        Book krimiUnread = book("C", "Krimi", 2001, false, "");
+        Book roman = book("D", "Roman", 2001, true, "");
+        collection.appendBooks(List.of(fantasyRead, krimiRead, krimiUnread, roman));
+
+        Map<FacetIndex.Facet, Set<String>> selection = new EnumMap<>(FacetIndex.Facet.class);
+        assertEquals(collection.getBooks(), collection.filterByFacets(selection)); // Keine Auswahl: alle Bücher
+        selection.put(FacetIndex.Facet.GENRE, Set.of("Fantasy", "Krimi"));
+        assertEquals(List.of(fantasyRead, krimiRead, krimiUnread), collection.filterByFacets(selection));
+        selection.put(FacetIndex.Facet.READ, Set.of("Read"));
+        assertEquals(List.of(fantasyRead, krimiRead), collection.filterByFacets(selection));
+        selection.put(FacetIndex.Facet.YEAR, Set.of()); // Leere Auswahl schränkt nicht ein
+        assertEquals(List.of(fantasyRead, krimiRead), collection.filterByFacets(selection));
+        selection.put(FacetIndex.Facet.YEAR, Set.of("2001"));
+        assertEquals(List.of(), collection.filterByFacets(selection));
+
+        krimiUnread.setRead(true);
+        collection.bookEdited(krimiUnread);
+        assertEquals(List.of(krimiUnread), collection.filterByFacets(selection));
+    }
+
+    // Zufällige Änderungen, auch solche, nach denen die Ordnungsnummern neu vergeben werden
+    @Test
+    void countsMatchBruteForceAfterRandomChanges() {
+        Random random = new Random(9);
+        Collection collection = new Collection("test");
+        for (int step = 0; step < 3_000; step++) {
+            List<Book> books = collection.getBooks();
+            int operation = books.isEmpty() ? 0 : random.nextInt(10);
+            if (operation < 4) {
+                collection.appendBook(book("T" + step, GENRES[random.nextInt(GENRES.length)], 1990 + random.nextInt(5),
+                        random.nextBoolean(), RATINGS[random.nextInt(RATINGS.length)]));
+            } else if (operation < 7) {
+                Book book = books.get(random.nextInt(books.size()));
+                book.setGenre(GENRES[random.nextInt(GENRES.length)]);
+                book.setRating(RATINGS[random.nextInt(RATINGS.length)]);
+                book.setRead(random.nextBoolean());
+                collection.bookEdited(book);
+            } else if (operation < 9) {
+                collection.removeBookAt(random.nextInt(books.size()));
+            } else {
+                collection.removeBooks(List.of(books.get(random.nextInt(books.size()))));
+            }
+            if (step % 100 == 0) {
+                assertCounts(collection);
+            }
+        }
+        assertCounts(collection);
+    }
+}
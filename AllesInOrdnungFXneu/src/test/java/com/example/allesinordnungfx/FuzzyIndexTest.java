@@ -0,0 +1,70 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für die fehlertolerante Suche: Vertauschungen zählen als ein Fehler, Umlaute werden ausgeschrieben
+class FuzzyIndexTest {
+
+    private static Book book(String title, String firstName, String lastName) {
+        return new Book(title, firstName, lastName, "Roman", 2000, 1L);
+    }
+
+    @Test
+    void transpositionCountsAsOneError() {
+        assertEquals(1, FuzzyIndex.transpositionDistance("tolkein", "tolkien"));
+        assertEquals(2, FuzzyIndex.levenshtein("tolkein", "tolkien"));
+        assertEquals(2, FuzzyIndex.transpositionDistance("tolkeim", "tolkien"));
+        assertEquals(3, FuzzyIndex.levenshtein("tolkeim", "tolkien"));
+        assertEquals(2, FuzzyIndex.transpositionDistance("otlkein", "tolkien"));
+        assertEquals(4, FuzzyIndex.levenshtein("otlkein", "tolkien"));
+    }
+
+    // "Talkeim" hat zwei Fehler und steht in der Sammlung vorne; "Tolkien" (eine Vertauschung) muss trotzdem zuerst kommen
+    @Test
+    void tolkeinRanksTolkienFirst() {
+        Collection collection = new Collection("test");
+        Book talkeim = book("Der Turm", "Anna", "Talkeim");
+        Book tolkien = book("Der Herr der Ringe", "J. R. R.", "Tolkien");
+        Book other = book("Momo", "Michael", "Ende");
+        collection.appendBooks(List.of(talkeim, other, tolkien));
+
+        assertEquals(List.of(tolkien, talkeim), collection.searchFuzzy("Tolkein", 10));
+        assertEquals(List.of(tolkien), collection.searchFuzzy("Tolkein", 1));
+        // Vertauschung und ein weiterer Fehler (Levenshtein 3) bzw. zwei Vertauschungen (Levenshtein 4) sind zwei Fehler
+        assertEquals(List.of(talkeim, tolkien), collection.searchFuzzy("Tolkeim", 10)); // Talkeim: ein Fehler
+        assertEquals(List.of(tolkien), collection.searchFuzzy("Otlkein", 10));
+    }
+
+    @Test
+    void goetheIsFoundWithUmlautAndTypos() {
+        Collection collection = new Collection("test");
+        Book goettel = book("Gedichte", "Maria", "Göttel");
+        Book goethe = book("Faust", "Johann Wolfgang", "Goethe");
+        Book gothic = book("Gothic Novels", "Horace", "Walpole");
+        collection.appendBooks(List.of(goettel, gothic, goethe));
+
+        assertEquals(goethe, collection.searchFuzzy("Göthe", 10).getFirst()); // ö -> oe, also ohne Fehler
+        assertEquals(List.of(goethe), collection.searchFuzzy("Goehte", 10)); // Vertauschung
+        assertEquals(List.of(goethe), collection.searchFuzzy("Gothe", 10)); // Ein fehlendes e
+        assertEquals(List.of(goethe), collection.searchFuzzy("goethe faust", 10));
+    }
+
+    // Titelwörter wiegen mehr als Autorwörter, genaue Treffer mehr als Treffer mit Fehlern
+    @Test
+    void ranksByFieldAndDistance() {
+        Collection collection = new Collection("test");
+        Book author = book("Gedichte", "Anna", "Rose");
+        Book title = book("Der Name der Rose", "Umberto", "Eco");
+        Book typo = book("Rosa", "Karl", "Meier");
+        collection.appendBooks(List.of(typo, author, title));
+
+        assertEquals(List.of(title, author, typo), collection.searchFuzzy("rose", 10));
+        assertTrue(collection.searchFuzzy("xyz", 10).isEmpty());
+        assertTrue(collection.searchFuzzy(" ", 10).isEmpty());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für die Postings-Listen: sortierte Einträge, Entfernen per binärer Suche, Vergleich mit einer einfachen Liste
+class IntPostingsTest {
+
+    private static List<Integer> entries(IntPostings postings) {
+        List<Integer> entries = new ArrayList<>();
+        postings.forEach(entries::add);
+        return entries;
+    }
+
+    @Test
+    void keepsEntriesSorted() {
+        IntPostings postings = new IntPostings();
+        for (int ordinal : new int[]{3, 7, 9, 5, 0, 7}) {
+            postings.add(ordinal);
+        }
+        assertEquals(List.of(0, 3, 5, 7, 7, 9), entries(postings));
+
+        assertTrue(postings.remove(7)); // Nur einer der beiden Einträge
+        assertFalse(postings.remove(4));
+        assertTrue(postings.remove(9));
+        assertTrue(postings.remove(0));
+        assertEquals(List.of(3, 5, 7), entries(postings));
+        assertTrue(postings.containsOtherThan(5));
+
+        BitSet bits = new BitSet();
+        postings.addTo(bits);
+        assertEquals("{3, 5, 7}", bits.toString());
+    }
+
+    @Test
+    void matchesReferenceList() {
+        Random random = new Random(11);
+        IntPostings postings = new IntPostings();
+        List<Integer> reference = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            int ordinal = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove((Integer) ordinal), postings.remove(ordinal), "remove " + ordinal);
+            } else {
+                reference.add(ordinal);
+                postings.add(ordinal);
+            }
+        }
+        Collections.sort(reference);
+        assertEquals(reference, entries(postings));
+        assertEquals(reference.size(), postings.size());
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.allesinordnungfx;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für die seitenweise Anzeige: Platzhalter und Nachladen, Vorladen der Nachbarseiten, Verdrängen alter Seiten
+class PagedBookListTest {
+
+    // Quelle mit size Büchern "Buch <Position>", die sich die gelesenen Seitenanfänge merkt
+    private static final class CountingSource implements PagedBookSource {
+        final List<Integer> reads = Collections.synchronizedList(new ArrayList<>());
+        final int size;
+        volatile boolean closed;
+
+        CountingSource(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public List<Book> read(int offset, int limit) {
+            reads.add(offset);
+            List<Book> books = new ArrayList<>();
+            for (int i = offset; i < Math.min(size, offset + limit); i++) {
+                books.add(new Book("Buch " + i, "Vorname", "Nachname", "Roman", 2000, i));
+            }
+            return books;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    // Wartet, bis alle angeforderten Seiten geladen sind
+    private static void awaitIdle(PagedBookList list) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (list.isLoading()) {
+            assertTrue(System.currentTimeMillis() < deadline, "pages are still loading");
+            Thread.sleep(5);
+        }
+    }
+
+    // Wartet auf die angeforderten Seiten und führt ihre Änderungsmeldungen aus (wie sonst der JavaFX-Thread)
+    private static void awaitLoads(PagedBookList list, ConcurrentLinkedQueue<Runnable> fxTasks) throws InterruptedException {
+        awaitIdle(list);
+        Runnable task;
+        while ((task = fxTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Test
+    void missingPageShowsPlaceholderAndFiresUpdate() throws InterruptedException {
+        CountingSource source = new CountingSource(1_050);
+        ConcurrentLinkedQueue<Runnable> fxTasks = new ConcurrentLinkedQueue<>();
+        PagedBookList list = new PagedBookList(source, 100, 0, 10, fxTasks::add);
+        List<int[]> updates = new ArrayList<>();
+        list.addListener((ListChangeListener<Book>) change -> {
+            while (change.next()) {
+                if (change.wasUpdated()) updates.add(new int[]{change.getFrom(), change.getTo()});
+            }
+        });
+
+        assertEquals(1_050, list.size());
+        assertNull(list.get(250).getTitle()); // Platzhalter, der JavaFX-Thread wartet nicht
+        list.get(260); // Dieselbe Seite wird nur einmal gelesen, auch wenn sie noch lädt
+        awaitLoads(list, fxTasks);
+        assertEquals(1, updates.size());
+        assertEquals(200, updates.getFirst()[0]);
+        assertEquals(300, updates.getFirst()[1]);
+        assertEquals("Buch 250", list.get(250).getTitle());
+        assertEquals(List.of(200), source.reads);
+        assertEquals(1, list.getPageMisses());
+
+        // Die letzte Seite ist kürzer; die Meldung endet beim letzten Buch
+        list.get(1_049);
+        awaitLoads(list, fxTasks);
+        assertEquals(1_000, updates.get(1)[0]);
+        assertEquals(1_050, updates.get(1)[1]);
+        assertEquals("Buch 1049", list.get(1_049).getTitle());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1_050));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+        list.close();
+        assertTrue(source.closed);
+    }
+
+    @Test
+    void prefetchesNeighbouringPagesWithoutUpdates() throws InterruptedException {
+        CountingSource source = new CountingSource(2_000);
+        ConcurrentLinkedQueue<Runnable> fxTasks = new ConcurrentLinkedQueue<>();
+        PagedBookList list = new PagedBookList(source, 100, 2, 10, fxTasks::add);
+        List<Integer> updatedRows = new ArrayList<>();
+        list.addListener((ListChangeListener<Book>) change -> {
+            while (change.next()) {
+                if (change.wasUpdated()) updatedRows.add(change.getFrom());
+            }
+        });
+
+        list.get(550);
+        awaitLoads(list, fxTasks);
+        for (int page = 3; page <= 7; page++) {
+            assertTrue(list.isPageCached(page), "page " + page);
+        }
+        assertFalse(list.isPageCached(2));
+        assertFalse(list.isPageCached(8));
+        assertEquals(4, list.getPagesPrefetched());
+        assertEquals(List.of(500), updatedRows); // Nur die angezeigte Seite wird gemeldet
+
+        // Scrollen in eine vorgeladene Seite: kein Platzhalter, nur die neuen Nachbarseiten werden gelesen
+        assertEquals("Buch 650", list.get(650).getTitle());
+        awaitLoads(list, fxTasks);
+        assertEquals(1, list.getPageMisses());
+        assertTrue(list.isPageCached(8));
+        assertEquals(6, source.reads.size());
+
+        // Am Anfang der Liste gibt es keine Seiten davor
+        list.get(0);
+        awaitLoads(list, fxTasks);
+        assertFalse(source.reads.contains(-100));
+        list.close();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedPages() throws InterruptedException {
+        CountingSource source = new CountingSource(1_000);
+        ConcurrentLinkedQueue<Runnable> fxTasks = new ConcurrentLinkedQueue<>();
+        PagedBookList list = new PagedBookList(source, 100, 0, 3, fxTasks::add);
+
+        for (int page : new int[]{0, 1, 2}) {
+            list.get(page * 100);
+            awaitLoads(list, fxTasks);
+        }
+        assertEquals(3, list.getCachedPageCount());
+        assertEquals("Buch 0", list.get(0).getTitle()); // Seite 0 ist wieder die zuletzt benutzte
+
+        list.get(300); // Verdrängt Seite 1, die am längsten nicht benutzt wurde
+        awaitLoads(list, fxTasks);
+        assertEquals(3, list.getCachedPageCount());
+        assertTrue(list.isPageCached(0));
+        assertFalse(list.isPageCached(1));
+        assertTrue(list.isPageCached(2));
+        assertTrue(list.isPageCached(3));
+
+        assertNull(list.get(150).getTitle()); // Verdrängte Seite wird erneut gelesen
+        awaitLoads(list, fxTasks);
+        assertEquals("Buch 150", list.get(150).getTitle());
+        assertEquals(List.of(0, 100, 200, 300, 100), source.reads);
+        assertEquals(5, list.getPageMisses());
+        list.close();
+    }
+
+    @Test
+    void closedListIgnoresLateLoads() throws InterruptedException {
+        CountingSource source = new CountingSource(500);
+        ConcurrentLinkedQueue<Runnable> fxTasks = new ConcurrentLinkedQueue<>();
+        PagedBookList list = new PagedBookList(source, 100, 1, 10, fxTasks::add);
+        List<ListChangeListener.Change<? extends Book>> changes = new ArrayList<>();
+        list.addListener((ListChangeListener<Book>) changes::add);
+
+        list.get(0);
+        awaitIdle(list);
+        list.close();
+        assertEquals(1, fxTasks.size());
+        fxTasks.forEach(Runnable::run); // Die Meldung kommt erst nach dem Schließen an
+        assertTrue(changes.isEmpty());
+        list.get(300); // Nach dem Schließen wird nichts mehr geladen
+        assertFalse(list.isLoading());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+// Tests für die Stempel je Sammlung in books.db und das Erkennen von Änderungen anderer Programme
+class PagedCollectionStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static Book book(String title, long isbn) {
+        return new Book(title, "Vorname", "Nachname", "Roman", 2000, isbn);
+    }
+
+    @Test
+    void writesChangeOnlyTheStampOfTheirCollection() throws IOException {
+        try (PagedCollectionStore store = new PagedCollectionStore(directory.toString())) {
+            store.saveBooks("a", List.of(book("A1", 1)), () -> { });
+            store.saveBooks("b", List.of(book("B1", 2)), () -> { });
+            long stampA = store.getStamp("a");
+            long stampB = store.getStamp("b");
+            long namesStamp = store.getCollectionNamesStamp();
+
+            store.bookAdded("a", book("A2", 3));
+            assertNotEquals(stampA, store.getStamp("a"));
+            assertEquals(stampB, store.getStamp("b"));
+            assertEquals(namesStamp, store.getCollectionNamesStamp());
+
+            stampA = store.getStamp("a");
+            store.bookUpdated("b", 0, book("B1 neu", 2));
+            store.bookRemoved("b", 0);
+            assertEquals(stampA, store.getStamp("a"));
+            assertNotEquals(stampB, store.getStamp("b"));
+
+            store.saveCollectionNames(List.of("a", "b"));
+            assertNotEquals(namesStamp, store.getCollectionNamesStamp());
+        }
+    }
+
+    @Test
+    void recreatedCollectionGetsNewStamp() throws IOException {
+        try (PagedCollectionStore store = new PagedCollectionStore(directory.toString())) {
+            store.saveBooks("a", List.of(book("A1", 1)), () -> { });
+            long stamp = store.getStamp("a");
+            store.delete("a");
+            assertEquals(0, store.getStamp("a"));
+            store.saveBooks("a", List.of(book("A1", 1)), () -> { });
+            assertNotEquals(stamp, store.getStamp("a"));
+
+            stamp = store.getStamp("a");
+            store.rename("a", "c");
+            assertEquals(0, store.getStamp("a"));
+            assertNotEquals(stamp, store.getStamp("c"));
+        }
+    }
+
+    // Eine zweite Instanz auf derselben Datei steht für ein anderes Programm, das books.db ändert
+    @Test
+    void reloadReportsOnlyExternallyChangedCollections() throws IOException {
+        try (PagedCollectionStore store = new PagedCollectionStore(directory.toString())) {
+            store.saveBooks("a", List.of(book("A1", 1)), () -> { });
+            store.saveBooks("b", List.of(book("B1", 2)), () -> { });
+            assertEquals(Set.of(), store.reloadExternalChanges()); // Eigene Schreibvorgänge
+
+            try (PagedCollectionStore other = new PagedCollectionStore(directory.toString())) {
+                other.bookAdded("b", book("B2", 4));
+                other.saveBooks("new", List.of(book("N1", 5)), () -> { });
+            }
+            assertEquals(Set.of("b", "new"), store.reloadExternalChanges());
+            assertEquals(2, store.loadCollection("b", null).getBooks().size());
+            assertEquals(Set.of(), store.reloadExternalChanges());
+
+            // Die Zuordnung Position -> Zeilennummer wurde neu ermittelt
+            store.bookRemoved("b", 1);
+            assertEquals(List.of("B1"), store.loadCollection("b", null).getBooks().stream().map(Book::getTitle).toList());
+        }
+    }
+}
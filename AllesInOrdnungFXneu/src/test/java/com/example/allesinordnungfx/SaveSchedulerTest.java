@@ -0,0 +1,114 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für das gebündelte Speichern: Zusammenfassen je Sammlung, Group Commit und Fehler einzelner Aufträge
+class SaveSchedulerTest {
+
+    private static final long LONG_WINDOW_MILLIS = 60_000; // Das Zeitfenster läuft im Test nie ab, geschrieben wird per flush()
+
+    @TempDir
+    Path directory;
+
+    // Auftrag, der den Text in die Datei "<name>.txt" schreibt und danach in "log" festhält, welche Dateien es gibt
+    private SaveScheduler.SaveTask write(String name, String text, List<String> log) {
+        File target = directory.resolve(name + ".txt").toFile();
+        return batch -> batch.stage(target, writer -> writer.write(text),
+                () -> log.add(name + " committed, files: " + existingFiles()));
+    }
+
+    private List<String> existingFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).filter(name -> !name.startsWith(".")).sorted().toList();
+        }
+    }
+
+    @Test
+    void coalescesSavesOfTheSameCollection() throws IOException {
+        SaveScheduler scheduler = new SaveScheduler(LONG_WINDOW_MILLIS);
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        scheduler.schedule("krimi", write("krimi", "1", log));
+        scheduler.schedule("krimi", write("krimi", "2", log));
+        scheduler.schedule("fantasy", write("fantasy", "a", log));
+        scheduler.schedule("krimi", write("krimi", "3", log));
+        assertTrue(scheduler.isPending("krimi"));
+        assertFalse(Files.exists(directory.resolve("krimi.txt"))); // Noch nichts geschrieben
+
+        scheduler.flush();
+        assertFalse(scheduler.isPending("krimi"));
+        assertEquals("3", Files.readString(directory.resolve("krimi.txt"), StandardCharsets.UTF_8)); // Nur der letzte Stand
+        assertEquals(4, scheduler.getRequestedSaves());
+        assertEquals(2, scheduler.getCoalescedWrites());
+        assertEquals(2, scheduler.getCompletedWrites());
+        assertEquals(1, scheduler.getFlushCount());
+        assertEquals(2, log.size());
+
+        // flush(key) schreibt nur diese Sammlung, discard() verwirft den Auftrag
+        scheduler.schedule("krimi", write("krimi", "4", log));
+        scheduler.schedule("fantasy", write("fantasy", "b", log));
+        scheduler.flush("krimi");
+        assertEquals("4", Files.readString(directory.resolve("krimi.txt"), StandardCharsets.UTF_8));
+        assertTrue(scheduler.isPending("fantasy"));
+        scheduler.discard("fantasy");
+        scheduler.shutdown();
+        assertEquals("a", Files.readString(directory.resolve("fantasy.txt"), StandardCharsets.UTF_8));
+
+        // Nach dem Herunterfahren wird sofort geschrieben
+        scheduler.schedule("fantasy", write("fantasy", "c", log));
+        assertEquals("c", Files.readString(directory.resolve("fantasy.txt"), StandardCharsets.UTF_8));
+    }
+
+    // Im Group-Commit-Modus werden erst alle Dateien eines Flushes umbenannt, dann die CommitActions ausgeführt
+    @Test
+    void groupCommitRenamesAllFilesBeforeCommitActions() {
+        SaveScheduler scheduler = new SaveScheduler(LONG_WINDOW_MILLIS);
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        scheduler.schedule("a", write("a", "1", log));
+        scheduler.schedule("b", write("b", "1", log));
+        scheduler.flush();
+        assertEquals(List.of("a committed, files: [a.txt, b.txt]", "b committed, files: [a.txt, b.txt]"), log);
+        scheduler.shutdown();
+    }
+
+    @Test
+    void withoutGroupCommitEachTaskIsCommittedOnItsOwn() {
+        SaveScheduler scheduler = new SaveScheduler(LONG_WINDOW_MILLIS);
+        scheduler.setGroupCommit(false);
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        scheduler.schedule("a", write("a", "1", log));
+        scheduler.schedule("b", write("b", "1", log));
+        scheduler.flush();
+        assertEquals(List.of("a committed, files: [a.txt]", "b committed, files: [a.txt, b.txt]"), log);
+        scheduler.shutdown();
+    }
+
+    // Ein fehlerhafter Auftrag verhindert die übrigen Aufträge desselben Flushes nicht
+    @Test
+    void failingTaskDoesNotStopOtherTasks() throws IOException {
+        SaveScheduler scheduler = new SaveScheduler(LONG_WINDOW_MILLIS);
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        scheduler.schedule("a", batch -> {
+            throw new IOException("disk full");
+        });
+        scheduler.schedule("b", write("b", "1", log));
+        scheduler.flush();
+        assertEquals("1", Files.readString(directory.resolve("b.txt"), StandardCharsets.UTF_8));
+        assertEquals(2, scheduler.getCompletedWrites());
+        assertEquals(List.of("b.txt"), existingFiles());
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für den Trigramm-Index: dieselben Treffer wie contains() je Feld, auch an Feldgrenzen, bei kurzen Suchbegriffen und nach Änderungen
+class TrigramIndexTest {
+
+    private static final String[] WORDS = {"Straße", "Müller", "Café", "Potter", "Otter", "Herr", "Ringe", "aaaa",
+            "Grosse", "Größe", "Élan", "der", "Tolkien", "Joanne", "Rowling"};
+
+    // contains() auf den normalisierten Feldern, wie search() es ohne Index prüfen würde
+    private static BitSet bruteForce(List<Book> books, String keyword) {
+        String lowerKeyword = Book.normalize(keyword);
+        BitSet matches = new BitSet();
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            for (String field : new String[]{book.getTitle(), book.getFirstName(), book.getLastName(), book.getGenre(),
+                    String.valueOf(book.getPublicationYear()), String.valueOf(book.getIsbn())}) {
+                if (Book.normalize(field).contains(lowerKeyword)) {
+                    matches.set(i);
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) text.append(' ');
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    // Ein Suchbegriff über die Grenze zweier Felder hinweg darf nicht passen, obwohl das Buch alle Trigramme enthält
+    @Test
+    void doesNotMatchAcrossFieldBoundaries() {
+        TrigramIndex index = new TrigramIndex();
+        Book book = new Book("Harry Potter", "Joanne", "Rowling", "Fantasy", 1997, 9_783_551_551_672L);
+        Book nana = new Book("Anna Nana", "Anna", "Nana", "Roman", 2001, 1L);
+        index.rebuild(List.of(book, nana));
+
+        assertEquals(1, index.find("potter").cardinality());
+        assertTrue(index.find("potterjoanne").isEmpty());
+        assertTrue(index.find("potter joanne").isEmpty());
+        assertTrue(index.find("annana").isEmpty()); // Alle Trigramme in "Anna Nana" vorhanden, aber nicht zusammenhängend
+        assertEquals(1, index.estimate("annana"));
+        assertEquals("{1}", index.find("na na").toString());
+        assertEquals(1, index.find("1997").cardinality());
+        assertEquals(1, index.find("551551").cardinality());
+        assertEquals("{0}", index.find("y").toString()); // Kürzer als ein Trigramm: direkt geprüft
+        assertTrue(index.find("xyz").isEmpty());
+        assertEquals(0, index.estimate("xyz"));
+    }
+
+    @Test
+    void foldsUmlautsSharpSAndAccents() {
+        TrigramIndex index = new TrigramIndex();
+        List<Book> books = List.of(new Book("Die Straße", "Anna", "Müller", "Roman", 2000, 1L),
+                new Book("Grosse Größe", "Émile", "Zola", "Roman", 1880, 2L),
+                new Book("Im Café", "Hans", "Mueller", "Krimi", 1990, 3L));
+        index.rebuild(books);
+
+        assertEquals("{0}", index.find("STRASSE").toString());
+        assertEquals("{0}", index.find("straße").toString());
+        assertEquals("{0, 2}", index.find("müller").toString());
+        assertEquals("{0, 2}", index.find("mueller").toString());
+        assertEquals("{1}", index.find("emile").toString());
+        assertEquals("{1}", index.find("grösse").toString());
+        assertEquals("{2}", index.find("cafe").toString());
+    }
+
+    // Zufällige Sammlung mit vielen Kandidaten (Schnittmengen und Prüfschritt), danach Änderungen über den Index
+    @Test
+    void matchesContainsOnRandomBooks() {
+        Random random = new Random(7);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 1_500; i++) {
+            books.add(new Book(words(random, 1 + random.nextInt(3)), words(random, 1), words(random, 1), words(random, 1),
+                    1900 + random.nextInt(125), 9_780_000_000_000L + random.nextInt(1_000_000)));
+        }
+        TrigramIndex index = new TrigramIndex();
+        index.rebuild(books);
+
+        List<String> keywords = new ArrayList<>(List.of("aaa", "aaaa", "aaaaa", "er", "e", "", "otter", "ott", "STRASSE",
+                "raße r", "ueller", "ee", "19", "978000", "ller str", "xyz"));
+        for (int i = 0; i < 40; i++) {
+            String word = Book.normalize(WORDS[random.nextInt(WORDS.length)]);
+            int start = random.nextInt(word.length());
+            keywords.add(word.substring(start, start + 1 + random.nextInt(word.length() - start)));
+        }
+        for (String keyword : keywords) {
+            assertEquals(bruteForce(books, keyword), index.find(keyword), keyword);
+        }
+
+        // Bearbeiten: Das Buch wird mit dem eingetragenen (alten) Stand entfernt und mit dem neuen eingetragen
+        for (int i = 0; i < 200; i++) {
+            int ordinal = random.nextInt(books.size());
+            Book book = books.get(ordinal);
+            book.setTitle(words(random, 2));
+            book.setIsbn(9_780_000_000_000L + random.nextInt(1_000_000));
+            index.bookChanged(book, ordinal);
+        }
+        for (String keyword : keywords) {
+            assertEquals(bruteForce(books, keyword), index.find(keyword), keyword);
+        }
+    }
+}
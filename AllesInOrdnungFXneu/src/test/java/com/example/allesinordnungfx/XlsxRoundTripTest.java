@@ -0,0 +1,131 @@
+package com.example.allesinordnungfx;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für Xlsx-Export und -Import: Schreiben und wieder Lesen, große ISBNs, umsortierte Spalten und fehlende Kopfzeile
+class XlsxRoundTripTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<Book> read(Path file) throws IOException {
+        List<Book> books = new ArrayList<>();
+        assertEquals(new XlsxBookReader().read(file, books::add), books.size());
+        return books;
+    }
+
+    // Legt ein Tabellenblatt mit den angegebenen Zeilen an (Zahlen als Zahl, alles andere als Text)
+    private Path writeSheet(String name, Object[]... rows) throws IOException {
+        Path file = directory.resolve(name);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Books");
+            for (int r = 0; r < rows.length; r++) {
+                Row row = sheet.createRow(r);
+                for (int c = 0; c < rows[r].length; c++) {
+                    if (rows[r][c] instanceof Number number) {
+                        row.createCell(c).setCellValue(number.doubleValue());
+                    } else if (rows[r][c] != null) {
+                        row.createCell(c).setCellValue(String.valueOf(rows[r][c]));
+                    }
+                }
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+
+    @Test
+    void roundTripKeepsAllFields() throws IOException {
+        Book large = new Book("Über den Fluss", "Ägidius", "Müller", "Roman", 1999, 9_007_199_254_740_993L); // ISBN über 2^53
+        large.setRead(true);
+        large.setRating("5");
+        large.setComment("Geliehen, \"mit\" Anführungszeichen");
+        Book normal = new Book("Momo", "Michael", "Ende", "Fantasy", 1973, 9_783_522_202_107L);
+        Book maximum = new Book("Max", "", "", "", 0, Long.MAX_VALUE);
+        List<Book> books = new ArrayList<>(List.of(large, normal, maximum));
+        for (int i = 0; i < 250; i++) { // Mehr Zeilen als das Fenster, damit ausgelagert wird
+            books.add(new Book("Titel " + i, "Vorname", "Nachname", "Krimi", 2000, 9_783_000_000_000L + i));
+        }
+
+        Path file = directory.resolve("books.xlsx");
+        try (XlsxBookWriter writer = new XlsxBookWriter(10, true)) {
+            writer.writeBooks(books);
+            writer.save(file);
+        }
+        List<Book> read = read(file);
+        assertEquals(books.size(), read.size());
+        for (int i = 0; i < books.size(); i++) {
+            assertTrue(books.get(i).hasSameContent(read.get(i)), books.get(i).getTitle());
+        }
+        assertEquals(9_007_199_254_740_993L, read.getFirst().getIsbn());
+        assertEquals(Long.MAX_VALUE, read.get(2).getIsbn());
+        assertFalse(read.get(1).isRead());
+    }
+
+    // Umsortierte Spalten, unbekannte Spalte, fehlende Spalten und Überschriften in anderer Schreibweise
+    @Test
+    void mapsReorderedHeaders() throws IOException {
+        Path file = writeSheet("reordered.xlsx",
+                new Object[]{"ISBN", "Notiz", " last name ", "TITLE", "Read", "Year", "Rating"},
+                new Object[]{"978-3-16-148410-0", "ignoriert", "Ende", "Momo", "ja", 1973, "4"},
+                new Object[]{"9007199254740993", null, "Zola", "Germinal", "x", "1885", null},
+                new Object[]{null, null, null, null, null, null, null}, // Leere Zeile
+                new Object[]{9_783_551_551_672L, "", "", "Harry Potter", "no", 1997.0, ""});
+
+        List<Book> books = read(file);
+        assertEquals(3, books.size());
+        Book momo = books.getFirst();
+        assertEquals("Momo", momo.getTitle());
+        assertEquals("", momo.getFirstName()); // Fehlende Spalte
+        assertEquals("Ende", momo.getLastName());
+        assertEquals("", momo.getGenre());
+        assertEquals(1973, momo.getPublicationYear());
+        assertEquals(9_783_161_484_100L, momo.getIsbn()); // Text auf die Ziffern reduziert
+        assertTrue(momo.isRead());
+        assertEquals("4", momo.getRating());
+        assertEquals("", momo.getComment());
+
+        assertEquals(9_007_199_254_740_993L, books.get(1).getIsbn()); // Als Text gespeichert: ohne Rundung
+        assertEquals(1885, books.get(1).getPublicationYear());
+        assertTrue(books.get(1).isRead());
+        assertEquals(9_783_551_551_672L, books.get(2).getIsbn());
+        assertEquals(1997, books.get(2).getPublicationYear());
+        assertFalse(books.get(2).isRead());
+    }
+
+    // Ohne Kopfzeile ist schon die erste Zeile ein Buch in der Spaltenreihenfolge des Exports
+    @Test
+    void readsHeaderlessFirstRowInExportOrder() throws IOException {
+        Path file = writeSheet("headerless.xlsx",
+                new Object[]{"Momo", "Michael", "Ende", "Fantasy", 1973, 9_783_522_202_107L, "true", "5", "Lieblingsbuch"},
+                new Object[]{"Es", "Stephen", "King", "Horror", 1986, "9783453435773", "1"});
+
+        List<Book> books = read(file);
+        assertEquals(2, books.size());
+        Book momo = new Book("Momo", "Michael", "Ende", "Fantasy", 1973, 9_783_522_202_107L);
+        momo.setRead(true);
+        momo.setRating("5");
+        momo.setComment("Lieblingsbuch");
+        assertTrue(momo.hasSameContent(books.getFirst()));
+        Book es = new Book("Es", "Stephen", "King", "Horror", 1986, 9_783_453_435_773L);
+        es.setRead(true);
+        es.setRating("");
+        es.setComment("");
+        assertTrue(es.hasSameContent(books.get(1)));
+    }
+}
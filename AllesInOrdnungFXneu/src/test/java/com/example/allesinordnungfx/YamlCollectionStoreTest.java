@@ -0,0 +1,84 @@
+package com.example.allesinordnungfx;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests für das Laden aus YAML-Dateien: Fehlerhafte Dateien dürfen nie als unvollständige Sammlung zurückkommen
+class YamlCollectionStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Book book = new Book("Titel " + i, "Vorname", "Nachname", "Roman", 2000, i);
+            book.setComment("'Zitat' von Buch " + i); // Beginnt mit ', wird daher in Anführungszeichen geschrieben
+            books.add(book);
+        }
+        return books;
+    }
+
+    // Schreibt die Sammlung und schneidet die YAML-Datei mitten im Kommentar des Buchs "Titel <index>" ab.
+    // Endet die Datei innerhalb eines Werts in Anführungszeichen, kann der Parser das Abschneiden erkennen.
+    private void writeTruncated(SaveScheduler scheduler, YamlCollectionStore store, int index) throws IOException {
+        scheduler.schedule("krimi", store.saveBooks("krimi", books(10), () -> { }));
+        scheduler.flush();
+        Files.delete(directory.resolve("krimi.snapshot")); // Sonst würde der Snapshot statt der YAML-Datei gelesen
+        Path file = directory.resolve("krimi.yaml");
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        int cut = content.indexOf("von Buch " + index);
+        assertTrue(cut > 0, content);
+        Files.writeString(file, content.substring(0, cut), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void truncatedYamlThrowsInsteadOfReturningPartialCollection() throws IOException {
+        SaveScheduler scheduler = new SaveScheduler(0);
+        YamlCollectionStore store = new YamlCollectionStore(directory.toString(), scheduler);
+        writeTruncated(scheduler, store, 6);
+
+        List<Book> passed = new ArrayList<>();
+        assertThrows(RuntimeException.class, () -> store.loadCollection("krimi", passed::add));
+        assertEquals(6, passed.size()); // Die Bücher davor wurden gelesen, aber nicht als Sammlung zurückgegeben
+        scheduler.flush();
+        assertFalse(Files.exists(directory.resolve("krimi.snapshot"))); // Kein Snapshot des unvollständigen Stands
+        scheduler.shutdown();
+    }
+
+    @Test
+    void failedLoadIsNotCached() throws IOException {
+        CollectionManager manager = new CollectionManager(directory.toString());
+        manager.addNewCollection("krimi", directory.toString());
+        Collection krimi = manager.loadBooksForCollection("krimi");
+        krimi.setBooks(books(10));
+        manager.saveBooksForCollection(krimi);
+        manager.shutdown();
+
+        SaveScheduler scheduler = new SaveScheduler(0);
+        writeTruncated(scheduler, new YamlCollectionStore(directory.toString(), scheduler), 3);
+        scheduler.shutdown();
+        long length = Files.size(directory.resolve("krimi.yaml"));
+
+        CollectionManager reopened = new CollectionManager(directory.toString());
+        reopened.loadCollectionNames();
+        assertThrows(RuntimeException.class, () -> reopened.loadBooksForCollection("krimi"));
+        assertFalse(reopened.getCollectionCache().isCached("krimi"));
+        assertThrows(RuntimeException.class, () -> reopened.loadBooksForCollection("krimi")); // Auch beim zweiten Mal
+        reopened.shutdown();
+        assertEquals(length, Files.size(directory.resolve("krimi.yaml"))); // Die Datei bleibt unverändert
+        assertFalse(Files.exists(directory.resolve("krimi.snapshot")));
+    }
+}